@@ -21,8 +21,9 @@ import water.util.FrameUtils;
  */
 public abstract class FrameTask2<T extends FrameTask2<T>> extends MRTask<T> {
   protected boolean _sparse;
-  final Key     _jobKey;
+  protected final Key _jobKey;
   protected final DataInfo _dinfo;
+  protected int _skipChunks; // Leading chunks which are not processed, e.g. already summarized data
 
   public FrameTask2(H2OCountedCompleter cmp, DataInfo dinfo, Key jobKey){
     super(cmp);
@@ -32,6 +33,7 @@ public abstract class FrameTask2<T extends FrameTask2<T>> extends MRTask<T> {
   }
 
   public T setSparse(boolean b) { _sparse = b; return self();}
+  public T setSkipChunks(int n) { _skipChunks = n; return self();}
 
   /**
    * Initialization method, called once per "chunk".
@@ -53,6 +55,7 @@ public abstract class FrameTask2<T extends FrameTask2<T>> extends MRTask<T> {
   public void map(Chunk[] chks) {
     if(_jobKey != null && (DKV.get(_jobKey) == null || !Job.isRunning(_jobKey)))
       throw new Job.JobCancelledException();
+    if(chks[0].cidx() < _skipChunks) return; // neither chunkInit nor chunkDone, reduce must cope with empty results
     chunkInit();
     // compute
     if(_sparse) {
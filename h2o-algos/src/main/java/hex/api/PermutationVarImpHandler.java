@@ -0,0 +1,32 @@
+package hex.api;
+
+import hex.Model;
+import hex.VarImp;
+import hex.schemas.PermutationVarImpV99;
+import hex.tree.SharedTreeModel;
+import water.DKV;
+import water.api.Handler;
+import water.exceptions.H2OIllegalArgumentException;
+import water.exceptions.H2OKeyNotFoundArgumentException;
+import water.fvec.Frame;
+
+/** Computes the permutation variable importance of a tree model on a frame,
+ *  see {@link SharedTreeModel#permutationVarImp}. */
+public class PermutationVarImpHandler extends Handler {
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public PermutationVarImpV99 compute(int version, PermutationVarImpV99 args) {
+    if (null == args.model || null == args.model.key()) throw new H2OIllegalArgumentException("model", "compute", String.valueOf(args.model));
+    if (null == args.frame || null == args.frame.key()) throw new H2OIllegalArgumentException("frame", "compute", String.valueOf(args.frame));
+    Model model = DKV.getGet(args.model.key());
+    if (model == null) throw new H2OKeyNotFoundArgumentException("model", args.model.key().toString());
+    if (!(model instanceof SharedTreeModel)) throw new H2OIllegalArgumentException("model", "compute", args.model.key());
+    Frame frame = DKV.getGet(args.frame.key());
+    if (frame == null) throw new H2OKeyNotFoundArgumentException("frame", args.frame.key().toString());
+
+    VarImp vi = ((SharedTreeModel) model).permutationVarImp(frame, args.seed);
+    args.names = vi._names;
+    args.importances = new double[vi._varimp.length];
+    for (int i = 0; i < vi._varimp.length; i++) args.importances[i] = vi._varimp[i];
+    return args;
+  }
+}
@@ -66,6 +66,10 @@ public class Register extends AbstractRegister {
     H2O.registerPOST("/99/Grid/svd", SVDGridSearchHandler.class, "train",                                                              "Run grid search for SVD model.");
     H2O.registerPOST("/99/Grid/naivebayes", NaiveBayesGridSearchHandler.class, "train",                                                "Run grid search for Naive Bayes model.");
 
+    H2O.registerPOST("/99/PermutationVarImp", PermutationVarImpHandler.class, "compute",                                            "Compute the permutation variable importance of a GBM or DRF model on a frame.");
+
+    H2O.registerGET("/99/Word2VecSynonyms", Word2VecSynonymsHandler.class, "findSynonyms",                                          "Find the synonyms of one or more words with a Word2Vec model.");
+
     // ModelBuilder.registerModelBuilder("word2vec", Word2Vec.class);
     // H2O.registerPOST("/3/ModelBuilders/word2vec", Word2VecBuilderHandler.class, "train",                                              "Train a Word2Vec model on the specified Frame.");
     // H2O.registerPOST("/3/ModelBuilders/word2vec/parameters", Word2VecBuilderHandler.class, "validate_parameters",                     "Validate a set of Word2Vec model builder parameters.");
@@ -0,0 +1,42 @@
+package hex.api;
+
+import hex.schemas.SynonymV3;
+import hex.word2vec.Word2VecModel;
+import hex.word2vec.WordVectorIndex;
+import water.DKV;
+import water.api.Handler;
+import water.exceptions.H2OIllegalArgumentException;
+import water.exceptions.H2OKeyNotFoundArgumentException;
+
+/** Finds synonyms of words with a Word2Vec model, using the node-local
+ *  word vector index of the model. */
+public class Word2VecSynonymsHandler extends Handler {
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public SynonymV3 findSynonyms(int version, SynonymV3 args) {
+    if (null == args.key || null == args.key.key()) throw new H2OIllegalArgumentException("key", "findSynonyms", args.key);
+    if (args.cnt <= 0) throw new H2OIllegalArgumentException("cnt", "findSynonyms", args.cnt);
+    Word2VecModel model = DKV.getGet(args.key.key());
+    if (model == null) throw new H2OKeyNotFoundArgumentException("key", args.key.key().toString());
+
+    String[] targets = args.targets;
+    if (targets == null) {
+      if (args.target == null) throw new H2OIllegalArgumentException("target", "findSynonyms", null);
+      targets = new String[]{args.target};
+    }
+    WordVectorIndex.Synonyms[] res = model.findSynonyms(targets, args.cnt);
+    if (args.targets == null) {
+      args.synonyms = res[0] == null ? new String[0] : res[0]._words;
+      args.cos_sim = res[0] == null ? new float[0] : res[0]._similarities;
+    } else {
+      args.batch_synonyms = new String[res.length][];
+      args.batch_cos_sim = new double[res.length][];
+      for (int i = 0; i < res.length; i++) {
+        if (res[i] == null) continue;
+        args.batch_synonyms[i] = res[i]._words;
+        args.batch_cos_sim[i] = new double[res[i]._similarities.length];
+        for (int j = 0; j < res[i]._similarities.length; j++) args.batch_cos_sim[i][j] = res[i]._similarities[j];
+      }
+    }
+    return args;
+  }
+}
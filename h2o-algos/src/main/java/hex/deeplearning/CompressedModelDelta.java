@@ -0,0 +1,310 @@
+package hex.deeplearning;
+
+import hex.deeplearning.DeepLearningParameters.ModelAveragingCompression;
+import water.AutoBuffer;
+import water.DKV;
+import water.H2O;
+import water.Iced;
+import water.Key;
+
+import java.util.Arrays;
+
+/**
+ * Compressed form of the arrays of a node's model while it is sent to another node for model averaging.
+ *
+ * All nodes start an iteration from the same model (the reference), so only the difference to the
+ * reference is sent, as half precision floats (FP16), as 8-bit integers with one scale per block of
+ * values (Int8), or as the largest values only (TopK). Whatever the compression loses is added to
+ * the next difference sent by the same node (error feedback), so no update is lost for good.
+ *
+ * The arrays averaged between nodes (see {@link DeepLearningModelInfo#averagedArrays()}) are taken
+ * out of the model when it is prepared for sending, and are only encoded once the model is
+ * actually serialized. A node that receives a model rebuilds the arrays from its own reference.
+ * A model that is the sum of <code>k</code> node models is sent as its difference to <code>k</code>
+ * times the reference.
+ */
+public class CompressedModelDelta extends Iced {
+  static final int BLOCK = 256; //values per scale for Int8
+
+  private ModelAveragingCompression _mode;
+  private int[] _lens;      //length of each averaged array
+  private int _k;           //number of node models summed up
+  // encoded difference to k times the reference
+  private byte[] _bytes;    //FP16: 2 bytes per value, Int8: 1 byte per value
+  private float[] _scales;  //Int8: one scale per block
+  private int[] _idx;       //TopK: positions
+  private float[] _vals;    //TopK: values
+
+  // sender only: the arrays taken out of the model, and this node's reference and error feedback
+  private transient Object[] _raws;
+  private transient Key _stateKey;
+  private transient double _topkFraction;
+
+  public CompressedModelDelta() {}
+
+  /**
+   * Take the averaged arrays out of a model, to be sent in compressed form
+   * @param minfo Model of this node
+   * @param k Number of node models summed up in minfo
+   */
+  CompressedModelDelta(DeepLearningModelInfo minfo, int k) {
+    _mode = minfo.get_params()._model_averaging_compression;
+    _k = k;
+    _stateKey = minfo.compressionStateKey(H2O.SELF);
+    _topkFraction = minfo.get_params()._model_averaging_topk_fraction;
+    Iced[] arrays = minfo.averagedArrays();
+    _lens = new int[arrays.length];
+    _raws = new Object[arrays.length];
+    for (int i = 0; i < arrays.length; ++i) {
+      if (arrays[i] instanceof Storage.DenseRowMatrix) {
+        Storage.DenseRowMatrix m = (Storage.DenseRowMatrix) arrays[i];
+        _raws[i] = m.raw();
+        _lens[i] = m.raw().length;
+        m.setRaw(null);
+      } else {
+        Storage.DenseVector v = (Storage.DenseVector) arrays[i];
+        _raws[i] = v.raw();
+        _lens[i] = v.raw().length;
+        v.setRaw(null);
+      }
+    }
+  }
+
+  /**
+   * Node-local state: the averaged arrays at the start of the iteration (the same on all nodes),
+   * and what the compression lost so far (error feedback)
+   */
+  static class State extends Iced {
+    float[] _ref;
+    float[] _residual;
+  }
+
+  /**
+   * Remember the model a node starts the iteration from (called on every node before training)
+   * @param minfo Model as received at the start of the iteration
+   */
+  static void startIteration(DeepLearningModelInfo minfo) {
+    final Key key = minfo.compressionStateKey(H2O.SELF);
+    State st = DKV.getGet(key);
+    final float[] ref = flatten(minfo.averagedArrays());
+    if (st == null) st = new State();
+    if (st._residual == null || st._residual.length != ref.length) st._residual = new float[ref.length];
+    st._ref = ref;
+    DKV.put(key, st);
+  }
+
+  /**
+   * Put the averaged arrays back into a model: the original arrays on the sending node,
+   * or the reference plus the decoded difference on a receiving node
+   * @param minfo Model to restore
+   */
+  void restore(DeepLearningModelInfo minfo) {
+    Iced[] arrays = minfo.averagedArrays();
+    assert (arrays.length == _lens.length);
+    if (_raws != null) {
+      for (int i = 0; i < arrays.length; ++i) setRaw(arrays[i], _raws[i]);
+      return;
+    }
+    final State st = DKV.getGet(minfo.compressionStateKey(H2O.SELF));
+    final float[] ref = st._ref;
+    final float[] delta = decode(ref.length);
+    int off = 0;
+    for (int i = 0; i < arrays.length; ++i) {
+      if (arrays[i] instanceof Storage.DenseRowMatrix) {
+        float[] a = new float[_lens[i]];
+        for (int j = 0; j < a.length; ++j) a[j] = _k * ref[off + j] + delta[off + j];
+        setRaw(arrays[i], a);
+      } else {
+        double[] a = new double[_lens[i]];
+        for (int j = 0; j < a.length; ++j) a[j] = _k * ref[off + j] + delta[off + j];
+        setRaw(arrays[i], a);
+      }
+      off += _lens[i];
+    }
+  }
+
+  private static void setRaw(Iced array, Object raw) {
+    if (array instanceof Storage.DenseRowMatrix) ((Storage.DenseRowMatrix) array).setRaw((float[]) raw);
+    else ((Storage.DenseVector) array).setRaw((double[]) raw);
+  }
+
+  // All values of the given arrays as one flat array
+  private static float[] flatten(Iced[] arrays) {
+    int n = 0;
+    for (Iced a : arrays)
+      n += a instanceof Storage.DenseRowMatrix ? ((Storage.DenseRowMatrix) a).raw().length : ((Storage.DenseVector) a).raw().length;
+    float[] flat = new float[n];
+    int off = 0;
+    for (Iced a : arrays) {
+      if (a instanceof Storage.DenseRowMatrix) {
+        float[] r = ((Storage.DenseRowMatrix) a).raw();
+        System.arraycopy(r, 0, flat, off, r.length);
+        off += r.length;
+      } else {
+        double[] r = ((Storage.DenseVector) a).raw();
+        for (int j = 0; j < r.length; ++j) flat[off++] = (float) r[j];
+      }
+    }
+    return flat;
+  }
+
+  /**
+   * Encode the difference of the taken out arrays to k times the reference, plus the earlier loss of this node,
+   * and keep what is lost now for the next time. Done only once, even if the model is serialized again.
+   */
+  private void encode() {
+    if (_raws == null || _bytes != null || _idx != null) return;
+    final State st = DKV.getGet(_stateKey);
+    final float[] ref = st._ref;
+    final float[] res = st._residual;
+    final float[] x = new float[ref.length];
+    int off = 0;
+    for (Object raw : _raws) {
+      if (raw instanceof float[]) {
+        float[] a = (float[]) raw;
+        for (int j = 0; j < a.length; ++j) x[off + j] = a[j] - _k * ref[off + j] + res[off + j];
+        off += a.length;
+      } else {
+        double[] a = (double[]) raw;
+        for (int j = 0; j < a.length; ++j) x[off + j] = (float) (a[j] - _k * ref[off + j]) + res[off + j];
+        off += a.length;
+      }
+    }
+    switch (_mode) {
+      case FP16:
+        _bytes = new byte[2 * x.length];
+        for (int i = 0; i < x.length; ++i) {
+          short h = toHalf(x[i]);
+          _bytes[2 * i] = (byte) (h >> 8);
+          _bytes[2 * i + 1] = (byte) h;
+          res[i] = x[i] - fromHalf(h);
+        }
+        break;
+      case Int8:
+        _bytes = new byte[x.length];
+        _scales = new float[(x.length + BLOCK - 1) / BLOCK];
+        for (int b = 0; b < _scales.length; ++b) {
+          final int lo = b * BLOCK, hi = Math.min(x.length, lo + BLOCK);
+          float max = 0;
+          for (int i = lo; i < hi; ++i) max = Math.max(max, Math.abs(x[i]));
+          final float scale = _scales[b] = max / 127;
+          for (int i = lo; i < hi; ++i) {
+            int q = scale == 0 ? 0 : Math.max(-127, Math.min(127, Math.round(x[i] / scale)));
+            _bytes[i] = (byte) q;
+            res[i] = x[i] - q * scale;
+          }
+        }
+        break;
+      case TopK:
+        final int nsend = (int) Math.max(1, Math.min(x.length, Math.ceil(x.length * _topkFraction)));
+        final float t = largestAbs(x, nsend);
+        _idx = new int[nsend];
+        _vals = new float[nsend];
+        int n = 0;
+        for (int i = 0; i < x.length && n < nsend; ++i) //strictly larger values first, then ties
+          if (Math.abs(x[i]) > t) { _idx[n] = i; _vals[n++] = x[i]; }
+        for (int i = 0; i < x.length && n < nsend; ++i)
+          if (Math.abs(x[i]) == t) { _idx[n] = i; _vals[n++] = x[i]; }
+        System.arraycopy(x, 0, res, 0, x.length);
+        for (int j = 0; j < n; ++j) res[_idx[j]] = 0;
+        if (n < nsend) { //only if there are NaNs
+          _idx = Arrays.copyOf(_idx, n);
+          _vals = Arrays.copyOf(_vals, n);
+        }
+        break;
+      default:
+        throw H2O.unimpl();
+    }
+    DKV.put(_stateKey, st);
+  }
+
+  // The decoded difference, as one flat array
+  private float[] decode(int n) {
+    final float[] d = new float[n];
+    switch (_mode) {
+      case FP16:
+        for (int i = 0; i < n; ++i) d[i] = fromHalf((short) ((_bytes[2 * i] << 8) | (_bytes[2 * i + 1] & 0xff)));
+        break;
+      case Int8:
+        for (int i = 0; i < n; ++i) d[i] = _bytes[i] * _scales[i / BLOCK];
+        break;
+      case TopK:
+        for (int j = 0; j < _idx.length; ++j) d[_idx[j]] = _vals[j];
+        break;
+      default:
+        throw H2O.unimpl();
+    }
+    return d;
+  }
+
+  @Override public AutoBuffer write_impl(AutoBuffer ab) {
+    encode();
+    ab.put1(_mode.ordinal()).putA4(_lens).put4(_k);
+    return ab.putA1(_bytes).putA4f(_scales).putA4(_idx).putA4f(_vals);
+  }
+
+  @Override public CompressedModelDelta read_impl(AutoBuffer ab) {
+    _mode = ModelAveragingCompression.values()[ab.get1()];
+    _lens = ab.getA4();
+    _k = ab.get4();
+    _bytes = ab.getA1();
+    _scales = ab.getA4f();
+    _idx = ab.getA4();
+    _vals = ab.getA4f();
+    return this;
+  }
+
+  /**
+   * @return The k-th largest absolute value of x (quickselect on a copy)
+   */
+  static float largestAbs(float[] x, int k) {
+    final float[] a = new float[x.length];
+    for (int i = 0; i < a.length; ++i) a[i] = Math.abs(x[i]);
+    final int target = a.length - k;
+    int lo = 0, hi = a.length - 1;
+    while (lo < hi) {
+      final float pivot = a[(lo + hi) >>> 1];
+      int i = lo, j = hi;
+      while (i <= j) {
+        while (a[i] < pivot) i++;
+        while (a[j] > pivot) j--;
+        if (i <= j) {
+          float tmp = a[i]; a[i] = a[j]; a[j] = tmp;
+          i++; j--;
+        }
+      }
+      if (target <= j) hi = j;
+      else if (target >= i) lo = i;
+      else break;
+    }
+    return a[target];
+  }
+
+  /**
+   * IEEE 754 half precision, rounded to nearest; values too large for half precision are saturated
+   */
+  static short toHalf(float f) {
+    final int bits = Float.floatToIntBits(f);
+    final int sign = (bits >>> 16) & 0x8000;
+    final int abs = bits & 0x7fffffff;
+    if (abs > 0x7f800000) return (short) (sign | 0x7e00); //NaN
+    final int val = abs + 0x1000; //round the 13 mantissa bits that are cut off
+    if (val >= 0x47800000) return (short) (sign | 0x7bff); //largest half: 65504
+    if (val >= 0x38800000) return (short) (sign | ((val - 0x38000000) >>> 13)); //normal
+    if (val < 0x33000000) return (short) sign; //too small even for a subnormal
+    final int exp = abs >>> 23; //subnormal
+    return (short) (sign | ((((abs & 0x7fffff) | 0x800000) + (0x800000 >>> (exp - 102))) >>> (126 - exp)));
+  }
+
+  static float fromHalf(short h) {
+    final int sign = (h & 0x8000) << 16;
+    final int exp = (h & 0x7c00) >>> 10;
+    final int mant = h & 0x3ff;
+    if (exp == 0x1f) return Float.intBitsToFloat(sign | 0x7f800000 | (mant << 13)); //Inf or NaN
+    if (exp == 0) { //zero or subnormal
+      float v = mant * 5.9604645e-8f; //2^-24
+      return sign == 0 ? v : -v;
+    }
+    return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mant << 13));
+  }
+}
@@ -112,6 +112,23 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningPar
 
   @Override protected void checkMemoryFootPrint() {
     if (_parms._checkpoint != null) return;
+    long model_size = numParameters();
+    if (model_size > 1e8) {
+      String msg = "Model is too large: " + model_size + " parameters. Try reducing the number of neurons in the hidden layers (or reduce the number of categorical factors).";
+      error("_hidden", msg);
+      cancel(msg);
+    }
+  }
+
+  /** Weights, biases and (with adaptive_rate) two more accumulators per
+   *  parameter, all floats, in one model replica per node. */
+  @Override public long memoryFootprint() {
+    if (_train == null || _parms._hidden == null || _parms._hidden.length == 0) return 0;
+    return numParameters() * 4 /*floats*/ * (_parms._adaptive_rate ? 3 : 1);
+  }
+
+  // Count of weights and biases in the network
+  private long numParameters() {
     long p = _train.degreesOfFreedom() - (_parms._autoencoder ? 0 : _train.lastVec().cardinality());
     String[][] dom = _train.domains();
     // hack: add the factor levels for the NAs
@@ -133,12 +150,7 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningPar
     for (layer=0; layer < _parms._hidden.length; ++layer)
       model_size += _parms._hidden[layer];
     model_size += output;
-
-    if (model_size > 1e8) {
-      String msg = "Model is too large: " + model_size + " parameters. Try reducing the number of neurons in the hidden layers (or reduce the number of categorical factors).";
-      error("_hidden", msg);
-      cancel(msg);
-    }
+    return model_size;
   }
 
   @Override
@@ -152,6 +164,9 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningPar
     }
   }
 
+  @Override
+  protected boolean crossValidationMainModelNeedsFolds() { return _parms._stopping_rounds > 0; }
+
   @Override
   public void modifyParmsForCrossValidationMainModel(int N, Key<Model>[] cvModelBuilderKeys) {
     super.modifyParmsForCrossValidationMainModel(N, cvModelBuilderKeys);
@@ -452,6 +467,8 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningPar
       finally {
         if (model != null) {
           model.deleteElasticAverageModels();
+          model.deleteCompressionStates();
+          model.deleteParameterServerShards(); //left behind if an iteration failed or was cancelled
           model.unlock(self());
           if (model.actual_best_model_key != null) {
             assert (model.actual_best_model_key != model._key);
@@ -590,7 +590,7 @@ public class DeepLearningModel extends Model<DeepLearningModel,DeepLearningParam
       if (get_params()._variable_importances) {
         if (!get_params()._quiet_mode) Log.info("Computing variable importances.");
         final float[] vi = model_info().computeVariableImportances();
-        err.variable_importances = new VarImp(vi, Arrays.copyOfRange(model_info().data_info().coefNames(), 0, vi.length));
+        err.variable_importances = new VarImp(vi, model_info().variableImportanceNames());
       }
 
       _timeLastScoreEnd = System.currentTimeMillis();
@@ -614,7 +614,7 @@ public class DeepLearningModel extends Model<DeepLearningModel,DeepLearningParam
         for (int i = 0; i < _output.weights.length; ++i) {
           Frame f = model_info.get_weights(i).toFrame(_output.weights[i]);
           if (i==0) {
-            f._names = model_info.data_info.coefNames();
+            f._names = model_info.inputNames();
             DKV.put(f);
           }
         }
@@ -1035,9 +1035,24 @@ public class DeepLearningModel extends Model<DeepLearningModel,DeepLearningParam
     }
     DKV.remove(model_info().data_info()._key);
     deleteElasticAverageModels();
+    deleteCompressionStates();
+    deleteParameterServerShards();
     super.delete();
   }
 
+  void deleteParameterServerShards() {
+    if (model_info().get_params()._parameter_server)
+      ParameterServer.remove(model_info().get_params()._model_id);
+  }
+
+  void deleteCompressionStates() {
+    if (model_info().get_params()._model_averaging_compression != DeepLearningParameters.ModelAveragingCompression.None) {
+      for (H2ONode node : H2O.CLOUD._memary) {
+        DKV.remove(model_info().compressionStateKey(node));
+      }
+    }
+  }
+
   void deleteElasticAverageModels() {
     if (model_info().get_params()._elastic_averaging) {
       DKV.remove(model_info().elasticAverageModelInfoKey());
@@ -1232,6 +1247,8 @@ public class DeepLearningModel extends Model<DeepLearningModel,DeepLearningParam
                                              CodeGeneratorPipeline fileCtx,
                                              final boolean verboseCode) {
     final DeepLearningParameters p = model_info.get_params();
+    if (p._embedding_dim > 0 && model_info().data_info()._cats > 0)
+      throw H2O.unimpl("Java code generation is not supported for categorical embeddings.");
     bodySb.i().p("java.util.Arrays.fill(preds,0);").nl();
     final int cats = model_info().data_info()._cats;
     final int nums = model_info().data_info()._nums;
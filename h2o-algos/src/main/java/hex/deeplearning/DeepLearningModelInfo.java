@@ -6,7 +6,9 @@ import water.*;
 import water.fvec.Frame;
 import water.util.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Random;
 
 
@@ -27,6 +29,7 @@ final public class DeepLearningModelInfo extends Iced {
   private Storage.DenseRowMatrix[] dense_row_weights; //one 2D weight matrix per layer (stored as a 1D array each)
   private Storage.DenseVector[] biases; //one 1D bias array per layer
   private Storage.DenseVector[] avg_activations; //one 1D array per hidden layer
+  private Storage.DenseRowMatrix embeddings; //one row per (hashed) categorical level, embedding_dim columns (null for one-hot encoding)
 
   // helpers for storing previous step deltas
   // Note: These two arrays *could* be made transient and then initialized freshly in makeNeurons() and in DeepLearningTask.initLocal()
@@ -37,15 +40,20 @@ final public class DeepLearningModelInfo extends Iced {
   // helpers for AdaDelta
   private Storage.DenseRowMatrix[] dense_row_ada_dx_g;
   private Storage.DenseVector[] biases_ada_dx_g;
+  private Storage.DenseRowMatrix embeddings_ada_dx_g;
 
   private boolean[] _saw_missing_cats;  // whether missing value was encountered for each categorical predictor - needed for varimp
 
+  // while this model is sent to another node for model averaging: the averaged arrays, in compressed form
+  private CompressedModelDelta _compressed;
+
   // compute model size (number of model parameters required for making predictions)
   // momenta are not counted here, but they are needed for model building
   public long size() {
     long siz = 0;
     for (Storage.DenseRowMatrix w : dense_row_weights) if (w != null) siz += w.size();
     for (Storage.Vector b : biases) siz += b.size();
+    if (embeddings != null) siz += embeddings.size();
     return siz;
   }
 
@@ -96,6 +104,14 @@ final public class DeepLearningModelInfo extends Iced {
     return biases_ada_dx_g[i];
   }
 
+  public final Storage.DenseRowMatrix get_embeddings() {
+    return embeddings;
+  }
+
+  public final Storage.DenseRowMatrix get_embeddings_ada_dx_g() {
+    return embeddings_ada_dx_g;
+  }
+
   //accessor to shared parameter defining avg activations
   public final Storage.DenseVector get_avg_activations(int i) {
     return avg_activations[i];
@@ -118,6 +134,8 @@ final public class DeepLearningModelInfo extends Iced {
   private double[] mean_weight;
   public double[] rms_weight;
   public double[] mean_a;
+  private double mean_embedding; // over the embedding table, if any
+  private double rms_embedding;
 
   private volatile boolean unstable = false;
   public boolean isUnstable() { return unstable; }
@@ -180,7 +198,9 @@ final public class DeepLearningModelInfo extends Iced {
     final int layers = get_params()._hidden.length;
     // units (# neurons for each layer)
     units = new int[layers + 2];
-    if (get_params()._max_categorical_features <= Integer.MAX_VALUE - dinfo._nums)
+    if (get_params()._embedding_dim > 0 && dinfo._cats > 0)
+      units[0] = dinfo._cats * get_params()._embedding_dim + dinfo._nums;
+    else if (get_params()._max_categorical_features <= Integer.MAX_VALUE - dinfo._nums)
       units[0] = Math.min(dinfo._nums + get_params()._max_categorical_features, num_input);
     else
       units[0] = num_input;
@@ -237,6 +257,10 @@ final public class DeepLearningModelInfo extends Iced {
     for (int i = 1; i <= layers; ++i)
       dense_row_weights[i] = new Storage.DenseRowMatrix(mult[i] * units[i + 1] /*rows*/, units[i] /*cols*/);
 
+    // embedding table (feeding the input layer), one row per categorical level, or per hash bucket
+    if (get_params()._embedding_dim > 0 && dinfo._cats > 0)
+      embeddings = new Storage.DenseRowMatrix(embeddingRows(), get_params()._embedding_dim);
+
     // biases (only for hidden layers and output layer)
     biases = new Storage.DenseVector[layers + 1];
     for (int i = 0; i <= layers; ++i)
@@ -296,9 +320,56 @@ final public class DeepLearningModelInfo extends Iced {
       for (int i = 0; i < biases_ada_dx_g.length; ++i) {
         biases_ada_dx_g[i] = new Storage.DenseVector(mult[i]*2* units[i + 1]);
       }
+      if (embeddings != null)
+        embeddings_ada_dx_g = new Storage.DenseRowMatrix(embeddings.rows(), 2 * embeddings.cols());
     }
   }
 
+  /**
+   * Number of rows of the embedding table: one per expanded categorical level, or
+   * max_categorical_features hash buckets if that is fewer
+   */
+  int embeddingRows() {
+    return Math.min(data_info.numStart(), get_params()._max_categorical_features);
+  }
+
+  /**
+   * Row of the embedding table for a horizontalized categorical value
+   * @param cat index of the categorical level among all expanded categorical levels
+   */
+  int embeddingRow(int cat) {
+    final int rows = embeddings.rows();
+    return rows < data_info.numStart() ? Neurons.Input.hashCategorical(cat, rows, get_params()._seed) : cat;
+  }
+
+  /**
+   * Names of the input neurons: the expanded predictors, or with embeddings
+   * one neuron per embedding dimension of each categorical column, then the numeric predictors
+   */
+  String[] inputNames() {
+    String[] coefnames = data_info.coefNames();
+    if (embeddings == null) return Arrays.copyOfRange(coefnames, 0, units[0]);
+    final int dim = embeddings.cols();
+    String[] names = new String[units[0]];
+    for (int c = 0; c < data_info._cats; ++c)
+      for (int k = 0; k < dim; ++k)
+        names[c * dim + k] = data_info._adaptedFrame._names[c] + ".E" + k;
+    System.arraycopy(coefnames, data_info.numStart(), names, data_info._cats * dim, data_info._nums);
+    return names;
+  }
+
+  /**
+   * Names of the features of {@link #computeVariableImportances()}: the input neurons,
+   * except that the embedding dimensions of a categorical column are reported as that column
+   */
+  String[] variableImportanceNames() {
+    if (embeddings == null) return inputNames();
+    String[] names = new String[data_info._cats + data_info._nums];
+    System.arraycopy(data_info._adaptedFrame._names, 0, names, 0, data_info._cats);
+    System.arraycopy(data_info.coefNames(), data_info.numStart(), names, data_info._cats, data_info._nums);
+    return names;
+  }
+
   /**
    * Create a summary table
    * @return TwoDimTable with the summary of the model
@@ -337,6 +408,10 @@ final public class DeepLearningModelInfo extends Iced {
 
       if (i == 0) {
         table.set(i, 3, neurons[i].params._input_dropout_ratio * 100);
+        if (embeddings != null) { // the embedding table feeds the input layer
+          table.set(i, 9, mean_embedding);
+          table.set(i, 10, rms_embedding);
+        }
         continue;
       } else if (i < neurons.length - 1) {
         if (neurons[i].params._hidden_dropout_ratios == null) {
@@ -439,6 +514,8 @@ final public class DeepLearningModelInfo extends Iced {
     for (int i = 0; i < dense_row_weights.length; ++i)
       ArrayUtils.add(get_weights(i).raw(), other.get_weights(i).raw());
     for (int i = 0; i < biases.length; ++i) ArrayUtils.add(biases[i].raw(), other.biases[i].raw());
+    if (embeddings != null)
+      ArrayUtils.add(embeddings.raw(), other.embeddings.raw());
     if (avg_activations != null)
       for (int i = 0; i < avg_activations.length; ++i)
         ArrayUtils.add(avg_activations[i].raw(), other.biases[i].raw());
@@ -454,10 +531,54 @@ final public class DeepLearningModelInfo extends Iced {
       for (int i = 0; i < dense_row_ada_dx_g.length; ++i) {
         ArrayUtils.add(get_ada_dx_g(i).raw(), other.get_ada_dx_g(i).raw());
       }
+      if (embeddings_ada_dx_g != null)
+        ArrayUtils.add(embeddings_ada_dx_g.raw(), other.embeddings_ada_dx_g.raw());
     }
     add_processed_local(other.get_processed_local());
   }
 
+  /**
+   * The arrays that add() and div() average between nodes, in a fixed order
+   * @return weights and biases (plus embeddings, average activations, momenta and ADADELTA helpers if present)
+   */
+  Iced[] averagedArrays() {
+    ArrayList<Iced> arrays = new ArrayList<>();
+    Collections.addAll(arrays, dense_row_weights);
+    Collections.addAll(arrays, biases);
+    if (embeddings != null) arrays.add(embeddings);
+    if (avg_activations != null) Collections.addAll(arrays, avg_activations);
+    if (has_momenta()) {
+      Collections.addAll(arrays, dense_row_weights_momenta);
+      Collections.addAll(arrays, biases_momenta);
+    }
+    if (adaDelta()) {
+      Collections.addAll(arrays, dense_row_ada_dx_g);
+      if (embeddings_ada_dx_g != null) arrays.add(embeddings_ada_dx_g);
+    }
+    return arrays.toArray(new Iced[arrays.size()]);
+  }
+
+  /**
+   * Prepare this node's model to be sent to another node for model averaging: the averaged arrays
+   * are taken out, and sent as compressed difference to the model at the start of the iteration
+   * @param k Number of node models summed up in this model
+   */
+  void compressForReduce(int k) {
+    assert (_compressed == null);
+    _compressed = new CompressedModelDelta(this, k);
+  }
+
+  /**
+   * Put the averaged arrays back after compressForReduce(), or rebuild them after receiving this model from another node
+   */
+  void decompress() {
+    if (_compressed == null) return;
+    _compressed.restore(this);
+    _compressed = null;
+  }
+
+  boolean isCompressed() { return _compressed != null; }
+
   /**
    * Multiply all weights/biases by a real-valued number
    * @param N multiplication factor
@@ -474,6 +595,8 @@ final public class DeepLearningModelInfo extends Iced {
     for (int i = 0; i < dense_row_weights.length; ++i)
       ArrayUtils.div(get_weights(i).raw(), (float)N);
     for (Storage.Vector bias : biases) ArrayUtils.div(bias.raw(), N);
+    if (embeddings != null)
+      ArrayUtils.div(embeddings.raw(), (float)N);
     if (avg_activations != null)
       for (Storage.Vector avgac : avg_activations)
         ArrayUtils.div(avgac.raw(), N);
@@ -486,6 +609,8 @@ final public class DeepLearningModelInfo extends Iced {
       for (int i = 0; i < dense_row_ada_dx_g.length; ++i) {
         ArrayUtils.div(get_ada_dx_g(i).raw(), (float)N);
       }
+      if (embeddings_ada_dx_g != null)
+        ArrayUtils.div(embeddings_ada_dx_g.raw(), (float)N);
     }
   }
 
@@ -517,6 +642,13 @@ final public class DeepLearningModelInfo extends Iced {
         }
       }
     }
+    if (embeddings != null) {
+      // same scale as the weights of a one-hot input feeding embedding_dim linear units
+      final Random rng = water.util.RandomUtils.getRNG(get_params()._seed + 0xE4BEDD1L);
+      final double range = Math.sqrt(6. / (1 + embeddings.cols()));
+      for (int i = 0; i < embeddings.raw().length; i++)
+        embeddings.raw()[i] = (float) uniformDist(rng, -range, range);
+    }
   }
 
   // TODO: Add "subset randomize" function
@@ -584,6 +716,18 @@ final public class DeepLearningModelInfo extends Iced {
     //normalize importances such that max(vi) = 1
     ArrayUtils.div(vi, ArrayUtils.maxValue(vi));
 
+    // report the embedding dimensions of each categorical column as one feature
+    if (embeddings != null) {
+      final int dim = embeddings.cols();
+      float[] vic = new float[data_info._cats + data_info._nums];
+      for (int c = 0; c < data_info._cats; ++c)
+        for (int k = 0; k < dim; ++k)
+          vic[c] += vi[c * dim + k];
+      System.arraycopy(vi, data_info._cats * dim, vic, data_info._cats, data_info._nums);
+      ArrayUtils.div(vic, ArrayUtils.maxValue(vic));
+      return vic;
+    }
+
     // zero out missing categorical variables if they were never seen
     if (_saw_missing_cats != null) {
       for (int i = 0; i < _saw_missing_cats.length; ++i) {
@@ -663,6 +807,21 @@ final public class DeepLearningModelInfo extends Iced {
           || Math.abs(mean_bias[y]) > bthresh
           || rms_bias[y] > bthresh;
     }
+
+    if (embeddings != null) {
+      final float[] e = embeddings.raw();
+      mean_embedding = rms_embedding = 0;
+      for (float v : e) mean_embedding += v;
+      mean_embedding /= e.length;
+      for (float v : e) {
+        final double de = v - mean_embedding;
+        rms_embedding += de * de;
+      }
+      rms_embedding = MathUtils.approxSqrt(rms_embedding / e.length);
+      unstable |= isNaN(mean_embedding) || isNaN(rms_embedding)
+          || Math.abs(mean_embedding) > 1e10
+          || rms_embedding > 1e10;
+    }
   }
 
   /**
@@ -679,6 +838,10 @@ final public class DeepLearningModelInfo extends Iced {
     for (double d : rms_weight) cs += (rng.nextDouble() * (d+123.23));
     for (double d : mean_rate) cs += (rng.nextDouble() * (d+123.23));
     for (double d : rms_rate) cs += (rng.nextDouble() * (d+123.23));
+    if (embeddings != null) {
+      cs += (rng.nextDouble() * (mean_embedding+123.23));
+      cs += (rng.nextDouble() * (rms_embedding+123.23));
+    }
     return Double.doubleToRawLongBits(cs);
   }
 
@@ -714,6 +877,10 @@ final public class DeepLearningModelInfo extends Iced {
     return Key.make(get_params()._model_id + ".node" + node.index(), (byte) 1 /*replica factor*/, (byte) 31 /*hidden user-key*/, true, node);
   }
 
+  public Key compressionStateKey(H2ONode node) {
+    return Key.make(get_params()._model_id + ".compression.node" + node.index(), (byte) 1 /*replica factor*/, (byte) 31 /*hidden user-key*/, true, node);
+  }
+
   public Key elasticAverageModelInfoKey() {
     return Key.make(get_params()._model_id + ".elasticaverage", (byte) 1 /*replica factor*/, (byte) 31 /*hidden user-key*/, true, H2O.CLOUD._memary[0]);
   }
@@ -381,6 +381,13 @@ public class DeepLearningParameters extends Model.Parameters {
    */
   public int _max_categorical_features = Integer.MAX_VALUE;
 
+  /**
+   * Learn a dense vector of this many values per categorical level (embedding) instead of one-hot
+   * encoding categorical predictors; 0 to disable. Each categorical column then feeds this many input
+   * neurons. Levels are looked up by index, or by hash if max_categorical_features limits the table size.
+   */
+  public int _embedding_dim = 0;
+
   /**
    * Force reproducibility on small data (will be slow - only uses 1 thread)
    */
@@ -392,10 +399,44 @@ public class DeepLearningParameters extends Model.Parameters {
   public double _elastic_averaging_moving_rate = 0.9;
   public double _elastic_averaging_regularization = 1e-3;
 
+  /**
+   * Asynchronous parameter server mode for multi-node operation with replicated training data:
+   * instead of averaging the models of all nodes at every reduce, nodes push their weight
+   * changes to the node owning each part (shard) of the model and pull the fresh weights
+   * on their own cadence, see {@link ParameterServer}.
+   */
+  public boolean _parameter_server = false;
+
+  /**
+   * Max. number of pushes a node may be ahead of the slowest node (parameter server mode)
+   */
+  public int _parameter_server_staleness = 2;
+
+  /**
+   * Number of training samples a node processes between synchronizations with the parameter server
+   */
+  public long _parameter_server_sync_samples = 10000;
+
+  /**
+   * Compression of the models sent between nodes for model averaging (with error feedback):
+   * half precision (FP16) or 8-bit (Int8) differences to the model at the start of the iteration,
+   * or only the largest differences (TopK)
+   */
+  public ModelAveragingCompression _model_averaging_compression = ModelAveragingCompression.None;
+
+  /**
+   * Fraction of the model differences sent with TopK compression
+   */
+  public double _model_averaging_topk_fraction = 0.01;
+
   // stochastic gradient descent: mini-batch size = 1
   // batch gradient descent: mini-batch size = # training rows
   public int _mini_batch_size = 1;
 
+  public enum ModelAveragingCompression {
+    None, FP16, Int8, TopK
+  }
+
   public enum MissingValuesHandling {
     Skip, MeanImputation
   }
@@ -592,6 +633,10 @@ public class DeepLearningParameters extends Model.Parameters {
       dl.error("_activation", "Maxout activation is not supported for auto-encoder.");
     if (_max_categorical_features < 1)
       dl.error("_max_categorical_features", "max_categorical_features must be at least 1.");
+    if (_embedding_dim < 0)
+      dl.error("_embedding_dim", "embedding_dim must be >= 0 (0 for one-hot encoding).");
+    if (_embedding_dim > 0 && _autoencoder)
+      dl.error("_embedding_dim", "Categorical embeddings are not supported for auto-encoder.");
     if (_col_major)
       dl.error("_col_major", "Deprecated: Column major data handling not supported anymore - not faster.");
     if (!_sparse && _col_major) {
@@ -600,6 +645,17 @@ public class DeepLearningParameters extends Model.Parameters {
     if (_sparse && _elastic_averaging) {
       dl.error("_elastic_averaging", "Cannot use elastic averaging for sparse data handling.");
     }
+    if (_model_averaging_compression != ModelAveragingCompression.None && _elastic_averaging) {
+      dl.error("_model_averaging_compression", "Cannot compress model averaging together with elastic averaging.");
+    }
+    if (_model_averaging_compression != ModelAveragingCompression.TopK) {
+      dl.hide("_model_averaging_topk_fraction", "TopK model averaging compression is required for this parameter.");
+    } else if (!(_model_averaging_topk_fraction > 0 && _model_averaging_topk_fraction <= 1)) {
+      dl.error("_model_averaging_topk_fraction", "TopK fraction must be in (0, 1].");
+    }
+    if (_parameter_server && _elastic_averaging) {
+      dl.error("_parameter_server", "Cannot use the parameter server together with elastic averaging.");
+    }
     if (expensive) {
       if (!classification && _balance_classes) {
         dl.error("_balance_classes", "balance_classes requires classification.");
@@ -620,6 +676,15 @@ public class DeepLearningParameters extends Model.Parameters {
       if (_elastic_averaging_regularization < 0)
         dl.error("_elastic_averaging_regularization", "Elastic averaging regularization strength must be >= 0.");
     }
+    if (!_parameter_server) {
+      dl.hide("_parameter_server_staleness", "Parameter server mode is required for this parameter.");
+      dl.hide("_parameter_server_sync_samples", "Parameter server mode is required for this parameter.");
+    } else {
+      if (_parameter_server_staleness < 0)
+        dl.error("_parameter_server_staleness", "Parameter server staleness must be >= 0.");
+      if (_parameter_server_sync_samples <= 0)
+        dl.error("_parameter_server_sync_samples", "Parameter server sync samples must be > 0.");
+    }
     if (_autoencoder && _stopping_metric != ScoreKeeper.StoppingMetric.AUTO && _stopping_metric != ScoreKeeper.StoppingMetric.MSE) {
       dl.error("_stopping_metric", "Stopping metric must either be AUTO or MSE for autoencoder.");
     }
@@ -670,6 +735,11 @@ public class DeepLearningParameters extends Model.Parameters {
             "_elastic_averaging",
             "_elastic_averaging_moving_rate",
             "_elastic_averaging_regularization",
+            "_parameter_server",
+            "_parameter_server_staleness",
+            "_parameter_server_sync_samples",
+            "_model_averaging_compression",
+            "_model_averaging_topk_fraction",
             "_mini_batch_size"
     };
 
@@ -695,6 +765,7 @@ public class DeepLearningParameters extends Model.Parameters {
             "_nesterov_accelerated_gradient",
             "_ignore_const_cols",
             "_max_categorical_features",
+            "_embedding_dim",
             "_nfolds",
             "_distribution",
             "_tweedie_power"
@@ -815,6 +886,11 @@ public class DeepLearningParameters extends Model.Parameters {
           Log.info("_single_node_mode: Disabling single_node_mode (only for multi-node operation with replicated training data).");
         toParms._single_node_mode = false;
       }
+      if (fromParms._parameter_server && (H2O.CLOUD.size() == 1 || !fromParms._replicate_training_data || fromParms._single_node_mode || fromParms._reproducible)) {
+        if (!fromParms._quiet_mode)
+          Log.info("_parameter_server: Disabling parameter_server (only for multi-node operation with replicated training data).");
+        toParms._parameter_server = false;
+      }
       if (!fromParms._use_all_factor_levels && fromParms._autoencoder) {
         if (!fromParms._quiet_mode)
           Log.info("_use_all_factor_levels: Automatically enabling all_factor_levels for auto-encoders.");
@@ -920,6 +996,12 @@ public class DeepLearningParameters extends Model.Parameters {
         toParms._train_samples_per_iteration = -1;
         toParms._replicate_training_data = false; //there's no benefit from having multiple nodes compute the exact same thing, and then average it back to the same
       }
+      if (fromParms._model_averaging_compression != ModelAveragingCompression.None
+              && (H2O.CLOUD.size() == 1 || (toParms._replicate_training_data && toParms._single_node_mode) || toParms._parameter_server)) {
+        if (!fromParms._quiet_mode)
+          Log.info("_model_averaging_compression: Disabling model averaging compression (only for model averaging between multiple nodes).");
+        toParms._model_averaging_compression = ModelAveragingCompression.None;
+      }
     }
   }
 
@@ -18,6 +18,7 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
   transient Neurons[] _neurons;
   transient Random _dropout_rng;
   int _chunk_node_count = 1;
+  transient ParameterServer.Worker _worker; //parameter server mode only
 
   /**
    * Accessor to the object containing the (final) state of the Deep Learning model
@@ -75,6 +76,12 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
       _sharedmodel = null;
     }
     _localmodel.set_processed_local(0);
+    if (!_run_local && compressed())
+      CompressedModelDelta.startIteration(_localmodel); //reference for the compressed model averaging
+  }
+
+  private boolean compressed() {
+    return _localmodel.get_params()._model_averaging_compression != DeepLearningParameters.ModelAveragingCompression.None;
   }
 
   // Create local workspace (neurons) and link them to shared weights
@@ -123,6 +130,9 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
     // non-last layers: Apply mini batch (need to know mini-batch size n)
     for (int i = neurons.length - 2; i > 0; --i)
       neurons[i].bprop();
+    // input layer with embeddings: sparse update of the looked-up rows
+    if (neurons[0]._e != null)
+      neurons[0].bprop();
 
     // all errors are reset to 0
     for (int i = 0; i<neurons.length ;++i) {
@@ -143,6 +153,7 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
    */
   @Override protected void chunkDone(long n) {
     if (_training) _localmodel.add_processed_local(n);
+    if (_worker != null) _worker.trained(n); //push/pull to/from the parameter server every so often
   }
 
   /**
@@ -154,6 +165,8 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
       // store local model, as it will be reduced in the following, and hence averaged with other models
       DKV.put(_localmodel.localModelInfoKey(H2O.SELF), _localmodel, _fs);
     }
+    if (!_run_local && compressed())
+      _localmodel.compressForReduce(_chunk_node_count); //will be sent to another node in compressed form
     _sharedmodel = null; //avoid serialization overhead
   }
 
@@ -163,6 +176,13 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
    * @param other
    */
   @Override public void reduce(DeepLearningTask other){
+    // models from other nodes may be compressed: rebuild them, and compress the sum again before it is sent on
+    final boolean compressed = _localmodel != null && other._localmodel != null
+            && (_localmodel.isCompressed() || other._localmodel.isCompressed());
+    if (compressed) {
+      _localmodel.decompress();
+      other._localmodel.decompress();
+    }
     if (_localmodel != null && other._localmodel != null && other._localmodel.get_processed_local() > 0 //other DLTask was active (its model_info should be used for averaging)
         && other._localmodel != _localmodel) //other DLTask worked on a different model_info
     {
@@ -177,6 +197,8 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
       }
       if (other._localmodel.isUnstable()) _localmodel.setUnstable();
     }
+    if (compressed)
+      _localmodel.compressForReduce(_chunk_node_count);
   }
 
 
@@ -188,6 +210,7 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
    * So if replication is disabled, and every node works on partial data, then we have work to do here (model averaging).
    */
   @Override protected void postGlobal(){
+    _localmodel.decompress();
     DeepLearningParameters dlp = _localmodel.get_params();
     if (H2O.CLOUD.size() > 1 && !dlp._replicate_training_data) {
       long now = System.currentTimeMillis();
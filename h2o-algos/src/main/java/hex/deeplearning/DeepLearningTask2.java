@@ -23,6 +23,10 @@ public class DeepLearningTask2 extends MRTask<DeepLearningTask2> {
     _sharedmodel = model_info;
     _sync_fraction = sync_fraction;
     _iteration = iteration;
+    if (model_info.get_params()._parameter_server) {
+      _ps = new ParameterServer(jobKey, model_info);
+      _template = model_info;
+    }
   }
 
   /**
@@ -38,6 +42,13 @@ public class DeepLearningTask2 extends MRTask<DeepLearningTask2> {
   private DeepLearningTask _res;
   private final int _iteration;
 
+  // parameter server mode: nodes exchange weights via the parameter server, only counters are reduced
+  final private ParameterServer _ps;
+  private transient ParameterServer.Worker _worker;
+  private transient DeepLearningModelInfo _template; //model to collect the shards into (driver only)
+  private long _processed;
+  private boolean _unstable;
+
   /**
    * Do the local computation: Perform one DeepLearningTask (with run_local=true) iteration.
    * Pass over all the data (will be replicated in dfork() here), and use _sync_fraction random rows.
@@ -47,12 +58,40 @@ public class DeepLearningTask2 extends MRTask<DeepLearningTask2> {
   @Override
   public void setupLocal() {
     super.setupLocal();
+    if (compressed())
+      CompressedModelDelta.startIteration(_sharedmodel); //reference for the compressed model averaging
     _res = new DeepLearningTask(_jobKey, _sharedmodel, _sync_fraction, _iteration);
+    if (_ps != null) _res._worker = _worker = _ps.worker(_sharedmodel);
     addToPendingCount(1);
     _res.setCompleter(this);
     _res.asyncExec(null, _fr, true /*run_local*/);
   }
 
+  private boolean compressed() {
+    return _sharedmodel.get_params()._model_averaging_compression != DeepLearningParameters.ModelAveragingCompression.None;
+  }
+
+  /**
+   * Prepare the result of this node for the reduction: compress it if requested.
+   * Parameter server mode: push the last changes of this node, then drop the local model
+   * (the shards hold the result) so that only the counters are sent back
+   */
+  @Override
+  protected void closeLocal() {
+    if (_ps == null) {
+      if (compressed())
+        _res.model_info().compressForReduce(_res._chunk_node_count); //will be sent to another node in compressed form
+      _sharedmodel = null; //the input model, or the same as _res.model_info(): don't send it back
+      return;
+    }
+    _worker.finish();
+    _worker = null;
+    _processed = _res.model_info().get_processed_local();
+    _unstable = _res.model_info().isUnstable();
+    _res = null;
+    _sharedmodel = null;
+  }
+
   /**
    * Reduce between worker nodes, with network traffic (if greater than 1 nodes)
    * After all reduce()'s are done, postGlobal() will be called
@@ -60,10 +99,23 @@ public class DeepLearningTask2 extends MRTask<DeepLearningTask2> {
    */
   @Override
   public void reduce(DeepLearningTask2 drt) {
+    if (_ps != null) {
+      _processed += drt._processed;
+      _unstable |= drt._unstable;
+      return;
+    }
     if (_res == null) _res = drt._res;
     else {
+      // models from other nodes may be compressed: rebuild them, and compress the sum again before it is sent on
+      final boolean compressed = _res.model_info().isCompressed() || drt._res.model_info().isCompressed();
+      if (compressed) {
+        _res.model_info().decompress();
+        drt._res.model_info().decompress();
+      }
       _res._chunk_node_count += drt._res._chunk_node_count;
       _res.model_info().add(drt._res.model_info()); //add models, but don't average yet
+      if (compressed)
+        _res.model_info().compressForReduce(_res._chunk_node_count);
     }
     assert(_res.model_info().get_params()._replicate_training_data);
   }
@@ -75,8 +127,20 @@ public class DeepLearningTask2 extends MRTask<DeepLearningTask2> {
    */
   @Override
   protected void postGlobal() {
+    if (_ps != null) {
+      // collect the shards into the driver's model, which keeps the driver's learning rate helpers
+      super.postGlobal();
+      _ps.pull(_template);
+      _ps.remove();
+      _template.set_processed_local(0l);
+      _template.add_processed_global(_processed);
+      if (_unstable) _template.setUnstable();
+      _sharedmodel = _template;
+      return;
+    }
     assert(_res.model_info().get_params()._replicate_training_data);
     super.postGlobal();
+    _res.model_info().decompress();
     // model averaging (DeepLearningTask only computed the per-node models, each on all the data)
     _res.model_info().div(_res._chunk_node_count);
     _res.model_info().add_processed_global(_res.model_info().get_processed_local()); //switch from local counters to global counters
@@ -166,6 +166,12 @@ public abstract class Neurons {
       _shortcut = (params._fast_mode || (
               // not doing fast mode, but also don't have anything else to update (neither momentum nor ADADELTA history), and no L1/L2
               !params._adaptive_rate && !_minfo.has_momenta() && params._l1 == 0.0 && params._l2 == 0.0));
+    } else if (minfo.get_embeddings() != null) {
+      // the embedding table plays the role of the input layer's incoming weights
+      _minfo = minfo;
+      _w = minfo.get_embeddings();
+      if (minfo.adaDelta()) _ada_dx_g = minfo.get_embeddings_ada_dx_g();
+      if (training) _e = new Storage.DenseVector(units); //receives dE/da from the first hidden layer
     }
     sanityCheck(training);
   }
@@ -177,6 +183,19 @@ public abstract class Neurons {
    */
   protected abstract void fprop(long seed, boolean training);
 
+  /**
+   * Incoming linear activation: _a = W * (previous activation) + b,
+   * visiting only the non-zero inputs if the previous layer is a sparse input layer
+   * @param row_bits Bit mask for which rows to use
+   */
+  final void gemvIncoming(byte[] row_bits) {
+    final int[] nz = _previous instanceof Input ? ((Input)_previous)._nz : null;
+    if (nz != null)
+      gemv_sparse(_a.raw(), _w.raw(), _previous._a.raw(), nz, ((Input)_previous)._nnz, _b.raw(), row_bits);
+    else
+      gemv(_a, _w, _previous._a, _b, row_bits);
+  }
+
   /**
    *  Back propagation of error terms stored in _e (for non-final layers)
    */
@@ -229,12 +248,16 @@ public abstract class Neurons {
     final boolean update_prev = _previous._e != null;
     final boolean fast_mode = params._fast_mode;
     final int cols = _previous._a.size();
+    // with fast_mode, zero inputs neither change weights nor receive errors: only visit the non-zeros if known
+    final int[] nz = fast_mode && !update_prev && _previous instanceof Input ? ((Input)_previous)._nz : null;
+    final int n = nz != null ? ((Input)_previous)._nnz : cols;
 
     double avg_grad2 = 0;
 
     final int idx = row * cols;
 
-    for( int col = 0; col < cols; col++ ) {
+    for( int i = 0; i < n; i++ ) {
+      final int col = nz != null ? nz[i] : i;
       int w = idx + col;
 
       // for Maxout, return the "winning" linear index into the matrix
@@ -459,15 +482,65 @@ public abstract class Neurons {
 
     private DataInfo _dinfo; //training data
 
+    // with embeddings: table row and categorical column of each looked-up categorical value of the current row
+    private int[] _embeddingRows;
+    private int[] _embeddingCols;
+    private int _nembeddings;
+
+    // for sparse data: indices of the non-zero activations of the current row
+    int[] _nz;
+    int _nnz;
+
     Input(int units, final DataInfo d) {
       super(units);
       _dinfo = d;
       _a = new Storage.DenseVector(units);
     }
 
-    @Override protected void bprop() { throw new UnsupportedOperationException(); }
+    /**
+     * Sparse update of the embedding table: only the rows looked up for the current
+     * training row are changed, by their share of the error of the first hidden layer.
+     * Momentum is not applied to embeddings.
+     */
+    @Override protected void bprop() {
+      if (_w == null) throw new UnsupportedOperationException();
+      final boolean have_ada = _minfo.adaDelta();
+      final float rate = have_ada ? 0 : rate(_minfo.get_processed_total());
+      final float rho = (float)params._rho;
+      final float eps = (float)params._epsilon;
+      final float l1 = (float)params._l1;
+      final float l2 = (float)params._l2;
+      final int dim = _w.cols();
+      for (int i = 0; i < _nembeddings; ++i) {
+        final int a = _embeddingCols[i] * dim;
+        final int idx = _embeddingRows[i] * dim;
+        for (int k = 0; k < dim; ++k) {
+          if (_dropout != null && _a.get(a + k) == 0) continue; //dropped out input
+          final int w = idx + k;
+          final double weight = _w.raw()[w];
+          final double grad = _e.get(a + k) - Math.signum(weight) * l1 - weight * l2;
+          if (have_ada)
+            _w.raw()[w] += computeAdaDeltaRateForWeight(grad, w, _ada_dx_g, rho, eps) * grad;
+          else
+            _w.raw()[w] += rate * grad;
+        }
+      }
+    }
     @Override protected void fprop(long seed, boolean training) { throw new UnsupportedOperationException(); }
 
+    /**
+     * Hash a horizontalized categorical value into one of a limited number of buckets
+     * @param cat index of the categorical level among all expanded categorical levels
+     * @param buckets number of buckets
+     * @param seed hash seed
+     * @return bucket index in [0, buckets)
+     */
+    static int hashCategorical(int cat, int buckets, long seed) {
+      ByteBuffer buf = ByteBuffer.allocate(4);
+      int hashval = MurmurHash.getInstance().hash(buf.putInt(cat).array(), 4, (int)seed); // turn horizontalized categorical integer into another integer, based on seed
+      return Math.abs(hashval % buckets); // restrict to limited range
+    }
+
     /**
      * One of two methods to set layer input values. This one is for raw double data, e.g. for scoring
      * @param seed For seeding the RNG inside (for input dropout)
@@ -519,8 +592,34 @@ public abstract class Neurons {
     public void setInput(long seed, final int[] numIds, final double[] nums, final int numcat, final int[] cats) {
       Arrays.fill(_a.raw(), 0f);
 
-      // random projection from fullN down to max_categorical_features
-      if (params._max_categorical_features < _dinfo.fullN() - _dinfo._nums) {
+      if (_w != null) {
+        // embeddings: each categorical column is represented by the table row of its level
+        final int dim = _w.cols();
+        final int numStart = _dinfo._cats * dim;
+        assert(_a.size() == numStart + _dinfo._nums);
+        if (_embeddingRows == null) {
+          _embeddingRows = new int[_dinfo._cats];
+          _embeddingCols = new int[_dinfo._cats];
+        }
+        _nembeddings = numcat;
+        for (int i = 0; i < numcat; ++i) {
+          int col = Arrays.binarySearch(_dinfo._catOffsets, cats[i]);
+          if (col < 0) col = -col - 2; //column whose level range contains cats[i]
+          final int row = _minfo.embeddingRow(cats[i]);
+          _embeddingCols[i] = col;
+          _embeddingRows[i] = row;
+          for (int k = 0; k < dim; ++k)
+            _a.set(col * dim + k, _w.raw()[row * dim + k]);
+        }
+        if (numIds != null) {
+          for (int i = 0; i < numIds.length; ++i)
+            _a.set(numStart + numIds[i] - _dinfo.numStart(), Double.isNaN(nums[i]) ? 0f /*Always do MeanImputation during scoring*/ : nums[i]);
+        } else {
+          for (int i = 0; i < nums.length; ++i)
+            _a.set(numStart + i, Double.isNaN(nums[i]) ? 0f /*Always do MeanImputation during scoring*/ : nums[i]);
+        }
+      } else if (params._max_categorical_features < _dinfo.fullN() - _dinfo._nums) {
+        // random projection from fullN down to max_categorical_features
         assert(nums.length == _dinfo._nums);
         final int M = nums.length + params._max_categorical_features;
 //        final boolean random_projection = false;
@@ -556,12 +655,8 @@ public abstract class Neurons {
           final int cM = params._max_categorical_features;
 
           assert (_a.size() == M);
-          MurmurHash murmur = MurmurHash.getInstance();
-          for (int i = 0; i < numcat; ++i) {
-            ByteBuffer buf = ByteBuffer.allocate(4);
-            int hashval = murmur.hash(buf.putInt(cats[i]).array(), 4, (int)params._seed); // turn horizontalized categorical integer into another integer, based on seed
-            _a.add(Math.abs(hashval % cM), 1f); // restrict to limited range
-          }
+          for (int i = 0; i < numcat; ++i)
+            _a.add(hashCategorical(cats[i], cM, params._seed), 1f);
           for (int i = 0; i < nums.length; ++i)
             _a.set(cM + i, Double.isNaN(nums[i]) ? 0f /*Always do MeanImputation during scoring*/ : nums[i]);
 //        }
@@ -580,13 +675,24 @@ public abstract class Neurons {
       }
 
       // Input Dropout
-      if (_dropout == null) return;
-      if (params._autoencoder && params._input_dropout_ratio > 0) {
-        // copy input into _origa -- needed for reconstruction error
-        System.arraycopy(_a.raw(), 0, _origa.raw(), 0, _a.raw().length);
+      if (_dropout != null) {
+        if (params._autoencoder && params._input_dropout_ratio > 0) {
+          // copy input into _origa -- needed for reconstruction error
+          System.arraycopy(_a.raw(), 0, _origa.raw(), 0, _a.raw().length);
+        }
+        seed += params._seed + 0x1337B4BE;
+        _dropout.randomlySparsifyActivation(_a, seed);
       }
-      seed += params._seed + 0x1337B4BE;
-      _dropout.randomlySparsifyActivation(_a, seed);
+      if (params._sparse) findNonZeros();
+    }
+
+    // Remember the non-zero activations, so that the first hidden layer can skip all others
+    private void findNonZeros() {
+      if (_nz == null) _nz = new int[units];
+      _nnz = 0;
+      final double[] a = _a.raw();
+      for (int i = 0; i < a.length; ++i)
+        if (a[i] != 0) _nz[_nnz++] = i;
     }
 
   }
@@ -597,7 +703,7 @@ public abstract class Neurons {
   public static class Tanh extends Neurons {
     public Tanh(int units) { super(units); }
     @Override protected void fprop(long seed, boolean training) {
-      gemv(_a, _w, _previous._a, _b, _dropout != null ? _dropout.bits() : null);
+      gemvIncoming(_dropout != null ? _dropout.bits() : null);
       final int rows = _a.size();
       for( int row = 0; row < rows; row++ )
         _a.set(row, 1. - 2. / (1. + Math.exp(2*_a.get(row)))); //evals faster than tanh(x), but is slightly less numerically stable - OK
@@ -651,6 +757,8 @@ public abstract class Neurons {
       assert(_w.size() == _a.size() * _previous._a.size() * _k);
       final int rows = _a.size();
       double[] channel = new double[_k];
+      final int[] nz = _previous instanceof Input ? ((Input)_previous)._nz : null; //non-zero inputs if sparse
+      final int n = nz != null ? ((Input)_previous)._nnz : _previous._a.size();
       for( int row = 0; row < rows; row++ ) {
         _a.set(row, 0);
         if( !training || _dropout == null || _dropout.unit_active(row) ) {
@@ -661,7 +769,8 @@ public abstract class Neurons {
           short maxK = 0;
           for( short k = 0; k < _k; k++ ) {
             channel[k] = 0;
-            for( int col = 0; col < cols; col++ ) {
+            for( int i = 0; i < n; i++ ) {
+              final int col = nz != null ? nz[i] : i;
               channel[k] += _w.raw()[_k*(row * cols + col) + k] * _previous._a.get(col);
             }
             channel[k] += _b.raw()[_k*row+k];
@@ -710,7 +819,7 @@ public abstract class Neurons {
   public static class Rectifier extends Neurons {
     public Rectifier(int units) { super(units); }
     @Override protected void fprop(long seed, boolean training) {
-      gemv(_a, _w, _previous._a, _b, _dropout != null ? _dropout.bits() : null);
+      gemvIncoming(_dropout != null ? _dropout.bits() : null);
       final int rows = _a.size();
       for( int row = 0; row < rows; row++ ) {
         _a.set(row, 0.5f* (_a.get(row) + Math.abs(_a.get(row)))); //faster than max(a, 0)
@@ -837,7 +946,7 @@ public abstract class Neurons {
       super(1);
     }
     protected void fprop(long seed, boolean training) {
-      gemv(_a, _w, _previous._a, _b, _dropout != null ? _dropout.bits() : null);
+      gemvIncoming(_dropout != null ? _dropout.bits() : null);
     }
 
     /**
@@ -914,6 +1023,31 @@ public abstract class Neurons {
     }
   }
 
+  /**
+   * Mat-Vec Plus Add for a sparse x (with optional row dropout): only the columns of the non-zeros of x are visited
+   * @param res = a*x+y (pre-allocated, will be overwritten)
+   * @param a matrix of size rows x cols
+   * @param x vector of length cols
+   * @param nz indices of the non-zero values of x
+   * @param nnz number of non-zero values of x
+   * @param y vector of length rows
+   * @param row_bits if not null, check bits of this byte[] to determine whether a row is used or not
+   */
+  static void gemv_sparse(final double[] res, final float[] a, final double[] x, final int[] nz, final int nnz, final double[] y, final byte[] row_bits) {
+    final int cols = x.length;
+    final int rows = y.length;
+    assert(res.length == rows);
+    for (int row = 0; row < rows; row++) {
+      res[row] = 0;
+      if( row_bits != null && (row_bits[row / 8] & (1 << (row % 8))) == 0) continue;
+      final int idx = row * cols;
+      double psum = 0;
+      for (int i = 0; i < nnz; i++)
+        psum += a[idx + nz[i]] * x[nz[i]];
+      res[row] = psum + y[row];
+    }
+  }
+
   /**
    * Helper to do a generic gemv: res = a*x + y
    * @param res Dense result
@@ -0,0 +1,424 @@
+package hex.deeplearning;
+
+import jsr166y.ForkJoinPool;
+import water.*;
+import water.util.Log;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous parameter server for multi-node Deep Learning with replicated training data.
+ *
+ * The weights and biases (and categorical embeddings) of the model are viewed as one flat
+ * parameter vector, which is cut into one contiguous shard per node. Each shard lives in the
+ * DKV, homed on the node that owns it. While training, every node periodically pushes the
+ * change of its local model since its last pull to the shard owners, where it is atomically
+ * added, and then pulls the fresh shards and continues from them. Nodes never wait for each
+ * other at a reduce, except to bound staleness: a node stalls while it is more than
+ * <code>staleness</code> pushes ahead of the slowest node that is still training.
+ *
+ * Deltas are scaled by 1/#nodes, so that one push from every node amounts to the model average
+ * of the synchronous mode. They are sent sparse (index + value) if most of a shard did not change.
+ * The learning rate helpers (momenta, ADADELTA state) are not shared, they stay on each node.
+ *
+ * The shards of one iteration are created by their owners as they start training, and are
+ * collected on the driver and removed after the iteration, see {@link DeepLearningTask2}. The
+ * shard keys only depend on the model, so if an iteration fails the driver removes its shards
+ * together with the other per-model state, and so does {@link DeepLearningModel#delete()}.
+ *
+ * Waiting on other nodes happens on F/J threads, so it is done as a managed block: the pool may
+ * start a spare worker meanwhile, and the Hogwild! threads of this node keep going.
+ */
+public class ParameterServer extends Iced {
+  static final long TIMEOUT_MS = 10 * 60 * 1000; //give up waiting for other nodes that make no progress for this long
+
+  final private Key _jobKey;
+  final private Key[] _shards;   // One per node, homed on that node
+  final private int[] _starts;   // Shard s covers [_starts[s], _starts[s+1]) of the flat parameter vector
+  final private int _staleness;
+  final private long _syncSamples;
+
+  /**
+   * @param jobKey Job ID, waiting for other nodes stops once the job is cancelled
+   * @param minfo Model to share; only its layout is used here
+   */
+  public ParameterServer(Key jobKey, DeepLearningModelInfo minfo) {
+    _jobKey = jobKey;
+    final DeepLearningParameters p = minfo.get_params();
+    final long n = numParameters(minfo);
+    if (n > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Model has too many parameters (" + n + ") for the parameter server.");
+    final int nodes = H2O.CLOUD.size();
+    _shards = new Key[nodes];
+    _starts = new int[nodes + 1];
+    for (int s = 0; s < nodes; ++s) {
+      _shards[s] = shardKey(p._model_id, s);
+      _starts[s + 1] = (int) (n * (s + 1) / nodes);
+    }
+    _staleness = p._parameter_server_staleness;
+    _syncSamples = p._parameter_server_sync_samples;
+  }
+
+  /**
+   * Start training on this node: create the shard owned by this node from the given model
+   * @param minfo Local model of this node (as received at the start of the iteration)
+   * @return Node-local worker to report training progress to
+   */
+  Worker worker(DeepLearningModelInfo minfo) {
+    return new Worker(minfo);
+  }
+
+  /**
+   * Collect all shards into the given model (on the driver, after all nodes finished)
+   * @param minfo Model to overwrite the weights and biases of
+   */
+  void pull(DeepLearningModelInfo minfo) {
+    final Object[] segs = segments(minfo);
+    for (int s = 0; s < _shards.length; ++s) {
+      Shard sh = DKV.getGet(_shards[s]);
+      if (sh == null) continue; //node never started, its part of the model is unchanged
+      copy(segs, _starts[s], sh._vals, Copy.SET);
+    }
+  }
+
+  /** @return Key of the shard owned by node s */
+  Key shardKey(int s) { return _shards[s]; }
+
+  /** Remove all shards from the DKV */
+  void remove() {
+    Futures fs = new Futures();
+    for (Key k : _shards) DKV.remove(k, fs);
+    fs.blockForPending();
+  }
+
+  /** Remove the shards of a model, left behind if an iteration did not finish */
+  static void remove(Key modelId) {
+    Futures fs = new Futures();
+    for (int s = 0; s < H2O.CLOUD.size(); ++s) DKV.remove(shardKey(modelId, s), fs);
+    fs.blockForPending();
+  }
+
+  // The shard of node s, homed on that node; made fresh by its owner at the start of every iteration
+  private static Key shardKey(Key modelId, int s) {
+    return Key.make(modelId + ".ps.shard" + s, (byte) 1 /*replica factor*/, (byte) 31 /*hidden user-key*/, true, H2O.CLOUD._memary[s]);
+  }
+
+  /**
+   * One shard of the flat parameter vector, with the number of pushes (clock) of every node
+   */
+  static class Shard extends Iced {
+    final float[] _vals;
+    final long[] _clocks;
+    final boolean[] _done; //node finished its part of the iteration, others don't wait for it
+    Shard(float[] vals, int nodes) {
+      this(vals, new long[nodes], new boolean[nodes]);
+    }
+    Shard(float[] vals, long[] clocks, boolean[] done) {
+      _vals = vals;
+      _clocks = clocks;
+      _done = done;
+    }
+    /** @return Smallest clock of all nodes that are still training, or Long.MAX_VALUE if none is */
+    long minClock() {
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < _clocks.length; ++i)
+        if (!_done[i]) min = Math.min(min, _clocks[i]);
+      return min;
+    }
+    /** @return Whether a node that pushed <code>clock</code> times must wait for the slowest node still training */
+    boolean stalled(long clock, int staleness) {
+      return clock - minClock() > staleness;
+    }
+  }
+
+  /**
+   * Atomic update of a shard on its owner: add a (dense or sparse) delta and advance the pushing node's clock
+   */
+  static class Push extends TAtomic<Shard> {
+    final int _node;
+    final boolean _done;
+    int[] _idx;        //null for a dense delta
+    float[] _delta;
+    boolean _applied;  //@OUT: false if the shard does not exist yet
+
+    Push(int node, int[] idx, float[] delta, boolean done) {
+      _node = node;
+      _idx = idx;
+      _delta = delta;
+      _done = done;
+    }
+
+    @Override protected Shard atomic(Shard old) {
+      if (old == null) return null; //owner didn't start yet - try again later
+      // the arrays of old are shared with the current value in the DKV, and the update may be retried: change copies
+      final Shard sh = new Shard(old._vals.clone(), old._clocks.clone(), old._done.clone());
+      if (_delta != null) {
+        if (_idx == null) {
+          for (int i = 0; i < _delta.length; ++i) sh._vals[i] += _delta[i];
+        } else {
+          for (int i = 0; i < _idx.length; ++i) sh._vals[_idx[i]] += _delta[i];
+        }
+      }
+      sh._clocks[_node]++;
+      if (_done) sh._done[_node] = true;
+      _applied = true;
+      return sh;
+    }
+
+    @Override public void onSuccess(Shard old) {
+      _idx = null; //don't send the delta back
+      _delta = null;
+    }
+  }
+
+  /**
+   * Node-local side of the parameter server: decides when to synchronize with the shard owners,
+   * and remembers the parameters as of the last pull (to compute the next delta from).
+   * Shared by all F/J threads training on this node (Hogwild!), only one of them synchronizes at a time.
+   */
+  final class Worker {
+    final private DeepLearningModelInfo _minfo;
+    final private int _self;
+    final private float[] _base;             //flat parameters as of the last pull
+    final private AtomicLong _samples = new AtomicLong();
+    final private AtomicBoolean _syncing = new AtomicBoolean();
+    private volatile boolean _stalled;
+    private volatile long _nextSync;
+    private long _clock;                     //number of pushes by this node
+
+    private Worker(DeepLearningModelInfo minfo) {
+      _minfo = minfo;
+      _self = H2O.SELF.index();
+      assert (_shards[_self].home());
+      _base = new float[_starts[_starts.length - 1]];
+      copy(segments(minfo), 0, _base, Copy.GET);
+      float[] own = new float[_starts[_self + 1] - _starts[_self]];
+      System.arraycopy(_base, _starts[_self], own, 0, own.length);
+      DKV.put(_shards[_self], new Shard(own, _shards.length)); //local put, the shard is homed here
+      _nextSync = _syncSamples;
+    }
+
+    /**
+     * Called by the training threads after each chunk; pushes and pulls every sync_samples samples.
+     * Waits while this node is stalled (too far ahead of the slowest node).
+     * @param n Number of samples trained on since the last call
+     */
+    void trained(long n) {
+      final long samples = _samples.addAndGet(n);
+      if (samples >= _nextSync && _syncing.compareAndSet(false, true)) {
+        try {
+          _nextSync = samples + _syncSamples;
+          sync(false);
+        } finally {
+          _syncing.set(false);
+        }
+      }
+      while (_stalled) {
+        checkRunning();
+        awaitUnstalled(100);
+      }
+    }
+
+    // Wait up to ms milliseconds for the node to stop stalling
+    private void awaitUnstalled(final long ms) {
+      try {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+          private boolean _waited;
+          @Override public boolean isReleasable() { return _waited || !_stalled; }
+          @Override public boolean block() throws InterruptedException {
+            synchronized (Worker.this) {
+              if (_stalled) Worker.this.wait(ms);
+            }
+            return _waited = true;
+          }
+        });
+      } catch (InterruptedException e) {
+        throw interrupted();
+      }
+    }
+
+    /**
+     * Push the last changes and leave the iteration; retries until every shard owner has started.
+     */
+    void finish() {
+      final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+      while (!sync(true)) {
+        checkRunning();
+        if (System.currentTimeMillis() > deadline)
+          throw new IllegalStateException("Parameter server: not all nodes started training within " + TIMEOUT_MS / 1000 + " seconds.");
+        pause(10);
+      }
+    }
+
+    /**
+     * Push the changes since the last pull to all shard owners (in parallel), then pull the fresh shards.
+     * Changes that the other threads make in the meantime are kept on top of the pulled values.
+     * @param done Whether this is the last push of this node
+     * @return Whether all shards accepted the push
+     */
+    private boolean sync(boolean done) {
+      final Object[] segs = segments(_minfo);
+      final float[] cur = new float[_base.length];
+      copy(segs, 0, cur, Copy.GET);
+      final float scale = 1f / _shards.length;
+      Push[] pushes = new Push[_shards.length];
+      RPC[] rpcs = new RPC[_shards.length];
+      for (int s = 0; s < _shards.length; ++s) {
+        pushes[s] = makePush(cur, _starts[s], _starts[s + 1], scale, done);
+        rpcs[s] = pushes[s].fork(_shards[s]);
+      }
+      boolean all = true;
+      for (int s = 0; s < _shards.length; ++s) {
+        if (rpcs[s] != null) pushes[s] = (Push) rpcs[s].get();
+        all &= pushes[s]._applied;
+      }
+      _clock++;
+      // pull the shards that took the delta, add the changes made by the other threads in the meantime
+      for (int s = 0; s < _shards.length; ++s) {
+        if (!pushes[s]._applied) continue;
+        Shard sh = DKV.getGet(_shards[s]);
+        final int lo = _starts[s];
+        final float[] adj = new float[sh._vals.length];
+        for (int i = 0; i < adj.length; ++i) {
+          adj[i] = sh._vals[i] - cur[lo + i];
+          _base[lo + i] = sh._vals[i];
+        }
+        copy(segs, lo, adj, Copy.ADD);
+      }
+      if (!done) waitForStragglers();
+      return all;
+    }
+
+    // Delta of the flat parameters [lo,hi) since the last pull, sparse if less than half of them changed
+    private Push makePush(float[] cur, int lo, int hi, float scale, boolean done) {
+      int nnz = 0;
+      for (int i = lo; i < hi; ++i)
+        if (cur[i] != _base[i]) nnz++;
+      if (2 * nnz >= hi - lo) {
+        float[] delta = new float[hi - lo];
+        for (int i = lo; i < hi; ++i) delta[i - lo] = (cur[i] - _base[i]) * scale;
+        return new Push(_self, null, delta, done);
+      }
+      int[] idx = new int[nnz];
+      float[] delta = new float[nnz];
+      for (int i = lo, k = 0; i < hi; ++i) {
+        if (cur[i] == _base[i]) continue;
+        idx[k] = i - lo;
+        delta[k++] = (cur[i] - _base[i]) * scale;
+      }
+      return new Push(_self, idx, delta, done);
+    }
+
+    // Bounded staleness: stall this node while it is too far ahead of the slowest node still training.
+    // The shard homed on this node sees the pushes of all nodes, so its clocks are checked locally.
+    private void waitForStragglers() {
+      Shard own = DKV.getGet(_shards[_self]);
+      if (!own.stalled(_clock, _staleness)) return;
+      _stalled = true;
+      try {
+        Log.debug("Parameter server: node " + _self + " is " + (_clock - own.minClock()) + " pushes ahead, waiting.");
+        long min = own.minClock();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (own.stalled(_clock, _staleness)) {
+          checkRunning();
+          if (own.minClock() != min) { //the slowest node made progress
+            min = own.minClock();
+            deadline = System.currentTimeMillis() + TIMEOUT_MS;
+          } else if (System.currentTimeMillis() > deadline)
+            throw new IllegalStateException("Parameter server: no progress of the slowest node within " + TIMEOUT_MS / 1000 + " seconds.");
+          pause(1);
+          own = DKV.getGet(_shards[_self]);
+        }
+      } finally {
+        synchronized (this) {
+          _stalled = false;
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  // Stop waiting for other nodes once the job is cancelled
+  private void checkRunning() {
+    if (_jobKey != null && !Job.isRunning(_jobKey)) throw new Job.JobCancelledException();
+  }
+
+  // Sleep for ms milliseconds without holding up the F/J pool
+  private static void pause(final long ms) {
+    try {
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+        private boolean _slept;
+        @Override public boolean isReleasable() { return _slept; }
+        @Override public boolean block() throws InterruptedException {
+          Thread.sleep(ms);
+          return _slept = true;
+        }
+      });
+    } catch (InterruptedException e) {
+      throw interrupted();
+    }
+  }
+
+  // Keep the interrupt status for the caller, and leave the iteration
+  private static RuntimeException interrupted() {
+    Thread.currentThread().interrupt();
+    return new Job.JobCancelledException();
+  }
+
+  private enum Copy { GET, SET, ADD }
+
+  /**
+   * @return Number of parameters shared via the parameter server: all weights and biases (and embeddings)
+   */
+  static long numParameters(DeepLearningModelInfo minfo) {
+    long n = 0;
+    for (Object seg : segments(minfo))
+      n += seg instanceof float[] ? ((float[]) seg).length : ((double[]) seg).length;
+    return n;
+  }
+
+  // The shared parameters in the order of the flat parameter vector: weights and biases of each layer, then the embeddings
+  private static Object[] segments(DeepLearningModelInfo minfo) {
+    final int layers = minfo.units.length - 1;
+    final boolean emb = minfo.get_embeddings() != null;
+    Object[] segs = new Object[2 * layers + (emb ? 1 : 0)];
+    for (int i = 0; i < layers; ++i) {
+      segs[2 * i] = minfo.get_weights(i).raw();
+      segs[2 * i + 1] = minfo.get_biases(i).raw();
+    }
+    if (emb) segs[segs.length - 1] = minfo.get_embeddings().raw();
+    return segs;
+  }
+
+  // Get, set or add the flat parameters [from, from+buf.length) of a model from/to buf
+  private static void copy(Object[] segs, int from, float[] buf, Copy mode) {
+    final int to = from + buf.length;
+    int off = 0; //flat index of the first element of the current segment
+    for (Object seg : segs) {
+      final int len = seg instanceof float[] ? ((float[]) seg).length : ((double[]) seg).length;
+      final int lo = Math.max(from, off), hi = Math.min(to, off + len);
+      if (seg instanceof float[]) {
+        final float[] a = (float[]) seg;
+        for (int i = lo; i < hi; ++i) {
+          switch (mode) {
+            case GET: buf[i - from] = a[i - off]; break;
+            case SET: a[i - off] = buf[i - from]; break;
+            case ADD: a[i - off] += buf[i - from]; break;
+          }
+        }
+      } else {
+        final double[] a = (double[]) seg;
+        for (int i = lo; i < hi; ++i) {
+          switch (mode) {
+            case GET: buf[i - from] = (float) a[i - off]; break;
+            case SET: a[i - off] = buf[i - from]; break;
+            case ADD: a[i - off] += buf[i - from]; break;
+          }
+        }
+      }
+      off += len;
+      if (off >= to) break;
+    }
+  }
+}
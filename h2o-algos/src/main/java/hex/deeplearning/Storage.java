@@ -68,6 +68,7 @@ public class Storage {
     @Override public void add(int i, double val) { _data[i] += val; }
     @Override public int size() { return _data.length; }
     @Override public double[] raw() { return _data; }
+    void setRaw(double[] v) { _data = v; }
     @Override public Frame toFrame(Key key) { return Storage.toFrame(this, key); }
   }
 
@@ -182,6 +183,7 @@ public class Storage {
     @Override public int rows() { return _rows; }
     @Override public long size() { return (long)_rows*(long)_cols; }
     public float[] raw() { return _data; }
+    void setRaw(float[] v) { assert(v == null || v.length == _rows*_cols); _data = v; }
     @Override public Frame toFrame(Key key) { return Storage.toFrame(this, key); }
   }
 
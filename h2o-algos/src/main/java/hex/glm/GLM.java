@@ -3,7 +3,9 @@ package hex.glm;
 import hex.DataInfo;
 import hex.ModelBuilder;
 import hex.ModelCategory;
+import hex.ModelMetrics;
 import hex.ModelMetricsBinomial;
+import hex.ModelMetricsRegressionGLM;
 import hex.glm.GLMModel.*;
 import hex.optimization.ADMM.L1Solver;
 import hex.optimization.L_BFGS;
@@ -14,6 +16,7 @@ import hex.glm.GLMTask.*;
 import hex.gram.Gram;
 import hex.gram.Gram.Cholesky;
 import hex.gram.Gram.NonSPDMatrixException;
+import hex.gram.TiledGram;
 import hex.optimization.ADMM;
 import hex.optimization.ADMM.ProximalSolver;
 import hex.optimization.L_BFGS.*;
@@ -93,6 +96,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
   }
   private int _lambdaId;
   private transient DataInfo _validDinfo;
+  private transient long[] _chunkSums; // Checksums of the training chunks covered by the checkpoint, for incremental fits
   private transient ArrayList<Integer> _scoring_iters = new ArrayList<>();
   // time per iteration in ms
 
@@ -197,6 +201,10 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       if (_parms._link == Link.family_default)
         _parms._link = _parms._family.defaultLink;
       _dinfo = new DataInfo(Key.make(), _train.clone(), _valid, 1, _parms._use_all_factor_levels || _parms._lambda_search, _parms._standardize ? DataInfo.TransformType.STANDARDIZE : DataInfo.TransformType.NONE, DataInfo.TransformType.NONE, true, false, false, hasWeightCol(), hasOffsetCol(), hasFoldCol());
+      if(_parms._incremental) {
+        initIncremental();
+        return;
+      }
 
       if(_valid != null) {
         _validDinfo = _dinfo.validDinfo(_valid);
@@ -490,6 +498,120 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
 
 
 
+  /**
+   * Incremental fits solve from the sufficient statistics of the data (see
+   * {@link GLMSufficientStats}), so the full passes over the data of the regular
+   * initialization are skipped.
+   */
+  private void initIncremental() {
+    if(_dinfo.fullN() > _parms._max_active_predictors)
+      error("_incremental", "Incremental training needs the Gram matrix in memory, got too many predictors: " + _dinfo.fullN());
+    _chunkSums = new long[0];
+    if(_parms.hasCheckpoint()) {
+      Object m = DKV.getGet(_parms._checkpoint);
+      GLMSufficientStats ss = m instanceof GLMModel?((GLMModel)m)._output._sufficient_stats:null;
+      long[] espc = _dinfo._adaptedFrame.anyVec().espc();
+      if(ss == null)
+        error("_checkpoint", "Checkpoint must be a GLM model trained with incremental = true");
+      else if(!Arrays.equals(ss._coefNames, _dinfo.coefNames()))
+        error("_checkpoint", "The predictors and their categorical levels must be the same as for the checkpointed model");
+      else {
+        // Only the chunks the checkpoint covers are hashed
+        _chunkSums = GLMSufficientStats.chunkChecksums(_dinfo._adaptedFrame, 0, Math.min(espc.length, ss._espc.length)-1);
+        if(ss.coveredChunks(espc, _chunkSums) < 0)
+          error("_checkpoint", "The training frame must be the training frame of the checkpointed model with rows appended");
+      }
+    }
+    if(_parms._alpha == null)
+      _parms._alpha = new double[]{.5};
+    if(error_count() > 0) return;
+    checkMemoryFootPrint(_dinfo);
+    DKV.put(_dinfo._key, _dinfo);
+  }
+
+  /**
+   * Incremental fit of a gaussian GLM.  The sufficient statistics of the
+   * checkpoint are down-weighted by the forgetting factor and updated with the
+   * chunks appended since, which are the only chunks the Gram matrix is
+   * computed over (the compressed bytes of the older chunks are only hashed
+   * in init, to check that they are the ones the checkpoint covers).  The penalized
+   * normal equations are then solved in the standardized space of the current
+   * frame, and the training metrics follow from the statistics as well.
+   */
+  private void fitIncremental() {
+    final long[] espc = _dinfo._adaptedFrame.anyVec().espc();
+    final int p = _dinfo.fullN();
+    GLMSufficientStats prev = _parms.hasCheckpoint()?DKV.<GLMModel>getGet(_parms._checkpoint)._output._sufficient_stats:null;
+    int skip = prev == null?0:prev.coveredChunks(espc, _chunkSums);
+    GLMIterationTask git = null;
+    if(skip < espc.length-1) { // statistics of the raw (not standardized) predictors
+      DataInfo raw = (DataInfo)_dinfo.clone();
+      raw.setPredictorTransform(DataInfo.TransformType.NONE);
+      git = new GLMIterationTask(GLM.this._key, raw, 0, _parms, false, MemoryManager.malloc8d(p+1), 0, _parms._intercept, null).setSparse(false).setSkipChunks(skip).doAll(raw._adaptedFrame);
+    }
+    Log.info("GLM " + _key + ": incremental fit over " + (espc.length-1-skip) + " new chunks, " + skip + " chunks summarized by " + _parms._checkpoint);
+    if(prev == null && (git == null || git._xy == null))
+      throw new IllegalArgumentException("Got no data to run on after filtering out the rows with missing values.");
+    // Only the new chunks are hashed, the covered ones were checked in init
+    long[] chunkSums = GLMSufficientStats.chunkChecksums(_dinfo._adaptedFrame, skip, espc.length-1);
+    System.arraycopy(_chunkSums, 0, chunkSums, 0, skip);
+    GLMSufficientStats ss = prev == null?GLMSufficientStats.make(git, espc, chunkSums, _dinfo.coefNames()):prev.update(_parms._forgetting_factor, git, espc, chunkSums);
+
+    double [] xy = MemoryManager.malloc8d(p+1);
+    Gram gram = ss.standardize(_dinfo, xy);
+    double ymu = _parms._intercept?xy[p]/gram.get(p,p):0;
+    double reg = _parms._obj_reg == -1?1.0/ss._wsum:_parms._obj_reg;
+    // lambda_max from the gradient of the intercept-only model
+    double [] grad = MemoryManager.malloc8d(p);
+    for(int j = 0; j < p; ++j)
+      grad[j] = reg*(xy[j] - gram.get(j,p)*ymu);
+    double lmax = lmax(grad);
+    if(_parms._lambda == null)
+      _parms._lambda = new double[]{lmax * (p < ss._nobs/16 ? 1e-3 : 1e-1)};
+    double l2pen = _parms._lambda[0] * (1 - _parms._alpha[0]);
+    double l1pen = _parms._lambda[0] * _parms._alpha[0];
+    Gram g = new Gram(gram);
+    g.mul(reg);
+    double [] xyReg = ArrayUtils.mult(xy.clone(), reg);
+    double [] beta = MemoryManager.malloc8d(p+1);
+    if(l1pen > 0) {
+      GramSolver gslvr = new GramSolver(g, xyReg, _parms._intercept, l2pen, l1pen, null, null, 0, null, null);
+      new ADMM.L1Solver(1e-4, 10000).solve(gslvr, beta, l1pen, _parms._intercept, null, null);
+    } else {
+      g.addDiag(l2pen);
+      new GramSolver(g, xyReg, lmax, _parms._beta_epsilon, _parms._intercept).solve(beta);
+    }
+    if (ArrayUtils.hasNaNsOrInfs(beta))
+      throw new RuntimeException("got NaNs and/or Infs in beta");
+
+    // residual deviance yy - 2 beta'xy + beta'G beta, and the null deviance
+    double [] gb = MemoryManager.malloc8d(p+1);
+    gram.mul(beta, gb);
+    double resDev = ss._yy - 2*ArrayUtils.innerProduct(beta, xy) + ArrayUtils.innerProduct(beta, gb);
+    double nullDev = ss._yy - (_parms._intercept?ymu*xy[p]:0);
+    int rank = 0;
+    for(double b:beta) if(b != 0) ++rank;
+    double ySigma = _dinfo._adaptedFrame.lastVec().sigma();
+    // Observation counts are down-weighted by the forgetting factor like the weights, so AIC and DOF stay consistent with them
+    final long nobs = Math.round(ss._nobs);
+    _model = new GLMModel(_dest, _parms, GLM.this, new double[]{ymu}, ySigma, lmax, nobs, hasWeightCol(), hasOffsetCol());
+    _model.delete_and_lock(GLM.this._key);
+    _model.setSubmodel(new Submodel(_parms._lambda[0], beta, 1, resDev, Double.NaN));
+    _model._output.setSubmodelIdx(0);
+    _model._output._sufficient_stats = ss;
+    double aic = ss._nobs * (Math.log(resDev / ss._nobs * 2 * Math.PI) + 1) + 2;
+    _model._output._training_metrics = _model._output.addModelMetrics(new ModelMetricsRegressionGLM(_model, _parms.train(), resDev/ss._wsum, ySigma, resDev, resDev/ss._wsum, nullDev, aic, nobs - (_parms._intercept?1:0), nobs - rank));
+    if(_valid != null) {
+      _model.score(_parms.valid()).delete();
+      _model._output._validation_metrics = ModelMetrics.getFromDKV(_model, _parms.valid());
+    }
+    _sc.addIterationScore(1, resDev, resDev*reg);
+    _model.generateSummary(_parms._train, 1);
+    _model._output._scoring_history = _sc.to2dTable();
+    _model.update(GLM.this._key);
+    update(WORK_TOTAL, "incremental fit done");
+  }
+
   private class InitTsk extends H2OCountedCompleter {
     final int _foldId;
     final boolean _intercept;
@@ -776,6 +898,8 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
     // I put them here to have all needed info in state object (so I only need to keep State[] info when doing xval)
     final Key             _dstKey;
     boolean _allIn;
+    double [] _fullGradient; // gradient over all predictors from the last KKT check
+    double _fullGradientLambda; // lambda of the last KKT check, the inactive predictors' gradient is from there
 
     // vecs used by cooridnate descent
     Vec _eVec; // eta
@@ -925,6 +1049,11 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         throw H2OModelBuilderIllegalArgumentException.makeFromBuilder(GLM.this);
       }
       _parms.read_lock_frames(GLM.this);
+      if(_parms._incremental) {
+        fitIncremental();
+        tryComplete();
+        return;
+      }
       //todo: fill in initialization for n-folds
       H2O.submitTask(new GLMSingleLambdaTsk(new LambdaSearchIteration(this),_tInfos[0]));
     }
@@ -1092,9 +1221,20 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
 
     }
 
+    /**
+     * IRLSM without l1 penalty and beta constraints can run with more than
+     * max_active_predictors predictors; the Gram matrix is then computed,
+     * factored and solved as a TiledGram distributed over the cloud.
+     */
+    private boolean tiledGramApplies() {
+      return _parms._solver == Solver.IRLSM && _parms._family != Family.multinomial
+        && _parms._lambda[_lambdaId] * _parms._alpha[0] == 0
+        && _bc._betaLB == null && _bc._betaUB == null && _bc._betaGiven == null;
+    }
+
     int _oldIter;
     protected void solve(boolean doLineSearch){
-      if (_activeData.fullN() > _parms._max_active_predictors)
+      if (_activeData.fullN() > _parms._max_active_predictors && !tiledGramApplies())
         throw new TooManyPredictorsException();
       _oldIter = _taskInfo._iter;
       Solver solverType = _parms._solver;
@@ -1754,14 +1894,39 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       fullBeta[fullBeta.length-1] += _iceptAdjust;
       addToPendingCount(1);
       _taskInfo._scoredAndUpdated = score;
-      new GLMTask.GLMGradientTask(_dinfo, _parms, _parms._lambda[_lambdaId], fullBeta, _parms._obj_reg, _parms._intercept, new H2OCallback<GLMGradientTask>(cc) {
+      // Between KKT checkpoints only the active columns are read; the gradient
+      // of the inactive ones is kept from the last full pass. The last lambda the
+      // search gets to (end of the path, out of iterations or about to stop on
+      // worsening deviance) is always checked.
+      final int [] activeCols = _taskInfo._activeCols;
+      final boolean fullCheck = activeCols == null || _lambdaId == _parms._lambda.length - 1 || _lambdaId % _parms._kkt_check_interval == 0
+        || _taskInfo._iter >= _parms._max_iterations || _taskInfo._stopCnt >= 2;
+      final double [] passBeta;
+      if(fullCheck) passBeta = fullBeta;
+      else {
+        passBeta = _taskInfo._beta.clone();
+        passBeta[passBeta.length-1] += _iceptAdjust;
+      }
+      new GLMTask.GLMGradientTask(fullCheck?_dinfo:_activeData, _parms, _parms._lambda[_lambdaId], passBeta, _parms._obj_reg, _parms._intercept, new H2OCallback<GLMGradientTask>(cc) {
         @Override
         public void callback(final GLMGradientTask gt1) {
           assert gt1._nobs == _taskInfo._nobs;
-          double[] subgrad = gt1._gradient.clone();
+          final double [] gradient, beta;
+          if(!fullCheck) { // expand to all predictors, inactive ones have zero coefficients and their last computed gradient
+            gradient = _taskInfo._fullGradient != null ? _taskInfo._fullGradient.clone() : MemoryManager.malloc8d(_dinfo.fullN() + 1);
+            for(int i = 0; i < activeCols.length; ++i)
+              gradient[activeCols[i]] = gt1._gradient[i];
+            gradient[gradient.length-1] = gt1._gradient[gt1._gradient.length-1];
+            beta = fullBeta;
+          } else {
+            gradient = _taskInfo._fullGradient = gt1._gradient;
+            _taskInfo._fullGradientLambda = _parms._lambda[_lambdaId];
+            beta = gt1._beta;
+          }
+          double[] subgrad = gradient.clone();
           ADMM.subgrad(_parms._alpha[0] * _parms._lambda[_lambdaId], fullBeta, subgrad);
           double err = 0;
-          if (_taskInfo._activeCols != null) {
+          if (fullCheck && _taskInfo._activeCols != null) {
             for (int c : _taskInfo._activeCols)
               if (subgrad[c] > err) err = subgrad[c];
               else if (subgrad[c] < -err) err = -subgrad[c];
@@ -1781,7 +1946,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
               for (int i = 0; i < fcnt; ++i)
                 newCols[n + i] = failedCols[i];
               Arrays.sort(newCols);
-              _taskInfo._beta = resizeVec(gt1._beta, newCols, _taskInfo._activeCols, _dinfo.fullN() + 1);
+              _taskInfo._beta = resizeVec(beta, newCols, _taskInfo._activeCols, _dinfo.fullN() + 1);
               _taskInfo._activeCols = newCols;
               LogInfo(fcnt + " variables failed KKT conditions check! Adding them to the model and continuing computation.(grad_eps = " + err + ", activeCols = " + (_taskInfo._activeCols.length > 100 ? "lost" : Arrays.toString(_taskInfo._activeCols)));
               _activeData = _dinfo.filterExpandedColumns(_taskInfo._activeCols);
@@ -1799,7 +1964,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
             GLMSingleLambdaTsk.this.addToPendingCount(1);
             final int iter = _taskInfo._iter;
             // public GLMGradientTask(DataInfo dinfo, GLMParameters params, double lambda, double[] beta, double reg, H2OCountedCompleter cc){
-            new GLMTask.GLMGradientTask(_validDinfo, _parms, _parms._lambda[_lambdaId], _dinfo.denormalizeBeta(gt1._beta), 1.0 / _taskInfo._nobs, _parms._intercept, new H2OCallback<GLMGradientTask>(GLMSingleLambdaTsk.this) {
+            new GLMTask.GLMGradientTask(_validDinfo, _parms, _parms._lambda[_lambdaId], _dinfo.denormalizeBeta(beta), 1.0 / _taskInfo._nobs, _parms._intercept, new H2OCallback<GLMGradientTask>(GLMSingleLambdaTsk.this) {
               @Override
               public void callback(GLMGradientTask gt2) {
                 LogInfo("hold-out set validation = " + gt2._val.toString());
@@ -1809,7 +1974,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
                 _taskInfo._resDevTest = gt2._val.residualDeviance();
                 // can not use any of the member variables, since computation will go on in parallell
                 // also, we have already fully expanded beta here -> different call than from in-between iterations
-                Submodel sm = new Submodel(_parms._lambda[_lambdaId],gt1._beta, _taskInfo._iter,gt1._val.residualDeviance(), gt2._val.residualDeviance());
+                Submodel sm = new Submodel(_parms._lambda[_lambdaId],beta, _taskInfo._iter,gt1._val.residualDeviance(), gt2._val.residualDeviance());
                 _model.setSubmodel(sm);
                 if(score) { // pick best model first and if the latest is the best, udpate the metrics
                   _model._output.pickBestModel();
@@ -1829,7 +1994,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
               }
             }).setValidate(_parms._intercept?_taskInfo._ymu[0]:0, score).asyncExec(_validDinfo._adaptedFrame);
           } else {
-            Submodel sm = new Submodel(_parms._lambda[_lambdaId], gt1._beta, _taskInfo._iter, gt1._val.residualDeviance(), Double.NaN);
+            Submodel sm = new Submodel(_parms._lambda[_lambdaId], beta, _taskInfo._iter, gt1._val.residualDeviance(), Double.NaN);
             _model.setSubmodel(sm);
             _sc.addLambdaScore(_taskInfo._iter,_parms._lambda[_lambdaId], sm.rank(), gt1._val.explainedDev(), Double.NaN);
             if(score) { // set the training metrics (always the last iteration if running without validation set)
@@ -1845,21 +2010,21 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
             }
           }
           // got valid solution, update the state and complete
-          double l2pen = _parms._lambda[_lambdaId] * (1 - _parms._alpha[0]) * ArrayUtils.l2norm2(gt1._beta, _activeData._intercept);
+          double l2pen = _parms._lambda[_lambdaId] * (1 - _parms._alpha[0]) * ArrayUtils.l2norm2(beta, _activeData._intercept);
           if(_bc._betaGiven != null && _bc._rho != null) {
             for(int i = 0; i < _bc._betaGiven.length; ++i) {
-              double diff = gt1._beta[i] - _bc._betaGiven[i];
+              double diff = beta[i] - _bc._betaGiven[i];
               l2pen += _bc._rho[i] * diff * diff;
             }
           }
           l2pen *= .5;
-          _taskInfo._ginfo = new GLMGradientInfo(gt1._likelihood, gt1._likelihood/gt1._nobs + l2pen, gt1._gradient);
+          _taskInfo._ginfo = new GLMGradientInfo(gt1._likelihood, gt1._likelihood/gt1._nobs + l2pen, gradient);
           assert _taskInfo._ginfo._gradient.length == _dinfo.fullN() + 1:_taskInfo._ginfo._gradient.length + " != " + _dinfo.fullN() + ", intercept = " + _parms._intercept;
-          _taskInfo._objVal = objVal(gt1._likelihood,gt1._beta);
+          _taskInfo._objVal = objVal(gt1._likelihood,beta);
           _sc.addIterationScore(_taskInfo._iter,gt1._likelihood,_taskInfo._objVal); // it's in here for the gaussian family score :(
           _taskInfo._beta = fullBeta;
         }
-      }).setValidate(_parms._intercept?_taskInfo._ymu[0] : _parms._family == Family.binomial?0.5:0, score).asyncExec(_dinfo._adaptedFrame);
+      }).setValidate(_parms._intercept?_taskInfo._ymu[0] : _parms._family == Family.binomial?0.5:0, score).asyncExec((fullCheck?_dinfo:_activeData)._adaptedFrame);
     }
     @Override
     protected void compute2() { // part of the outer loop to compute sol for lambda_k+1. keep active cols using strong rules and calls solve.
@@ -1888,7 +2053,11 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         tryComplete();
       } else {
         // _taskInfo._allIn = true;
-        int[] activeCols = activeCols(_parms._lambda[_lambdaId], _lambdaId == 0 ? _taskInfo._lambdaMax : _parms._lambda[_lambdaId - 1], _taskInfo._ginfo._gradient);
+        // Strong rules screen against the lambda the inactive predictors' gradient was computed at,
+        // i.e. the last KKT checkpoint rather than the previous lambda when kkt_check_interval > 1
+        double prevLambda = _lambdaId == 0 ? _taskInfo._lambdaMax : _parms._lambda[_lambdaId - 1];
+        if(_taskInfo._fullGradient != null) prevLambda = Math.max(prevLambda, _taskInfo._fullGradientLambda);
+        int[] activeCols = activeCols(_parms._lambda[_lambdaId], prevLambda, _taskInfo._ginfo._gradient);
         _taskInfo._activeCols = activeCols;
         _activeData = _dinfo.filterExpandedColumns(activeCols);
         assert _taskInfo._activeCols == null || _taskInfo._activeCols.length == _activeData.fullN();
@@ -1931,7 +2100,10 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         assert _taskInfo._activeCols == null || glmt._beta == null || glmt._beta.length == (_taskInfo._activeCols.length + 1) : LogInfo("betalen = " + glmt._beta.length + ", activecols = " + _taskInfo._activeCols.length);
         assert _taskInfo._activeCols == null || _taskInfo._activeCols.length == _activeData.fullN();
         double reg = _parms._obj_reg;
-        glmt._gram.mul(reg);
+        if (glmt._tiledGram != null)
+          glmt._tiledGram.mul(reg);
+        else
+          glmt._gram.mul(reg);
         ArrayUtils.mult(glmt._xy, reg);
         if (_countIteration) ++_taskInfo._iter;
         long callbackStart = System.currentTimeMillis();
@@ -1940,6 +2112,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         if (_doLinesearch && (glmt.hasNaNsOrInf() || !((objVal) <= (lastObjVal)))) {
           // needed line search, have to discard the last step and go again with line search
           getCompleter().addToPendingCount(1);
+          if (glmt._tiledGram != null) glmt._tiledGram.remove();
           LogInfo("invoking line search, objval = " + objVal + ", lastObjVal = " + lastObjVal); // todo: get ginfo here?
           --_taskInfo._iter;
           _taskInfo._lineSearch = true;
@@ -1966,7 +2139,15 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         double defaultRho = _bc._betaLB != null || _bc._betaUB != null ? _taskInfo._lambdaMax * 1e-2 : 0;
         long tx = System.currentTimeMillis();
         // l1pen or upper/lower bounds require ADMM solver
-        if (l1pen > 0 || _bc._betaLB != null || _bc._betaUB != null || _bc._betaGiven != null) {
+        if (glmt._tiledGram != null) {
+          assert l1pen == 0 && _bc._betaLB == null && _bc._betaUB == null && _bc._betaGiven == null;
+          try {
+            glmt._tiledGram.addDiag(l2pen);
+            GramSolver.solveTiled(glmt._tiledGram, glmt._xy, _taskInfo._lambdaMax, newBeta);
+          } finally {
+            glmt._tiledGram.remove();
+          }
+        } else if (l1pen > 0 || _bc._betaLB != null || _bc._betaUB != null || _bc._betaGiven != null) {
           // double rho = Math.max(1e-4*_taskInfo._lambdaMax*_parms._alpha[0],_currentLambda*_parms._alpha[0]);
           GramSolver gslvr = new GramSolver(glmt._gram, glmt._xy, _parms._intercept, l2pen, l1pen /*, rho*/, _bc._betaGiven, _bc._rho, defaultRho, _bc._betaLB, _bc._betaUB);
           new ADMM.L1Solver(1e-4, 10000).solve(gslvr, newBeta, l1pen, _parms._intercept, _bc._betaLB, _bc._betaUB);
@@ -2164,6 +2345,31 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       _addedL2 = rhos[0] != 0;
       _rho = _addedL2?rhos:null;
     }
+    /**
+     * Solve gram * beta = xy with a distributed TiledGram.  If the gram is not
+     * positive definite, a small ridge is added to the diagonal (as in
+     * computeCholesky), the solution is then slightly regularized.
+     * @param result filled with beta; the intercept stays 0 if the gram has none
+     */
+    public static void solveTiled(TiledGram gram, double [] xy, double lmax, double [] result) {
+      double [] b = Arrays.copyOf(xy, gram._n);
+      TiledGram chol = gram.cholesky();
+      double rho = lmax*1e-8, added = 0;
+      for(int cnt = 0; chol == null && cnt < 6; ++cnt, rho *= 100) {
+        gram.addDiag(rho - added, true);
+        added = rho;
+        Log.warn("Got NonSPD matrix, re-computing with rho = " + rho);
+        chol = gram.cholesky();
+      }
+      if(chol == null) throw new Gram.NonSPDMatrixException();
+      try {
+        chol.solve(b);
+      } finally {
+        chol.remove();
+      }
+      System.arraycopy(b, 0, result, 0, b.length);
+    }
+
     // solve non-penalized problem
     public void solve(double [] result) {
       System.arraycopy(_xy,0,result,0, _xy.length);
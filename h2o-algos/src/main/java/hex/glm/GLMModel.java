@@ -111,10 +111,20 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
     public Key<Frame> _beta_constraints = null;
     // internal parameter, handle with care. GLM will stop when there is more than this number of active predictors (after strong rule screening)
     public int _max_active_predictors = -1;
+    // with lambda search, check KKT conditions over all predictors only every kkt_check_interval lambdas (and at the last one).
+    // In between, the gradient of the inactive predictors is the one from the last check, so the strong rules screen them
+    // against that checkpoint's lambda; a predictor missed that way enters at the next check and that lambda is re-solved.
+    public int _kkt_check_interval = 1;
+    // gaussian only: keep the sufficient statistics in the model, so that a refit with this model as checkpoint only passes over appended rows
+    public boolean _incremental = false;
+    // weight of the checkpoint's statistics on an incremental refit, 1 means no forgetting
+    public double _forgetting_factor = 1;
 
     public void validate(GLM glm) {
       if(_weights_column != null && _offset_column != null && _weights_column.equals(_offset_column))
         glm.error("_offset_column", "Offset must be different from weights");
+      if(_kkt_check_interval < 1)
+        glm.error("_kkt_check_interval", "kkt_check_interval must be >= 1");
       if(_lambda_search)
         if (glm.nFoldCV())
           glm.error("_lambda_search", "Lambda search is not currently supported in conjunction with N-fold cross-validation");
@@ -158,6 +168,26 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
         }
       }
 
+      if(_incremental) {
+        if(_family != Family.gaussian || (_link != Link.family_default && _link != Link.identity))
+          glm.error("_incremental", "Incremental training is only supported for family gaussian with identity link");
+        if(_lambda_search)
+          glm.error("_incremental", "Incremental training does not support lambda search");
+        if((_lambda != null && _lambda.length > 1) || (_alpha != null && _alpha.length > 1))
+          glm.error("_incremental", "Incremental training supports a single lambda and alpha only");
+        if(_beta_constraints != null || _non_negative)
+          glm.error("_incremental", "Incremental training does not support beta constraints");
+        if(_solver != Solver.IRLSM && _solver != Solver.AUTO)
+          glm.error("_solver", "Incremental training always solves with IRLSM");
+        if(glm.nFoldCV())
+          glm.error("_incremental", "Incremental training is not supported in conjunction with N-fold cross-validation");
+        if(!(_forgetting_factor > 0 && _forgetting_factor <= 1))
+          glm.error("_forgetting_factor", "Forgetting factor must be in (0,1]");
+      } else {
+        glm.hide("_forgetting_factor", "only applies to incremental training.");
+        if(hasCheckpoint())
+          glm.error("_checkpoint", "GLM can only continue from a checkpoint in incremental mode");
+      }
       if(!_lambda_search) {
         glm.hide("_lambda_min_ratio", "only applies if lambda search is on.");
         glm.hide("_nlambdas", "only applies if lambda search is on.");
@@ -497,6 +527,7 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
     final int _nclasses;
     public boolean _binomial;
     public boolean _multinomial;
+    GLMSufficientStats _sufficient_stats; // incremental (gaussian) fits only
 
     public int rank() { return _submodels[_best_lambda_idx].rank();}
 
@@ -548,7 +579,7 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
       String[] cnames = glm._dinfo.coefNames();
       String [] names = _dinfo._adaptedFrame._names;
       String [][] domains = _dinfo._adaptedFrame.domains();
-      int id = ArrayUtils.find(names, glm._generatedWeights);
+      int id = glm._generatedWeights == null?-1:ArrayUtils.find(names, glm._generatedWeights);
       if(id >= 0) {
         String [] ns = new String[names.length-1];
         String[][] ds = new String[domains.length-1][];
@@ -617,6 +648,23 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
 
     public double[][] get_global_beta_multinomial(){return _global_beta_multinomial;}
 
+    // Multinomial coefficients laid out coefficient-major for chunk scoring,
+    // built on first use and dropped whenever the coefficients change
+    private transient double[] _global_beta_multinomial_t;
+    double[] globalBetaMultinomialT() {
+      double[] b = _global_beta_multinomial_t;
+      if( b == null ) {
+        final double[][] bm = _global_beta_multinomial;
+        final int K = bm.length;
+        b = MemoryManager.malloc8d(bm[0].length * K);
+        for(int k = 0; k < K; ++k)
+          for(int j = 0; j < bm[k].length; ++j)
+            b[j*K + k] = bm[k][j];
+        _global_beta_multinomial_t = b;
+      }
+      return b;
+    }
+
     public void getBeta(int l, double [] beta) {
       assert beta.length == _dinfo.fullN()+1;
       int k = 0;
@@ -627,6 +675,7 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
     public void setSubmodelIdx(int l){
       _best_lambda_idx = l;
       if(_multinomial) {
+        _global_beta_multinomial_t = null;
         _global_beta_multinomial = getNormBetaMultinomial(l);
         for(int i = 0; i < _global_beta_multinomial.length; ++i)
           _global_beta_multinomial[i] = _dinfo.denormalizeBeta(_global_beta_multinomial[i]);
@@ -833,13 +882,14 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
   @Override protected double[] score0(double[] data, double[] preds){return score0(data,preds,1,0);}
 
   private double [] scoreMultinomial(double[] data, double[] preds, double w, double o) {
-    double [] eta = MemoryManager.malloc8d(_output.nclasses());
+    final int K = _output.nclasses();
     final double [][] b = _output._global_beta_multinomial;
     final int P = b[0].length;
     final DataInfo dinfo = _output._dinfo;
+    Arrays.fill(preds, 1, K + 1, 0);  // The etas are summed in place of the class probabilities
     for(int i = 0; i < dinfo._cats; ++i) {
       if(Double.isNaN(data[i])) {
-        Arrays.fill(eta,Double.NaN);
+        Arrays.fill(preds, 1, K + 1, Double.NaN);
         break;
       }
       int ival = (int) data[i];
@@ -849,29 +899,119 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
         --ival;
       // can get values out of bounds for cat levels not seen in training
       if (ival >= dinfo._catOffsets[i] && ival < dinfo._catOffsets[i + 1])
-        for(int j = 0; j < eta.length; ++j)
-          eta[j] += b[j][ival];
+        for(int j = 0; j < K; ++j)
+          preds[1 + j] += b[j][ival];
     }
     int noff = dinfo.numStart();
     for(int i = 0; i < dinfo._nums; ++i) {
       double d = data[dinfo._cats + i];
-      for (int j = 0; j < eta.length; ++j)
-        eta[j] += b[j][noff + i] * d;
+      for (int j = 0; j < K; ++j)
+        preds[1 + j] += b[j][noff + i] * d;
     }
+    for (int j = 0; j < K; ++j)
+      preds[1 + j] += b[j][P - 1];
+    multinomialPreds(preds, 0, K);
+    return preds;
+  }
+
+  // Class probabilities (softmax of the K etas held in p[off+1..off+K], in
+  // place) and predicted class, into p[off]
+  private static void multinomialPreds(double[] p, int off, int K) {
     double sumExp = 0;
     double max_row = 0;
-    for (int j = 0; j < eta.length; ++j) {
-      eta[j] += b[j][P - 1];
-      if(eta[j] > max_row)
-        max_row = eta[j];
+    for (int j = 1; j <= K; ++j)
+      if(p[off + j] > max_row)
+        max_row = p[off + j];
+    int best = 1;
+    for (int j = 1; j <= K; ++j) {
+      sumExp += (p[off + j] = Math.exp(p[off + j] - max_row));
+      if (p[off + j] > p[off + best]) best = j;
     }
-    for (int j = 0; j < eta.length; ++j)
-      sumExp += (eta[j] = Math.exp(eta[j]-max_row));
     sumExp = 1.0/sumExp;
-    preds[0] = ArrayUtils.maxIndex(eta);
-    for(int i = 0; i < eta.length; ++i)
-      preds[1+i] = eta[i]*sumExp;
-    return preds;
+    p[off] = best - 1;
+    for(int j = 1; j <= K; ++j)
+      p[off + j] *= sumExp;
+  }
+
+  // Prediction from the linear predictor for the single-response families, into p[off..]
+  private void linkPreds(double eta, double[] p, int off) {
+    double mu = _parms.linkInv(eta);
+    p[off] = mu;
+    if( _parms._family == Family.binomial ) { // threshold for prediction
+      if(Double.isNaN(mu)){
+        p[off] = Double.NaN;
+        p[off + 1] = Double.NaN;
+        p[off + 2] = Double.NaN;
+      } else {
+        p[off] = (mu >= _output._threshold ? 1 : 0);
+        p[off + 1] = 1.0 - mu; // class 0
+        p[off + 2] =       mu; // class 1
+      }
+    }
+  }
+
+  /** Scores all rows of a Chunk together, one column at a time: categorical
+   *  columns add the coefficient of their level, numeric columns are
+   *  multiplied in only where non-zero, so sparse Chunks are walked over their
+   *  non-zeros only.  The linear predictors are summed straight into the
+   *  returned predictions, so a Chunk allocates nothing else.  Gives the same
+   *  predictions as {@link #score0(double[], double[], double, double)} row
+   *  by row. */
+  @Override protected double[] score0(Chunk[] chks, Chunk offsetChunk, int npreds) {
+    final DataInfo dinfo = dinfo();
+    final boolean multinomial = _parms._family == Family.multinomial;
+    final int K = multinomial ? _output.nclasses() : 1;
+    final int len = chks[0]._len;
+    // Coefficients laid out coefficient-major, so that the K etas of a row are
+    // updated from adjacent memory; the intercept is last
+    final double[] b = multinomial ? _output.globalBetaMultinomialT() : beta();
+    final int icpt = b.length - K;
+    // The K etas of row r are summed at p[r*npreds + e..], e is 1 past the label slot for multinomial
+    final int e = multinomial ? 1 : 0;
+    // Terms are summed in the order of the row-wise score0, so that both give identical results
+    double[] p = MemoryManager.malloc8d(len * npreds);
+    final int shift = _parms._use_all_factor_levels ? 0 : -1;
+    for(int i = 0; i < dinfo._cats; ++i) {
+      Chunk c = chks[i];
+      final int from = dinfo._catOffsets[i], to = dinfo._catOffsets[i + 1];
+      for(int r = 0; r < len; ++r) {
+        final int off = r*npreds + e;
+        if(c.isNA(r)) {
+          Arrays.fill(p, off, off + K, Double.NaN);
+          continue;
+        }
+        long lval = c.at8(r);
+        int ival = (int)lval;
+        if(ival != lval) throw new IllegalArgumentException("categorical value out of range");
+        ival += from + shift;
+        // can get values out of bounds for cat levels not seen in training
+        if(ival >= from && ival < to)
+          for(int k = 0; k < K; ++k)
+            p[off + k] += b[ival*K + k];
+      }
+    }
+    final int noff = dinfo.numStart();
+    for(int i = 0; i < dinfo._nums; ++i) {
+      Chunk c = chks[dinfo._cats + i];
+      final int j = (noff + i) * K;
+      for(int r = c.nextNZ(-1); r < len; r = c.nextNZ(r)) {
+        double d = c.atd(r);
+        if(d == 0) continue;
+        final int off = r*npreds + e;
+        for(int k = 0; k < K; ++k)
+          p[off + k] += b[j + k] * d;
+      }
+    }
+    for(int r = 0; r < len; ++r) {
+      final int off = r*npreds;
+      if( multinomial ) {
+        for(int k = 0; k < K; ++k)
+          p[off + e + k] += b[icpt + k];
+        multinomialPreds(p, off, K);
+      } else
+        linkPreds((p[off] + b[icpt]) + offsetChunk.atd(r), p, off);
+    }
+    return p;
   }
 
   @Override protected double[] score0(double[] data, double[] preds, double w, double o) {
@@ -898,19 +1038,7 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
     for(int i = 0; i < dinfo._nums; ++i)
       eta += b[noff+i]*data[dinfo._cats + i];
     eta += b[b.length-1]; // add intercept
-    double mu = _parms.linkInv(eta + o);
-    preds[0] = mu;
-    if( _parms._family == Family.binomial ) { // threshold for prediction
-      if(Double.isNaN(mu)){
-        preds[0] = Double.NaN;
-        preds[1] = Double.NaN;
-        preds[2] = Double.NaN;
-      } else {
-        preds[0] = (mu >= _output._threshold ? 1 : 0);
-        preds[1] = 1.0 - mu; // class 0
-        preds[2] =       mu; // class 1
-      }
-    }
+    linkPreds(eta + o, preds, 0);
     return preds;
   }
 
@@ -0,0 +1,137 @@
+package hex.glm;
+
+import hex.DataInfo;
+import hex.gram.Gram;
+import water.Iced;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.util.ArrayUtils;
+
+import java.util.Arrays;
+
+/**
+ * Sufficient statistics of a gaussian GLM with identity link: the weighted
+ * Gram matrix t(X) W X, t(X) W y and t(y) W y of the expanded (but not
+ * standardized) predictors, with the intercept as the last column.  They are
+ * kept in the model output of incremental fits so that a later fit on the same
+ * frame with rows appended only needs to pass over the new chunks.
+ *
+ * The statistics cover the leading chunks of the training frame given by
+ * {@link #_espc}, whose contents are identified by {@link #_chunkSums}.
+ * Standardization is applied only when solving, with the means and standard
+ * deviations of the current frame, see {@link #standardize}.
+ */
+public class GLMSufficientStats extends Iced {
+  final Gram _gram;
+  final double[] _xy;
+  final double _yy;
+  final double _wsum;
+  final double _nobs;          // Number of observations, down-weighted by the forgetting factor like _wsum
+  final long[] _espc;          // Row layout of the chunks covered
+  final long[] _chunkSums;     // Checksums of the chunks covered, see chunkChecksums
+  final String[] _coefNames;   // Expanded predictors, without the intercept
+
+  GLMSufficientStats(Gram gram, double[] xy, double yy, double wsum, double nobs, long[] espc, long[] chunkSums, String[] coefNames) {
+    _gram = gram; _xy = xy; _yy = yy; _wsum = wsum; _nobs = nobs; _espc = espc; _chunkSums = chunkSums; _coefNames = coefNames;
+  }
+
+  /** @return Number of leading chunks of a frame with row layout {@code espc}
+   *  and chunk checksums {@code chunkSums} covered by these statistics, or -1
+   *  if the frame does not start with the chunks these statistics were
+   *  computed from. */
+  int coveredChunks(long[] espc, long[] chunkSums) {
+    if(espc.length < _espc.length) return -1;
+    for(int i = 0; i < _espc.length; ++i)
+      if(espc[i] != _espc[i]) return -1;
+    for(int i = 0; i < _chunkSums.length; ++i)
+      if(chunkSums[i] != _chunkSums[i]) return -1;
+    return _espc.length - 1;
+  }
+
+  /** @return Checksums of chunks {@code lo} (inclusive) to {@code hi}
+   *  (exclusive) of {@code fr}, indexed by chunk, 0 below {@code lo}.  A chunk
+   *  is identified by its compressed bytes, so no values are decoded.  Unlike
+   *  the rollup checksums of the Vecs, these stay the same when rows are
+   *  appended to the frame, e.g. by rbind. */
+  static long[] chunkChecksums(Frame fr, int lo, int hi) {
+    if(lo >= hi) return new long[hi];
+    return new ChunkChecksums(lo, hi).doAll(fr)._sums;
+  }
+
+  // Each node fills in the chunks it holds into one array, shared by its local maps
+  private static class ChunkChecksums extends MRTask<ChunkChecksums> {
+    final int _lo, _hi;
+    long[] _sums;
+    ChunkChecksums(int lo, int hi) { _lo = lo; _hi = hi; }
+    @Override protected void setupLocal() { _sums = new long[_hi]; }
+    @Override public void map(Chunk[] chks) {
+      int cidx = chks[0].cidx();
+      if(cidx < _lo || cidx >= _hi) return;
+      long sum = 0;
+      for(Chunk c : chks) {
+        byte[] mem = c.getBytes();
+        long h = 31L*c.getClass().getName().hashCode() + c._len;
+        for(byte b : mem)
+          h = 31*h + b;
+        sum = 37*sum + h;
+      }
+      _sums[cidx] = sum;
+    }
+    @Override public void reduce(ChunkChecksums cc) {
+      if(_sums != cc._sums) ArrayUtils.add(_sums, cc._sums); // Each chunk is set on its home node only
+    }
+  }
+
+  /** Down-weight these statistics by the forgetting factor {@code f} and add
+   *  the statistics {@code git} of the following chunks, up to {@code espc}. */
+  GLMSufficientStats update(double f, GLMTask.GLMIterationTask git, long[] espc, long[] chunkSums) {
+    Gram gram = new Gram(_gram);
+    double[] xy = _xy.clone();
+    if(f != 1) {
+      gram.mul(f);
+      ArrayUtils.mult(xy, f);
+    }
+    if(git == null || git._xy == null)
+      return new GLMSufficientStats(gram, xy, f*_yy, f*_wsum, f*_nobs, espc, chunkSums, _coefNames);
+    gram.add(git._gram);
+    ArrayUtils.add(xy, git._xy);
+    return new GLMSufficientStats(gram, xy, f*_yy + git._yy, f*_wsum + git.wsum, f*_nobs + git._nobs, espc, chunkSums, _coefNames);
+  }
+
+  static GLMSufficientStats make(GLMTask.GLMIterationTask git, long[] espc, long[] chunkSums, String[] coefNames) {
+    return new GLMSufficientStats(new Gram(git._gram), git._xy.clone(), git._yy, git.wsum, git._nobs, espc, chunkSums, coefNames);
+  }
+
+  /**
+   * Transform the raw statistics into the predictor space of {@code dinfo}:
+   * numeric column j becomes (x_j - sub_j) * mul_j.  Centering uses the
+   * intercept row (the weighted column sums), so no pass over the data is needed.
+   * @param xy filled with the transformed t(X) W y
+   * @return transformed Gram matrix
+   */
+  Gram standardize(DataInfo dinfo, double[] xy) {
+    Gram g = new Gram(_gram);
+    System.arraycopy(_xy, 0, xy, 0, _xy.length);
+    if(dinfo._normMul == null) return g;
+    final int ns = dinfo.numStart(), p = dinfo.fullN();
+    double[] sub = new double[p+1], mul = new double[p+1];
+    Arrays.fill(mul, 1);
+    for(int j = ns; j < p; ++j) {
+      sub[j] = dinfo._normSub[j-ns];
+      mul[j] = dinfo._normMul[j-ns];
+    }
+    // Column sums (the intercept row) before any change
+    double[] sums = new double[p+1];
+    for(int j = 0; j <= p; ++j) sums[j] = _gram.get(p, j);
+    double wsum = sums[p];
+    for(int i = g._diagN; i <= p; ++i) {
+      double[] row = g._xx[i - g._diagN];
+      for(int j = 0; j <= i; ++j)
+        row[j] = mul[i] * mul[j] * (row[j] - sub[j]*sums[i] - sub[i]*sums[j] + sub[i]*sub[j]*wsum);
+    }
+    for(int j = 0; j < p; ++j)
+      xy[j] = mul[j] * (xy[j] - sub[j]*_xy[p]);
+    return g;
+  }
+}
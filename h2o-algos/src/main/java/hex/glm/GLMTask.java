@@ -8,6 +8,7 @@ import hex.FrameTask2;
 import hex.glm.GLMModel.GLMParameters;
 import hex.glm.GLMModel.GLMParameters.Link;
 import hex.gram.Gram;
+import hex.gram.TiledGram;
 import hex.glm.GLMModel.GLMParameters.Family;
 import jsr166y.CountedCompleter;
 import water.H2O.H2OCountedCompleter;
@@ -24,6 +25,7 @@ import java.util.Arrays;
  * GLMGradientTask   - computes gradient at given Beta, used by L-BFGS, for KKT condition check
  * GLMLineSearchTask - computes residual deviance(s) at given beta(s), used by line search (both L-BFGS and IRLSM)
  * GLMIterationTask  - used by IRLSM to compute Gram matrix and response t(X) W X, t(X)Wz
+ * GLMTiledGramTask  - used by IRLSM to compute tiles of t(X) W X when it is too big for one node
  *
  * @author tomasnykodym
  */
@@ -952,6 +954,7 @@ public abstract class GLMTask  {
     final int _c;
     protected Gram  _gram; // wx%*%x
     double [] _xy; // wx^t%*%z,
+    double _yy; // wz^t%*%z, only for gaussian family with identity link
 
     GLMValidation _val; // validation of previous model
     final double [] _ymu;
@@ -963,6 +966,9 @@ public abstract class GLMTask  {
     final double _lambda;
     double wsum, wsumu;
     final boolean _intercept;
+    // Too many predictors for the Gram to fit in one heap: compute it as a TiledGram in postGlobal instead
+    final boolean _tiled;
+    TiledGram _tiledGram;
 
     public  GLMIterationTask(Key jobKey, DataInfo dinfo, double lambda, GLMModel.GLMParameters glm, boolean validate,
                              double [][] betaMultinomial, double [] beta, int c, double [] ymu, boolean intercept, H2OCountedCompleter cmp) {
@@ -976,6 +982,7 @@ public abstract class GLMTask  {
       _validate = validate;
       _lambda = lambda;
       _intercept = intercept;
+      _tiled = false;
     }
 
     public  GLMIterationTask(Key jobKey, DataInfo dinfo, double lambda, GLMModel.GLMParameters glm, boolean validate,
@@ -989,6 +996,8 @@ public abstract class GLMTask  {
       _validate = validate;
       _lambda = lambda;
       _intercept = intercept;
+      _tiled = dinfo.fullN() > glm._max_active_predictors && glm._max_active_predictors > 0;
+      if(_tiled) _sparse = false; // tiles are accumulated from dense rows, no centering correction needed
     }
 
     @Override public boolean handlesSparseData(){return true;}
@@ -1000,7 +1009,8 @@ public abstract class GLMTask  {
     @Override
     public void chunkInit() {
       // initialize
-      _gram = new Gram(_dinfo.fullN(), _dinfo.largestCat(), _dinfo._nums, _dinfo._cats,true);
+      if(!_tiled)
+        _gram = new Gram(_dinfo.fullN(), _dinfo.largestCat(), _dinfo._nums, _dinfo._cats,true);
       if(_params._family == Family.multinomial)
         _etas = new double[_beta_multinomial.length];
       // public GLMValidation(Key dataKey, double ymu, GLMParameters glm, int rank, float [] thresholds){
@@ -1043,6 +1053,7 @@ public abstract class GLMTask  {
       if( _params._family == Family.gaussian && _params._link == Link.identity){
         w = r.weight;
         wz = w*(y - r.offset);
+        _yy += wz*(y - r.offset);
         mu = 0;
         eta = mu;
       } else {
@@ -1093,13 +1104,25 @@ public abstract class GLMTask  {
       }
       if(_dinfo._intercept)
         _xy[_xy.length-1] += wz;
-      _gram.addRow(r, w);
+      if(_gram != null)
+        _gram.addRowBlocked(r, w);
     }
 
+    @Override
+    public void chunkDone() { if(_gram != null) _gram.flushRows(); }
+
     @Override
     public void reduce(GLMIterationTask git){
+      if(git._xy == null) return; // only skipped chunks on the other side
+      if(_xy == null) { // only skipped chunks on this side
+        _xy = git._xy; _gram = git._gram; _val = git._val; _ti = git._ti;
+        _nobs = git._nobs; wsum = git.wsum; wsumu = git.wsumu; _yy = git._yy; _likelihood = git._likelihood;
+        return;
+      }
       ArrayUtils.add(_xy, git._xy);
-      _gram.add(git._gram);
+      _yy += git._yy;
+      if(_gram != null)
+        _gram.add(git._gram);
       _nobs += git._nobs;
       wsum += git.wsum;
       wsumu += git.wsumu;
@@ -1109,6 +1132,7 @@ public abstract class GLMTask  {
     }
 
     @Override protected void postGlobal(){
+      if(_xy == null) return; // every chunk was skipped
       if(_sparse && _dinfo._normSub != null) { // need to adjust gram for missing centering!
         int ns = _dinfo.numStart();
         int interceptIdx = _xy.length-1;
@@ -1135,10 +1159,134 @@ public abstract class GLMTask  {
       if(_val != null){
         _val.computeAIC();
       }
+      if(_tiled)
+        _tiledGram = GLMTiledGramTask.compute(_jobKey, _dinfo, _params, _beta, _intercept);
     }
 
     public boolean hasNaNsOrInf() {
-      return ArrayUtils.hasNaNsOrInfs(_xy) || _gram.hasNaNsOrInfs();
+      return ArrayUtils.hasNaNsOrInfs(_xy) || (_tiledGram != null ? _tiledGram.hasNaNsOrInfs() : _gram.hasNaNsOrInfs());
+    }
+  }
+
+  /**
+   * Computes tile rows [_I0,_I1) of the IRLSM Gram matrix t(X) W X into a
+   * TiledGram, for problems with too many predictors for the Gram to fit into
+   * a single heap.  Observation weights W are computed from _beta the same way
+   * as in GLMIterationTask.  Rows are dense and expanded, with the intercept
+   * (if any) as the last column.
+   */
+  public static class GLMTiledGramTask extends FrameTask2<GLMTiledGramTask> {
+    final GLMParameters _params;
+    final double [] _beta;
+    final TiledGram _g;
+    final int _I0, _I1;
+    double [][] _tiles; // tile (I,J) at TiledGram.idx(I,J) - TiledGram.idx(_I0,0)
+
+    public GLMTiledGramTask(Key jobKey, DataInfo dinfo, GLMParameters params, double [] beta, TiledGram g, int I0, int I1) {
+      super(null, dinfo, jobKey);
+      _params = params;
+      _beta = beta;
+      _g = g;
+      _I0 = I0;
+      _I1 = I1;
+    }
+
+    /**
+     * Compute the whole Gram matrix, in as many passes over the data as needed
+     * to keep the tiles accumulated per pass within a fraction of the heap.
+     */
+    public static TiledGram compute(Key jobKey, DataInfo dinfo, GLMParameters params, double [] beta, boolean intercept) {
+      return compute(jobKey, dinfo, params, beta, intercept, TiledGram.DEFAULT_TILE);
+    }
+
+    static TiledGram compute(Key jobKey, DataInfo dinfo, GLMParameters params, double [] beta, boolean intercept, int tile) {
+      TiledGram g = new TiledGram(dinfo.fullN() + (intercept?1:0), tile, intercept);
+      long tileBytes = 8L * g._tile * g._tile;
+      long budget = Math.max(tileBytes * g._nt, H2O.SELF.get_max_mem() / (4L * H2O.NUMCPUS));
+      for(int I0 = 0; I0 < g._nt; ) {
+        int I1 = I0;
+        long bytes = 0;
+        while(I1 < g._nt && (I1 == I0 || bytes + tileBytes * (I1 + 1) <= budget))
+          bytes += tileBytes * (++I1);
+        new GLMTiledGramTask(jobKey, dinfo, params, beta, g, I0, I1).doAll(dinfo._adaptedFrame);
+        I0 = I1;
+      }
+      return g;
+    }
+
+    transient private double [] _x;
+
+    @Override
+    public void chunkInit() {
+      _tiles = new double[TiledGram.idx(_I1,0) - TiledGram.idx(_I0,0)][];
+      _x = MemoryManager.malloc8d(_g._n);
+    }
+
+    @Override
+    protected void processRow(Row r) {
+      final double w;
+      if(_params._family == Family.gaussian && _params._link == Link.identity)
+        w = r.weight;
+      else {
+        double mu = _params.linkInv(r.innerProduct(_beta) + r.offset);
+        double var = Math.max(1e-6, _params.variance(mu)); // avoid numerical problems with 0 variance
+        double d = _params.linkDeriv(mu);
+        w = r.weight/(var*d*d);
+      }
+      if(w == 0) return;
+      final double [] x = _x;
+      Arrays.fill(x, 0);
+      for(int i = 0; i < r.nBins; ++i)
+        x[r.binIds[i]] = 1;
+      final int numStart = _dinfo.numStart();
+      for(int i = 0; i < r.nNums; ++i)
+        x[numStart + i] = r.numVals[i];
+      if(_g._hasIntercept)
+        x[_g._n - 1] = 1;
+      final int T = _g._tile;
+      final int base = TiledGram.idx(_I0,0);
+      for(int I = _I0; I < _I1; ++I) {
+        final int i0 = I*T, ni = _g.tileRows(I);
+        for(int i = 0; i < ni; ++i) {
+          final double wxi = w*x[i0 + i];
+          if(wxi == 0) continue;
+          for(int J = 0; J <= I; ++J) {
+            final int j0 = J*T, nj = _g.tileRows(J);
+            final int jEnd = I == J ? i + 1 : nj;
+            double [] t = _tiles[TiledGram.idx(I,J) - base];
+            if(t == null) t = _tiles[TiledGram.idx(I,J) - base] = MemoryManager.malloc8d(ni*nj);
+            final int off = i*nj;
+            for(int j = 0; j < jEnd; ++j)
+              t[off + j] += wxi*x[j0 + j];
+          }
+        }
+      }
+    }
+
+    @Override
+    public void reduce(GLMTiledGramTask t) {
+      if(t._tiles == null) return; // no chunks, or tiles already added on another node
+      if(_tiles == null) { _tiles = t._tiles; return; }
+      for(int i = 0; i < _tiles.length; ++i) {
+        if(_tiles[i] == null) _tiles[i] = t._tiles[i];
+        else if(t._tiles[i] != null) ArrayUtils.add(_tiles[i], t._tiles[i]);
+      }
+    }
+
+    // Add the band summed on this node into the TiledGram one tile at a time,
+    // on the tiles' home nodes, so that no band travels between nodes
+    @Override
+    protected void closeLocal() {
+      if(_tiles == null) return;
+      Futures fs = new Futures();
+      final int base = TiledGram.idx(_I0,0);
+      for(int I = _I0; I < _I1; ++I)
+        for(int J = 0; J <= I; ++J) {
+          double [] a = _tiles[TiledGram.idx(I,J) - base];
+          if(a != null) _g.add(I, J, a, fs);
+        }
+      fs.blockForPending();
+      _tiles = null;
     }
   }
 
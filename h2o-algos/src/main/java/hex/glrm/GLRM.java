@@ -67,7 +67,7 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
 
   @Override
   public long progressUnits() {
-    return 2 + _parms._max_iterations;
+    return 1 + _parms._max_iterations;
   }
 
   @Override public ModelCategory[] can_build() {
@@ -616,12 +616,9 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
         if (!(_parms._init == Initialization.User && null != _parms._user_x) && _parms.hasClosedForm(na_cnt))    // Set X to closed-form solution of ALS equation if possible for better accuracy
           initialXClosedForm(dinfo, yt, model._output._normSub, model._output._normMul);
 
-        // Compute initial objective function
-        update(1, "Computing initial objective function");   // One unit of work
+        // The initial objective function is computed by the first update of X, which evaluates the loss at the X it starts from
         boolean regX = _parms._regularization_x != GLRMParameters.Regularizer.None && _parms._gamma_x != 0;  // Assume regularization on initial X is finite, else objective can be NaN if \gamma_x = 0
-        ObjCalc objtsk = new ObjCalc(_parms, yt, _ncolA, _ncolX, dinfo._cats, model._output._normSub, model._output._normMul, model._output._lossFunc, weightId, regX);
-        objtsk.doAll(dinfo._adaptedFrame);
-        model._output._objective = objtsk._loss + _parms._gamma_x * objtsk._xold_reg + _parms._gamma_y * _parms.regularize_y(yt._archetypes);
+        model._output._objective = Double.NaN;
         model._output._archetypes_raw = yt;
         model._output._iterations = 0;
         model._output._avg_change_obj = 2 * TOLERANCE;    // Run at least 1 iteration
@@ -637,14 +634,16 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
           // 1) Update X matrix given fixed Y
           UpdateX xtsk = new UpdateX(_parms, yt, step/_ncolA, overwriteX, _ncolA, _ncolX, dinfo._cats, model._output._normSub, model._output._normMul, model._output._lossFunc, weightId);
           xtsk.doAll(dinfo._adaptedFrame);
-          
+          if (model._output._iterations == 0)
+            model._output._objective = xtsk._loss + (regX ? _parms._gamma_x * xtsk._xold_reg : 0) + _parms._gamma_y * _parms.regularize_y(yt._archetypes);
+
           // 2) Update Y matrix given fixed X
           UpdateY ytsk = new UpdateY(_parms, yt, step/_ncolA, _ncolA, _ncolX, dinfo._cats, model._output._normSub, model._output._normMul, model._output._lossFunc, weightId);
           double[][] yttmp = ytsk.doAll(dinfo._adaptedFrame)._ytnew;
           Archetypes ytnew = new Archetypes(yttmp, true, dinfo._catOffsets, numLevels);
 
           // 3) Compute average change in objective function
-          objtsk = new ObjCalc(_parms, ytnew, _ncolA, _ncolX, dinfo._cats, model._output._normSub, model._output._normMul, model._output._lossFunc, weightId);
+          ObjCalc objtsk = new ObjCalc(_parms, ytnew, _ncolA, _ncolX, dinfo._cats, model._output._normSub, model._output._normMul, model._output._lossFunc, weightId);
           objtsk.doAll(dinfo._adaptedFrame);
           double obj_new = objtsk._loss + _parms._gamma_x * xtsk._xreg + _parms._gamma_y * ytsk._yreg;
           model._output._avg_change_obj = (model._output._objective - obj_new) / nobs;
@@ -676,6 +675,13 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
           model.update(self()); // Update model in K/V store
         }
 
+        // Stopped before the first iteration, e.g. initial step size below the minimum
+        if (model._output._iterations == 0) {
+          ObjCalc objtsk = new ObjCalc(_parms, yt, _ncolA, _ncolX, dinfo._cats, model._output._normSub, model._output._normMul, model._output._lossFunc, weightId, regX);
+          objtsk.doAll(dinfo._adaptedFrame);
+          model._output._objective = objtsk._loss + _parms._gamma_x * objtsk._xold_reg + _parms._gamma_y * _parms.regularize_y(yt._archetypes);
+        }
+
         // 4) Save solution to model output
         // Save X frame for user reference later
         Vec[] xvecs = new Vec[_ncolX];
@@ -1043,6 +1049,70 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
     }
   }
 
+  // Numeric columns of A which this chunk stores sparsely (mostly zeros) and which have quadratic loss.
+  // Zeros are observed values, so the rows such a chunk does not store still count; but over all of them
+  // the loss and its gradients are quadratic forms in X and Y, which cost O(k^2) per row or column instead
+  // of O(k) per entry.  Only the rows the chunk does store (non-zeros and NAs) are then visited one by one.
+  // Returns null when there are too few such columns for this to pay off.
+  private static boolean[] quadSparseCols(Chunk[] cs, int ncats, int ncolA, int ncolX, GLRMParameters.Loss[] lossFunc) {
+    boolean[] sparse = new boolean[ncolA];
+    int n = 0;
+    for(int j = ncats; j < ncolA; j++)
+      if(cs[j].isSparse() && lossFunc[j] == GLRMParameters.Loss.Quadratic) { sparse[j] = true; n++; }
+    return n > ncolX ? sparse : null;
+  }
+
+  // Chunk-relative indices of the rows a sparse chunk stores explicitly: its non-zeros and NAs
+  private static int storedRows(Chunk c, int[] rows) {
+    assert c.isSparse();
+    return c instanceof C0DChunk || c instanceof C0LChunk ? 0 : c.nonzeros(rows);
+  }
+
+  // Copy the ncolX columns of X starting at column off into a row-major array
+  private static double[] getXRows(Chunk[] cs, int off, int ncolX, double[] x) {
+    for(int k = 0; k < ncolX; k++) {
+      Chunk c = cs[off+k];
+      for(int row = 0, i = k; row < c._len; row++, i += ncolX) x[i] = c.atd(row);
+    }
+    return x;
+  }
+
+  private static void setXRows(Chunk[] cs, int off, int ncolX, double[] x) {
+    for(int k = 0; k < ncolX; k++) {
+      Chunk c = cs[off+k];
+      for(int row = 0, i = k; row < c._len; row++, i += ncolX) c.set(row, x[i]);
+    }
+  }
+
+  // Inner product of x[xo, xo+y.length) and y
+  private static double dot(double[] x, int xo, double[] y) {
+    double d = 0;
+    for(int k = 0; k < y.length; k++) d += x[xo+k] * y[k];
+    return d;
+  }
+
+  // y[yo, yo+n) += a * x[xo, xo+n)
+  private static void axpy(double a, double[] x, int xo, double[] y, int yo, int n) {
+    for(int k = 0; k < n; k++) y[yo+k] += a * x[xo+k];
+  }
+
+  // Weighted Gram matrix \sum_i w_i x_i x_i' of the rows of X in this chunk; their weighted sum goes to s
+  private static double[][] xGram(double[] x, Chunk chkweight, int ncolX, double[] s) {
+    double[][] gram = new double[ncolX][ncolX];
+    for(int row = 0; row < chkweight._len; row++) {
+      double w = chkweight.atd(row);
+      int xo = row*ncolX;
+      for(int p = 0; p < ncolX; p++) {
+        double wx = w * x[xo+p];
+        s[p] += wx;
+        for(int q = 0; q <= p; q++) gram[p][q] += wx * x[xo+q];
+      }
+    }
+    for(int p = 0; p < ncolX; p++)
+      for(int q = 0; q < p; q++) gram[q][p] = gram[p][q];
+    return gram;
+  }
+
   private static class UpdateX extends MRTask<UpdateX> {
     // Input
     GLRMParameters _parms;
@@ -1058,11 +1128,12 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
     final int _weightId;
 
     // Output
-    double _loss;    // Loss evaluated on A - XY using new X (and current Y)
-    double _xreg;    // Regularization evaluated on new X
+    double _loss;       // Loss evaluated on A - XY using old X (and current Y), i.e. before this update
+    double _xold_reg;   // Regularization evaluated on old X
+    double _xreg;       // Regularization evaluated on new X
 
     UpdateX(GLRMParameters parms, Archetypes yt, double alpha, boolean update, int ncolA, int ncolX, int ncats, double[] normSub, double[] normMul, GLRMParameters.Loss[] lossFunc, int weightId) {
-      assert yt != null && yt.rank() == ncolX;
+      assert yt != null && yt.rank() == ncolX && yt._transposed;
       _parms = parms;
       _yt = yt;
       _lossFunc = lossFunc;
@@ -1079,102 +1150,137 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
       _normMul = normMul;
     }
 
+    // Rows of X are read once into x, their gradients accumulated column by column into g
     @Override public void map(Chunk[] cs) {
       assert (_ncolA + 2*_ncolX) == cs.length;
-      double[] a = new double[_ncolA];
-      Chunk chkweight = _weightId >= 0 ? cs[_weightId]:new C0DChunk(1,cs[0]._len);
-      Random rand = RandomUtils.getRNG(0);
-      _loss = _xreg = 0;
+      final int len = cs[0]._len, K = _ncolX;
+      final double[][] y = _yt._archetypes;
+      Chunk chkweight = _weightId >= 0 ? cs[_weightId]:new C0DChunk(1,len);
+      _loss = _xold_reg = _xreg = 0;
 
-      for(int row = 0; row < cs[0]._len; row++) {
-        rand.setSeed(_parms._seed + cs[0].start() + row); //global row ID determines the seed
-        double[] grad = new double[_ncolX];
-
-        // Additional user-specified weight on loss for this row
-        double cweight = chkweight.atd(row);
-        assert !Double.isNaN(cweight) : "User-specified weight cannot be NaN";
+      // Copy old working copy of X to current X if requested
+      double[] x = getXRows(cs, _update ? idx_xnew(0,_ncolA,K) : idx_xold(0,_ncolA), K, new double[len*K]);
+      if(_update) setXRows(cs, idx_xold(0,_ncolA), K, x);
+      double[] g = new double[len*K];
 
-        // Copy old working copy of X to current X if requested
-        if(_update) {
-          for(int k = 0; k < _ncolX; k++)
-            chk_xold(cs,k,_ncolA).set(row, chk_xnew(cs,k,_ncolA,_ncolX).atd(row));
-        }
-
-        // Compute gradient of objective at row
-        // Categorical columns
-        for(int j = 0; j < _ncats; j++) {
-          a[j] = cs[j].atd(row);
-          if(Double.isNaN(a[j])) continue;   // Skip missing observations in row
+      // Compute gradient of objective at each row, and loss at the old X on the way
+      // Categorical columns
+      for(int j = 0; j < _ncats; j++) {
+        int off = _yt._catOffsets[j];
+        double[] xy = new double[_yt._numLevels[j]];
+        double[] weight = new double[xy.length];
+        for(int row = 0; row < len; row++) {
+          double a = cs[j].atd(row);
+          if(Double.isNaN(a)) continue;   // Skip missing observations in row
+          double cweight = chkweight.atd(row);
+          assert !Double.isNaN(cweight) : "User-specified weight cannot be NaN";
 
           // Calculate x_i * Y_j where Y_j is sub-matrix corresponding to categorical col j
-          double[] xy = new double[_yt._numLevels[j]];
-          for(int level = 0; level < xy.length; level++) {
-            for(int k = 0; k < _ncolX; k++) {
-              xy[level] += chk_xold(cs,k,_ncolA).atd(row) * _yt.getCat(j, level, k);
-            }
-          }
+          int xo = row*K;
+          for(int level = 0; level < xy.length; level++)
+            xy[level] = dot(x, xo, y[off+level]);
+          _loss += cweight * _parms.mloss(xy, (int)a, _lossFunc[j]);
 
           // Gradient wrt x_i is matrix product \grad L_{i,j}(x_i * Y_j, A_{i,j}) * Y_j'
-          double[] weight = _parms.mlgrad(xy, (int) a[j], _lossFunc[j]);
-          double[][] ysub = _yt.getCatBlock(j);
-          for(int k = 0; k < _ncolX; k++) {
-            for(int c = 0; c < weight.length; c++)
-              grad[k] += cweight * weight[c] * ysub[k][c];
-          }
+          GLRMParameters.mlgrad(xy, (int)a, weight, _lossFunc[j]);
+          for(int level = 0; level < xy.length; level++)
+            if(weight[level] != 0) axpy(cweight * weight[level], y[off+level], 0, g, xo, K);
         }
+      }
 
-        // Numeric columns
-        for(int j = _ncats; j < _ncolA; j++) {
-          int js = j - _ncats;
-          a[j] = cs[j].atd(row);
-          if(Double.isNaN(a[j])) continue;   // Skip missing observations in row
-
-          // Inner product x_i * y_j
-          double xy = 0;
-          for(int k = 0; k < _ncolX; k++)
-            xy += chk_xold(cs,k,_ncolA).atd(row) * _yt.getNum(js, k);
+      // Numeric columns
+      boolean[] sparse = quadSparseCols(cs, _ncats, _ncolA, K, _lossFunc);
+      for(int j = _ncats; j < _ncolA; j++) {
+        if(sparse != null && sparse[j]) continue;
+        int js = j - _ncats;
+        double[] yj = y[_yt.getNumCidx(js)];
+        for(int row = 0; row < len; row++) {
+          double a = cs[j].atd(row);
+          if(Double.isNaN(a)) continue;   // Skip missing observations in row
+          double cweight = chkweight.atd(row);
+          a = (a - _normSub[js]) * _normMul[js];
 
           // Sum over y_j weighted by gradient of loss \grad L_{i,j}(x_i * y_j, A_{i,j})
-          double weight = cweight * _parms.lgrad(xy, (a[j] - _normSub[js]) * _normMul[js], _lossFunc[j]);
-          for(int k = 0; k < _ncolX; k++)
-            grad[k] += weight * _yt.getNum(js, k);
+          int xo = row*K;
+          double xy = dot(x, xo, yj);
+          _loss += cweight * _parms.loss(xy, a, _lossFunc[j]);
+          axpy(cweight * _parms.lgrad(xy, a, _lossFunc[j]), yj, 0, g, xo, K);
         }
+      }
 
-        // Update row x_i of working copy with new values
-        double[] u = new double[_ncolX];
-        for(int k = 0; k < _ncolX; k++) {
-          double xold = chk_xold(cs,k,_ncolA).atd(row);   // Old value of x_i
-          u[k] = xold - _alpha * grad[k];
-          // xnew[k] = _parms.rproxgrad_x(xold - _alpha * grad[k], _alpha);  // Proximal gradient
-          // chk_xnew(cs,k,_ncolA,_ncolX).set(row, xnew[k]);
-          // _xreg += _parms.regularize_x(xnew[k]);
+      // Sparse numeric columns with quadratic loss
+      if(sparse != null) {
+        // Taking all their entries to be zero, i.e. c_j = -normSub_j * normMul_j once standardized, the gradient
+        // at row i is 2(H x_i - b) and the loss x_i'H x_i - 2b'x_i + cc, where H = \sum_j y_j y_j', b = \sum_j c_j y_j
+        double[][] h = new double[K][K];
+        double[] b = new double[K];
+        double cc = 0;
+        for(int j = _ncats; j < _ncolA; j++) {
+          if(!sparse[j]) continue;
+          int js = j - _ncats;
+          double[] yj = y[_yt.getNumCidx(js)];
+          double c = -_normSub[js] * _normMul[js];
+          for(int p = 0; p < K; p++) axpy(yj[p], yj, 0, h[p], 0, K);
+          axpy(c, yj, 0, b, 0, K);
+          cc += c * c;
         }
-        double[] xnew = _parms.rproxgrad_x(u, _alpha, rand);
-        _xreg += _parms.regularize_x(xnew);
-        for(int k = 0; k < _ncolX; k++)
-          chk_xnew(cs,k,_ncolA,_ncolX).set(row,xnew[k]);
-
-        // Compute loss function using new x_i
-        // Categorical columns
-        for(int j = 0; j < _ncats; j++) {
-          if(Double.isNaN(a[j])) continue;   // Skip missing observations in row
-          double[] xy = ArrayUtils.multVecArr(xnew, _yt.getCatBlock(j));
-          _loss += _parms.mloss(xy, (int) a[j], _lossFunc[j]);
+        for(int row = 0; row < len; row++) {
+          double cweight = chkweight.atd(row);
+          int xo = row*K;
+          double xhx = 0, bx = 0;
+          for(int p = 0; p < K; p++) {
+            double hx = dot(x, xo, h[p]);
+            xhx += x[xo+p] * hx;
+            bx += b[p] * x[xo+p];
+            g[xo+p] += 2 * cweight * (hx - b[p]);
+          }
+          _loss += cweight * (xhx - 2*bx + cc);
         }
 
-        // Numeric columns
+        // Then correct for the entries the chunks actually store
+        int[] rows = new int[len];
         for(int j = _ncats; j < _ncolA; j++) {
+          if(!sparse[j]) continue;
           int js = j - _ncats;
-          if(Double.isNaN(a[j])) continue;   // Skip missing observations in row
-          double xy = _yt.lmulNumCol(xnew, js);
-          _loss += _parms.loss(xy, (a[j] - _normSub[js]) * _normMul[js], _lossFunc[j]);
+          double[] yj = y[_yt.getNumCidx(js)];
+          double c = -_normSub[js] * _normMul[js];
+          for(int n = storedRows(cs[j], rows), i = 0; i < n; i++) {
+            int row = rows[i], xo = row*K;
+            double a = cs[j].atd(row);
+            double cweight = chkweight.atd(row);
+            double xy = dot(x, xo, yj), z = xy - c;
+            if(Double.isNaN(a)) {   // Missing, so no loss at all
+              _loss -= cweight * z * z;
+              axpy(-2 * cweight * z, yj, 0, g, xo, K);
+            } else {
+              a = (a - _normSub[js]) * _normMul[js];
+              _loss += cweight * ((xy - a) * (xy - a) - z * z);
+              axpy(2 * cweight * (c - a), yj, 0, g, xo, K);
+            }
+          }
         }
-        _loss *= cweight;
       }
+
+      // Update row x_i of working copy with new values
+      Random rand = RandomUtils.getRNG(0);
+      double[] u = new double[K];
+      for(int row = 0; row < len; row++) {
+        int xo = row*K;
+        System.arraycopy(x, xo, u, 0, K);
+        _xold_reg += _parms.regularize_x(u);
+        for(int k = 0; k < K; k++)
+          u[k] -= _alpha * g[xo+k];
+        rand.setSeed(_parms._seed + cs[0].start() + row); //global row ID determines the seed
+        double[] xnew = _parms.rproxgrad_x(u, _alpha, rand);
+        _xreg += _parms.regularize_x(xnew);
+        System.arraycopy(xnew, 0, x, xo, K);
+      }
+      setXRows(cs, idx_xnew(0,_ncolA,K), K, x);
     }
 
     @Override public void reduce(UpdateX other) {
       _loss += other._loss;
+      _xold_reg += other._xold_reg;
       _xreg += other._xreg;
     }
   }
@@ -1197,7 +1303,7 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
     double _yreg;       // Regularization evaluated on new Y
 
     UpdateY(GLRMParameters parms, Archetypes yt, double alpha, int ncolA, int ncolX, int ncats, double[] normSub, double[] normMul, GLRMParameters.Loss[] lossFunc, int weightId) {
-      assert yt != null && yt.rank() == ncolX;
+      assert yt != null && yt.rank() == ncolX && yt._transposed;
       _parms = parms;
       _lossFunc = lossFunc;
       _alpha = alpha;
@@ -1217,43 +1323,45 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
 
     @Override public void map(Chunk[] cs) {
       assert (_ncolA + 2*_ncolX) == cs.length;
-      _ytnew = new double[_ytold.nfeatures()][_ncolX];
-      Chunk chkweight = _weightId >= 0 ? cs[_weightId]:new C0DChunk(1,cs[0]._len);
+      final int len = cs[0]._len, K = _ncolX;
+      final double[][] y = _ytold._archetypes;
+      _ytnew = new double[_ytold.nfeatures()][K];
+      Chunk chkweight = _weightId >= 0 ? cs[_weightId]:new C0DChunk(1,len);
+      double[] x = getXRows(cs, idx_xnew(0,_ncolA,K), K, new double[len*K]);
 
       // Categorical columns
       for(int j = 0; j < _ncats; j++) {
+        int off = _ytold._catOffsets[j];
+        double[] xy = new double[_ytold._numLevels[j]];
+        double[] weight = new double[xy.length];
         // Compute gradient of objective at column
-        for(int row = 0; row < cs[0]._len; row++) {
+        for(int row = 0; row < len; row++) {
           double a = cs[j].atd(row);
           if(Double.isNaN(a)) continue;   // Skip missing observations in column
           double cweight = chkweight.atd(row);
           assert !Double.isNaN(cweight) : "User-specified weight cannot be NaN";
 
           // Calculate x_i * Y_j where Y_j is sub-matrix corresponding to categorical col j
-          // double[] xy = new double[_dinfo._catLvls[j].length];
-          double[] xy = new double[_ytold._numLevels[j]];
-          for(int level = 0; level < xy.length; level++) {
-            for(int k = 0; k < _ncolX; k++) {
-              xy[level] += chk_xnew(cs,k,_ncolA,_ncolX).atd(row) * _ytold.getCat(j,level,k);
-            }
-          }
+          int xo = row*K;
+          for(int level = 0; level < xy.length; level++)
+            xy[level] = dot(x, xo, y[off+level]);
 
           // Gradient for level p is x_i weighted by \grad_p L_{i,j}(x_i * Y_j, A_{i,j})
-          double[] weight = _parms.mlgrad(xy, (int)a, _lossFunc[j]);
-          for(int level = 0; level < xy.length; level++) {
-            for(int k = 0; k < _ncolX; k++)
-              _ytnew[_ytold.getCatCidx(j, level)][k] += cweight * weight[level] * chk_xnew(cs,k,_ncolA,_ncolX).atd(row);
-          }
+          GLRMParameters.mlgrad(xy, (int)a, weight, _lossFunc[j]);
+          for(int level = 0; level < xy.length; level++)
+            if(weight[level] != 0) axpy(cweight * weight[level], x, xo, _ytnew[off+level], 0, K);
         }
       }
 
       // Numeric columns
+      boolean[] sparse = quadSparseCols(cs, _ncats, _ncolA, K, _lossFunc);
       for(int j = _ncats; j < _ncolA; j++) {
+        if(sparse != null && sparse[j]) continue;
         int js = j - _ncats;
         int yidx = _ytold.getNumCidx(js);
 
         // Compute gradient of objective at column
-        for(int row = 0; row < cs[0]._len; row++) {
+        for(int row = 0; row < len; row++) {
           double a = cs[j].atd(row);
           if(Double.isNaN(a)) continue;   // Skip missing observations in column
 
@@ -1261,15 +1369,38 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
           double cweight = chkweight.atd(row);
           assert !Double.isNaN(cweight) : "User-specified weight cannot be NaN";
 
-          // Inner product x_i * y_j
-          double xy = 0;
-          for(int k = 0; k < _ncolX; k++)
-            xy += chk_xnew(cs,k,_ncolA,_ncolX).atd(row) * _ytold.getNum(js,k);
-
           // Sum over x_i weighted by gradient of loss \grad L_{i,j}(x_i * y_j, A_{i,j})
-          double weight = cweight * _parms.lgrad(xy, (a - _normSub[js]) * _normMul[js], _lossFunc[j]);
-          for(int k = 0; k < _ncolX; k++)
-            _ytnew[yidx][k] += weight * chk_xnew(cs,k,_ncolA,_ncolX).atd(row);
+          int xo = row*K;
+          double weight = cweight * _parms.lgrad(dot(x, xo, y[yidx]), (a - _normSub[js]) * _normMul[js], _lossFunc[j]);
+          axpy(weight, x, xo, _ytnew[yidx], 0, K);
+        }
+      }
+
+      // Sparse numeric columns with quadratic loss: taking all entries of column j to be c_j, its
+      // gradient is 2(G y_j - c_j s), where G = \sum_i w_i x_i x_i' and s = \sum_i w_i x_i
+      if(sparse != null) {
+        double[] s = new double[K];
+        double[][] gram = xGram(x, chkweight, K, s);
+        int[] rows = new int[len];
+        for(int j = _ncats; j < _ncolA; j++) {
+          if(!sparse[j]) continue;
+          int js = j - _ncats;
+          int yidx = _ytold.getNumCidx(js);
+          double[] yj = y[yidx], grad = _ytnew[yidx];
+          double c = -_normSub[js] * _normMul[js];
+          for(int p = 0; p < K; p++)
+            grad[p] += 2 * (dot(gram[p], 0, yj) - c * s[p]);
+
+          // Then correct for the entries the chunk actually stores
+          for(int n = storedRows(cs[j], rows), i = 0; i < n; i++) {
+            int row = rows[i], xo = row*K;
+            double a = cs[j].atd(row);
+            double cweight = chkweight.atd(row);
+            if(Double.isNaN(a))
+              axpy(-2 * cweight * (dot(x, xo, yj) - c), x, xo, grad, 0, K);
+            else
+              axpy(2 * cweight * (c - (a - _normSub[js]) * _normMul[js]), x, xo, grad, 0, K);
+          }
         }
       }
     }
@@ -1319,7 +1450,7 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
       this(parms, yt, ncolA, ncolX, ncats, normSub, normMul, lossFunc, weightId, false);
     }
     ObjCalc(GLRMParameters parms, Archetypes yt, int ncolA, int ncolX, int ncats, double[] normSub, double[] normMul, GLRMParameters.Loss[] lossFunc, int weightId, boolean regX) {
-      assert yt != null && yt.rank() == ncolX;
+      assert yt != null && yt.rank() == ncolX && yt._transposed;
       assert ncats <= ncolA;
       _parms = parms;
       _yt = yt;
@@ -1336,55 +1467,82 @@ public class GLRM extends ModelBuilder<GLRMModel,GLRMModel.GLRMParameters,GLRMMo
 
     @Override public void map(Chunk[] cs) {
       assert (_ncolA + 2*_ncolX) == cs.length;
-      Chunk chkweight = _weightId >= 0 ? cs[_weightId]:new C0DChunk(1,cs[0]._len);
+      final int len = cs[0]._len, K = _ncolX;
+      final double[][] y = _yt._archetypes;
+      Chunk chkweight = _weightId >= 0 ? cs[_weightId]:new C0DChunk(1,len);
       _loss = _xold_reg = 0;
+      double[] x = getXRows(cs, idx_xnew(0,_ncolA,K), K, new double[len*K]);
 
-      for(int row = 0; row < cs[0]._len; row++) {
-        // Additional user-specified weight on loss for this row
-        double cweight = chkweight.atd(row);
-        assert !Double.isNaN(cweight) : "User-specified weight cannot be NaN";
-
-        // Categorical columns
-        for(int j = 0; j < _ncats; j++) {
+      // Categorical columns
+      for(int j = 0; j < _ncats; j++) {
+        int off = _yt._catOffsets[j];
+        double[] xy = new double[_yt._numLevels[j]];
+        for(int row = 0; row < len; row++) {
           double a = cs[j].atd(row);
           if (Double.isNaN(a)) continue;   // Skip missing observations in row
+          double cweight = chkweight.atd(row);
+          assert !Double.isNaN(cweight) : "User-specified weight cannot be NaN";
 
           // Calculate x_i * Y_j where Y_j is sub-matrix corresponding to categorical col j
-          // double[] xy = new double[_dinfo._catLvls[j].length];
-          double[] xy = new double[_yt._numLevels[j]];
-          for(int level = 0; level < xy.length; level++) {
-            for(int k = 0; k < _ncolX; k++) {
-              xy[level] += chk_xnew(cs,k,_ncolA,_ncolX).atd(row) * _yt.getCat(j, level, k);
-            }
-          }
-          _loss += _parms.mloss(xy, (int)a, _lossFunc[j]);
+          for(int level = 0; level < xy.length; level++)
+            xy[level] = dot(x, row*K, y[off+level]);
+          _loss += cweight * _parms.mloss(xy, (int)a, _lossFunc[j]);
         }
+      }
 
-        // Numeric columns
-        for(int j = _ncats; j < _ncolA; j++) {
+      // Numeric columns
+      boolean[] sparse = quadSparseCols(cs, _ncats, _ncolA, K, _lossFunc);
+      for(int j = _ncats; j < _ncolA; j++) {
+        if(sparse != null && sparse[j]) continue;
+        int js = j - _ncats;
+        double[] yj = y[_yt.getNumCidx(js)];
+        for(int row = 0; row < len; row++) {
           double a = cs[j].atd(row);
           if (Double.isNaN(a)) continue;   // Skip missing observations in row
+          double cweight = chkweight.atd(row);
+          _loss += cweight * _parms.loss(dot(x, row*K, yj), (a - _normSub[js]) * _normMul[js], _lossFunc[j]);
+        }
+      }
 
-          // Inner product x_i * y_j
-          double xy = 0;
+      // Sparse numeric columns with quadratic loss: taking all entries of column j to be c_j, its loss is
+      // y_j'G y_j - 2c_j s'y_j + c_j^2 W, where G = \sum_i w_i x_i x_i', s = \sum_i w_i x_i and W = \sum_i w_i
+      if(sparse != null) {
+        double[] s = new double[K];
+        double[][] gram = xGram(x, chkweight, K, s);
+        double wsum = 0;
+        for(int row = 0; row < len; row++) wsum += chkweight.atd(row);
+        int[] rows = new int[len];
+        for(int j = _ncats; j < _ncolA; j++) {
+          if(!sparse[j]) continue;
           int js = j - _ncats;
-          for(int k = 0; k < _ncolX; k++)
-            xy += chk_xnew(cs,k,_ncolA,_ncolX).atd(row) * _yt.getNum(js, k);
-          _loss += _parms.loss(xy, (a - _normSub[js]) * _normMul[js], _lossFunc[j]);
-        }
-        _loss *= cweight;
-
-        // Calculate regularization term for old X if requested
-        if(_regX) {
-          int idx = 0;
-          double[] xrow = new double[_ncolX];
-          for(int j = _ncolA; j < _ncolA+_ncolX; j++) {
-            // double x = cs[j].atd(row);
-            // _xold_reg += _parms.regularize_x(x);
-            xrow[idx] = cs[j].atd(row);
-            idx++;
+          double[] yj = y[_yt.getNumCidx(js)];
+          double c = -_normSub[js] * _normMul[js];
+          double ygy = 0;
+          for(int p = 0; p < K; p++) ygy += yj[p] * dot(gram[p], 0, yj);
+          _loss += ygy - 2 * c * dot(s, 0, yj) + c * c * wsum;
+
+          // Then correct for the entries the chunk actually stores
+          for(int n = storedRows(cs[j], rows), i = 0; i < n; i++) {
+            int row = rows[i];
+            double a = cs[j].atd(row);
+            double cweight = chkweight.atd(row);
+            double xy = dot(x, row*K, yj), z = xy - c;
+            if(Double.isNaN(a))
+              _loss -= cweight * z * z;
+            else {
+              a = (a - _normSub[js]) * _normMul[js];
+              _loss += cweight * ((xy - a) * (xy - a) - z * z);
+            }
           }
-          assert idx == _ncolX;
+        }
+      }
+
+      // Calculate regularization term for old X if requested
+      if(_regX) {
+        getXRows(cs, idx_xold(0,_ncolA), K, x);
+        double[] xrow = new double[K];
+        for(int row = 0; row < len; row++) {
+          System.arraycopy(x, row*K, xrow, 0, K);
           _xold_reg += _parms.regularize_x(xrow);
         }
       }
@@ -193,11 +193,15 @@ public class GLRMModel extends Model<GLRMModel,GLRMModel.GLRMParameters,GLRMMode
       return mlgrad(u, a, _multi_loss);
     }
     public static double[] mlgrad(double[] u, int a, Loss multi_loss) {
+      return mlgrad(u, a, new double[u.length], multi_loss);
+    }
+    // Same, but written into the given array of length u.length, so it can be reused across rows
+    public static double[] mlgrad(double[] u, int a, double[] grad, Loss multi_loss) {
       assert multi_loss.isForCategorical() : "Loss function " + multi_loss + " not applicable to categoricals";
+      assert grad.length == u.length;
       if(a < 0 || a > u.length-1)
         throw new IllegalArgumentException("Index must be between 0 and " + String.valueOf(u.length-1));
 
-      double[] grad = new double[u.length];
       switch(multi_loss) {
         case Categorical:
           for (int i = 0; i < u.length; i++) grad[i] = (1+u[i] > 0) ? 1:0;
@@ -205,6 +209,7 @@ public class GLRMModel extends Model<GLRMModel,GLRMModel.GLRMParameters,GLRMMode
           return grad;
         case Ordinal:
           for (int i = 0; i < u.length-1; i++) grad[i] = (a>i && 1-u[i] > 0) ? -1:0;
+          grad[u.length-1] = 0;
           return grad;
         default:
           throw new RuntimeException("Unknown multidimensional loss function " + multi_loss);
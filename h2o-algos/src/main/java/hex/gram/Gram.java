@@ -35,6 +35,7 @@ public final class Gram extends Iced<Gram> {
   }
 
   public Gram(Gram g){
+    g.flushRows();
     _diagN = g._diagN;
     _denseN = g._denseN;
     _fullN = g._fullN;
@@ -341,6 +342,8 @@ public final class Gram extends Iced<Gram> {
 
 
   public void add(Gram grm) {
+    flushRows();
+    grm.flushRows();
     ArrayUtils.add(_xx,grm._xx);
     ArrayUtils.add(_diag,grm._diag);
   }
@@ -780,7 +783,81 @@ public final class Gram extends Iced<Gram> {
     else
       addRowSparse(row, w);
   }
-  public final void addRowDense(DataInfo.Row row, double w) {
+  public final void addRowDense(DataInfo.Row row, double w) { addRowDense(row, w, true); }
+
+  // Number of rows buffered by addRowBlocked before they are added to the dense block
+  static final int BLOCK_ROWS = 64;
+  // Rows of the dense block are flushed this many (lower triangle) rows at a time
+  static final int BLOCK_PANEL = 32;
+  private transient double[] _blkX;  // Buffered numeric values, column-major: _blkX[i*BLOCK_ROWS + r]
+  private transient double[] _blkWX; // Same, times the row weight
+  private transient double[] _blkW;  // Row weights
+  private transient int _blkN;       // Number of buffered rows
+
+  /**
+   * Same as addRow, except that for dense rows the numeric x numeric block,
+   * which is the O(denseN^2) part of the update, is not updated row by row.
+   * Rows are packed into a contiguous column-major buffer and added
+   * BLOCK_ROWS at a time as a rank-k update (see flushRows).  The categorical
+   * diagonal, cats x cats, nums x cats and intercept parts are still updated
+   * immediately.
+   *
+   * flushRows() must be called before _xx is read directly; add and mul flush
+   * on their own.
+   */
+  public final void addRowBlocked(DataInfo.Row row, double w) {
+    if(row.numIds != null || _denseN == 0) {
+      addRow(row, w);
+      return;
+    }
+    addRowDense(row, w, false);
+    if(_blkX == null) {
+      _blkX = MemoryManager.malloc8d(_denseN * BLOCK_ROWS);
+      _blkWX = MemoryManager.malloc8d(_denseN * BLOCK_ROWS);
+      _blkW = MemoryManager.malloc8d(BLOCK_ROWS);
+    }
+    final int r = _blkN;
+    for(int i = 0; i < _denseN; ++i)
+      _blkX[i * BLOCK_ROWS + r] = row.numVals[i];
+    _blkW[r] = w;
+    if(++_blkN == BLOCK_ROWS)
+      flushRows();
+  }
+
+  /**
+   * Add the rows buffered by addRowBlocked to the numeric x numeric block.
+   * Computes X'WX of the buffered rows as one dot product of length
+   * BLOCK_ROWS per matrix element, BLOCK_PANEL matrix rows at a time, so the
+   * buffered columns stay in cache while a panel is being updated.
+   */
+  public final void flushRows() {
+    final int n = _blkN;
+    if(n == 0) return;
+    final int B = BLOCK_ROWS;
+    final int intercept = _hasIntercept?1:0;
+    final int denseRowStart = _fullN - _denseN - _diagN - intercept;
+    final int denseColStart = _fullN - _denseN - intercept;
+    final double[] x = _blkX, wx = _blkWX, ws = _blkW;
+    for(int i = 0; i < _denseN; ++i)
+      for(int r = 0; r < n; ++r)
+        wx[i*B + r] = x[i*B + r] * ws[r];
+    for(int ib = 0; ib < _denseN; ib += BLOCK_PANEL) {
+      final int ie = Math.min(_denseN, ib + BLOCK_PANEL);
+      for(int j = 0; j < ie; ++j) {
+        final int jo = j*B;
+        for(int i = Math.max(ib, j); i < ie; ++i) {
+          final int io = i*B;
+          double s = 0;
+          for(int r = 0; r < n; ++r)
+            s += wx[io + r] * x[jo + r];
+          _xx[i + denseRowStart][j + denseColStart] += s;
+        }
+      }
+    }
+    _blkN = 0;
+  }
+
+  private void addRowDense(DataInfo.Row row, double w, boolean numsXnums) {
     final int intercept = _hasIntercept?1:0;
     final int denseRowStart = _fullN - _denseN - _diagN - intercept; // we keep dense numbers at the right bottom of the matrix, -1 is for intercept
     final int denseColStart = _fullN - _denseN - intercept;
@@ -791,8 +868,9 @@ public final class Gram extends Iced<Gram> {
     for(int i = 0; i < _denseN; ++i) if(row.numVals[i] != 0) {
       final double [] mrow = _xx[i+denseRowStart];
       final double d = w * row.numVals[i];
-      for(int j = 0; j <= i; ++j) if(row.numVals[j] != 0)
-        mrow[j+denseColStart] += d* row.numVals[j];
+      if(numsXnums)
+        for(int j = 0; j <= i; ++j) if(row.numVals[j] != 0)
+          mrow[j+denseColStart] += d* row.numVals[j];
       if(_hasIntercept)
         interceptRow[i+denseColStart] += d; // intercept*x[i]
       // nums * cats
@@ -818,6 +896,7 @@ public final class Gram extends Iced<Gram> {
       _diag[row.binIds[0]] += w;
   }
   public void mul(double x){
+    flushRows();
     if(_diag != null)for(int i = 0; i < _diag.length; ++i)
       _diag[i] *= x;
     for(int i = 0; i < _xx.length; ++i)
@@ -864,7 +943,7 @@ public final class Gram extends Iced<Gram> {
     }
     @Override protected void processRow(long gid, DataInfo.Row r) {
       double w = 1; // todo add weights to dinfo?
-      _gram.addRow(r, w);
+      _gram.addRowBlocked(r, w);
       ++_nobs;
     }
     @Override protected void chunkDone(long n){
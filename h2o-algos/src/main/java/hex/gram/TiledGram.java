@@ -0,0 +1,346 @@
+package hex.gram;
+
+import jsr166y.ForkJoinTask;
+import jsr166y.RecursiveAction;
+import water.*;
+import water.util.ArrayUtils;
+import water.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Symmetric matrix stored as the lower triangle of square tiles, each tile
+ * under its own DKV key, with the keys homed round-robin across the cloud.
+ *
+ * Used by IRLSM for Gram matrices which do not fit into a single heap.  Tiles
+ * are accumulated from the data a band of tile rows per pass (see
+ * GLMTask.GLMTiledGramTask): every node sums the band over its chunks, then
+ * adds it tile by tile into the tiles' home nodes.  The matrix is factored by a
+ * right-looking tiled Cholesky in which every node updates the tiles it is
+ * home to, and solved by tiled forward and back substitution.  The driver only
+ * ever holds single tiles and vectors of length N.
+ *
+ * Tile (I,J), J &lt;= I, is kept row-major and has tileRows(I) x tileRows(J)
+ * elements.  Only the lower triangle of the diagonal tiles is used.
+ */
+public final class TiledGram extends Iced<TiledGram> {
+  public static final int DEFAULT_TILE = 512;
+
+  public final int _n;         // Matrix dimension
+  public final int _tile;      // Tile size
+  public final int _nt;        // Number of tile rows (and columns)
+  public final boolean _hasIntercept; // Last row/column is the intercept
+  final Key[] _keys;           // Lower triangle tiles, see idx
+
+  public TiledGram(int n, boolean hasIntercept) { this(n, DEFAULT_TILE, hasIntercept); }
+
+  public TiledGram(int n, int tile, boolean hasIntercept) {
+    _n = n;
+    _tile = tile;
+    _nt = (n + tile - 1) / tile;
+    _hasIntercept = hasIntercept;
+    _keys = new Key[idx(_nt, 0)];
+    H2ONode[] nodes = H2O.CLOUD.members();
+    for(int i = 0; i < _keys.length; ++i)
+      _keys[i] = Key.make(nodes[i % nodes.length]);
+  }
+
+  // Same geometry and tile homes as g, new keys
+  private TiledGram(TiledGram g) {
+    _n = g._n;
+    _tile = g._tile;
+    _nt = g._nt;
+    _hasIntercept = g._hasIntercept;
+    _keys = new Key[g._keys.length];
+    for(int i = 0; i < _keys.length; ++i)
+      _keys[i] = Key.make(g._keys[i].home_node());
+  }
+
+  /** Position of tile (I,J) in the lower triangle, row by row. */
+  public static int idx(int I, int J) { return I * (I + 1) / 2 + J; }
+
+  public int tileRows(int I) { return Math.min(_tile, _n - I * _tile); }
+
+  public Key key(int I, int J) { return _keys[idx(I, J)]; }
+
+  public static final class Tile extends Iced<Tile> {
+    public final double[] _a;
+    public Tile(double[] a) { _a = a; }
+  }
+
+  /** Tile (I,J).  The returned array may be the DKV-cached copy and must not be modified. */
+  public double[] get(int I, int J) {
+    Tile t = DKV.getGet(key(I, J));
+    return t == null ? new double[tileRows(I) * tileRows(J)] : t._a;
+  }
+
+  public void put(int I, int J, double[] a) { DKV.put(key(I, J), new Tile(a)); }
+
+  /** Add a to tile (I,J), atomically on the tile's home node. */
+  public void add(int I, int J, double[] a, Futures fs) { fs.add(new AddTile(a).fork(key(I, J))); }
+
+  private static class AddTile extends TAtomic<Tile> {
+    double[] _a;
+    AddTile(double[] a) { _a = a; }
+    @Override protected Tile atomic(Tile old) {
+      if(old == null) return new Tile(_a);
+      double[] a = old._a.clone(); // old shares its array with the current value, and the update may be retried
+      ArrayUtils.add(a, _a);
+      return new Tile(a);
+    }
+    @Override public void onSuccess(Tile old) { _a = null; } // don't send the tile back
+  }
+
+  public void remove() {
+    Futures fs = new Futures();
+    for(Key k : _keys) DKV.remove(k, fs);
+    fs.blockForPending();
+  }
+
+  // --------------------------------------------------------------------------
+  // Runs a per-tile operation on every node, each node working in parallel on
+  // the selected tiles it is home to.
+  private static abstract class LocalTiles<T extends LocalTiles<T>> extends MRTask<T> {
+    final TiledGram _g;
+    LocalTiles(TiledGram g) { _g = g; }
+    abstract boolean selected(int I, int J);
+    abstract void tile(int I, int J);
+    @Override protected void setupLocal() {
+      ArrayList<RecursiveAction> ras = new ArrayList<>();
+      for(int I = 0; I < _g._nt; ++I)
+        for(int J = 0; J <= I; ++J)
+          if(selected(I, J) && _g.key(I, J).home()) {
+            final int fI = I, fJ = J;
+            ras.add(new RecursiveAction() {
+              @Override protected void compute() { tile(fI, fJ); }
+            });
+          }
+      ForkJoinTask.invokeAll(ras);
+    }
+  }
+
+  private static class Scale extends LocalTiles<Scale> {
+    final double _x;
+    Scale(TiledGram g, double x) { super(g); _x = x; }
+    @Override boolean selected(int I, int J) { return true; }
+    @Override void tile(int I, int J) {
+      double[] a = _g.get(I, J).clone();
+      ArrayUtils.mult(a, _x);
+      _g.put(I, J, a);
+    }
+  }
+
+  private static class AddDiag extends LocalTiles<AddDiag> {
+    final double _d;
+    final boolean _add2Intercept;
+    AddDiag(TiledGram g, double d, boolean add2Intercept) { super(g); _d = d; _add2Intercept = add2Intercept; }
+    @Override boolean selected(int I, int J) { return I == J; }
+    @Override void tile(int I, int J) {
+      double[] a = _g.get(I, I).clone();
+      int ni = _g.tileRows(I);
+      for(int i = 0; i < ni; ++i)
+        if(_add2Intercept || !_g._hasIntercept || I * _g._tile + i < _g._n - 1)
+          a[i * ni + i] += _d;
+      _g.put(I, I, a);
+    }
+  }
+
+  private static class Copy extends LocalTiles<Copy> {
+    final TiledGram _dst;
+    Copy(TiledGram src, TiledGram dst) { super(src); _dst = dst; }
+    @Override boolean selected(int I, int J) { return true; }
+    @Override void tile(int I, int J) { _dst.put(I, J, _g.get(I, J).clone()); }
+  }
+
+  private static class NaNsOrInfs extends LocalTiles<NaNsOrInfs> {
+    boolean _bad;
+    NaNsOrInfs(TiledGram g) { super(g); }
+    @Override boolean selected(int I, int J) { return true; }
+    @Override void tile(int I, int J) {
+      if(ArrayUtils.hasNaNsOrInfs(_g.get(I, J))) _bad = true;
+    }
+    @Override public void reduce(NaNsOrInfs t) { _bad |= t._bad; }
+  }
+
+  public void mul(double x) { new Scale(this, x).doAllNodes(); }
+
+  public void addDiag(double d) { addDiag(d, false); }
+
+  public void addDiag(double d, boolean add2Intercept) {
+    if(d != 0) new AddDiag(this, d, add2Intercept).doAllNodes();
+  }
+
+  public boolean hasNaNsOrInfs() { return new NaNsOrInfs(this).doAllNodes()._bad; }
+
+  // --------------------------------------------------------------------------
+  // Tiled Cholesky
+
+  // L_IK = L_IK * L_KK^-T for all I > K
+  private static class Trsm extends LocalTiles<Trsm> {
+    final int _k;
+    Trsm(TiledGram g, int k) { super(g); _k = k; }
+    @Override boolean selected(int I, int J) { return J == _k && I > _k; }
+    @Override void tile(int I, int K) {
+      final double[] l = _g.get(K, K);
+      final double[] b = _g.get(I, K).clone();
+      final int ni = _g.tileRows(I), nk = _g.tileRows(K);
+      for(int r = 0; r < ni; ++r) {
+        final int ro = r * nk;
+        for(int j = 0; j < nk; ++j) {
+          double s = b[ro + j];
+          for(int k = 0; k < j; ++k)
+            s -= b[ro + k] * l[j * nk + k];
+          b[ro + j] = s / l[j * nk + j];
+        }
+      }
+      _g.put(I, K, b);
+    }
+  }
+
+  // A_IJ -= L_IK * L_JK^T for all K < J <= I
+  private static class Update extends LocalTiles<Update> {
+    final int _k;
+    Update(TiledGram g, int k) { super(g); _k = k; }
+    @Override boolean selected(int I, int J) { return J > _k; }
+    @Override void tile(int I, int J) {
+      final double[] lik = _g.get(I, _k), ljk = _g.get(J, _k);
+      final double[] a = _g.get(I, J).clone();
+      final int ni = _g.tileRows(I), nj = _g.tileRows(J), nk = _g.tileRows(_k);
+      for(int i = 0; i < ni; ++i) {
+        final int jEnd = I == J ? i + 1 : nj;
+        for(int j = 0; j < jEnd; ++j) {
+          double s = 0;
+          for(int k = 0; k < nk; ++k)
+            s += lik[i * nk + k] * ljk[j * nk + k];
+          a[i * nj + j] -= s;
+        }
+      }
+      _g.put(I, J, a);
+    }
+  }
+
+  // In-place Cholesky of a dense n x n row-major block; false if not SPD
+  private static boolean potrf(double[] a, int n) {
+    for(int i = 0; i < n; ++i) {
+      for(int j = 0; j <= i; ++j) {
+        double s = a[i * n + j];
+        for(int k = 0; k < j; ++k)
+          s -= a[i * n + k] * a[j * n + k];
+        if(i == j) {
+          if(!(s > 0)) return false;
+          a[i * n + i] = Math.sqrt(s);
+        } else
+          a[i * n + j] = s / a[j * n + j];
+      }
+      for(int j = i + 1; j < n; ++j)
+        a[i * n + j] = 0;
+    }
+    return true;
+  }
+
+  /**
+   * Cholesky factor of this matrix, as a new TiledGram holding L in its lower
+   * triangle; this matrix is left unchanged.  Returns null if the matrix is
+   * not positive definite.
+   */
+  public TiledGram cholesky() {
+    TiledGram l = new TiledGram(this);
+    new Copy(this, l).doAllNodes();
+    for(int K = 0; K < _nt; ++K) {
+      double[] lkk = l.get(K, K).clone();
+      if(!potrf(lkk, tileRows(K))) {
+        Log.info("TiledGram: non-SPD matrix in diagonal tile " + K + " of " + _nt);
+        l.remove();
+        return null;
+      }
+      l.put(K, K, lkk);
+      if(K + 1 == _nt) break;
+      new Trsm(l, K).doAllNodes();
+      new Update(l, K).doAllNodes();
+    }
+    return l;
+  }
+
+  // res += L_IJ * v for tiles (I,J) with I > J, or res += L_JI^T v for tiles (J,I) with I < J
+  private static class MatVec extends LocalTiles<MatVec> {
+    final int _j;
+    final boolean _transpose;
+    final double[] _v;
+    double[] _res;
+    MatVec(TiledGram g, int j, double[] v, boolean transpose) { super(g); _j = j; _v = v; _transpose = transpose; }
+    @Override protected void setupLocal() {
+      _res = MemoryManager.malloc8d(_g._n);
+      super.setupLocal();
+    }
+    @Override boolean selected(int I, int J) { return _transpose ? I == _j && J < _j : J == _j && I > _j; }
+    @Override void tile(int I, int J) {
+      final double[] l = _g.get(I, J);
+      final int ni = _g.tileRows(I), nj = _g.tileRows(J);
+      if(_transpose) { // contributes to rows of J
+        double[] r = new double[nj];
+        for(int i = 0; i < ni; ++i)
+          for(int j = 0; j < nj; ++j)
+            r[j] += l[i * nj + j] * _v[i];
+        add(r, J * _g._tile);
+      } else {         // contributes to rows of I
+        double[] r = new double[ni];
+        for(int i = 0; i < ni; ++i) {
+          double s = 0;
+          for(int j = 0; j < nj; ++j)
+            s += l[i * nj + j] * _v[j];
+          r[i] = s;
+        }
+        add(r, I * _g._tile);
+      }
+    }
+    private synchronized void add(double[] r, int off) {
+      for(int i = 0; i < r.length; ++i)
+        _res[off + i] += r[i];
+    }
+    @Override public void reduce(MatVec mv) {
+      if(_res == null) _res = mv._res;
+      else if(mv._res != null) ArrayUtils.add(_res, mv._res);
+    }
+  }
+
+  /**
+   * Solve L L^T x = b in place, with this TiledGram being the Cholesky factor
+   * L as returned by cholesky().
+   */
+  public void solve(double[] b) {
+    assert b.length == _n;
+    // forward substitution, L y = b
+    for(int J = 0; J < _nt; ++J) {
+      final double[] l = get(J, J);
+      final int nj = tileRows(J), o = J * _tile;
+      for(int i = 0; i < nj; ++i) {
+        double s = b[o + i];
+        for(int k = 0; k < i; ++k)
+          s -= l[i * nj + k] * b[o + k];
+        b[o + i] = s / l[i * nj + i];
+      }
+      if(J + 1 < _nt) {
+        double[] r = new MatVec(this, J, Arrays.copyOfRange(b, o, o + nj), false).doAllNodes()._res;
+        for(int i = o + nj; i < _n; ++i)
+          b[i] -= r[i];
+      }
+    }
+    // back substitution, L^T x = y
+    for(int J = _nt - 1; J >= 0; --J) {
+      final double[] l = get(J, J);
+      final int nj = tileRows(J), o = J * _tile;
+      for(int i = nj - 1; i >= 0; --i) {
+        double s = b[o + i];
+        for(int k = i + 1; k < nj; ++k)
+          s -= l[k * nj + i] * b[o + k];
+        b[o + i] = s / l[i * nj + i];
+      }
+      if(J > 0) {
+        double[] r = new MatVec(this, J, Arrays.copyOfRange(b, o, o + nj), true).doAllNodes()._res;
+        for(int i = 0; i < o; ++i)
+          b[i] -= r[i];
+      }
+    }
+  }
+}
@@ -31,20 +31,28 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
   @Override public BuilderVisibility builderVisibility() { return BuilderVisibility.Stable; };
 
   public enum Initialization {
-    Random, PlusPlus, Furthest, User
+    Random, PlusPlus, Furthest, User, PlusPlusParallel
   }
 
   // Convergence tolerance
   final private double TOLERANCE = 1e-6;
 
+  // Number of oversampling rounds and of candidate centers of the k-means|| initialization
+  transient int _initRounds, _initCandidates;
+
   // Called from an http request
   public KMeans(Key dest, String desc, KMeansModel.KMeansParameters parms) { super(dest, desc, parms); init(false); }
   public KMeans( KMeansModel.KMeansParameters parms ) { super("K-means",parms); init(false); }
 
   public ModelBuilderSchema schema() { return new KMeansV3(); }
 
+  @Override public long memoryFootprint() {
+    if (_train == null) return 0;
+    return 8 /*doubles*/ * _parms._k * _train.numCols() * (_parms._standardize ? 2 : 1);
+  }
+
   protected void checkMemoryFootPrint() {
-    long mem_usage = 8 /*doubles*/ * _parms._k * _train.numCols() * (_parms._standardize ? 2 : 1);
+    long mem_usage = memoryFootprint();
     long max_mem = H2O.SELF.get_max_mem();
     if (mem_usage > max_mem) {
       String msg = "Centroids won't fit in the driver node's memory ("
@@ -75,6 +83,7 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
   @Override public void init(boolean expensive) {
     super.init(expensive);
     if( _parms._max_iterations < 0 || _parms._max_iterations > 1e6) error("_max_iterations", " max_iterations must be between 0 and 1e6");
+    if( _parms._mini_batch_size < 0 ) error("_mini_batch_size", "mini_batch_size must be >= 0");
     if( _train == null ) return;
     if( _parms._init == Initialization.User && _parms._user_points == null )
       error("_user_y","Must specify initial cluster centers");
@@ -126,6 +135,8 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
           centers = new double[_parms._k][model._output.nfeatures()];
           for (double[] center : centers)
             randomRow(vecs, rand, center, means, mults, modes);
+        } else if (_parms._init == Initialization.PlusPlusParallel) {
+          centers = kmeansParallel(model, vecs, rand, means, mults, modes);
         } else {
           centers = new double[1][model._output.nfeatures()];
           // Initialize first cluster center to random row
@@ -157,6 +168,50 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
       return centers;
     }
 
+    // k-means|| (Bahmani et al., the paper above): a few rounds of oversampling
+    // rows with probability proportional to their square distance to the
+    // candidates so far, then a weighted k-means++ over the candidates on the
+    // driver.  Each row's distance to its nearest candidate (and which one it
+    // is) is kept in temporary Vecs, so every round only measures distances
+    // to the candidates added in the round before.
+    double[][] kmeansParallel( KMeansModel model, final Vec[] vecs, Random rand, final double[] means, final double[] mults, final int[] modes ) {
+      final int rounds = 5;
+      final double oversample = 2.0 * _parms._k;
+      double[][] cands = new double[1][model._output.nfeatures()];
+      randomRow(vecs, rand, cands[0], means, mults, modes);
+      Vec[] nearest = vecs[0].makeZeros(2);
+      try {
+        Vec[] all = ArrayUtils.append(vecs, nearest);
+        double[][] added = cands;
+        CandidateDist dist = null;
+        model._output._iterations = 0;
+        while( true ) {
+          // Fold in the candidates added last round; on the last pass, also count
+          // the rows nearest to each candidate
+          boolean last = model._output._iterations == rounds || added.length == 0;
+          dist = new CandidateDist(added, cands.length - added.length, model._output._iterations == 0, last ? cands.length : 0,
+                                   means, mults, modes, _isCats, hasWeightCol()).doAll(all);
+          if( last || dist._sqr == 0 ) break;
+          added = new CandidateSampler(oversample, dist._sqr, _parms._seed + model._output._iterations, means, mults, modes, hasWeightCol()).doAll(all)._sampled;
+          cands = ArrayUtils.append(cands, added);
+
+          if (!isRunning()) return null; // Stopped/cancelled
+          model._output._centers_raw = destandardize(cands, _isCats, means, mults);
+          model._output._tot_withinss = dist._sqr / _train.numRows();
+          model._output._iterations++;
+          model.update(_key); // Make early version of model visible, but don't update progress using update(1)
+        }
+        _initRounds = model._output._iterations;
+        _initCandidates = cands.length;
+        model._output._iterations = 0; // Reset iteration count
+        long[] weights = dist._counts;
+        if( weights == null ) { weights = new long[cands.length]; Arrays.fill(weights, 1); } // All rows sit on a candidate
+        return reclusterWeighted(cands, weights, rand, _parms._k, _isCats);
+      } finally {
+        for( Vec v : nearest ) v.remove();
+      }
+    }
+
     // Number of reinitialization attempts for preventing empty clusters
     transient private int _reinit_attempts;
     // Handle the case where some centers go dry.  Rescue only 1 cluster
@@ -232,6 +287,82 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
       return task._cMeans;      // New centers
     }
 
+    boolean miniBatch() { return _parms._mini_batch_size > 0 && _parms._mini_batch_size < _train.numRows(); }
+
+    // Triangle-inequality bounds (Hamerly): per row, the assigned cluster and a
+    // lower bound on the distance to every other center.  Aligned with the
+    // training frame; null when running plain Lloyd's passes.
+    transient private Vec[] _bounds;
+    // Centers the bounds were last written against
+    transient private double[][] _boundCenters;
+
+    // One Lloyd's pass.  With bounds, a row only looks at all k centers when
+    // its assignment might have changed since the previous pass.
+    Lloyds lloyds( double[][] centers, final Vec[] vecs, final double[] means, final double[] mults, final int[] modes ) {
+      if( _bounds == null )
+        return new Lloyds(centers,means,mults,modes,_isCats,_parms._k,hasWeightCol()).doAll(vecs);
+      double[] moved = null;
+      if( _boundCenters != null ) {
+        moved = new double[_parms._k];
+        for( int clu=0; clu<_parms._k; clu++ )
+          moved[clu] = Math.sqrt(hex.genmodel.GenModel.KMeans_distance(_boundCenters[clu],centers[clu],_isCats,null,null));
+      }
+      // Half the distance from each center to the nearest other center: a row
+      // closer than that to its own center cannot be closer to another one
+      double[] halfMin = new double[_parms._k];
+      Arrays.fill(halfMin, Double.MAX_VALUE);
+      for( int i=0; i<_parms._k; i++ )
+        for( int j=i+1; j<_parms._k; j++ ) {
+          double d = 0.5*Math.sqrt(hex.genmodel.GenModel.KMeans_distance(centers[i],centers[j],_isCats,null,null));
+          if( d < halfMin[i] ) halfMin[i] = d;
+          if( d < halfMin[j] ) halfMin[j] = d;
+        }
+      // Centers may be patched in place by cleanupBadClusters; keep a copy
+      _boundCenters = ArrayUtils.deepClone(centers);
+      return new Lloyds(centers,means,mults,modes,_isCats,_parms._k,hasWeightCol(),halfMin,moved,1,0).doAll(ArrayUtils.append(vecs,_bounds));
+    }
+
+    // Mini-batch K-Means (Sculley, "Web-Scale K-Means Clustering"): each
+    // iteration runs Lloyd's step over a random sample of about
+    // mini_batch_size rows, and moves every center towards the mean of its
+    // sampled rows with a per-center learning rate of 1/(rows seen so far).
+    double[][] miniBatches( KMeansModel model, final Vec[] vecs, double[][] centers, final double[] means, final double[] mults, final int[] modes ) {
+      final double rate = (double)_parms._mini_batch_size / _train.numRows();
+      long[] seen = new long[_parms._k];
+      long[][][] cats = null;   // Categorical level counts over all batches
+      double[][] oldCenters = null;
+      while( !isDone(model,centers,oldCenters) ) {
+        long seed = _parms._seed + ((long)(model._output._iterations+1) << 40);
+        Lloyds task = new Lloyds(centers,means,mults,modes,_isCats,_parms._k,hasWeightCol(),null,null,rate,seed).doAll(vecs);
+        if( cats == null ) cats = task._cats; else ArrayUtils.add(cats, task._cats);
+        oldCenters = centers;
+        centers = ArrayUtils.deepClone(centers);
+        long rows = 0;
+        double sqr = 0;
+        for( int clu=0; clu<_parms._k; clu++ ) {
+          rows += task._size[clu];
+          sqr += task._cSqr[clu];
+          if( task._size[clu] == 0 ) continue;
+          seen[clu] += task._size[clu];
+          double eta = (double)task._size[clu] / seen[clu];
+          for( int col=0; col<centers[clu].length; col++ )
+            if( _isCats[col] == null )
+              centers[clu][col] += eta * (task._cMeans[clu][col] - centers[clu][col]);
+            else
+              centers[clu][col] = ArrayUtils.maxIndex(cats[clu][col]);
+        }
+        model._output._iterations++;
+        // Within-cluster sum of squares, estimated from the batch
+        model._output._history_withinss = ArrayUtils.copyAndFillOf(
+            model._output._history_withinss,
+            model._output._history_withinss.length+1, rows == 0 ? Double.NaN : sqr * _train.numRows() / rows);
+        model._output._centers_raw = destandardize(centers, _isCats, means, mults);
+        model.update(_key);
+        update(1);
+      }
+      return isRunning() ? centers : null;
+    }
+
     // Stopping criteria
     boolean isDone( KMeansModel model, double[][] newCenters, double[][] oldCenters ) {
       if( !isRunning() ) return true; // Stopped/cancelled
@@ -287,8 +418,21 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
         // Run the main KMeans Clustering loop
         // Stop after enough iterations or average_change < TOLERANCE
         model._output._iterations = 0;  // Loop ends only when iterations > max_iterations with strict inequality
-        while( !isDone(model,centers,oldCenters) ) {
+        if( miniBatch() ) {
+          centers = miniBatches(model,vecs,centers,means,mults,impute_cat);
+          if( centers==null ) return; // Stopped/cancelled
+          // One full pass for the final assignment and cluster statistics
           Lloyds task = new Lloyds(centers,means,mults,impute_cat,_isCats, _parms._k, hasWeightCol()).doAll(vecs);
+          max_cats(task._cMeans,task._cats,_isCats);
+          for( int clu=0; clu<_parms._k; clu++ )
+            if( task._size[clu] == 0 ) task._cMeans[clu] = centers[clu]; // Keep the mini-batch center
+          computeStatsFillModel(task, model, vecs, means, mults, impute_cat);
+          model.update(_key);
+        }
+        if( _parms._triangle_inequality && _parms._k > 1 && !miniBatch() )
+          _bounds = vecs[0].makeZeros(2);
+        while( !miniBatch() && !isDone(model,centers,oldCenters) ) {
+          Lloyds task = lloyds(centers,vecs,means,mults,impute_cat);
           // Pick the max categorical level for cluster center
           max_cats(task._cMeans,task._cats,_isCats);
 
@@ -329,6 +473,7 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
         }
       } finally {
         updateModelOutput();
+        if( _bounds != null ) for( Vec v : _bounds ) v.remove();
         if( model != null ) model.unlock(_key);
         _parms.read_unlock_frames(KMeans.this);
       }
@@ -570,12 +715,127 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
     }
   }
 
+  // -------------------------------------------------------------------------
+  // k-means|| round: update each row's square distance to its nearest
+  // candidate center with the newly added candidates, and sum those distances.
+  // The last two columns hold the distance and the candidate index.
+  private static class CandidateDist extends MRTask<CandidateDist> {
+    // IN
+    double[][] _added;          // Candidates added since the last pass
+    final int _offset;          // Index of the first added candidate
+    final boolean _first;       // No distances recorded yet
+    final int _ncands;          // If > 0, count rows nearest to each of this many candidates
+    double[] _means, _mults;    // Standardization
+    int[] _modes;               // Imputation of missing categoricals
+    final String[][] _isCats;
+    final boolean _hasWeight;
+
+    // OUT
+    double _sqr;
+    long[] _counts;
+
+    CandidateDist( double[][] added, int offset, boolean first, int ncands, double[] means, double[] mults, int[] modes, String[][] isCats, boolean hasWeight ) {
+      _added = added;
+      _offset = offset;
+      _first = first;
+      _ncands = ncands;
+      _means = means;
+      _mults = mults;
+      _modes = modes;
+      _isCats = isCats;
+      _hasWeight = hasWeight;
+    }
+
+    @Override public void map(Chunk[] cs) {
+      int N = cs.length - (_hasWeight?1:0) - 2;
+      Chunk dist = cs[cs.length-2], nearest = cs[cs.length-1];
+      double[] values = new double[N];
+      ClusterDist cd = new ClusterDist();
+      if( _ncands > 0 ) _counts = new long[_ncands];
+      for( int row = 0; row < cs[0]._len; row++ ) {
+        if( _hasWeight && cs[N].atd(row) == 0 ) continue; // skip holdout rows
+        double sqr = _first ? Double.MAX_VALUE : dist.atd(row);
+        if( _added.length > 0 ) {
+          data(values, cs, row, _means, _mults, _modes);
+          closest(_added, values, _isCats, cd);
+          if( cd._dist < sqr ) {
+            sqr = cd._dist;
+            dist.set(row, sqr);
+            nearest.set(row, _offset + cd._cluster);
+          }
+        }
+        _sqr += sqr;
+        if( _counts != null ) _counts[(int)nearest.at8(row)]++;
+      }
+      _added = null;
+      _means = _mults = null;
+      _modes = null;
+    }
+
+    @Override public void reduce(CandidateDist other) {
+      _sqr += other._sqr;
+      if( _counts == null ) _counts = other._counts;
+      else if( other._counts != null ) ArrayUtils.add(_counts, other._counts);
+    }
+  }
+
+  // k-means|| round: sample rows with probability proportional to their
+  // recorded square distance to the nearest candidate.
+  private static class CandidateSampler extends MRTask<CandidateSampler> {
+    // IN
+    final double _oversample;   // Expected number of rows sampled
+    final double _sqr;          // Sum of recorded square distances
+    final long _seed;
+    double[] _means, _mults;    // Standardization
+    int[] _modes;               // Imputation of missing categoricals
+    final boolean _hasWeight;
+
+    // OUT
+    double[][] _sampled;        // New candidates
+
+    CandidateSampler( double oversample, double sqr, long seed, double[] means, double[] mults, int[] modes, boolean hasWeight ) {
+      _oversample = oversample;
+      _sqr = sqr;
+      _seed = seed;
+      _means = means;
+      _mults = mults;
+      _modes = modes;
+      _hasWeight = hasWeight;
+    }
+
+    @Override public void map(Chunk[] cs) {
+      int N = cs.length - (_hasWeight?1:0) - 2;
+      Chunk dist = cs[cs.length-2];
+      double[] values = new double[N];
+      ArrayList<double[]> list = new ArrayList<>();
+      Random rand = RandomUtils.getRNG(_seed + cs[0].start());
+      for( int row = 0; row < cs[0]._len; row++ ) {
+        if( _hasWeight && cs[N].atd(row) == 0 ) continue; // skip holdout rows
+        if( _oversample * dist.atd(row) > rand.nextDouble() * _sqr ) {
+          data(values, cs, row, _means, _mults, _modes);
+          list.add(values.clone());
+        }
+      }
+      _sampled = list.toArray(new double[list.size()][]);
+      _means = _mults = null;
+      _modes = null;
+    }
+
+    @Override public void reduce(CandidateSampler other) {
+      _sampled = ArrayUtils.append(_sampled, other._sampled);
+    }
+  }
+
   // ---------------------------------------
   // A Lloyd's pass:
   //   Find nearest cluster center for every point
   //   Compute new mean/center & variance & rows for each cluster
   //   Compute distance between clusters
   //   Compute total sqr distance
+  // Optionally with triangle-inequality bounds: the two trailing columns hold
+  // each row's assigned cluster and a lower bound on its distance to all other
+  // centers, read and rewritten by every pass.  Optionally over a random
+  // sample of the rows only (mini-batches).
 
   private static class Lloyds extends MRTask<Lloyds> {
     // IN
@@ -585,6 +845,10 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
     final int _k;
     final String[][] _isCats;
     boolean _hasWeight;
+    final double[] _halfMin;      // Half the distance from each center to its nearest other center; null without bounds
+    final double[] _moved;        // How far each center moved since the bounds were written; null on the first bounded pass
+    final double _rate;           // Fraction of rows sampled
+    final long _seed;
 
     // OUT
     double[][] _cMeans;         // Means for each cluster
@@ -595,6 +859,15 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
     double _worst_err;          // Max-err-row's max-err
 
     Lloyds( double[][] centers, double[] means, double[] mults, int[] modes, String[][] isCats, int k, boolean hasWeight ) {
+      this(centers, means, mults, modes, isCats, k, hasWeight, null, null, 1, 0);
+    }
+
+    Lloyds( double[][] centers, double[] means, double[] mults, int[] modes, String[][] isCats, int k, boolean hasWeight,
+            double[] halfMin, double[] moved, double rate, long seed ) {
+      _halfMin = halfMin;
+      _moved = moved;
+      _rate = rate;
+      _seed = seed;
       _centers = centers;
       _means = means;
       _mults = mults;
@@ -605,8 +878,19 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
     }
 
     @Override public void map(Chunk[] cs) {
-      int N = cs.length - (_hasWeight ? 1:0);
+      final boolean bounded = _halfMin != null;
+      int N = cs.length - (_hasWeight ? 1:0) - (bounded ? 2:0);
       assert _centers[0].length==N;
+      Chunk assigned = bounded ? cs[cs.length-2] : null;
+      Chunk lower = bounded ? cs[cs.length-1] : null;
+      // Largest and second largest center movement, to loosen the lower bounds
+      double maxMoved = 0, maxMoved2 = 0;
+      int maxClu = -1;
+      if( _moved != null )
+        for( int clu = 0; clu < _k; clu++ )
+          if( _moved[clu] > maxMoved ) { maxMoved2 = maxMoved; maxMoved = _moved[clu]; maxClu = clu; }
+          else if( _moved[clu] > maxMoved2 ) maxMoved2 = _moved[clu];
+      Random rand = _rate < 1 ? RandomUtils.getRNG(_seed + cs[0].start()) : null;
       _cMeans = new double[_k][N];
       _cSqr = new double[_k];
       _size = new long[_k];
@@ -624,8 +908,10 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
         double weight = _hasWeight ? cs[N].atd(row) : 1;
         if (weight == 0) continue; //skip holdout rows
         assert(weight == 1); //K-Means only works for weight 1 (or weight 0 for holdout)
+        if( rand != null && rand.nextDouble() >= _rate ) continue; // Not in this mini-batch
         data(values, cs, row, _means, _mults, _modes); // Load row as doubles
-        closest(_centers, values, _isCats, cd); // Find closest cluster center
+        if( bounded ) boundedClosest(values, assigned, lower, row, maxMoved, maxMoved2, maxClu, cd);
+        else closest(_centers, values, _isCats, cd); // Find closest cluster center
         int clu = cd._cluster;
         assert clu != -1;       // No broken rows
         _cSqr[clu] += cd._dist;
@@ -648,6 +934,36 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
       _modes = null;
     }
 
+    // Hamerly's test: a row keeps its cluster if it is no farther from that
+    // center than half the gap to the center's nearest neighbour, or than the
+    // lower bound on its distance to every other center.  The distance to the
+    // own center is always computed, as it is needed for the cluster errors.
+    private void boundedClosest( double[] values, Chunk assigned, Chunk lower, int row, double maxMoved, double maxMoved2, int maxClu, ClusterDist cd ) {
+      if( _moved != null ) {
+        int clu = (int)assigned.at8(row);
+        double sqr = hex.genmodel.GenModel.KMeans_distance(_centers[clu],values,_isCats,null,null);
+        double bound = lower.atd(row) - (clu == maxClu ? maxMoved2 : maxMoved);
+        if( Math.sqrt(sqr) <= Math.max(_halfMin[clu], bound) ) {
+          if( maxMoved > 0 ) lower.set(row, bound);
+          cd._cluster = clu;
+          cd._dist = sqr;
+          return;
+        }
+      }
+      // Check all centers, tracking the second nearest for the new lower bound
+      int min = -1;
+      double minSqr = Double.MAX_VALUE, nextSqr = Double.MAX_VALUE;
+      for( int clu = 0; clu < _k; clu++ ) {
+        double sqr = hex.genmodel.GenModel.KMeans_distance(_centers[clu],values,_isCats,null,null);
+        if( sqr < minSqr ) { nextSqr = minSqr; minSqr = sqr; min = clu; }
+        else if( sqr < nextSqr ) nextSqr = sqr;
+      }
+      assigned.set(row, min);
+      lower.set(row, Math.sqrt(nextSqr));
+      cd._cluster = min;
+      cd._dist = minSqr;
+    }
+
     @Override public void reduce(Lloyds mr) {
       for( int clu = 0; clu < _k; clu++ ) {
         long ra =    _size[clu];
@@ -739,6 +1055,32 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
     return res;
   }
 
+  // k-means++ over candidate centers, each weighted by the number of rows
+  // nearest to it.  Keeps every candidate's distance to the chosen centers,
+  // so each pick costs one distance per candidate.
+  private static double[][] reclusterWeighted(double[][] points, long[] weights, Random rand, int N, String[][] isCats) {
+    double[][] res = new double[N][];
+    double[] minSqr = new double[points.length];
+    Arrays.fill(minSqr, Double.MAX_VALUE);
+    for( int count = 0; count < N; count++ ) {
+      // The first center is picked in proportion to the weights alone
+      double sum = 0;
+      for( int i = 0; i < points.length; i++ ) sum += weights[i] * (count == 0 ? 1 : minSqr[i]);
+      int pick = points.length - 1;
+      if( sum > 0 ) {
+        double r = rand.nextDouble() * sum;
+        for( int i = 0; i < points.length; i++ ) {
+          r -= weights[i] * (count == 0 ? 1 : minSqr[i]);
+          if( r < 0 ) { pick = i; break; }
+        }
+      } else pick = rand.nextInt(points.length); // Fewer distinct candidates than clusters
+      res[count] = points[pick];
+      for( int i = 0; i < points.length; i++ )
+        minSqr[i] = Math.min(minSqr[i], hex.genmodel.GenModel.KMeans_distance(points[pick], points[i], isCats, null, null));
+    }
+    return res;
+  }
+
   private void randomRow(Vec[] vecs, Random rand, double[] center, double[] means, double[] mults, int[] modes) {
     long row = Math.max(0, (long) (rand.nextDouble() * vecs[0].length()) - 1);
     data(center, vecs, row, means, mults, modes);
@@ -23,6 +23,8 @@ public class KMeansModel extends ClusteringModel<KMeansModel,KMeansModel.KMeansP
     public long _seed = System.nanoTime(); // RNG seed
     public KMeans.Initialization _init = KMeans.Initialization.Furthest;
     public Key<Frame> _user_points;
+    public boolean _triangle_inequality = false; // Skip distance computations using per-row triangle-inequality bounds
+    public long _mini_batch_size = 0;         // Rows per mini-batch iteration; 0 runs full Lloyd's passes
     public boolean _pred_indicator = false;   // For internal use only: generate indicator cols during prediction
                                               // Ex: k = 4, cluster = 3 -> [0, 0, 1, 0]
   }
@@ -53,7 +53,8 @@ public class NaiveBayes extends ModelBuilder<NaiveBayesModel,NaiveBayesParameter
   @Override public BuilderVisibility builderVisibility() { return BuilderVisibility.Stable; };
 
   @Override
-  protected void checkMemoryFootPrint() {
+  public long memoryFootprint() {
+    if (_train == null) return 0;
     // compute memory usage for pcond matrix
     long mem_usage = (_train.numCols() - 1) * _train.lastVec().cardinality();
     String[][] domains = _train.domains();
@@ -63,6 +64,12 @@ public class NaiveBayes extends ModelBuilder<NaiveBayesModel,NaiveBayesParameter
     }
     mem_usage *= count;
     mem_usage *= 8; //doubles
+    return mem_usage;
+  }
+
+  @Override
+  protected void checkMemoryFootPrint() {
+    long mem_usage = memoryFootprint();
     long max_mem = H2O.SELF.get_max_mem();
     if (mem_usage > max_mem) {
       String msg = "Conditional probabilities won't fit in the driver node's memory ("
@@ -60,11 +60,17 @@ public class PCA extends ModelBuilder<PCAModel,PCAModel.PCAParameters,PCAModel.P
   @Override public BuilderVisibility builderVisibility() { return BuilderVisibility.Stable; };
 
   @Override
-  protected void checkMemoryFootPrint() {
+  public long memoryFootprint() {
+    if (_train == null) return 0;
     HeartBeat hb = H2O.SELF._heartbeat;
     double p = _train.degreesOfFreedom();
-    long mem_usage = (long)(hb._cpus_allowed * p*p * 8/*doubles*/ * Math.log((double)_train.lastVec().nChunks())/Math.log(2.)); //one gram per core
-    long max_mem = hb.get_max_mem();
+    return (long)(hb._cpus_allowed * p*p * 8/*doubles*/ * Math.log((double)_train.lastVec().nChunks())/Math.log(2.)); //one gram per core
+  }
+
+  @Override
+  protected void checkMemoryFootPrint() {
+    long mem_usage = memoryFootprint();
+    long max_mem = H2O.SELF._heartbeat.get_max_mem();
     if (mem_usage > max_mem) {
       String msg = "Gram matrices (one per thread) won't fit in the driver node's memory ("
               + PrettyPrint.bytes(mem_usage) + " > " + PrettyPrint.bytes(max_mem)
@@ -41,7 +41,10 @@ public class DRFV3 extends SharedTreeV3<DRF,DRFV3, DRFV3.DRFParametersV3> {
         "mtries",
         "sample_rate",
         "binomial_double_trees",
-        "checkpoint"
+        "trees_per_pass",
+        "score_validation_samples",
+        "checkpoint",
+        "keep_tree_state"
     };
 
     // Input fields
@@ -50,5 +53,8 @@ public class DRFV3 extends SharedTreeV3<DRF,DRFV3, DRFV3.DRFParametersV3> {
 
     @API(help="For binary classification: Build 2x as many trees (one per class) - can lead to higher accuracy.", level = API.Level.secondary)
     public boolean binomial_double_trees;
+
+    @API(help="Number of trees grown at the same time, sharing each pass over the data (uses proportionally more memory for histograms).", level = API.Level.expert)
+    public int trees_per_pass;
   }
 }
@@ -84,12 +84,18 @@ public class DeepLearningV3 extends ModelBuilderSchema<DeepLearning,DeepLearning
         "average_activation",
         "sparsity_beta",
         "max_categorical_features",
+        "embedding_dim",
         "reproducible",
         "export_weights_and_biases",
 //        "mini_batch_size",
         "elastic_averaging",
         "elastic_averaging_moving_rate",
-        "elastic_averaging_regularization"
+        "elastic_averaging_regularization",
+        "parameter_server",
+        "parameter_server_staleness",
+        "parameter_server_sync_samples",
+        "model_averaging_compression",
+        "model_averaging_topk_fraction"
     };
 
   /*Imbalanced Classes*/
@@ -533,6 +539,9 @@ public class DeepLearningV3 extends ModelBuilderSchema<DeepLearning,DeepLearning
     @API(help = "Max. number of categorical features, enforced via hashing (Experimental)", level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
     public int max_categorical_features;
 
+    @API(help = "Size of the learned vector per categorical level (embedding), in place of one-hot encoding; 0 to disable", level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
+    public int embedding_dim;
+
     @API(help = "Force reproducibility on small data (will be slow - only uses 1 thread)", level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
     public boolean reproducible;
 
@@ -550,5 +559,20 @@ public class DeepLearningV3 extends ModelBuilderSchema<DeepLearning,DeepLearning
 
     @API(help = "Elastic averaging regularization strength (only if elastic averaging is enabled).", level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
     public double elastic_averaging_regularization;
+
+    @API(help = "Asynchronous parameter server mode: nodes exchange weight updates with the nodes owning each part of the model instead of averaging at every iteration (Experimental, multi-node with replicated training data only)", level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
+    public boolean parameter_server;
+
+    @API(help = "Max. number of weight pushes a node may be ahead of the slowest node (only if parameter server is enabled).", level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
+    public int parameter_server_staleness;
+
+    @API(help = "Number of training samples per node between weight pushes (only if parameter server is enabled).", level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
+    public long parameter_server_sync_samples;
+
+    @API(help = "Compression of the models sent between nodes for model averaging (with error feedback): half precision, 8-bit or only the largest differences to the previous model", values = { "None", "FP16", "Int8", "TopK" }, level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
+    public DeepLearningParameters.ModelAveragingCompression model_averaging_compression;
+
+    @API(help = "Fraction of the model differences sent with TopK model averaging compression.", level = API.Level.expert, direction=API.Direction.INOUT, gridable = true)
+    public double model_averaging_topk_fraction;
   }
 }
@@ -46,6 +46,8 @@ public class GBMV3 extends SharedTreeV3<GBM,GBMV3,GBMV3.GBMParametersV3> {
         "checkpoint",
         "sample_rate",
         "col_sample_rate",
+        "score_validation_samples",
+        "keep_tree_state",
     };
 
     // Input fields
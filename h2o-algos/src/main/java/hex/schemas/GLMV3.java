@@ -49,6 +49,10 @@ public class GLMV3 extends ModelBuilderSchema<GLM,GLMV3,GLMV3.GLMParametersV3> {
             "lambda_min_ratio",
             "beta_constraints",
             "max_active_predictors",
+            "kkt_check_interval",
+            "incremental",
+            "forgetting_factor",
+            "checkpoint",
             // dead unused args forced here by backwards compatibility, remove in V4
             "balance_classes",
             "class_sampling_factors",
@@ -127,6 +131,15 @@ public class GLMV3 extends ModelBuilderSchema<GLM,GLMV3,GLMV3.GLMParametersV3> {
 
     @API(help="Maximum number of active predictors during computation. Use as a stopping criterium to prevent expensive model building with many predictors.", direction = Direction.INPUT, level = Level.expert)
     public int max_active_predictors = -1;
+
+    @API(help="With lambda search, check KKT conditions over all predictors (a pass over all columns) only every this many lambdas and at the last lambda; in between, only the active predictors are read and the inactive ones are screened on their (stale) gradient from the last check. Predictors missed in between enter at the next check.", direction = Direction.INPUT, level = Level.expert)
+    public int kkt_check_interval = 1;
+
+    @API(help="Gaussian family only: keep the sufficient statistics in the model, so that a refit on the training frame with rows appended (with this model as checkpoint) only reads the new rows.", direction = Direction.INPUT, level = Level.expert)
+    public boolean incremental = false;
+
+    @API(help="Incremental training: weight of the checkpointed model's statistics on a refit; 1 means no forgetting.", direction = Direction.INPUT, level = Level.expert)
+    public double forgetting_factor = 1;
     
     // dead unused args, formely inherited from supervised model schema
     /**
@@ -25,7 +25,9 @@ public class KMeansV3 extends ClusteringModelBuilderSchema<KMeans,KMeansV3,KMean
         "max_iterations",
         "standardize",
         "seed",
-        "init"
+        "init",
+        "triangle_inequality",
+        "mini_batch_size"
     };
 
     // Input fields
@@ -41,7 +43,13 @@ public class KMeansV3 extends ClusteringModelBuilderSchema<KMeans,KMeansV3,KMean
     @API(help = "RNG Seed", level = API.Level.expert /* tested, works: , dependsOn = {"k", "max_iterations"} */, gridable = true)
     public long seed;
 
-    @API(help = "Initialization mode", values = { "Random", "PlusPlus", "Furthest", "User" }, gridable = true) // TODO: pull out of categorical class. . .
+    @API(help = "Initialization mode", values = { "Random", "PlusPlus", "Furthest", "User", "PlusPlusParallel" }, gridable = true) // TODO: pull out of categorical class. . .
     public KMeans.Initialization init;
+
+    @API(help = "Keep per-row distance bounds between iterations to skip distance computations for rows whose cluster cannot change", level = API.Level.expert, gridable = true)
+    public boolean triangle_inequality;
+
+    @API(help = "Number of rows sampled per iteration for mini-batch K-Means; 0 runs full passes over the data", level = API.Level.expert, gridable = true)
+    public long mini_batch_size;
   }
 }
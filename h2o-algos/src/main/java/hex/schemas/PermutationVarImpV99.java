@@ -0,0 +1,19 @@
+package hex.schemas;
+
+import water.Iced;
+import water.api.API;
+import water.api.KeyV3.FrameKeyV3;
+import water.api.KeyV3.ModelKeyV3;
+import water.api.Schema;
+
+public class PermutationVarImpV99 extends Schema<Iced, PermutationVarImpV99> {
+
+  // Input fields
+  @API(help="A GBM or DRF model key.", required=true) public ModelKeyV3 model;
+  @API(help="Frame with the predictors and the response, e.g. a validation frame.", required=true) public FrameKeyV3 frame;
+  @API(help="Seed of the row permutations.", required=false) public long seed = 1234;
+
+  //Outputs
+  @API(help="The predictors.", direction=API.Direction.OUTPUT) public String[] names;
+  @API(help="Increase of the mean loss (squared error or log loss) when the predictor is shuffled.", direction=API.Direction.OUTPUT) public double[] importances;
+}
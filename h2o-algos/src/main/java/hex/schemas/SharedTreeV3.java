@@ -72,5 +72,11 @@ public class SharedTreeV3<B extends SharedTree, S extends SharedTreeV3<B,S,P>, P
 
     @API(help = "Row sample rate (from 0.0 to 1.0)", gridable = true)
     public float sample_rate;
+
+    @API(help = "Number of validation set samples for scoring during training (0 for all); the full validation set is scored before stopping early and at the end", level = API.Level.secondary, gridable = true)
+    public long score_validation_samples;
+
+    @API(help = "Keep the per-row tree predictions on the training frame with the model, so that training can continue from it as a checkpoint without rescoring its trees", level = API.Level.expert)
+    public boolean keep_tree_state;
   }
 }
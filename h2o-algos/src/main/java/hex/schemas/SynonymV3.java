@@ -10,18 +10,13 @@ public class SynonymV3 extends Schema<Iced, SynonymV3> {
   // Input fields
   @API(help="A word2vec model key.") public ModelKeyV3 key;
   @API(help="The target string to find synonyms.") public String target;
+  @API(help="Several target strings to find synonyms for at once.", required=false) public String[] targets;
   @API(help="Find the top `cnt` synonyms of the target word.") public int cnt;
 
 
   //Outputs
   @API(help="The synonyms.", direction=API.Direction.OUTPUT) public String[] synonyms;
   @API(help="The cosine similarities.", direction=API.Direction.OUTPUT) public float[]  cos_sim;
-
-/*  @Override public SynonymsHandler.Synonyms fillImpl(Synonyms c) {
-    //c._w2vec_key = Key.make(key);
-    c._cnt = cnt;
-    c._target = target;
-    return c;
-  }
-  */
+  @API(help="The synonyms of each of the targets; null for words not in the vocabulary.", direction=API.Direction.OUTPUT) public String[][] batch_synonyms;
+  @API(help="The cosine similarities of each of the targets' synonyms; approximate queries on large vocabularies may return negative ones.", direction=API.Direction.OUTPUT) public double[][] batch_cos_sim;
 }
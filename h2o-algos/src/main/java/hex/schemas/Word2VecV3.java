@@ -16,7 +16,9 @@ public class Word2VecV3 extends ModelBuilderSchema<Word2Vec,Word2VecV3,Word2VecV
             "windowSize",
             "sentSampleRate",
             "initLearningRate",
-            "epochs"
+            "epochs",
+            "syncsPerEpoch",
+            "seed"
     };
 
     /**
@@ -70,6 +72,11 @@ public class Word2VecV3 extends ModelBuilderSchema<Word2Vec,Word2VecV3,Word2VecV
      */
     @API(help="Use the continuous bag of words model or the Skip-Gram model", values = {"CBOW", "SkipGram"}, required = true)
     public Word2Vec.WordModel wordModel;
+    @API(help="Number of times per epoch the word vectors of the nodes are averaged", level = API.Level.expert)
+    public int syncsPerEpoch = 1;
+
+    @API(help="Seed for random numbers (window sizes, negative and frequent word sampling) - Note: weights are updated concurrently by all threads, so training is only reproducible when running single threaded", level = API.Level.expert)
+    public long seed;
 
   }
 }
@@ -1,5 +1,6 @@
 package hex.svd;
 
+import Jama.EigenvalueDecomposition;
 import Jama.Matrix;
 import Jama.QRDecomposition;
 import Jama.SingularValueDecomposition;
@@ -9,7 +10,6 @@ import hex.gram.Gram.GramTask;
 import hex.schemas.ModelBuilderSchema;
 import hex.schemas.SVDV99;
 import hex.svd.SVDModel.SVDParameters;
-import hex.util.LinearAlgebraUtils;
 import hex.util.LinearAlgebraUtils.*;
 import water.*;
 import water.fvec.Chunk;
@@ -33,6 +33,8 @@ import java.util.Arrays;
 public class SVD extends ModelBuilder<SVDModel,SVDModel.SVDParameters,SVDModel.SVDOutput> {
   // Convergence tolerance
   private final double TOLERANCE = 1e-6;    // Cutoff for estimation error of right singular vector
+  // Randomized SVD: singular values below this fraction of the largest one are taken as 0
+  static final double RANK_TOLERANCE = 1e-6;
 
   // Maximum number of columns when categoricals expanded
   private final int MAX_COLS_EXPANDED = 5000;
@@ -56,7 +58,7 @@ public class SVD extends ModelBuilder<SVDModel,SVDModel.SVDParameters,SVDModel.S
       case Power:
         return 1 + _parms._nv;
       case Randomized:
-        return 5 + _parms._max_iterations;
+        return 1 + _parms._max_iterations;
       default: return _parms._nv;
     }
   }
@@ -163,202 +165,74 @@ public class SVD extends ModelBuilder<SVDModel,SVDModel.SVDParameters,SVDModel.S
       return model._output._d[k];
     }
 
-    // Algorithm 4.4: Randomized subspace iteration from Halk et al (http://arxiv.org/pdf/0909.4061.pdf)
-    private Frame randSubIterInPlace(DataInfo dinfo, SVDModel model) {
-      DataInfo yinfo = null;
-      Frame yqfrm = null;
-
-      try {
-        // 1) Initialize Y = AG where G ~ N(0,1) and compute Y = QR factorization
-        update(1, "Initializing random subspace of training data Y");
-        double[][] gt = ArrayUtils.gaussianArray(_parms._nv, _ncolExp, _parms._seed);
-        RandSubInit rtsk = new RandSubInit(self(), dinfo, gt);
-        rtsk.doAll(_parms._nv, Vec.T_NUM, dinfo._adaptedFrame);
-        yqfrm = rtsk.outputFrame(Key.make(), null, null);   // Alternates between Y and Q from Y = QR
-
-        // Make input frame [A,Q] where A = read-only training data, Y = A \tilde{Q}, Q from Y = QR factorization
-        // Note: If A is n by p (p = num cols with categoricals expanded), then \tilde{Q} is p by k and Q is n by k
-        //       Q frame is used to save both intermediate Y calculation and final orthonormal Q matrix
-        Frame aqfrm = new Frame(dinfo._adaptedFrame);
-        aqfrm.add(yqfrm);
-
-        // Calculate Cholesky of Y Gram to get R' = L matrix
-        update(1, "Computing QR factorization of Y");
-        yinfo = new DataInfo(Key.make(), yqfrm, null, true, DataInfo.TransformType.NONE, true, false, false);
-        DKV.put(yinfo._key, yinfo);
-        LinearAlgebraUtils.computeQInPlace(self(), yinfo);
-
-        model._output._iterations = 0;
-        while (model._output._iterations < _parms._max_iterations) {
-          if(!isRunning()) break;
-          update(1, "Iteration " + String.valueOf(model._output._iterations+1) + " of randomized subspace iteration");
-
-          // 2) Form \tilde{Y}_j = A'Q_{j-1} and compute \tilde{Y}_j = \tilde{Q}_j \tilde{R}_j factorization
-          SMulTask stsk = new SMulTask(dinfo, _parms._nv);
-          stsk.doAll(aqfrm);
-
-          Matrix ysmall = new Matrix(stsk._atq);
-          QRDecomposition ysmall_qr = new QRDecomposition(ysmall);
-          double[][] qtilde = ysmall_qr.getQ().getArray();
-
-          // 3) [A,Q_{j-1}] -> [A,Y_j]: Form Y_j = A\tilde{Q}_j and compute Y_j = Q_jR_j factorization
-          BMulInPlaceTask tsk = new BMulInPlaceTask(dinfo, ArrayUtils.transpose(qtilde));
-          tsk.doAll(aqfrm);
-          LinearAlgebraUtils.computeQInPlace(self(), yinfo);
-          model._output._iterations++;
-          model.update(self());
-        }
-      } catch( Throwable t ) {
-        Job thisJob = DKV.getGet(_key);
-        if (thisJob._state == JobState.CANCELLED) {
-          Log.info("Job cancelled by user.");
-        } else {
-          t.printStackTrace();
-          failed(t);
-          throw t;
-        }
-      } finally {
-        if( yinfo != null ) yinfo.remove();
+    // Algorithm 4.4: Randomized subspace iteration from Halko et al (http://arxiv.org/pdf/0909.4061.pdf), run on A'A
+    // so that each iteration is a single pass over A: the n by k matrix A\Omega is never stored, and only the small
+    // p by k and k by k products are brought back to the driver, where they are orthonormalized.  The SVD is then
+    // read off the final subspace by Rayleigh-Ritz (Algorithm 5.1 with B = Q'A), and U = AVD^(-1) is formed at the end
+    // only if it is requested.
+    private Frame randSubIter(DataInfo dinfo, SVDModel model, String u_name) {
+      // 1) Initialize \Omega to an orthonormal basis of a random p by k subspace
+      double[][] omega = new QRDecomposition(new Matrix(ArrayUtils.gaussianArray(_ncolExp, _parms._nv, _parms._seed))).getQ().getArray();
+      PowerIter ptsk = null;
+
+      model._output._iterations = 0;
+      double err = 2 * TOLERANCE;
+      while (err > TOLERANCE && model._output._iterations < _parms._max_iterations) {
+        if(!isRunning()) break;
+        update(1, "Iteration " + String.valueOf(model._output._iterations+1) + " of randomized subspace iteration");
+
+        // 2) Form A'A\Omega_{j-1} and Y'Y = \Omega_{j-1}'A'A\Omega_{j-1} in one pass, then \Omega_j = Q from A'A\Omega_{j-1} = QR
+        ptsk = new PowerIter(self(), dinfo, ArrayUtils.transpose(omega)).doAll(dinfo._adaptedFrame);
+        double[][] omega_new = new QRDecomposition(new Matrix(ptsk._atay)).getQ().getArray();
+
+        // Stop when the subspace no longer moves: average squared sine of the principal angles between \Omega_{j-1} and \Omega_j
+        double cos = new Matrix(omega).transpose().times(new Matrix(omega_new)).normF();
+        err = 1 - cos * cos / _parms._nv;
+        omega = omega_new;
+        model._output._iterations++;
+        model.update(self());
       }
-      return yqfrm;
-    }
-
-    // Algorithm 4.4: Randomized subspace iteration from Halk et al (http://arxiv.org/pdf/0909.4061.pdf)
-    // This function keeps track of change in Q each iteration ||Q_j - Q_{j-1}||_2 to check convergence
-    private Frame randSubIter(DataInfo dinfo, SVDModel model) {
-      DataInfo yinfo = null;
-      Frame ybig = null, qfrm = null;
-      final int ncolA = dinfo._adaptedFrame.numCols();
-
-      try {
-        // 1) Initialize Y = AG where G ~ N(0,1) and compute Y = QR factorization
-        update(1, "Initializing random subspace of training data Y");
-        double[][] gt = ArrayUtils.gaussianArray(_parms._nv, _ncolExp, _parms._seed);
-        RandSubInit rtsk = new RandSubInit(self(), dinfo, gt);
-        rtsk.doAll(_parms._nv, Vec.T_NUM, dinfo._adaptedFrame);
-        ybig = rtsk.outputFrame(Key.make(), null, null);
-
-        // Make input frame [A,Q,Y] where A = read-only training data, Y = A \tilde{Q}, Q from Y = QR factorization
-        // Note: If A is n by p (p = num cols with categoricals expanded), then \tilde{Q} is p by k and Q is n by k
-        Frame ayqfrm = new Frame(dinfo._adaptedFrame);
-        ayqfrm.add(ybig);
-        for (int i = 0; i < _parms._nv; i++)
-          ayqfrm.add("qcol_" + i, ayqfrm.anyVec().makeZero());
-        Frame ayfrm = ayqfrm.subframe(0, ncolA + _parms._nv);   // [A,Y]
-        Frame yqfrm = ayqfrm.subframe(ncolA, ayqfrm.numCols());   // [Y,Q]
-        Frame aqfrm = ayqfrm.subframe(0, ncolA);
-        aqfrm.add(ayqfrm.subframe(ncolA + _parms._nv, ayqfrm.numCols()));   // [A,Q]
-
-        // Calculate Cholesky of Gram to get R' = L matrix
-        update(1, "Computing QR factorization of Y");
-        yinfo = new DataInfo(Key.make(), ybig, null, true, DataInfo.TransformType.NONE, true, false, false);
-        DKV.put(yinfo._key, yinfo);
-        LinearAlgebraUtils.computeQ(self(), yinfo, yqfrm);
-
-        model._output._iterations = 0;
-        long qobs = dinfo._adaptedFrame.numRows() * _parms._nv;    // Number of observations in Q
-        double qerr = 2 * TOLERANCE * qobs;   // Stop when average SSE between Q_j and Q_{j-2} below tolerance
-        while ((model._output._iterations < 10 || qerr / qobs > TOLERANCE) && model._output._iterations < _parms._max_iterations) {   // Run at least 10 iterations before tolerance cutoff
-          if(!isRunning()) break;
-          update(1, "Iteration " + String.valueOf(model._output._iterations+1) + " of randomized subspace iteration");
-
-          // 2) Form \tilde{Y}_j = A'Q_{j-1} and compute \tilde{Y}_j = \tilde{Q}_j \tilde{R}_j factorization
-          SMulTask stsk = new SMulTask(dinfo, _parms._nv);
-          stsk.doAll(aqfrm);    // Pass in [A,Q]
-
-          Matrix ysmall = new Matrix(stsk._atq);
-          QRDecomposition ysmall_qr = new QRDecomposition(ysmall);
-          double[][] ysmall_q = ysmall_qr.getQ().getArray();
-
-          // 3) Form Y_j = A\tilde{Q}_j and compute Y_j = Q_jR_j factorization
-          BMulInPlaceTask tsk = new BMulInPlaceTask(dinfo, ArrayUtils.transpose(ysmall_q));
-          tsk.doAll(ayfrm);
-          qerr = LinearAlgebraUtils.computeQ(self(), yinfo, yqfrm);
-          model._output._iterations++;
-          model.update(self());
-        }
-
-        // 4) Extract and save final Q_j from [A,Q] frame
-        qfrm = ayqfrm.extractFrame(ncolA + _parms._nv, ayqfrm.numCols());
-        qfrm = new Frame(Key.make(), qfrm.names(), qfrm.vecs());
-        DKV.put(qfrm);
-      } catch( Throwable t ) {
-        Job thisJob = DKV.getGet(_key);
-        if (thisJob._state == JobState.CANCELLED) {
-          Log.info("Job cancelled by user.");
-        } else {
-          t.printStackTrace();
-          failed(t);
-          throw t;
+      if (ptsk == null) return null;   // Cancelled before the first pass: no subspace to read the SVD off
+      model._output._nobs = ptsk._nobs;
+      model._output._total_variance = ptsk._sumsq / (ptsk._nobs-1);
+
+      // 3) Rayleigh-Ritz on the subspace \Omega of the last pass: if \Omega'A'A\Omega = WD^2W', then V = \Omega W
+      update(1, "Calculating SVD of small matrix locally");
+      double[][] omegat = ptsk._omegat;
+      EigenvalueDecomposition eig = new Matrix(ptsk._yty).eig();
+      double[] lambda = eig.getRealEigenvalues();
+      double[][] w = eig.getV().getArray();
+      model._output._d = new double[_parms._nv];
+      model._output._v = new double[_ncolExp][_parms._nv];
+      for(int k = 0; k < _parms._nv; k++) {
+        int col = _parms._nv-1-k;   // Eigenvalues of a symmetric matrix come in ascending order
+        model._output._d[k] = Math.sqrt(Math.max(lambda[col], 0));
+        // Read off A'A, a singular value is only accurate to about sqrt(eps) of the largest one: below that it is noise
+        if (model._output._d[k] <= RANK_TOLERANCE * model._output._d[0]) model._output._d[k] = 0;
+        for(int i = 0; i < _ncolExp; i++) {
+          double v = 0;
+          for(int l = 0; l < _parms._nv; l++)
+            v += omegat[l][i] * w[l][col];
+          model._output._v[i][k] = v;
         }
-      } finally {
-        if( yinfo != null ) yinfo.remove();
-        if( ybig != null ) ybig.delete();
       }
-      return qfrm;
-    }
 
-    // Algorithm 5.1: Direct SVD from Halko et al (http://arxiv.org/pdf/0909.4061.pdf)
-    private Frame directSVD(DataInfo dinfo, Frame qfrm, SVDModel model) {
-      String u_name = (_parms._u_name == null || _parms._u_name.length() == 0) ? "SVDUMatrix_" + Key.rand() : _parms._u_name;
-      return directSVD(dinfo, qfrm, model, u_name);
-    }
-    private Frame directSVD(DataInfo dinfo, Frame qfrm, SVDModel model, String u_name) {
-      DataInfo qinfo = null;
-      Frame u = null;
-      final int ncolA = dinfo._adaptedFrame.numCols();
-
-      try {
-        // 0) Make input frame [A,Q], where A = read-only training data, Q = matrix from randomized subspace iteration
-        Vec[] vecs = new Vec[ncolA + _parms._nv];
-        for (int i = 0; i < ncolA; i++) vecs[i] = dinfo._adaptedFrame.vec(i);
-        for (int i = 0; i < _parms._nv; i++) vecs[ncolA + i] = qfrm.vec(i);
-        Frame aqfrm = new Frame(vecs);
-
-        // 1) Form the matrix B' = A'Q = (Q'A)'
-        update(1, "Forming small matrix B = Q'A for direct SVD");
-        SMulTask stsk = new SMulTask(dinfo, _parms._nv);
-        stsk.doAll(aqfrm);
-
-        // 2) Compute SVD of small matrix: If B' = WDV', then B = VDW'
-        update(1, "Calculating SVD of small matrix locally");
-        Matrix atqJ = new Matrix(stsk._atq);
-        SingularValueDecomposition svdJ = atqJ.svd();
-
-        // 3) Form orthonormal matrix U = QV
-        update(1, "Forming distributed orthonormal matrix U");
-        if (_parms._keep_u) {
-          model._output._u_key = Key.make(u_name);
-          double[][] svdJ_u = svdJ.getV().getMatrix(0,atqJ.getColumnDimension()-1,0,_parms._nv-1).getArray();
-
-          qinfo = new DataInfo(Key.make(), qfrm, null, true, DataInfo.TransformType.NONE, false, false, false);
-          DKV.put(qinfo._key, qinfo);
-          BMulTask btsk = new BMulTask(self(), qinfo, ArrayUtils.transpose(svdJ_u));
-          btsk.doAll(_parms._nv, Vec.T_NUM, qinfo._adaptedFrame);
-          u = btsk.outputFrame(model._output._u_key, null, null);
-        }
-
-        model._output._d = Arrays.copyOfRange(svdJ.getSingularValues(),0,_parms._nv);
-        model._output._v = svdJ.getU().getMatrix(0,atqJ.getRowDimension()-1,0,_parms._nv-1).getArray();
-      } catch( Throwable t ) {
-        Job thisJob = DKV.getGet(_key);
-        if (thisJob._state == JobState.CANCELLED) {
-          Log.info("Job cancelled by user.");
-        } else {
-          t.printStackTrace();
-          failed(t);
-          throw t;
-        }
-      } finally {
-        if( qinfo != null ) qinfo.remove();
+      // 4) Form U = AVD^(-1) if requested (and not cancelled)
+      if (!_parms._keep_u || _parms._only_v || !isRunning()) return null;
+      model._output._u_key = Key.make(u_name);
+      double[][] vt = ArrayUtils.transpose(model._output._v);
+      for (int k = 0; k < _parms._nv; k++) {
+        if (model._output._d[k] > 0) ArrayUtils.div(vt[k], model._output._d[k]);
+        else Arrays.fill(vt[k], 0);   // Rank deficient: leave the column of U at 0 rather than divide by 0
       }
-      return u;
+      BMulTask tsk = new BMulTask(self(), dinfo, vt).doAll(_parms._nv, Vec.T_NUM, dinfo._adaptedFrame);
+      return tsk.outputFrame(model._output._u_key, null, null);
     }
 
     @Override protected void compute2() {
       SVDModel model = null;
       DataInfo dinfo = null;
-      Frame u = null, qfrm = null;
+      Frame u = null;
       Vec[] uvecs = null;
 
       try {
@@ -500,12 +374,11 @@ public class SVD extends ModelBuilder<SVDModel,SVDModel.SVDParameters,SVDModel.S
             utsk.doAll(u);
           }
         } else if(_parms._svd_method == SVDParameters.Method.Randomized) {
-          qfrm = randSubIter(dinfo, model);
-          u = directSVD(dinfo, qfrm, model, u_name);
+          u = randSubIter(dinfo, model, u_name);
         } else
           error("_svd_method", "Unrecognized SVD method " + _parms._svd_method);
 
-        if (_parms._save_v_frame) {
+        if (_parms._save_v_frame && model._output._v != null) {
           model._output._v_key = Key.make(v_name);
           ArrayUtils.frame(model._output._v_key, null, model._output._v);
         }
@@ -526,7 +399,6 @@ public class SVD extends ModelBuilder<SVDModel,SVDModel.SVDParameters,SVDModel.S
         if( model != null ) model.unlock(_key);
         if( dinfo != null ) dinfo.remove();
         if( u != null & !_parms._keep_u ) u.delete();
-        if( qfrm != null ) qfrm.delete();
         _parms.read_unlock_frames(SVD.this);
       }
 
@@ -602,7 +474,7 @@ public class SVD extends ModelBuilder<SVDModel,SVDModel.SVDParameters,SVDModel.S
       double[] nums = new double[_ivv.length];
       for(int row = 0; row < _ivv.length; row++)
         nums[row] = r.innerProduct(_ivv[row]);
-      _gram.addRow(_dinfo.newDenseRow(nums), w);
+      _gram.addRowBlocked(_dinfo.newDenseRow(nums), w);
       ++_nobs;
     }
 
@@ -640,20 +512,76 @@ public class SVD extends ModelBuilder<SVDModel,SVDModel.SVDParameters,SVDModel.S
     }
   }
 
-  // Compute Y = AG where A is n by p and G is a p by k standard Gaussian matrix
-  private static class RandSubInit extends FrameTask<RandSubInit> {
-    final double[][] _gaus;   // G' is k by p for convenient multiplication
+  // One step of subspace iteration on A'A, where A is n by p and \Omega is p by k.  Each row y_i = a_i\Omega of
+  // Y = A\Omega is only kept while row a_i is processed, and both A'A\Omega = \sum_i a_i'y_i and Y'Y = \sum_i y_i'y_i
+  // are summed up in the same pass.
+  private static class PowerIter extends FrameTask<PowerIter> {
+    final double[][] _omegat;   // \Omega' is k by p for convenient multiplication
+    public double[][] _atay;    // A'A\Omega is p by k
+    public double[][] _yty;     // Y'Y = \Omega'A'A\Omega is k by k
+    public double _sumsq;       // Squared Frobenius norm of A
+    public long _nobs;
+    private transient double[] _y;
 
-    public RandSubInit(Key jobKey, DataInfo dinfo, double[][] gaus) {
+    public PowerIter(Key jobKey, DataInfo dinfo, double[][] omegat) {
       super(jobKey, dinfo);
-      _gaus = gaus;
+      _omegat = omegat;
+    }
+
+    @Override protected boolean chunkInit() {
+      if(_atay == null) {
+        _atay = new double[_omegat[0].length][_omegat.length];
+        _yty = new double[_omegat.length][_omegat.length];
+      }
+      _y = new double[_omegat.length];
+      return true;
+    }
+
+    @Override protected void processRow(long gid, DataInfo.Row row) {
+      final int k = _omegat.length;
+      for(int j = 0; j < k; j++)
+        _y[j] = row.innerProduct(_omegat[j]);
+
+      // a_i'y_i: categoricals are 0/1 indicators
+      for(int i = 0; i < row.nBins; i++)
+        ArrayUtils.add(_atay[row.binIds[i]], _y);
+      _sumsq += row.nBins;
+      int nnums = row.numIds == null ? row.numVals.length : row.nNums;
+      int numStart = _dinfo.numStart();
+      for(int i = 0; i < nnums; i++) {
+        double a = row.numVals[i];
+        addScaled(_atay[row.numIds == null ? numStart+i : row.numIds[i]], a, _y);
+        _sumsq += a * a;
+      }
+
+      // y_i'y_i, lower triangle only
+      for(int j = 0; j < k; j++)
+        for(int l = 0; l <= j; l++)
+          _yty[j][l] += _y[j] * _y[l];
+      ++_nobs;
+    }
+
+    private static void addScaled(double[] a, double x, double[] y) {
+      for(int j = 0; j < y.length; j++) a[j] += x * y[j];
     }
 
-    @Override protected void processRow(long gid, DataInfo.Row row, NewChunk[] outputs) {
-      for(int k = 0; k < _gaus.length; k++) {
-        double y = row.innerProduct(_gaus[k]);
-        outputs[k].addNum(y);
+    @Override public void reduce(PowerIter other) {
+      if(other._atay == null) return;
+      if(_atay == null) {
+        _atay = other._atay;
+        _yty = other._yty;
+      } else {
+        ArrayUtils.add(_atay, other._atay);
+        ArrayUtils.add(_yty, other._yty);
       }
+      _sumsq += other._sumsq;
+      _nobs += other._nobs;
+    }
+
+    @Override protected void postGlobal() {
+      for(int j = 0; j < _yty.length; j++)
+        for(int l = 0; l < j; l++)
+          _yty[l][j] = _yty[j][l];
     }
   }
 }
@@ -29,7 +29,7 @@ public class SVDModel extends Model<SVDModel,SVDModel.SVDParameters,SVDModel.SVD
     public String _v_name;
     public boolean _keep_u = true;    // Should left singular vectors be saved in memory? (Only applies if _only_v = false)
     public boolean _save_v_frame = true;   // Should right singular vectors be saved as a frame?
-    public boolean _only_v = false;   // For power method (others ignore): Compute only right singular vectors? (Faster if true)
+    public boolean _only_v = false;   // For power and randomized methods (others ignore): Compute only right singular vectors? (Faster if true)
     public boolean _use_all_factor_levels = true;   // When expanding categoricals, should first level be dropped?
     public boolean _impute_missing = false;   // Should missing numeric values be imputed with the column mean?
 
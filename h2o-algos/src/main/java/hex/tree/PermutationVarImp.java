@@ -0,0 +1,185 @@
+package hex.tree;
+
+import hex.VarImp;
+import water.DKV;
+import water.Key;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.util.ArrayUtils;
+import water.util.IcedBitSet;
+import water.util.RandomUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Permutation variable importance of a tree model, for all predictors in a
+ *  single pass over the data.
+ *
+ *  <p>Only the model key travels with the task; every node fetches the model
+ *  and its trees once in {@link #setupLocal}, through the local K/V cache.
+ *  The permutation is global, so sorted or clustered data does not bias the
+ *  importances: the chunks are paired up by a random permutation of all the
+ *  chunk indices, and the rows of a chunk take the shuffled values of the
+ *  rows of their donor chunk (the same for every variable).  With equally
+ *  sized chunks this is a permutation of all rows; a shorter donor chunk has
+ *  some of its rows used twice.  Donor chunks on other nodes are fetched
+ *  through the K/V cache, so a pass moves at most one copy of the predictors,
+ *  and no shuffled column is ever written.  For each row the output of every
+ *  tree is computed once on the intact row; a permuted variable then only
+ *  re-scores the trees which split on it, and the per-variable loss is
+ *  accumulated next to the baseline loss.
+ *
+ *  <p>Expects a frame adapted to the model, see {@link SharedTreeModel#permutationVarImp}.
+ */
+public class PermutationVarImp extends MRTask<PermutationVarImp> {
+  /* @IN */ final private Key<? extends SharedTreeModel> _modelKey;
+  /* @IN */ final private long _seed;
+  /* @IN */ final private int _respIdx, _weightsIdx, _offsetIdx;
+  /* @IN */ final private int[] _donors; // Donor chunk of the shuffled values, per chunk
+
+  /* @OUT */ private double   _base;  // Weighted loss of the intact rows
+  /* @OUT */ private double[] _perm;  // Weighted loss per shuffled variable
+  /* @OUT */ private double   _wsum;  // Sum of weights of the scored rows
+
+  private transient SharedTreeModel<?,?,?> _model;
+  private transient CompressedTree[/*ntrees*/][/*nclass*/] _trees;
+  private transient int[/*nfeatures*/][] _treesUsing; // Trees splitting on each variable
+
+  public PermutationVarImp(SharedTreeModel model, Frame adaptedFr, long seed) {
+    _modelKey = model._key;
+    _seed = seed;
+    _respIdx = adaptedFr.find(model._output.responseName());
+    _weightsIdx = model._output.hasWeights() ? adaptedFr.find(model._output.weightsName()) : -1;
+    _offsetIdx = model._output.hasOffset() ? adaptedFr.find(model._output.offsetName()) : -1;
+    assert _respIdx != -1;
+    int nchunks = adaptedFr.anyVec().nChunks();
+    _donors = new int[nchunks];
+    Random rng = RandomUtils.getRNG(seed);
+    for( int i=0; i<nchunks; i++ ) {
+      int j = rng.nextInt(i+1);
+      _donors[i] = _donors[j];
+      _donors[j] = i;
+    }
+  }
+
+  @Override protected void setupLocal() {
+    _model = DKV.getGet(_modelKey);
+    Key[][] keys = _model._output._treeKeys;
+    int nfeatures = _model._output.nfeatures();
+    _trees = new CompressedTree[keys.length][];
+    int[] nusing = new int[nfeatures];
+    boolean[][] uses = new boolean[keys.length][];
+    for( int t=0; t<keys.length; t++ ) {
+      _trees[t] = new CompressedTree[keys[t].length];
+      uses[t] = new boolean[nfeatures];
+      for( int c=0; c<keys[t].length; c++ ) {
+        if( keys[t][c] == null ) continue;
+        _trees[t][c] = DKV.get(keys[t][c]).get();
+        splitColumns(_trees[t][c], uses[t]);
+      }
+      for( int v=0; v<nfeatures; v++ ) if( uses[t][v] ) nusing[v]++;
+    }
+    _treesUsing = new int[nfeatures][];
+    for( int v=0; v<nfeatures; v++ ) {
+      _treesUsing[v] = new int[nusing[v]];
+      for( int t=0, i=0; t<keys.length; t++ ) if( uses[t][v] ) _treesUsing[v][i++] = t;
+    }
+  }
+
+  // Mark the columns a tree splits on
+  private static void splitColumns(CompressedTree ct, final boolean[] uses) {
+    new TreeVisitor<RuntimeException>(ct) {
+      @Override protected void pre(int col, float fcmp, IcedBitSet gcmp, int equal) { uses[col] = true; }
+    }.visit();
+  }
+
+  @Override public void map(Chunk[] chks) {
+    int nfeatures = _model._output.nfeatures();
+    int nclass = _model._output.nclasses();
+    int len = chks[0]._len;
+    double[] data = new double[nfeatures];
+    double[] raw = new double[nclass+1];
+    double[] preds = new double[nclass+1];
+    double[][] contrib = new double[_trees.length][];
+    for( int t=0; t<_trees.length; t++ ) contrib[t] = new double[_trees[t].length];
+    _perm = new double[nfeatures];
+
+    // Shuffled values come from the donor chunk, in the order of a
+    // Fisher-Yates shuffle of its row indices
+    Chunk[] donor = new Chunk[nfeatures];
+    for( int v=0; v<nfeatures; v++ ) donor[v] = _fr.vec(v).chunkForChunkIdx(_donors[chks[0].cidx()]);
+    if( donor[0]._len == 0 ) donor = Arrays.copyOf(chks, nfeatures); // Nothing to take from an empty chunk
+    int dlen = donor[0]._len;
+    int[] perm = new int[dlen];
+    Random rng = RandomUtils.getRNG(_seed + chks[0].cidx());
+    for( int i=0; i<dlen; i++ ) {
+      int j = rng.nextInt(i+1);
+      perm[i] = perm[j];
+      perm[j] = i;
+    }
+
+    Chunk resp = chks[_respIdx];
+    for( int row=0; row<len; row++ ) {
+      if( resp.isNA(row) ) continue;
+      double w = _weightsIdx == -1 ? 1 : chks[_weightsIdx].atd(row);
+      if( w == 0 ) continue;
+      double offset = _offsetIdx == -1 ? 0 : chks[_offsetIdx].atd(row);
+      double actual = resp.atd(row);
+      for( int i=0; i<nfeatures; i++ ) data[i] = chks[i].atd(row);
+      // Baseline: remember what every tree contributes to the intact row
+      Arrays.fill(raw, 0);
+      for( int t=0; t<_trees.length; t++ )
+        for( int c=0; c<_trees[t].length; c++ )
+          if( _trees[t][c] != null )
+            raw[slot(t,c)] += (contrib[t][c] = _trees[t][c].score(data));
+      System.arraycopy(raw, 0, preds, 0, raw.length);
+      double l0 = lossOfSums(preds, offset, actual);
+      _base += w * l0;
+      _wsum += w;
+      // Shuffled variables: only trees splitting on the variable can change
+      for( int v=0; v<nfeatures; v++ ) {
+        int[] using = _treesUsing[v];
+        if( using.length == 0 ) { _perm[v] += w * l0; continue; }
+        double old = data[v];
+        data[v] = donor[v].atd(perm[row % dlen]);
+        System.arraycopy(raw, 0, preds, 0, raw.length);
+        for( int t : using )
+          for( int c=0; c<_trees[t].length; c++ )
+            if( _trees[t][c] != null )
+              preds[slot(t,c)] += _trees[t][c].score(data) - contrib[t][c];
+        _perm[v] += w * lossOfSums(preds, offset, actual);
+        data[v] = old;
+      }
+    }
+  }
+
+  // Slot of tree (t,c) in the prediction array, like SharedTreeModel.score0
+  private int slot(int t, int c) { return _trees[t].length == 1 ? 0 : c+1; }
+
+  // Squared error for regression, log loss for classification; overwrites sums
+  private double lossOfSums(double[] sums, double offset, double actual) {
+    double[] p = _model.unifyPreds(sums, offset);
+    if( _model._output.nclasses() == 1 ) return (actual - p[0]) * (actual - p[0]);
+    return -Math.log(Math.max(p[1 + (int) actual], 1e-15));
+  }
+
+  @Override public void reduce(PermutationVarImp mrt) {
+    _base += mrt._base;
+    _wsum += mrt._wsum;
+    if( mrt._perm != null ) _perm = ArrayUtils.add(_perm, mrt._perm);
+  }
+
+  /** @return Mean loss on the intact frame */
+  public double baseline() { return _wsum == 0 ? 0 : _base / _wsum; }
+
+  /** @return Increase of the mean loss per shuffled predictor, named after the model's columns */
+  public VarImp result() {
+    SharedTreeModel<?,?,?> model = DKV.getGet(_modelKey);
+    int nfeatures = model._output.nfeatures();
+    float[] imp = new float[nfeatures];
+    for( int v=0; v<nfeatures && _perm != null && _wsum > 0; v++ )
+      imp[v] = (float) ((_perm[v] - _base) / _wsum);
+    return new VarImp(imp, Arrays.copyOf(model._output._names, nfeatures));
+  }
+}
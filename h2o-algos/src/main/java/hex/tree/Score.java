@@ -4,11 +4,13 @@ import hex.Model;
 import hex.ModelCategory;
 import hex.ModelMetrics;
 import hex.ModelMetricsSupervised;
+import hex.ScoreKeeper;
 import hex.genmodel.GenModel;
 import water.MRTask;
 import water.fvec.C0DChunk;
 import water.fvec.Chunk;
 import water.fvec.Frame;
+import water.util.ArrayUtils;
 
 /** Score the tree columns, and produce a confusion matrix and AUC
  */
@@ -19,11 +21,46 @@ public class Score extends MRTask<Score> {
   final ModelCategory _mcat;    // Model category (Binomial, Regression, etc)
   ModelMetrics.MetricBuilder _mb;
 
+  // Optional deterministic row sampling: per-class inclusion probabilities
+  // (one entry for regression), and the seed of the row hash.  Sampled rows
+  // are up-weighted by the inverse of their inclusion probability.
+  double[] _sampleProbs;
+  long _sampleSeed;
+  // Metric whose sampling error is estimated, and the per-bucket weighted
+  // loss and weight of the sampled rows, used to estimate that error
+  ScoreKeeper.StoppingMetric _errMetric;
+  static final int NBUCKETS = 8;
+  double[] _bucketLoss, _bucketW;
+
   /** Compute ModelMetrics on the testing dataset.
    *  It expect already adapted validation dataset which is adapted to a model
    *  and contains a response which is adapted to confusion matrix domain.
    */
   public Score(SharedTree bldr, boolean is_train, boolean oob, ModelCategory mcat) { _bldr = bldr; _is_train = is_train; _oob = oob; _mcat = mcat; }
+
+  /** Compute ModelMetrics on a deterministic, stratified sample of the
+   *  dataset.  Row {@code i} is kept with probability {@code probs[class(i)]}
+   *  (or {@code probs[0]} for regression), decided by a hash of the seed and
+   *  the row number, so the same rows are scored at every scoring event.
+   *  @param metric Stopping metric (AUTO resolved) whose sampling error
+   *  {@link #sampledRelativeStdErr} estimates */
+  public Score(SharedTree bldr, ModelCategory mcat, double[] probs, long seed, ScoreKeeper.StoppingMetric metric) {
+    this(bldr, false, false, mcat);
+    _sampleProbs = probs;
+    _sampleSeed = seed;
+    _errMetric = metric;
+  }
+
+  // SplitMix64 finalizer; a cheap, well-mixed hash of (seed,row)
+  static long hash(long seed, long row) {
+    long z = seed + (row+1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  // Whether a row with hash h is in a sample with inclusion probability p
+  static boolean sampled(long h, double p) { return (h >>> 11) * 0x1.0p-53 < p; }
   
   @Override public void map( Chunk chks[] ) {
     Chunk ys = _bldr.chk_resp(chks);  // Response
@@ -44,6 +81,9 @@ public class Score extends MRTask<Score> {
     // logic which requires a temp array to hold the features.
     final double[] tmp = _is_train ? null : new double[_bldr._ncols];
 
+    if( _sampleProbs != null ) { _bucketLoss = new double[NBUCKETS]; _bucketW = new double[NBUCKETS]; }
+    final long start = chks[0].start();
+
     // Score all Rows
     float [] val= new float[1];
     for( int row=0; row<ys._len; row++ ) {
@@ -52,6 +92,14 @@ public class Score extends MRTask<Score> {
       if( _oob && chks[oobColIdx].at8(row)==0 ) continue;
       double weight = weightsChunk.atd(row);
       if (weight == 0) continue; //ignore holdout rows
+      int bucket = 0;
+      if( _sampleProbs != null ) {
+        long h = hash(_sampleSeed, start+row);
+        double p = _sampleProbs[nclass > 1 ? (int)ys.at8(row) : 0];
+        if( !sampled(h, p) ) continue;
+        weight /= p;
+        bucket = (int)(h & (NBUCKETS-1));
+      }
       double offset = offsetChunk.atd(row);
       if( _is_train ) // Passed in the model-specific columns
         _bldr.score2(chks, weight, offset, cdists, row); // Use the training data directly (per-row predictions already made)
@@ -60,10 +108,62 @@ public class Score extends MRTask<Score> {
       if( nclass > 1 ) cdists[0] = GenModel.getPrediction(cdists, m._output._priorClassDist, tmp, m.defaultThreshold()); // Fill in prediction
       val[0] = (float)ys.atd(row);
       _mb.perRow(cdists, val, weight, offset, m);
+      if( _sampleProbs != null && !ArrayUtils.hasNaNs(cdists) ) {
+        _bucketLoss[bucket] += loss(m, cdists, val[0], nclass, weight);
+        _bucketW[bucket] += weight;
+      }
     }
   }
 
-  @Override public void reduce( Score t ) { _mb.reduce(t._mb); }
+  /** Weighted loss of one row, such that the metric {@link #_errMetric} is
+   *  the weighted mean of the losses, computed as the metric builders do; NaN
+   *  for metrics which are not such a mean (AUC, r2). */
+  private double loss(Model m, double[] cdists, float act, int nclass, double weight) {
+    if( nclass > 1 ) {
+      int iact = (int)act;
+      double p = iact+1 < cdists.length ? cdists[iact+1] : 0; // Probability of the actual class
+      switch( _errMetric ) {
+        case MSE:               return weight*(1-p)*(1-p);
+        case logloss:           return -weight*Math.log(Math.max(1e-15, p));
+        case misclassification: return cdists[0] == iact ? 0 : weight;
+        default:                return Double.NaN;
+      }
+    }
+    double err = act - cdists[0];
+    switch( _errMetric ) {
+      case MSE:      return weight*err*err;
+      case deviance: return m.deviance(weight, act, cdists[0]);
+      default:       return Double.NaN;
+    }
+  }
+
+  @Override public void reduce( Score t ) {
+    _mb.reduce(t._mb);
+    if( _bucketLoss == null ) { _bucketLoss = t._bucketLoss; _bucketW = t._bucketW; }
+    else if( t._bucketLoss != null ) { ArrayUtils.add(_bucketLoss, t._bucketLoss); ArrayUtils.add(_bucketW, t._bucketW); }
+  }
+
+  /** Relative standard error of the sampled stopping metric, estimated from
+   *  the spread of its per-bucket values (batch means); NaN if not sampled,
+   *  and infinite if unknown, e.g. for AUC and r2, which are not means of
+   *  per-row losses. */
+  double sampledRelativeStdErr() {
+    if( _bucketLoss == null ) return Double.NaN;
+    double sum = 0, sum2 = 0, loss = 0, w = 0;
+    int n = 0;
+    for( int b = 0; b < NBUCKETS; b++ ) {
+      if( _bucketW[b] == 0 ) continue;
+      double mean = _bucketLoss[b]/_bucketW[b];
+      sum += mean; sum2 += mean*mean; n++;
+      loss += _bucketLoss[b]; w += _bucketW[b];
+    }
+    if( Double.isNaN(loss) ) return Double.POSITIVE_INFINITY;
+    if( loss == 0 ) return 0;
+    if( n < 2 ) return Double.POSITIVE_INFINITY; // Too few rows to tell
+    double mean = sum/n;
+    double var = Math.max(0, (sum2 - n*mean*mean)/(n-1));
+    return Math.sqrt(var/n) / Math.abs(loss/w);
+  }
 
   // Run after the doAll scoring to convert the MetricsBuilder to a ModelMetrics
   ModelMetricsSupervised makeModelMetrics(SharedTreeModel model, Frame fr) {
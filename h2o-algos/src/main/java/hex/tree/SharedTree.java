@@ -47,6 +47,10 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
 
   protected Random _rand;
 
+  // Whether the restart from a checkpoint copied the tree state the checkpoint kept, instead of rescoring its trees
+  private transient boolean _treeStateRestored;
+  public boolean treeStateRestored() { return _treeStateRestored; }
+
   public boolean isSupervised(){return true;}
 
   Key _response_key;
@@ -125,6 +129,10 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     if (_parms._min_rows <=0) error ("_min_rows", "_min_rows must be > 0.");
     if (!(0.0 < _parms._sample_rate && _parms._sample_rate <= 1.0))
       error("_sample_rate", "sample_rate should be in interval ]0,1] but it is " + _parms._sample_rate);
+    if (_parms._score_validation_samples < 0)
+      error("_score_validation_samples", "Number of validation samples for scoring must be >= 0 (0 for all).");
+    if (_parms._score_validation_samples > 0 && _parms._valid == null)
+      error("_score_validation_samples", "score_validation_samples requires a validation frame.");
     if (_train != null) {
       double sumWeights = _train.numRows() * (hasWeightCol() ? _train.vec(_parms._weights_column).mean() : 1);
       if (sumWeights < 2*_parms._min_rows ) // Need at least 2*min_rows weighted rows to split even once
@@ -240,6 +248,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
         initializeModelSpecifics();
         resumeFromCheckpoint();
         scoreAndBuildTrees(doOOBScoring());
+        if( _parms._keep_tree_state ) keepTreeState();
 
         done();                 // Job done!
       } catch( Throwable t ) {
@@ -258,7 +267,14 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
         if (_model==null) {
           Scope.exit();
         } else {
-          Scope.exit(_model._key, ModelMetrics.buildKey(_model,_parms.train()), ModelMetrics.buildKey(_model,_parms.valid()));
+          List<Key> keep = new ArrayList<>();
+          keep.add(_model._key);
+          keep.add(ModelMetrics.buildKey(_model,_parms.train()));
+          keep.add(ModelMetrics.buildKey(_model,_parms.valid()));
+          Frame state = _model._output._tree_state == null ? null : DKV.<Frame>getGet(_model._output._tree_state);
+          if( state != null )
+            for( Vec v : state.vecs() ) keep.add(v._key);
+          Scope.exit(keep.toArray(new Key[0]));
         }
       }
       tryComplete();
@@ -270,6 +286,11 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     abstract protected void buildNextKTrees();
     abstract protected void initializeModelSpecifics();
 
+    /** Number of (K-)trees grown together by {@link #buildNextKTrees(int)} */
+    protected int treesPerPass() { return 1; }
+    /** Build the next ntrees (K-)trees, at most {@link #treesPerPass()} */
+    protected void buildNextKTrees(int ntrees) { assert ntrees == 1; buildNextKTrees(); }
+
     // Common methods for all tree builders
 
     /**
@@ -277,12 +298,75 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
      */
     protected final void resumeFromCheckpoint() {
       if( !_parms.hasCheckpoint() ) return;
-      // Reconstruct the working tree state from the checkpoint
       Timer t = new Timer();
-      int ntreesFromCheckpoint = ((SharedTreeModel.SharedTreeParameters) _parms._checkpoint.<SharedTreeModel>get()._parms)._ntrees;
-      new ReconstructTreeState(_ncols, _nclass, numSpecialCols(), _parms._sample_rate,_model._output._treeKeys, doOOBScoring()).doAll(_train, _parms._build_tree_one_node);
+      SharedTreeModel<?,?,?> checkpoint = DKV.getGet(_parms._checkpoint);
+      int ntreesFromCheckpoint = ((SharedTreeModel.SharedTreeParameters) checkpoint._parms)._ntrees;
+      if( _treeStateRestored = restoreTreeState(checkpoint._output) ) {
+        Log.info("Restoring the tree state kept by the checkpoint took " + t);
+      } else {
+        // Reconstruct the working tree state from the checkpoint
+        new ReconstructTreeState(_ncols, _nclass, numSpecialCols(), _parms._sample_rate,_model._output._treeKeys, doOOBScoring()).doAll(_train, _parms._build_tree_one_node);
+        Log.info("Reconstructing OOB stats from checkpoint took " + t);
+      }
       for (int i = 0; i < ntreesFromCheckpoint; i++) _rand.nextLong(); //for determinism
-      Log.info("Reconstructing OOB stats from checkpoint took " + t);
+    }
+
+    /**
+     * Copy the tree state kept by a checkpoint into the working frame, in
+     * place of rescoring all rows through the checkpoint's trees.
+     * @return false if the checkpoint has no tree state, or one computed on
+     * other training data
+     */
+    private boolean restoreTreeState(SharedTreeModel.SharedTreeOutput cp) {
+      Frame state = cp._tree_state == null ? null : DKV.<Frame>getGet(cp._tree_state);
+      if( state == null || state.numCols() != _nclass+1 ) return false;
+      if( !Arrays.equals(state.anyVec().espc(), _train.anyVec().espc()) || cp._tree_state_checksum != trainingChecksum() ) {
+        Log.info("Tree state kept by the checkpoint does not match the training frame, rescoring the prior trees.");
+        return false;
+      }
+      // Same row layout, so chunk i of the state covers chunk i of the working frame
+      final Vec[] src = state.vecs();
+      new MRTask() {
+        @Override public void map(Chunk[] cs) {
+          for( int i=0; i<cs.length; i++ ) {
+            Chunk c = src[i].chunkForChunkIdx(cs[i].cidx());
+            for( int row=0; row<cs[i]._len; row++ ) cs[i].set(row, c.atd(row));
+          }
+        }
+      }.doAll(new Frame(stateVecs()), _parms._build_tree_one_node);
+      return true;
+    }
+
+    /** Keep a copy of the tree state of the working frame with the model. */
+    private void keepTreeState() {
+      Vec[] vecs = stateVecs();
+      String[] names = new String[vecs.length];
+      for( int c=0; c<_nclass; c++ ) names[c] = _train._names[idx_tree(c)];
+      names[_nclass] = _train._names[idx_oobt()];
+      for( int i=0; i<vecs.length; i++ ) vecs[i] = vecs[i].makeCopy();
+      Key<Frame> key = Key.make(_model._key + "_tree_state");
+      DKV.put(new Frame(key, names, vecs));
+      _model._output._tree_state = key;
+      _model._output._tree_state_checksum = trainingChecksum();
+    }
+
+    // Summed tree predictions per class and the count of out-of-bag trees
+    private Vec[] stateVecs() {
+      Vec[] vecs = new Vec[_nclass+1];
+      for( int c=0; c<_nclass; c++ ) vecs[c] = vec_tree(_train, c);
+      vecs[_nclass] = _train.vecs()[idx_oobt()];
+      return vecs;
+    }
+
+    // Checksum of the model's training columns: predictors, special columns and response.
+    // Uses the current content of the Vecs, so in-place writes since the checkpoint are seen.
+    private long trainingChecksum() {
+      int n = _ncols+1+numSpecialCols();
+      Vec[] vecs = _train.vecs();
+      long cs = 17;
+      for( int i=0; i<n; i++ )
+        cs = 31*cs + (_train._names[i].hashCode() ^ vecs[i].contentChecksum());
+      return cs;
     }
 
     /**
@@ -290,7 +374,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
      * @param oob Whether or not Out-Of-Bag scoring should be performed
      */
     protected final void scoreAndBuildTrees(boolean oob) {
-      for( int tid=0; tid< _ntrees; tid++) {
+      for( int tid=0; tid< _ntrees; ) {
         // During first iteration model contains 0 trees, then 1-tree, ...
         // No need to score a checkpoint with no extra trees added
         if( tid!=0 || !_parms.hasCheckpoint() ) { // do not make initial scoring if model already exist
@@ -301,22 +385,42 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
             return;             // Stop when approaching round-off error
           }
           if (!Double.isNaN(training_r2)  //HACK to detect whether we scored at all
-                  && ScoreKeeper.earlyStopping(_model._output.scoreKeepers(), _parms._stopping_rounds, _nclass > 1, _parms._stopping_metric, _parms._stopping_tolerance)) {
+                  && stopEarly(oob)) {
             doScoringAndSaveModel(true, oob, _parms._build_tree_one_node);
             update(_ntrees-_model._output._ntrees); //finish
             return;
           }
         }
         Timer kb_timer = new Timer();
-        buildNextKTrees();
-        Log.info((tid + 1) + ". tree was built in " + kb_timer.toString());
-        update(1);
+        int ntrees = Math.min(treesPerPass(), _ntrees - tid);
+        buildNextKTrees(ntrees);
+        tid += ntrees;
+        Log.info((ntrees == 1 ? tid + ". tree was" : (tid - ntrees + 1) + ".-" + tid + ". trees were") + " built in " + kb_timer.toString());
+        update(ntrees);
         if( !isRunning() ) return; // If canceled during building, do not bulkscore
       }
       // Final scoring (skip if job was cancelled)
       doScoringAndSaveModel(true, oob, _parms._build_tree_one_node);
     }
 
+    /** Early-stopping decision.  If the last validation score came from a
+     *  sample, it is only trusted when the decision is clear: if stopping is
+     *  indicated, or would be indicated with the stopping tolerance widened by
+     *  the sampling noise of the stopping metric, the validation frame is
+     *  scored in full and the decision is made again on the exact metrics.
+     *  Without an estimate of that noise (AUC and r2), every check that may
+     *  stop scores the full validation frame. */
+    private boolean stopEarly(boolean oob) {
+      boolean stop = ScoreKeeper.earlyStopping(_model._output.scoreKeepers(), _parms._stopping_rounds, _nclass > 1, _parms._stopping_metric, _parms._stopping_tolerance);
+      if( Double.isNaN(_lastValidRelStdErr) ) return stop;
+      boolean nearly = stop || ScoreKeeper.earlyStopping(_model._output.scoreKeepers(), _parms._stopping_rounds, _nclass > 1, _parms._stopping_metric, _parms._stopping_tolerance + 2*_lastValidRelStdErr);
+      if( !nearly ) return false;
+      Log.info("Early stopping is near its threshold on sampled validation metrics (relative std. error " + _lastValidRelStdErr + "); scoring the full validation frame.");
+      scoreValidation(false);
+      _model.update(_key);
+      return ScoreKeeper.earlyStopping(_model._output.scoreKeepers(), _parms._stopping_rounds, _nclass > 1, _parms._stopping_metric, _parms._stopping_tolerance);
+    }
+
     /** Performs deep clone of given model.
      *
      * FIXME: fetch all data to the caller node
@@ -327,6 +431,8 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       newModel._output.clearModelMetrics();
       newModel._output._training_metrics = null;
       newModel._output._validation_metrics = null;
+      // The tree state stays with the checkpoint
+      newModel._output._tree_state = null;
       // Clone trees
       Key[][] treeKeys = newModel._output._treeKeys;
       for (int i = 0; i < treeKeys.length; i++) {
@@ -379,6 +485,86 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     return did_split ? hcs : null;
   }
 
+  // --------------------------------------------------------------------------
+  // Build an entire layer of several independent trees in a single pass over
+  // the data.  trees[] and its companions are indexed by tree; tree j fits
+  // class j%nclass, with its node ids in column nidsIdx[j].
+  protected DHistogram[][][] buildLayerFused(final Frame fr, final int nbins, int nbins_cats, final DTree trees[], final int nidsIdx[], final int leafs[], final DHistogram hcs[][][], boolean subset, boolean build_tree_one_node) {
+    ScoreBuildHistogram sbhs[] = new ScoreBuildHistogram[trees.length];
+    for( int j=0; j<trees.length; j++ )
+      if( trees[j] != null )
+        sbhs[j] = new ScoreBuildHistogram(null, j%_nclass, _ncols, nbins, nbins_cats, trees[j], leafs[j], hcs[j], subset, _model._parms._distribution);
+    int treeIdx[] = new int[trees.length], workIdx[] = new int[trees.length];
+    for( int j=0; j<trees.length; j++ ) {
+      treeIdx[j] = idx_tree(j%_nclass);
+      workIdx[j] = idx_work(j%_nclass);
+    }
+    FusedScoreBuildHistogram fused = new FusedScoreBuildHistogram(sbhs, _ncols, treeIdx, workIdx, nidsIdx, idx_weight()).doAll(fr, build_tree_one_node);
+    boolean did_split=false;
+    for( int j=0; j<trees.length; j++ )
+      if( trees[j] != null && decideLayer(this, trees[j], j, leafs, hcs, fused._sbhs[j]._hcs, _improvPerVar) )
+        did_split = true;
+    return did_split ? hcs : null;
+  }
+
+  /** Runs the histogram builders of several trees in one pass; each one sees
+   *  the predictors and response, followed by the tree, work, NIDs and
+   *  (optional) weight columns of its own tree, as in a {@link ScoreBuildOneTree}. */
+  private static class FusedScoreBuildHistogram extends MRTask<FusedScoreBuildHistogram> {
+    final ScoreBuildHistogram _sbhs[];
+    final int _ncols, _treeIdx[], _workIdx[], _nidsIdx[], _weightIdx;
+    FusedScoreBuildHistogram(ScoreBuildHistogram sbhs[], int ncols, int treeIdx[], int workIdx[], int nidsIdx[], int weightIdx) {
+      _sbhs = sbhs; _ncols = ncols; _treeIdx = treeIdx; _workIdx = workIdx; _nidsIdx = nidsIdx; _weightIdx = weightIdx;
+      _modifiesInputs = true;
+    }
+    @Override public void setupLocal() {
+      for( ScoreBuildHistogram sbh : _sbhs ) if( sbh != null ) sbh.setupLocal();
+    }
+    @Override public void map( Chunk chks[] ) {
+      Chunk sub[] = new Chunk[_ncols + (_weightIdx >= 0 ? 5 : 4)];
+      System.arraycopy(chks, 0, sub, 0, _ncols+1);
+      if( _weightIdx >= 0 ) sub[_ncols+4] = chks[_weightIdx];
+      for( int j=0; j<_sbhs.length; j++ ) {
+        if( _sbhs[j] == null ) continue;
+        sub[_ncols+1] = chks[_treeIdx[j]];
+        sub[_ncols+2] = chks[_workIdx[j]];
+        sub[_ncols+3] = chks[_nidsIdx[j]];
+        _sbhs[j].map(sub);
+      }
+    }
+    @Override public void reduce( FusedScoreBuildHistogram fused ) {
+      for( int j=0; j<_sbhs.length; j++ )
+        if( _sbhs[j] != null ) _sbhs[j].reduce(fused._sbhs[j]);
+    }
+  }
+
+  // Turn the freshly histogrammed leaves of tree k into split decisions, and
+  // set up the leaves and histograms of its next layer.  Returns true if the
+  // tree did split.
+  static boolean decideLayer( SharedTree st, DTree tree, int k, int leafs[], DHistogram hcs[][][], DHistogram sbhHcs[][], float[] improvPerVar ) {
+    boolean did_split = false;
+    final int leafk = leafs[k];
+    int tmax = tree.len();   // Number of total splits in tree K
+    for( int leaf=leafk; leaf<tmax; leaf++ ) { // Visit all the new splits (leaves)
+      DTree.UndecidedNode udn = tree.undecided(leaf);
+      // Replace the Undecided with the Split decision
+      DTree.DecidedNode dn = st.makeDecided(udn,sbhHcs[leaf-leafk]);
+      if( dn._split._col == -1 ) udn.do_not_split();
+      else {
+        did_split = true;
+        DTree.Split s = dn._split; // Accumulate squared error improvements per variable
+        AtomicUtils.FloatArray.add(improvPerVar,s.col(),(float)(s.pre_split_se()-s.se()));
+      }
+    }
+    leafs[k]=tmax;          // Setup leafs for next tree level
+    int new_leafs = tree.len()-tmax;
+    hcs[k] = new DHistogram[new_leafs][/*ncol*/];
+    for( int nl = tmax; nl<tree.len(); nl ++ )
+      hcs[k][nl-tmax] = tree.undecided(nl)._hs;
+    if (did_split) tree._depth++;
+    return did_split;
+  }
+
   private static class ScoreBuildOneTree extends H2OCountedCompleter {
     final SharedTree _st;
     final int _k;               // The tree
@@ -426,29 +612,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     @Override public void onCompletion(CountedCompleter caller) {
       ScoreBuildHistogram sbh = (ScoreBuildHistogram)caller;
       //System.out.println(sbh.profString());
-
-      final int leafk = _leafs[_k];
-      int tmax = _tree.len();   // Number of total splits in tree K
-      for( int leaf=leafk; leaf<tmax; leaf++ ) { // Visit all the new splits (leaves)
-        DTree.UndecidedNode udn = _tree.undecided(leaf);
-//        System.out.println((_st._nclass==1?"Regression":("Class "+_fr2.vecs()[_st._ncols].domain()[_k]))+",\n  Undecided node:"+udn);
-        // Replace the Undecided with the Split decision
-        DTree.DecidedNode dn = _st.makeDecided(udn,sbh._hcs[leaf-leafk]);
-//        System.out.println(dn +
-//                           "  > Split: " + dn._split + " L/R:" + dn._split._n0+" + "+dn._split._n1);
-        if( dn._split._col == -1 ) udn.do_not_split();
-        else {
-          _did_split = true;
-          DTree.Split s = dn._split; // Accumulate squared error improvements per variable
-          AtomicUtils.FloatArray.add(_improvPerVar,s.col(),(float)(s.pre_split_se()-s.se()));
-        }
-      }
-      _leafs[_k]=tmax;          // Setup leafs for next tree level
-      int new_leafs = _tree.len()-tmax;
-      _hcs[_k] = new DHistogram[new_leafs][/*ncol*/];
-      for( int nl = tmax; nl<_tree.len(); nl ++ )
-        _hcs[_k][nl-tmax] = _tree.undecided(nl)._hs;
-      if (_did_split) _tree._depth++;
+      _did_split = decideLayer(_st, _tree, _k, _leafs, _hcs, sbh._hcs, _improvPerVar);
     }
     @Override public byte priority() { return _priority; }
     private final byte _priority;
@@ -464,6 +628,9 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
   protected int idx_work(int c) { return idx_tree(c) + _nclass; }
   protected int idx_nids(int c) { return idx_work(c) + _nclass; }
   protected int idx_oobt()      { return idx_nids(0) + _nclass; }
+  // NIDs of the b-th of several trees grown together; trees past the first
+  // one use extra NIDs columns appended after OUT_BAG_TREES
+  protected int idx_nids(int b, int c) { return b == 0 ? idx_nids(c) : idx_oobt() + 1 + (b-1)*_nclass + c; }
 
   protected Chunk chk_weight( Chunk chks[]      ) { return chks[idx_weight()]; }
   protected Chunk chk_offset( Chunk chks[]      ) { return chks[idx_offset()]; }
@@ -471,10 +638,12 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
   protected Chunk chk_tree( Chunk chks[], int c ) { return chks[idx_tree(c)]; }
   protected Chunk chk_work( Chunk chks[], int c ) { return chks[idx_work(c)]; }
   protected Chunk chk_nids( Chunk chks[], int c ) { return chks[idx_nids(c)]; }
+  protected Chunk chk_nids( Chunk chks[], int b, int c ) { return chks[idx_nids(b,c)]; }
   // Out-of-bag trees counter - only one since it is shared via k-trees
   protected Chunk chk_oobt(Chunk chks[])          { return chks[idx_oobt()]; }
 
   protected final Vec vec_nids( Frame fr, int c) { return fr.vecs()[idx_nids(c)]; }
+  protected final Vec vec_nids( Frame fr, int b, int c) { return fr.vecs()[idx_nids(b,c)]; }
   protected final Vec vec_resp( Frame fr       ) { return fr.vecs()[idx_resp() ]; }
   protected final Vec vec_tree( Frame fr, int c) { return fr.vecs()[idx_tree(c)]; }
 
@@ -554,12 +723,8 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       out._scored_train[out._ntrees].fillFrom(mm);
 
       // Score again on validation data
-      if( _parms._valid != null ) {
-        Score scv = new Score(this,false,false,_model._output.getModelCategory()).doAll(valid(), build_tree_one_node);
-        ModelMetrics mmv = scv.makeModelMetrics(_model,_parms.valid());
-        out._validation_metrics = mmv;
-        out._scored_valid[out._ntrees].fillFrom(mmv);
-      }
+      if( _parms._valid != null )
+        scoreValidation(!finalScoring);
       if( out._ntrees > 0 ) {    // Compute variable importances
         out._model_summary = createModelSummaryTable(out);
         out._scoring_history = createScoringHistoryTable(out);
@@ -577,6 +742,76 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     return training_r2;
   }
 
+  // Relative standard error of the stopping metric of the last validation
+  // scoring if it was computed on a sample, NaN if the full validation frame
+  // was scored
+  transient double _lastValidRelStdErr = Double.NaN;
+  // Per-class (or single, for regression) inclusion probabilities for sampled validation scoring
+  private transient double[] _validSampleProbs;
+  // Number of times the full validation frame was scored
+  transient int _fullValidScorings;
+
+  /** Score the validation frame and record the metrics for the current number
+   *  of trees.  If {@code sample} and {@code score_validation_samples} is set,
+   *  only a deterministic stratified sample of the rows is scored. */
+  protected final void scoreValidation(boolean sample) {
+    SharedTreeModel.SharedTreeOutput out = _model._output;
+    double[] probs = sample ? validSampleProbs() : null;
+    Score scv = probs == null
+            ? new Score(this,false,false,out.getModelCategory())
+            : new Score(this,out.getModelCategory(),probs,_parms._seed,stoppingMetric());
+    scv.doAll(valid(), _parms._build_tree_one_node);
+    ModelMetrics mmv = scv.makeModelMetrics(_model,_parms.valid());
+    if( probs != null ) mmv._description = "Metrics reported on a sample of the validation frame";
+    out._validation_metrics = mmv;
+    out._scored_valid[out._ntrees].fillFrom(mmv);
+    _lastValidRelStdErr = scv.sampledRelativeStdErr();
+    if( probs == null ) _fullValidScorings++;
+    else
+      Log.info("Sampled validation " + stoppingMetric() + ": " + new ScoreKeeper(mmv).value(stoppingMetric()) + " (relative std. error " + _lastValidRelStdErr + ")");
+  }
+
+  // The stopping metric, AUTO resolved as ScoreKeeper.earlyStopping does
+  private ScoreKeeper.StoppingMetric stoppingMetric() {
+    if( _parms._stopping_metric != ScoreKeeper.StoppingMetric.AUTO ) return _parms._stopping_metric;
+    return _nclass > 1 ? ScoreKeeper.StoppingMetric.logloss : ScoreKeeper.StoppingMetric.deviance;
+  }
+
+  /** Inclusion probabilities for sampled validation scoring, or null to score
+   *  every row.  For classification, classes are stratified: each class
+   *  keeps (in expectation) its proportional share of the sample, but at
+   *  least {@code MIN_SAMPLES_PER_CLASS} rows (or all of its rows). */
+  double[] validSampleProbs() {
+    if( _validSampleProbs != null ) return _validSampleProbs;
+    long nrows = valid().numRows();
+    if( _parms._score_validation_samples <= 0 || _parms._score_validation_samples >= nrows ) return null;
+    long[] counts = null;
+    Vec vresp = vresponse();
+    if( _nclass > 1 && vresp.isCategorical() ) {
+      long[] bins = vresp.bins();
+      int base = (int)vresp.min();
+      if( bins.length == (int)vresp.max() - base + 1 ) {
+        counts = new long[_nclass];
+        for( int c = 0; c < counts.length; c++ )
+          counts[c] = c-base >= 0 && c-base < bins.length ? bins[c-base] : 0;
+      }
+    }
+    return _validSampleProbs = sampleProbs(_parms._score_validation_samples, nrows, counts, Math.max(1, _nclass));
+  }
+  static final int MIN_SAMPLES_PER_CLASS = 1000;
+
+  /** Inclusion probabilities of a sample of {@code nsamples} out of {@code
+   *  nrows} rows, one per class, stratified by the class counts if given. */
+  static double[] sampleProbs(long nsamples, long nrows, long[] counts, int nclass) {
+    double frac = (double)nsamples / nrows;
+    double[] probs = new double[nclass];
+    Arrays.fill(probs, frac);
+    if( counts != null )
+      for( int c = 0; c < probs.length; c++ )
+        if( counts[c] > 0 ) probs[c] = Math.min(1, Math.max(frac, (double)MIN_SAMPLES_PER_CLASS / counts[c]));
+    return probs;
+  }
+
   static int counter = 0;
   // helper for debugging
   @SuppressWarnings("unused")
@@ -766,6 +1001,14 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     }
   }
 
+  /** The per-class Tree, Work and NIDs columns plus OUT_BAG_TREES added to the
+   *  training frame, all dense doubles once written, and spread over the
+   *  nodes with the rows. */
+  @Override public long memoryFootprint() {
+    if (_train == null) return 0;
+    return 8 /*doubles*/ * _train.numRows() * (3L*Math.max(_nclass,1) + 1) / H2O.CLOUD.size();
+  }
+
   @Override protected void checkMemoryFootPrint() {
     if (_model._output._ntrees == 0) return;
     int trees_so_far = _model._output._ntrees; //existing trees
@@ -828,6 +1071,9 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     }
   }
 
+  @Override
+  protected boolean crossValidationMainModelNeedsFolds() { return _parms._stopping_rounds > 0; }
+
   @Override
   public void modifyParmsForCrossValidationMainModel(int N, Key<Model>[] cvModelBuilderKeys) {
     super.modifyParmsForCrossValidationMainModel(N, cvModelBuilderKeys);
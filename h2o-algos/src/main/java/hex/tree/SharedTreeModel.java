@@ -21,6 +21,7 @@ import water.codegen.CodeGenerator;
 import water.codegen.CodeGeneratorPipeline;
 import water.exceptions.H2OIllegalArgumentException;
 import water.exceptions.JCodeSB;
+import water.fvec.Frame;
 import water.util.ArrayUtils;
 import water.util.JCodeGen;
 import water.util.PojoUtils;
@@ -57,6 +58,13 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
 
     public float _sample_rate = 0.632f; //fraction of rows to sample for each tree
 
+    public long _score_validation_samples = 0; // Number of validation rows to score at each (non-final) scoring event, 0 for all
+
+    /** Keep the per-row ensemble predictions on the training frame with the
+     *  model, so that adding trees from this model as a checkpoint does not
+     *  rescore the training frame through all of its trees. */
+    public boolean _keep_tree_state = false;
+
     /** Fields which can NOT be modified if checkpoint is specified.
      * FIXME: should be defined in Schema API annotation
      */
@@ -129,6 +137,13 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
     /** Trees get big, so store each one seperately in the DKV. */
     public Key<CompressedTree>[/*_ntrees*/][/*_nclass*/] _treeKeys;
 
+    /** Per-row state of the ensemble on the training frame (the summed tree
+     *  predictions per class and the out-of-bag tree counts), if it was kept;
+     *  see {@link SharedTreeParameters#_keep_tree_state}. */
+    public Key<Frame> _tree_state;
+    /** Checksum of the training columns the tree state was computed on */
+    public long _tree_state_checksum;
+
     public ScoreKeeper _scored_train[/*ntrees+1*/];
     public ScoreKeeper _scored_valid[/*ntrees+1*/];
     public ScoreKeeper[] scoreKeepers() {
@@ -197,7 +212,34 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
     Arrays.fill(preds,0);
     for( int tidx=0; tidx<_output._treeKeys.length; tidx++ )
       score0(data, preds, tidx);
-    return preds;
+    return unifyPreds(preds, offset);
+  }
+
+  /** Turn the summed outputs of all trees (filled in by the tree walk, class
+   *  {@code c} in {@code preds[c+1]} or the regression value in {@code preds[0]})
+   *  into the final predictions.  Override in subclasses; this is the
+   *  in-memory counterpart of {@link #toJavaUnifyPreds}. */
+  protected double[] unifyPreds(double[] preds, double offset) { return preds; }
+
+  /** Permutation variable importance of every predictor on the given frame.
+   *  The importance of a variable is the increase of the mean (weighted) loss
+   *  when its values are shuffled: squared error for regression, log loss
+   *  for classification.  All variables are computed in a single pass over
+   *  the data, see {@link PermutationVarImp}.
+   *
+   *  @param fr frame with all predictors and the response, e.g. a validation frame
+   *  @param seed seed of the row permutations
+   *  @return unscaled importances; can be negative for useless variables */
+  public VarImp permutationVarImp(Frame fr, long seed) {
+    if( fr.find(_output.responseName()) == -1 )
+      throw new H2OIllegalArgumentException("Permutation variable importance needs the response column '" + _output.responseName() + "' in the frame.");
+    Frame adaptFr = new Frame(fr);
+    adaptTestForTrain(adaptFr, true, true);
+    try {
+      return new PermutationVarImp(this, adaptFr, seed).doAll(adaptFr).result();
+    } finally {
+      cleanup_adapt(adaptFr, fr);
+    }
   }
   // Score per line per tree
   private void score0(double data[], double preds[], int treeIdx) {
@@ -215,6 +257,7 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
     for( Key ks[] : _output._treeKeys)
       for( Key k : ks )
         if( k != null ) k.remove(fs);
+    if( _output._tree_state != null ) _output._tree_state.remove(fs);
     return super.remove_impl(fs);
   }
 
@@ -8,11 +8,13 @@ import hex.tree.DTree.DecidedNode;
 import hex.tree.DTree.LeafNode;
 import hex.tree.DTree.UndecidedNode;
 import water.AutoBuffer;
+import water.H2O;
 import water.Job;
 import water.Key;
 import water.MRTask;
 import water.fvec.Chunk;
 import water.fvec.Frame;
+import water.util.ArrayUtils;
 import water.util.Log;
 import water.util.Timer;
 
@@ -74,6 +76,8 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
     }
     if (_parms._sample_rate == 1f && _valid == null)
       error("_sample_rate", "Sample rate is 100% and no validation dataset is specified.  There are no OOB data to compute out-of-bag error estimation!");
+    if (_parms._trees_per_pass < 1)
+      error("_trees_per_pass", "trees_per_pass must be >= 1 but it is " + _parms._trees_per_pass);
     if (hasOffsetCol())
       error("_offset_column", "Offsets are not yet supported for DRF.");
     if (hasOffsetCol() && isClassifier()) {
@@ -81,6 +85,12 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
     }
   }
 
+  /** Trees grown together need their own NIDs columns. */
+  @Override public long memoryFootprint() {
+    if (_train == null) return 0;
+    return super.memoryFootprint() + 8 /*doubles*/ * _train.numRows() * (long)(_parms._trees_per_pass-1) * Math.max(_nclass,1) / H2O.CLOUD.size();
+  }
+
   // ----------------------
   private class DRFDriver extends Driver {
     @Override protected boolean doOOBScoring() { return true; }
@@ -117,6 +127,11 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
       // Initialize TreeVotes for classification, MSE arrays for regression
       initTreeMeasurements();
 
+      // Trees grown together need their own NIDs; the first one uses the shared ones
+      for( int b=1; b<treesPerPass(); b++ )
+        for( int k=0; k<_nclass; k++ )
+          _train.add("NIDs_"+b+"_"+k, _response.makeZero());
+
       /** Fill work columns:
        *   - classification: set 1 in the corresponding wrk col according to row response
        *   - regression:     copy response into work column (there is only 1 work column)
@@ -139,58 +154,72 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
     }
 
     // --------------------------------------------------------------------------
+    @Override protected int treesPerPass() { return _parms._trees_per_pass; }
+
     // Build the next random k-trees representing tid-th tree
-    @Override protected void buildNextKTrees() {
+    @Override protected void buildNextKTrees() { buildNextKTrees(1); }
+
+    // Build the next ntrees random k-trees at once, sharing each pass over the data
+    @Override protected void buildNextKTrees(int ntrees) {
       // We're going to build K (nclass) trees - each focused on correcting
-      // errors for a single class.
-      final DTree[] ktrees = new DTree[_nclass];
+      // errors for a single class - for each of the ntrees; tree k of the b-th
+      // k-trees is at b*nclass+k.
+      final DTree[] ktrees = new DTree[ntrees*_nclass];
 
       // Define a "working set" of leaf splits, from leafs[i] to tree._len for each tree i
-      int[] leafs = new int[_nclass];
+      int[] leafs = new int[ntrees*_nclass];
 
       // Assign rows to nodes - fill the "NIDs" column(s)
-      growTrees(ktrees, leafs, _rand);
+      growTrees(ktrees, leafs, ntrees, _rand);
 
       // Move rows into the final leaf rows - fill "Tree" and OUT_BAG_TREES columns and zap the NIDs column
-      CollectPreds cp = new CollectPreds(ktrees,leafs,_model.defaultThreshold()).doAll(_train,_parms._build_tree_one_node);
+      CollectPreds cp = new CollectPreds(ktrees,ntrees,_model.defaultThreshold()).doAll(_train,_parms._build_tree_one_node);
 
-      if (isClassifier())   asVotes(_treeMeasuresOnOOB).append(cp.rightVotes, cp.allRows); // Track right votes over OOB rows for this tree
-      else /* regression */ asSSE  (_treeMeasuresOnOOB).append(cp.sse, cp.allRows);
+      for( int b=0; b<ntrees; b++ ) {
+        if (isClassifier())   asVotes(_treeMeasuresOnOOB).append(cp.rightVotes[b], cp.allRows[b]); // Track right votes over OOB rows for this tree
+        else /* regression */ asSSE  (_treeMeasuresOnOOB).append(cp.sse[b], cp.allRows[b]);
 
-      // Grow the model by K-trees
-      _model._output.addKTrees(ktrees);
+        // Grow the model by K-trees
+        _model._output.addKTrees(Arrays.copyOfRange(ktrees, b*_nclass, (b+1)*_nclass));
+      }
     }
 
     // Assumes that the "Work" column are filled with horizontalized (0/1) class memberships per row (or copy of regression response)
-    private void growTrees(DTree[] ktrees, int[] leafs, Random rand) {
+    private void growTrees(DTree[] ktrees, int[] leafs, int ntrees, Random rand) {
       // Initial set of histograms.  All trees; one leaf per tree (the root
       // leaf); all columns
-      DHistogram hcs[][][] = new DHistogram[_nclass][1/*just root leaf*/][_ncols];
+      DHistogram hcs[][][] = new DHistogram[ntrees*_nclass][1/*just root leaf*/][_ncols];
 
       // Adjust real bins for the top-levels
       int adj_nbins = Math.max(_parms._nbins_top_level,_parms._nbins);
 
-      // Use for all k-trees the same seed. NOTE: this is only to make a fair
-      // view for all k-trees
-      long rseed = rand.nextLong();
-      // Initially setup as-if an empty-split had just happened
-      for (int k = 0; k < _nclass; k++) {
-        if (_model._output._distribution[k] != 0) { // Ignore missing classes
-          // The Boolean Optimization
-          // This optimization assumes the 2nd tree of a 2-class system is the
-          // inverse of the first (and that the same columns were picked)
-          if( k==1 && _nclass==2 && _model.binomialOpt()) continue;
-          ktrees[k] = new DTree(_train, _ncols, (char)_parms._nbins, (char)_parms._nbins_cats, (char)_nclass, _parms._min_rows, _mtry, rseed);
-          new UndecidedNode(ktrees[k], -1, DHistogram.initialHist(_train, _ncols, adj_nbins, _parms._nbins_cats, hcs[k][0])); // The "root" node
+      for( int b=0; b<ntrees; b++ ) {
+        // Use for all k-trees the same seed. NOTE: this is only to make a fair
+        // view for all k-trees
+        long rseed = rand.nextLong();
+        // Initially setup as-if an empty-split had just happened
+        for (int k = 0; k < _nclass; k++) {
+          if (_model._output._distribution[k] != 0) { // Ignore missing classes
+            // The Boolean Optimization
+            // This optimization assumes the 2nd tree of a 2-class system is the
+            // inverse of the first (and that the same columns were picked)
+            if( k==1 && _nclass==2 && _model.binomialOpt()) continue;
+            int j = b*_nclass+k;
+            ktrees[j] = new DTree(_train, _ncols, (char)_parms._nbins, (char)_parms._nbins_cats, (char)_nclass, _parms._min_rows, _mtry, rseed);
+            new UndecidedNode(ktrees[j], -1, DHistogram.initialHist(_train, _ncols, adj_nbins, _parms._nbins_cats, hcs[j][0])); // The "root" node
+          }
         }
       }
 
       // Sample - mark the lines by putting 'OUT_OF_BAG' into nid(<klass>) vector
-      Sample ss[] = new Sample[_nclass];
-      for( int k=0; k<_nclass; k++)
-        if (ktrees[k] != null) ss[k] = new Sample(ktrees[k], _parms._sample_rate).dfork(null,new Frame(vec_nids(_train,k),vec_resp(_train)), _parms._build_tree_one_node);
-      for( int k=0; k<_nclass; k++)
-        if( ss[k] != null ) ss[k].getResult();
+      Sample ss[] = new Sample[ktrees.length];
+      int nidsIdx[] = new int[ktrees.length];
+      for( int j=0; j<ktrees.length; j++) {
+        nidsIdx[j] = idx_nids(j/_nclass, j%_nclass);
+        if (ktrees[j] != null) ss[j] = new Sample(ktrees[j], _parms._sample_rate).dfork(null,new Frame(vec_nids(_train,j/_nclass,j%_nclass),vec_resp(_train)), _parms._build_tree_one_node);
+      }
+      for( int j=0; j<ktrees.length; j++)
+        if( ss[j] != null ) ss[j].getResult();
 
       // ----
       // One Big Loop till the ktrees are of proper depth.
@@ -198,17 +227,20 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
       int depth=0;
       for( ; depth<_parms._max_depth; depth++ ) {
         if( !isRunning() ) return;
-        hcs = buildLayer(_train, _parms._nbins, _parms._nbins_cats, ktrees, leafs, hcs, _mtry < _model._output.nfeatures(), _parms._build_tree_one_node);
+        hcs = ntrees == 1
+          ? buildLayer(_train, _parms._nbins, _parms._nbins_cats, ktrees, leafs, hcs, _mtry < _model._output.nfeatures(), _parms._build_tree_one_node)
+          : buildLayerFused(_train, _parms._nbins, _parms._nbins_cats, ktrees, nidsIdx, leafs, hcs, _mtry < _model._output.nfeatures(), _parms._build_tree_one_node);
         // If we did not make any new splits, then the tree is split-to-death
         if( hcs == null ) break;
       }
 
       // Each tree bottomed-out in a DecidedNode; go 1 more level and insert
       // LeafNodes to hold predictions.
-      for( int k=0; k<_nclass; k++ ) {
-        DTree tree = ktrees[k];
+      for( int j=0; j<ktrees.length; j++ ) {
+        DTree tree = ktrees[j];
         if( tree == null ) continue;
-        int leaf = leafs[k] = tree.len();
+        int k = j%_nclass;
+        int leaf = leafs[j] = tree.len();
         for( int nid=0; nid<leaf; nid++ ) {
           if( tree.node(nid) instanceof DecidedNode ) {
             DecidedNode dn = tree.decided(nid);
@@ -238,75 +270,85 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
     // Collect and write predictions into leafs.
     private class CollectPreds extends MRTask<CollectPreds> {
       /* @IN  */ final DTree _trees[]; // Read-only, shared (except at the histograms in the Nodes)
+      /* @IN  */ final int _ntrees;    // Number of k-trees in _trees
       /* @IN */  double _threshold;      // Sum of squares for this tree only
-      /* @OUT */ long rightVotes; // number of right votes over OOB rows (performed by this tree) represented by DTree[] _trees
-      /* @OUT */ long allRows;    // number of all OOB rows (sampled by this tree)
-      /* @OUT */ float sse;      // Sum of squares for this tree only
-      CollectPreds(DTree trees[], int leafs[], double threshold) { _trees=trees; _threshold = threshold; }
+      /* @OUT */ long rightVotes[]; // number of right votes over OOB rows (performed by each k-tree) represented by DTree[] _trees
+      /* @OUT */ long allRows[];    // number of all OOB rows (sampled by each k-tree)
+      /* @OUT */ float sse[];      // Sum of squares for each k-tree only
+      CollectPreds(DTree trees[], int ntrees, double threshold) { _trees=trees; _ntrees=ntrees; _threshold = threshold; }
       final boolean importance = true;
       @Override public void map( Chunk[] chks ) {
         final Chunk    y       = importance ? chk_resp(chks) : null; // Response
         final double[] rpred   = importance ? new double[1+_nclass] : null; // Row prediction
         final double[] rowdata = importance ? new double[_ncols] : null; // Pre-allocated row data
         final Chunk   oobt  = chk_oobt(chks); // Out-of-bag rows counter over all trees
+        rightVotes = new long[_ntrees];
+        allRows = new long[_ntrees];
+        sse = new float[_ntrees];
         // Iterate over all rows
         for( int row=0; row<oobt._len; row++ ) {
-          final boolean wasOOBRow = ScoreBuildHistogram.isOOBRow((int)chk_nids(chks,0).at8(row));
-
-          // For all tree (i.e., k-classes)
-          for( int k=0; k<_nclass; k++ ) {
-            final DTree tree = _trees[k];
-            if( tree == null ) continue; // Empty class is ignored
-            final Chunk nids = chk_nids(chks, k); // Node-ids  for this tree/class
-            int nid = (int)nids.at8(row);         // Get Node to decide from
-            // Update only out-of-bag rows
-            // This is out-of-bag row - but we would like to track on-the-fly prediction for the row
-            if( wasOOBRow) {
-              final Chunk ct   = chk_tree(chks,k); // k-tree working column holding votes for given row
-              nid = ScoreBuildHistogram.oob2Nid(nid);
-              if( tree.node(nid) instanceof UndecidedNode ) // If we bottomed out the tree
-                nid = tree.node(nid).pid();                 // Then take parent's decision
-              int leafnid;
-              if( tree.root() instanceof LeafNode ) {
-                leafnid = 0;
-              } else {
-                DecidedNode dn = tree.decided(nid);           // Must have a decision point
-                if (dn._split.col() == -1)     // Unable to decide?
-                  dn = tree.decided(tree.node(nid).pid());    // Then take parent's decision
-                leafnid = dn.ns(chks, row); // Decide down to a leafnode
+          for( int b=0; b<_ntrees; b++ ) {
+            final boolean wasOOBRow = ScoreBuildHistogram.isOOBRow((int)chk_nids(chks,b,0).at8(row));
+
+            // For all tree (i.e., k-classes)
+            for( int k=0; k<_nclass; k++ ) {
+              final DTree tree = _trees[b*_nclass+k];
+              if( tree == null ) continue; // Empty class is ignored
+              final Chunk nids = chk_nids(chks, b, k); // Node-ids  for this tree/class
+              int nid = (int)nids.at8(row);         // Get Node to decide from
+              // Update only out-of-bag rows
+              // This is out-of-bag row - but we would like to track on-the-fly prediction for the row
+              if( wasOOBRow) {
+                final Chunk ct   = chk_tree(chks,k); // k-tree working column holding votes for given row
+                nid = ScoreBuildHistogram.oob2Nid(nid);
+                if( tree.node(nid) instanceof UndecidedNode ) // If we bottomed out the tree
+                  nid = tree.node(nid).pid();                 // Then take parent's decision
+                int leafnid;
+                if( tree.root() instanceof LeafNode ) {
+                  leafnid = 0;
+                } else {
+                  DecidedNode dn = tree.decided(nid);           // Must have a decision point
+                  if (dn._split.col() == -1)     // Unable to decide?
+                    dn = tree.decided(tree.node(nid).pid());    // Then take parent's decision
+                  leafnid = dn.ns(chks, row); // Decide down to a leafnode
+                }
+                // Setup Tree(i) - on the fly prediction of i-tree for row-th row
+                //   - for classification: cumulative number of votes for this row
+                //   - for regression: cumulative sum of prediction of each tree - has to be normalized by number of trees
+                double prediction = ((LeafNode) tree.node(leafnid)).pred(); // Prediction for this k-class and this row
+                if (importance) rpred[1 + k] = (float) prediction; // for both regression and classification
+                ct.set(row, (float) (ct.atd(row) + prediction));
               }
-              // Setup Tree(i) - on the fly prediction of i-tree for row-th row
-              //   - for classification: cumulative number of votes for this row
-              //   - for regression: cumulative sum of prediction of each tree - has to be normalized by number of trees
-              double prediction = ((LeafNode) tree.node(leafnid)).pred(); // Prediction for this k-class and this row
-              if (importance) rpred[1 + k] = (float) prediction; // for both regression and classification
-              ct.set(row, (float) (ct.atd(row) + prediction));
-            }
-            // reset help column for this row and this k-class
-            nids.set(row, 0);
-          } /* end of k-trees iteration */
-          // For this tree this row is out-of-bag - i.e., a tree voted for this row
-          if (wasOOBRow) oobt.set(row, oobt.atd(row) + 1); // track number of trees
-          if (importance) {
-            if (wasOOBRow && !y.isNA(row)) {
-              if (isClassifier()) {
-                int treePred = getPrediction(rpred, _model._output._priorClassDist, data_row(chks, row, rowdata), _threshold);
-                int actuPred = (int) y.at8(row);
-                if (treePred==actuPred) rightVotes++; // No miss !
-              } else { // regression
-                double treePred = rpred[1];
-                double actuPred = y.atd(row);
-                sse += (actuPred-treePred)*(actuPred-treePred);
+              // reset help column for this row and this k-class
+              nids.set(row, 0);
+            } /* end of k-trees iteration */
+            // For this tree this row is out-of-bag - i.e., a tree voted for this row
+            if (wasOOBRow) oobt.set(row, oobt.atd(row) + 1); // track number of trees
+            if (importance) {
+              if (wasOOBRow && !y.isNA(row)) {
+                if (isClassifier()) {
+                  int treePred = getPrediction(rpred, _model._output._priorClassDist, data_row(chks, row, rowdata), _threshold);
+                  int actuPred = (int) y.at8(row);
+                  if (treePred==actuPred) rightVotes[b]++; // No miss !
+                } else { // regression
+                  double treePred = rpred[1];
+                  double actuPred = y.atd(row);
+                  sse[b] += (actuPred-treePred)*(actuPred-treePred);
+                }
+                allRows[b]++;
               }
-              allRows++;
             }
           }
         }
       }
       @Override public void reduce(CollectPreds mrt) {
-        rightVotes += mrt.rightVotes;
-        allRows    += mrt.allRows;
-        sse        += mrt.sse;
+        if (rightVotes == null) {
+          rightVotes = mrt.rightVotes; allRows = mrt.allRows; sse = mrt.sse;
+        } else {
+          ArrayUtils.add(rightVotes, mrt.rightVotes);
+          ArrayUtils.add(allRows, mrt.allRows);
+          ArrayUtils.add(sse, mrt.sse);
+        }
       }
     }
 
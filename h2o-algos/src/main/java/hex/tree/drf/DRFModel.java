@@ -12,6 +12,7 @@ public class DRFModel extends SharedTreeModel<DRFModel,DRFModel.DRFParameters,DR
   public static class DRFParameters extends SharedTreeModel.SharedTreeParameters {
     public boolean _binomial_double_trees = false;
     public int _mtries = -1; //number of columns to use per split. default depeonds on the algorithm and problem (classification/regression)
+    public int _trees_per_pass = 1; //number of trees grown together, sharing each pass over the data
 
     public DRFParameters() {
       super();
@@ -31,12 +32,9 @@ public class DRFModel extends SharedTreeModel<DRFModel,DRFModel.DRFParameters,DR
 
   @Override protected boolean binomialOpt() { return !_parms._binomial_double_trees; }
 
-  /** Bulk scoring API for one row.  Chunks are all compatible with the model,
-   *  and expect the last Chunks are for the final distribution and prediction.
-   *  Default method is to just load the data into the tmp array, then call
-   *  subclass scoring logic. */
-  @Override protected double[] score0(double data[], double preds[], double weight, double offset) {
-    super.score0(data, preds, weight, offset);
+  /** Average the votes of all trees (regression, binomial) or normalize them
+   *  into class probabilities. */
+  @Override protected double[] unifyPreds(double preds[], double offset) {
     int N = _output._ntrees;
     if (_output.nclasses() == 1) { // regression - compute avg over all trees
       if (N>=1) preds[0] /= N;
@@ -28,12 +28,9 @@ public class GBMModel extends SharedTreeModel<GBMModel,GBMModel.GBMParameters,GB
 
   public GBMModel(Key selfKey, GBMParameters parms, GBMOutput output ) { super(selfKey,parms,output); }
 
-  /** Bulk scoring API for one row.  Chunks are all compatible with the model,
-   *  and expect the last Chunks are for the final distribution and prediction.
-   *  Default method is to just load the data into the tmp array, then call
-   *  subclass scoring logic. */
-  @Override protected double[] score0(double data[/*ncols*/], double preds[/*nclasses+1*/], double weight, double offset) {
-    super.score0(data, preds, weight, offset);    // These are f_k(x) in Algorithm 10.4
+  /** Apply the initial prediction, offset and inverse link to the summed
+   *  tree outputs, which are f_k(x) in Algorithm 10.4. */
+  @Override protected double[] unifyPreds(double preds[/*nclasses+1*/], double offset) {
     if (_parms._distribution == Distribution.Family.bernoulli) {
       double f = preds[1] + _output._init_f + offset; //Note: class 1 probability stored in preds[1] (since we have only one tree)
       preds[2] = new Distribution(Distribution.Family.bernoulli).linkInv(f);
@@ -4,6 +4,7 @@ import hex.ModelCategory;
 import water.DKV;
 import water.Job;
 import water.H2O;
+import water.fvec.Frame;
 import water.fvec.Vec;
 import water.util.Log;
 
@@ -61,6 +62,7 @@ public class Word2Vec extends ModelBuilder<Word2VecModel,Word2VecModel.Word2VecP
     if (_parms._sentSampleRate < 0.0) error("_sentSampleRate", "Negative sentence sample rate not allowed for Word2Vec.  Expected a value > 0.0, received " + _parms._sentSampleRate);
     if (_parms._initLearningRate < 0.0) error("_initLearningRate", "Negative learning rate not allowed for Word2Vec.  Expected a value > 0.0, received " + _parms._initLearningRate);
     if (_parms._epochs < 1) error("_epochs", "Negative epoch count not allowed for Word2Vec.  Expected value > 0, received " + _parms._epochs);
+    if (_parms._syncsPerEpoch < 1) error("_syncsPerEpoch", "Weights must be synchronized at least once per epoch.  Expected value > 0, received " + _parms._syncsPerEpoch);
   }
 
   private class Word2VecDriver extends H2O.H2OCountedCompleter<Word2VecDriver> {
@@ -68,6 +70,7 @@ public class Word2Vec extends ModelBuilder<Word2VecModel,Word2VecModel.Word2VecP
     @Override
     protected void compute2() {
       Word2VecModel model = null;
+      Frame wordIds = null;
       long start, stop, lastCnt=0;
       long tstart, tstop;
       float tDiff;
@@ -80,14 +83,19 @@ public class Word2Vec extends ModelBuilder<Word2VecModel,Word2VecModel.Word2VecP
         model = new Word2VecModel(dest(), _parms, new Word2VecOutput(Word2Vec.this));
         model.delete_and_lock(_key);
 
+        // Look up every word's vocabulary index once, not in every epoch
+        wordIds = WordIdTask.wordIds(_parms.train(), _parms._vocabKey);
+
         // main loop
         Log.info("Word2Vec: Starting to train model.");
         tstart = System.currentTimeMillis();
         for (int i = 0; i < _parms._epochs; i++) {
           start = System.currentTimeMillis();
-          model.setModelInfo(new WordVectorTrainer(model.getModelInfo()).doAll(_parms.train()).getModelInfo());
+          for (int pass = 0; pass < _parms._syncsPerEpoch; pass++) {
+            model.setModelInfo(new WordVectorTrainer(model.getModelInfo(), i, pass, _parms._syncsPerEpoch).doAll(wordIds).getModelInfo());
+            model.getModelInfo().updateLearningRate();
+          }
           stop = System.currentTimeMillis();
-          model.getModelInfo().updateLearningRate();
           model.update(_key); // Early version of model is visible
           Job.update(1, _key);
           tDiff = (float)(stop-start)/1000;
@@ -109,6 +117,7 @@ public class Word2Vec extends ModelBuilder<Word2VecModel,Word2VecModel.Word2VecP
           throw t;
         }
       } finally {
+        if (wordIds != null) wordIds.delete();
         updateModelOutput();
         if( model != null ) model.unlock(_key);
         _parms.read_unlock_frames(Word2Vec.this);
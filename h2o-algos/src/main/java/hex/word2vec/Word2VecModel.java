@@ -12,8 +12,6 @@ import water.fvec.Frame;
 import water.fvec.NewChunk;
 import water.fvec.AppendableVec;
 import water.fvec.Vec;
-import water.nbhm.NonBlockingHashMap;
-import water.parser.BufferedString;
 import water.util.ArrayUtils;
 import water.util.Log;
 
@@ -57,39 +55,23 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
    *  the word isn't present in the vocabulary.
    */
   public float[] transform(String target) {
-    NonBlockingHashMap<BufferedString, Integer> vocabHM = buildVocabHashMap();
-    Vec[] vs = ((Frame) _w2vKey.get()).vecs();
-    BufferedString tmp = new BufferedString(target);
-    return transform(tmp, vocabHM, vs);
-  }
-
-  private float[] transform(BufferedString tmp, NonBlockingHashMap<BufferedString, Integer> vocabHM, Vec[] vs) {
-    final int vecSize = vs.length-1;
-    float[] vec = new float[vecSize];
-    if (!vocabHM.containsKey(tmp)) {
-      Log.warn("Target word " + tmp + " isn't in vocabulary.");
-      return null;
-    }
-    int row = vocabHM.get(tmp);
-    for(int i=0; i < vecSize; i++) vec[i] = (float) vs[i+1].at(row);
+    float[] vec = WordVectorIndex.get(this).vector(target);
+    if (vec == null) Log.warn("Target word " + target + " isn't in vocabulary.");
     return vec;
   }
 
   /**
    * Find synonyms (i.e. wordvectors with the
    * highest cosine similarity) of the supplied
-   * String and print them to stdout.
+   * String.
    *
    * @param target String of desired word
    * @param cnt Number of synonyms to find
    */
   public HashMap<String, Float> findSynonyms(String target, int cnt) {
     if (cnt > 0) {
-      NonBlockingHashMap<BufferedString, Integer> vocabHM = buildVocabHashMap();
-      Vec[] vs = ((Frame) _w2vKey.get()).vecs();
-      BufferedString tmp = new BufferedString(target);
-      float[] tarVec = transform(tmp, vocabHM, vs);
-      return findSynonyms(tarVec, cnt, vs);
+      float[] tarVec = transform(target);
+      return tarVec == null ? null : findSynonyms(tarVec, cnt);
     } else {
       Log.err("Synonym count must be greater than 0.");
       return null;
@@ -105,47 +87,36 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
    * @param cnt number of synonyms to find
    *
    */
-  public void findSynonyms(float[] tarVec, int cnt) {
-    if (cnt > 0) {
-      Vec[] vs = ((Frame) _w2vKey.get()).vecs();
-      findSynonyms(tarVec, cnt, vs);
-    } else Log.err("Synonym count must be greater than 0.");
-  }
-
-  private HashMap<String, Float> findSynonyms(float[] tarVec, int cnt, Vec[] vs) {
-    final int vecSize= vs.length - 1, vocabSize = (int) vs[0].length();
-    int[] matches = new int[cnt];
-    float [] scores = new float[cnt];
-    float[] curVec = new float[vecSize];
-
-    HashMap<String, Float> res = new HashMap<>();
-
-    if (tarVec.length != vs.length-1) {
-      Log.warn("Target vector length differs from the vocab's vector length.");
+  public HashMap<String, Float> findSynonyms(float[] tarVec, int cnt) {
+    if (cnt <= 0) {
+      Log.err("Synonym count must be greater than 0.");
       return null;
     }
-
-    for (int i=0; i < vocabSize; i++) {
-      for(int j=0; j < vecSize; j++) curVec[j] = (float) vs[j+1].at(i);
-      float score = cosineSimilarity(tarVec, curVec);
-
-      for (int j = 0; j < cnt; j++) {
-        if (score > scores[j] && score < 0.999999) {
-          for (int k = cnt - 1; k > j; k--) {
-            scores[k] = scores[k - 1];
-            matches[k] = matches[k-1];
-          }
-          scores[j] = score;
-          matches[j] = i;
-          break;
-        }
-      }
+    if (tarVec.length != _parms._vecSize) {
+      Log.warn("Target vector length differs from the vocab's vector length.");
+      return null;
     }
-    for (int i=0; i < cnt; i++)
-      res.put(vs[0].atStr(new BufferedString(), matches[i]).toString(), scores[i]);
-
+    WordVectorIndex.Synonyms syn = WordVectorIndex.get(this).synonyms(tarVec, cnt, false);
+    HashMap<String, Float> res = new HashMap<>();
+    for (int i = 0; i < syn._words.length; i++)
+      res.put(syn._words[i], syn._similarities[i]);
     return res;
   }
+
+  /**
+   * Find synonyms of several words at once, in parallel.
+   *
+   * @param targets words to find synonyms for
+   * @param cnt number of synonyms to find per word
+   * @return synonyms of each word by decreasing cosine similarity, or null
+   *  for words not in the vocabulary; the similarities of approximate
+   *  queries on large vocabularies may be negative
+   */
+  public WordVectorIndex.Synonyms[] findSynonyms(String[] targets, int cnt) {
+    if (cnt <= 0) throw new IllegalArgumentException("Synonym count must be greater than 0.");
+    return WordVectorIndex.get(this).synonyms(targets, cnt);
+  }
+
   /**
    * Basic calculation of cosine similarity
    * @param target - a word vector
@@ -162,18 +133,6 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
     return (float) (dotProd / (Math.sqrt(tsqr)*Math.sqrt(csqr)));
   }
 
-  /**
-   * Hashmap for quick lookup of a word's row number.
-   */
-  private  NonBlockingHashMap<BufferedString, Integer>  buildVocabHashMap() {
-    NonBlockingHashMap<BufferedString, Integer> vocabHM;
-    Vec word = ((Frame) _w2vKey.get()).vec(0);
-    final int vocabSize = (int) ((Frame) _w2vKey.get()).numRows();
-    vocabHM = new NonBlockingHashMap<>(vocabSize);
-    for(int i=0; i < vocabSize; i++) vocabHM.put(word.atStr(new BufferedString(),i),i);
-    return vocabHM;
-  }
-
   public void buildModelOutput() {
     final int vecSize = _parms._vecSize;
     Futures fs = new Futures();
@@ -212,6 +171,11 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
     DKV.put(_w2vKey, fr);
   }
 
+  @Override protected Futures remove_impl( Futures fs ) {
+    WordVectorIndex.invalidate(_key);
+    return super.remove_impl(fs);
+  }
+
   @Override public void delete() {
     _parms._vocabKey.remove();
     _w2vKey.remove();
@@ -232,6 +196,8 @@ public class Word2VecModel extends Model<Word2VecModel, Word2VecParameters, Word
     public int _negSampleCnt = 5;
     public float _initLearningRate = 0.05f;
     public float _sentSampleRate = 1e-3f;
+    public int _syncsPerEpoch = 1;  // Times per epoch the nodes' weights are averaged
+    public long _seed = System.nanoTime(); // RNG seed
   }
 
   public static class Word2VecOutput extends Model.Output{
@@ -0,0 +1,59 @@
+package hex.word2vec;
+
+import water.Key;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.nbhm.NonBlockingHashMap;
+import water.parser.BufferedString;
+
+/**
+ * Replace every word of the string columns of a frame by its index in the
+ * vocabulary, or -1 for words which are not in it.
+ * <p>
+ *   Done once before training, so that every epoch reads compressed integer
+ *   chunks instead of looking up every word's string in a hash map again.
+ * </p>
+ */
+public class WordIdTask extends MRTask<WordIdTask> {
+  private final Key<Frame> _vocabKey;
+  private transient NonBlockingHashMap<BufferedString,Integer> _vocabHM;
+
+  WordIdTask(Key<Frame> vocabKey) { _vocabKey = vocabKey; }
+
+  /**
+   * @param train frame to convert; only its string columns are used
+   * @param vocabKey [word, count] vocabulary frame
+   * @return a new frame with one column of word ids per string column
+   */
+  static Frame wordIds(Frame train, Key<Frame> vocabKey) {
+    Frame strs = new Frame();
+    for (int i = 0; i < train.numCols(); i++)
+      if (train.vec(i).isString()) strs.add(train.name(i), train.vec(i));
+    return new WordIdTask(vocabKey).doAll(strs.numCols(), Vec.T_NUM, strs).outputFrame(Key.make(), strs.names(), null);
+  }
+
+  @Override protected void setupLocal() {
+    Vec word = _vocabKey.get().vec(0);
+    _vocabHM = new NonBlockingHashMap<>((int) word.length());
+    for (int c = 0; c < word.nChunks(); c++) {
+      Chunk chk = word.chunkForChunkIdx(c);
+      for (int row = 0; row < chk._len; row++)
+        _vocabHM.put(chk.atStr(new BufferedString(), row), (int) chk.start() + row);
+    }
+  }
+
+  @Override public void map(Chunk cs[], NewChunk ncs[]) {
+    BufferedString tmp = new BufferedString();
+    for (int i = 0; i < cs.length; i++) {
+      for (int row = 0; row < cs[i]._len; row++) {
+        Integer id = cs[i].isNA(row) ? null : _vocabHM.get(cs[i].atStr(tmp, row));
+        ncs[i].addNum(id == null ? -1 : id, 0);
+      }
+    }
+  }
+
+  @Override protected void closeLocal() { _vocabHM = null; }
+}
@@ -0,0 +1,301 @@
+package hex.word2vec;
+
+import jsr166y.ForkJoinTask;
+import jsr166y.ForkJoinWorkerThread;
+import jsr166y.RecursiveAction;
+import water.H2O;
+import water.H2O.H2OCountedCompleter;
+import water.Key;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+import water.nbhm.NonBlockingHashMap;
+import water.parser.BufferedString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/** Node-local lookup structures over the word vectors of a Word2Vec model.
+ *
+ *  <p>The vectors are used straight from the model's contiguous
+ *  {@code _syn0} matrix, one row of {@code vecSize} floats per word.  Next to
+ *  them are kept a word to row index and the inverse norm of every row, so
+ *  that a vector lookup is one hash probe and a cosine similarity is one dot
+ *  product.
+ *
+ *  <p>Large vocabularies also get an approximate nearest-neighbour index: a
+ *  forest of random-projection trees (as in Annoy).  Every tree splits the
+ *  words recursively by the hyperplane halfway between two randomly picked
+ *  unit word vectors.  A query walks all trees at once, most promising branch
+ *  first, collects a few candidates per requested synonym, and ranks just
+ *  those candidates exactly.
+ *
+ *  <p>Indices are built lazily, once per model and node, and dropped on
+ *  every node when the model is removed.
+ *
+ *  <p>An approximate query ranks only the candidates it collected, so the
+ *  tail of its result can hold words with a negative cosine similarity even
+ *  when the exact top synonyms are all positive.
+ */
+public final class WordVectorIndex {
+  /** Vocabularies smaller than this are scanned exactly. */
+  static final int MIN_ANN_VOCAB = 50000;
+  static final int TREES = 8;
+  static final int LEAF_SIZE = 64;
+  /** Candidates examined per tree and requested synonym. */
+  static final int SEARCH_FACTOR = 8;
+  /** Vectors this similar to the query are the query itself, and not reported. */
+  static final float SAME = 0.999999f;
+
+  private static final NonBlockingHashMap<Key,WordVectorIndex> CACHE = new NonBlockingHashMap<>();
+
+  final String[] _words;
+  final float[] _vecs;          // Row-major, vocab x vecSize
+  final int _vecSize;
+  final float[] _invNorm;       // 1/|v| per word
+  final HashMap<String,Integer> _rows;
+  private volatile Node[] _forest;
+
+  WordVectorIndex(String[] words, float[] vecs, int vecSize) {
+    assert vecs.length == words.length * vecSize;
+    _words = words;
+    _vecs = vecs;
+    _vecSize = vecSize;
+    _invNorm = new float[words.length];
+    _rows = new HashMap<>(words.length * 2);
+    for( int i = 0; i < words.length; i++ ) {
+      _rows.put(words[i], i);
+      double sqr = 0;
+      for( int j = i * vecSize; j < (i + 1) * vecSize; j++ ) sqr += vecs[j] * vecs[j];
+      _invNorm[i] = sqr == 0 ? 0 : (float)(1 / Math.sqrt(sqr));
+    }
+  }
+
+  /** The index for the given model on this node, built on first use. */
+  static WordVectorIndex get(Word2VecModel m) {
+    float[] syn0 = m.getModelInfo()._syn0;
+    WordVectorIndex idx = CACHE.get(m._key);
+    if( idx != null && idx._vecs == syn0 ) return idx;
+    idx = new WordVectorIndex(words(m._parms._vocabKey.get().vec(0)), syn0, m._parms._vecSize);
+    CACHE.put(m._key, idx);
+    return idx;
+  }
+
+  /** Drop the index of the given model on every node. */
+  static void invalidate(Key model) { new Invalidate(model).doAllNodes(); }
+
+  private static class Invalidate extends MRTask<Invalidate> {
+    final Key _model;
+    Invalidate(Key model) { _model = model; }
+    @Override protected void setupLocal() { CACHE.remove(_model); }
+  }
+
+  // Read the vocabulary a chunk at a time
+  private static String[] words(Vec vocab) {
+    String[] words = new String[(int)vocab.length()];
+    BufferedString tmp = new BufferedString();
+    for( int c = 0; c < vocab.nChunks(); c++ ) {
+      Chunk chk = vocab.chunkForChunkIdx(c);
+      int start = (int)chk.start();
+      for( int r = 0; r < chk._len; r++ ) words[start + r] = chk.atStr(tmp, r).toString();
+    }
+    return words;
+  }
+
+  /** Row of the given word, or -1 if it is not in the vocabulary. */
+  int row(String word) {
+    Integer r = _rows.get(word);
+    return r == null ? -1 : r;
+  }
+
+  /** Copy of the vector of the given word, or null if it is not in the vocabulary. */
+  float[] vector(String word) {
+    int r = row(word);
+    return r < 0 ? null : Arrays.copyOfRange(_vecs, r * _vecSize, (r + 1) * _vecSize);
+  }
+
+  /** Result of a synonyms query: words by decreasing cosine similarity.
+   *  Similarities range from -1 to 1; approximate queries may return negative ones. */
+  public static final class Synonyms {
+    public final String[] _words;
+    public final float[] _similarities;
+    Synonyms(String[] words, float[] similarities) { _words = words; _similarities = similarities; }
+  }
+
+  /** Top {@code cnt} synonyms of the given vector.
+   *  @param exact Scan the whole vocabulary even when an approximate index could be used */
+  Synonyms synonyms(float[] target, int cnt, boolean exact) {
+    assert target.length == _vecSize;
+    double sqr = 0;
+    for( float f : target ) sqr += f * f;
+    final float invNorm = sqr == 0 ? 0 : (float)(1 / Math.sqrt(sqr));
+    TopK top = new TopK(cnt);
+    if( exact || _words.length < MIN_ANN_VOCAB ) {
+      for( int i = 0; i < _words.length; i++ ) top.offer(i, cosine(target, invNorm, i));
+    } else {
+      for( int i : candidates(target, cnt * TREES * SEARCH_FACTOR) ) top.offer(i, cosine(target, invNorm, i));
+    }
+    return top.result(_words);
+  }
+
+  /** Top {@code cnt} synonyms of each given word; null for words not in the vocabulary. */
+  Synonyms[] synonyms(final String[] targets, final int cnt) {
+    final Synonyms[] res = new Synonyms[targets.length];
+    if( targets.length > 0 && _words.length >= MIN_ANN_VOCAB ) forest(); // Build once, not by every query thread
+    ArrayList<RecursiveAction> ras = new ArrayList<>();
+    for( int t = 0; t < targets.length; t++ ) {
+      final int ft = t;
+      ras.add(new RecursiveAction() {
+        @Override protected void compute() {
+          float[] v = vector(targets[ft]);
+          if( v != null ) res[ft] = synonyms(v, cnt, false);
+        }
+      });
+    }
+    invokeAll(ras);
+    return res;
+  }
+
+  // Queries come in on web server threads: hop onto the F/J pool to fork
+  private static void invokeAll(final ArrayList<RecursiveAction> ras) {
+    if( Thread.currentThread() instanceof ForkJoinWorkerThread ) {
+      ForkJoinTask.invokeAll(ras);
+      return;
+    }
+    H2O.submitTask(new H2OCountedCompleter() {
+      @Override protected void compute2() { ForkJoinTask.invokeAll(ras); tryComplete(); }
+    }).join();
+  }
+
+  private float cosine(float[] target, float invNorm, int row) {
+    float dot = 0;
+    for( int j = 0, k = row * _vecSize; j < _vecSize; j++, k++ ) dot += target[j] * _vecs[k];
+    return dot * invNorm * _invNorm[row];
+  }
+
+  // Best cnt rows seen, kept sorted by decreasing similarity
+  private static final class TopK {
+    final int[] _rows;
+    final float[] _sims;
+    int _n;
+    TopK(int cnt) { _rows = new int[cnt]; _sims = new float[cnt]; }
+    void offer(int row, float sim) {
+      if( sim >= SAME || (_n == _sims.length && sim <= _sims[_n - 1]) ) return;
+      int i = _n < _sims.length ? _n++ : _n - 1;
+      for( ; i > 0 && _sims[i - 1] < sim; i-- ) { _sims[i] = _sims[i - 1]; _rows[i] = _rows[i - 1]; }
+      _sims[i] = sim;
+      _rows[i] = row;
+    }
+    Synonyms result(String[] words) {
+      String[] ws = new String[_n];
+      for( int i = 0; i < _n; i++ ) ws[i] = words[_rows[i]];
+      return new Synonyms(ws, Arrays.copyOf(_sims, _n));
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Random-projection forest
+
+  // A split keeps the two words whose unit vectors define the hyperplane; a
+  // leaf keeps a range of the tree's item permutation.
+  private static final class Node {
+    final int _a, _b;
+    Node _lo, _hi;
+    final int[] _items;
+    final int _start, _end;
+    Node(int a, int b) { _a = a; _b = b; _items = null; _start = _end = 0; }
+    Node(int[] items, int start, int end) { _a = _b = -1; _items = items; _start = start; _end = end; }
+  }
+
+  private Node[] forest() {
+    if( _forest == null ) {
+      synchronized( this ) {
+        if( _forest == null ) {
+          final Node[] forest = new Node[TREES];
+          ArrayList<RecursiveAction> ras = new ArrayList<>();
+          for( int t = 0; t < TREES; t++ ) {
+            final int ft = t;
+            ras.add(new RecursiveAction() {
+              @Override protected void compute() {
+                int[] items = new int[_words.length];
+                for( int i = 0; i < items.length; i++ ) items[i] = i;
+                forest[ft] = build(items, 0, items.length, new Random(0xC0FFEEL + ft), new float[_vecSize]);
+              }
+            });
+          }
+          invokeAll(ras);
+          _forest = forest;
+        }
+      }
+    }
+    return _forest;
+  }
+
+  // Split items[start,end) by the hyperplane between two random unit vectors
+  private Node build(int[] items, int start, int end, Random rand, float[] normal) {
+    int n = end - start;
+    if( n <= LEAF_SIZE ) return new Node(items, start, end);
+    int a = items[start + rand.nextInt(n)], b = items[start + rand.nextInt(n)];
+    for( int tries = 0; a == b && tries < 8; tries++ ) b = items[start + rand.nextInt(n)];
+    normal(a, b, normal);
+    int lo = start, hi = end;
+    while( lo < hi ) {          // Partition: negative margins first
+      if( margin(normal, items[lo]) < 0 ) lo++;
+      else { int tmp = items[lo]; items[lo] = items[--hi]; items[hi] = tmp; }
+    }
+    if( lo == start || lo == end ) lo = start + n / 2; // Degenerate split, e.g. duplicate vectors
+    Node node = new Node(a, b);
+    node._lo = build(items, start, lo, rand, normal);
+    node._hi = build(items, lo, end, rand, normal);
+    return node;
+  }
+
+  private void normal(int a, int b, float[] normal) {
+    for( int j = 0; j < _vecSize; j++ )
+      normal[j] = _vecs[a * _vecSize + j] * _invNorm[a] - _vecs[b * _vecSize + j] * _invNorm[b];
+  }
+
+  private float margin(float[] normal, int row) {
+    float dot = 0;
+    for( int j = 0, k = row * _vecSize; j < _vecSize; j++, k++ ) dot += normal[j] * _vecs[k];
+    return dot;
+  }
+
+  private static final class Branch implements Comparable<Branch> {
+    final Node _node;
+    final float _priority;
+    Branch(Node node, float priority) { _node = node; _priority = priority; }
+    @Override public int compareTo(Branch o) { return Float.compare(o._priority, _priority); }
+  }
+
+  // Distinct rows from the leaves closest to the target, over all trees
+  private int[] candidates(float[] target, int searchK) {
+    Node[] forest = forest();
+    PriorityQueue<Branch> pq = new PriorityQueue<>();
+    for( Node root : forest ) pq.add(new Branch(root, Float.MAX_VALUE));
+    float[] normal = new float[_vecSize];
+    int[] found = new int[Math.min(searchK + LEAF_SIZE, _words.length * TREES)];
+    int nfound = 0;
+    while( nfound < searchK && !pq.isEmpty() ) {
+      Branch br = pq.poll();
+      Node node = br._node;
+      if( node._items != null ) {
+        for( int i = node._start; i < node._end && nfound < found.length; i++ ) found[nfound++] = node._items[i];
+        continue;
+      }
+      normal(node._a, node._b, normal);
+      float d = 0;
+      for( int j = 0; j < _vecSize; j++ ) d += normal[j] * target[j];
+      pq.add(new Branch(node._hi, Math.min(br._priority, d)));
+      pq.add(new Branch(node._lo, Math.min(br._priority, -d)));
+    }
+    Arrays.sort(found, 0, nfound);
+    int n = 0;
+    for( int i = 0; i < nfound; i++ )
+      if( n == 0 || found[n - 1] != found[i] ) found[n++] = found[i];
+    return Arrays.copyOf(found, n);
+  }
+}
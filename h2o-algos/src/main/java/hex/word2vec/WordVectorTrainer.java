@@ -2,17 +2,27 @@ package hex.word2vec;
 
 import water.H2O;
 import water.MRTask;
-import water.fvec.CStrChunk;
 import water.fvec.Vec;
 import water.fvec.Chunk;
 import water.fvec.Frame;
-import water.nbhm.NonBlockingHashMap;
-import water.parser.BufferedString;
 import water.util.Log;
+import water.util.RandomUtils;
 import hex.word2vec.Word2VecModel.*;
 import hex.word2vec.Word2Vec.*;
 import java.util.Random;
 
+/**
+ * One pass of Word2Vec training over the word ids of the training frame (see
+ * {@link WordIdTask}).
+ * <p>
+ *   All threads of a node update the node's copy of the weights without any
+ *   locking (Hogwild!); each map call draws its window sizes and negative
+ *   samples from its own random state, seeded from the model's seed, the pass
+ *   and the chunk index.  The nodes' weights are averaged at the
+ *   end of the pass.  An epoch can be split into several passes, each over
+ *   every {@code passes}-th chunk, to average the weights more often.
+ * </p>
+ */
 public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   static final int MAX_SENTENCE_LEN = 1000;
   static final int MIN_SENTENCE_LEN = 10;
@@ -22,7 +32,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   private Word2VecModelInfo _input;
   Word2VecModelInfo _output;
   Frame _vocab;
-  static NonBlockingHashMap<BufferedString,Integer> _vocabHM;
+  transient float[] _keepProb; // Probability of keeping each word when subsampling frequent words
   final WordModel _wordModel; final NormModel _normModel;
   final int _vocabSize, _wordVecSize, _windowSize, _epochs, _negExCnt;
   final float _initLearningRate, _sentSampleRate;
@@ -34,10 +44,23 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   transient float _curLearningRate;
   transient int _chkIdx =0;
   transient Random _rand;
-  static transient long _seed;
+  transient long _seed;
+  final int _pass, _passes;
+  final long _passSeed;
 
-  public WordVectorTrainer( Word2VecModelInfo input) {
+  public WordVectorTrainer( Word2VecModelInfo input) { this(input, 0, 0, 1); }
+
+  /**
+   * @param epoch which epoch this pass belongs to
+   * @param pass which of the epoch's passes this is
+   * @param passes number of passes per epoch; this pass trains on the chunks
+   *  with index {@code pass} modulo {@code passes}
+   */
+  public WordVectorTrainer( Word2VecModelInfo input, int epoch, int pass, int passes) {
     super(null);
+    _pass = pass;
+    _passes = passes;
+    _passSeed = input.getParams()._seed + ((long) epoch * passes + pass) * 0xBF58476D1CE4E5B9L;
     _input=input;
     _wordModel = input.getParams()._wordModel;
     _normModel = input.getParams()._normModel;
@@ -49,7 +72,6 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
     _initLearningRate = input.getParams()._initLearningRate;
     _sentSampleRate = input.getParams()._sentSampleRate;
     _epochs = input.getParams()._epochs;
-    _seed = System.nanoTime();
     assert(_output == null);
     assert(_vocab.numRows() > 0);
 
@@ -72,18 +94,27 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
     _syn0 = _input._syn0;  _syn1 = _input._syn1;
     _output = _input; //faster, good enough in this case (since the input was freshly deserialized by the Weaver)
     _input = null;
-    _rand = new Random();
     initExpTable();
-    buildVocabHashMap();
+    initKeepProb();
     _curLearningRate = _output._curLearningRate;
     _output.setLocallyProcessed(0);
   }
 
 
-  private void buildVocabHashMap() {
-    Vec word = _vocab.vec(0);
-    _vocabHM = new NonBlockingHashMap<>((int)_vocab.numRows());
-    for(int i=0; i < _vocab.numRows(); i++) _vocabHM.put(word.atStr(new BufferedString(),i),i);
+  // Per word probability of being kept by the frequent word subsampling
+  private void initKeepProb() {
+    if (_sentSampleRate <= 0) return;
+    Vec count = _vocab.vec(1);
+    final float threshold = _sentSampleRate * _output._trainFrameSize;
+    _keepProb = new float[_vocabSize];
+    for (int c = 0; c < count.nChunks(); c++) {
+      Chunk chk = count.chunkForChunkIdx(c);
+      for (int row = 0; row < chk._len; row++) {
+        long cnt = chk.at8(row);
+        // paper says: float ran = 1 - sqrt(sample / (vocab[word].cn / (float)trainWords));
+        _keepProb[(int) chk.start() + row] = ((float) Math.sqrt(cnt / threshold) + 1) * threshold / (float) cnt;
+      }
+    }
   }
 
   private void updateAlpha(int localWordCnt) {
@@ -94,10 +125,7 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   /*
    * All words in sentence should be in vocab
    */
-  private int getSentence(int[] sentence, CStrChunk cs) {
-    Vec count = _vocab.vec(1);
-    BufferedString tmp = new BufferedString();
-    float ran;
+  private int getSentence(int[] sentence, Chunk cs) {
     int wIdx, sentIdx = 0;
 
     int sentLen = (cs._len - 1 - _chkIdx);
@@ -105,14 +133,11 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
     else if (sentLen < MIN_SENTENCE_LEN) return 0;
 
     for (; _chkIdx < cs._len; _chkIdx++) {
-      cs.atStr(tmp, _chkIdx);
-      if (!_vocabHM.containsKey(tmp)) continue; //not in vocab, skip
-      wIdx = _vocabHM.get(tmp);
+      wIdx = (int) cs.at8(_chkIdx);
+      if (wIdx < 0) continue; //not in vocab, skip
       if (_sentSampleRate > 0) {  // subsampling while creating a "_sentence"
-        // paper says: float ran = 1 - sqrt(sample / (vocab[word].cn / (float)trainWords));
-        ran = ((float) Math.sqrt(count.at8(wIdx) / (_sentSampleRate * _output._trainFrameSize)) + 1) * (_sentSampleRate * _output._trainFrameSize) / (float) count.at8(wIdx);
         // paper says: ran > ....
-        if (ran < _rand.nextFloat()) continue;
+        if (_keepProb[wIdx] < _rand.nextFloat()) continue;
       }
       sentence[sentIdx++] = wIdx;
       if (sentIdx >= sentLen) break;
@@ -132,6 +157,9 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
   }
 
   @Override public void map(Chunk cs[]) {
+    if (cs[0].cidx() % _passes != _pass) return; // Chunk belongs to another pass of this epoch
+    _rand = RandomUtils.getRNG(_passSeed ^ ((cs[0].cidx() + 1) * 0x9E3779B97F4A7C15L));
+    _seed = _rand.nextLong() | 1; // xorshift state must not be 0
     int wrdCnt=0, bagSize=0, sentLen, curWord, winSizeMod;
     int winWordSentIdx, winWord;
     final int winSize = _windowSize, vecSize = _wordVecSize;
@@ -139,9 +167,10 @@ public class WordVectorTrainer extends MRTask<WordVectorTrainer> {
     float[] neu1e = new float[vecSize];
     int[] sentence = new int[MAX_SENTENCE_LEN];
 
-    //traverse all supplied string columns
-    for (Chunk chk: cs) if (chk instanceof CStrChunk) {
-      while ((sentLen = getSentence(sentence, (CStrChunk) chk)) > 0) {
+    //traverse all supplied word id columns
+    for (Chunk chk: cs) {
+      _chkIdx = 0;
+      while ((sentLen = getSentence(sentence, chk)) > 0) {
         for (int sentIdx = 0; sentIdx < sentLen; sentIdx++) {
           if (wrdCnt % 10000 == 0) updateAlpha(wrdCnt);
           curWord = sentence[sentIdx];
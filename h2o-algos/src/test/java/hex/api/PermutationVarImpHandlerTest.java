@@ -0,0 +1,80 @@
+package hex.api;
+
+import hex.schemas.PermutationVarImpV99;
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Key;
+import water.MRTask;
+import water.TestUtil;
+import water.api.KeyV3;
+import water.exceptions.H2OIllegalArgumentException;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import java.util.Random;
+
+public class PermutationVarImpHandlerTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  @Test public void testCompute() {
+    Vec base = null;
+    Frame fr = null;
+    GBMModel gbm = null;
+    try {
+      base = Vec.makeZero(5000);
+      fr = new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xFACE + cs[0].start());
+          for (int r = 0; r < cs[0]._len; r++) {
+            double x1 = rnd.nextGaussian(), x2 = rnd.nextGaussian();
+            ncs[0].addNum(x1);
+            ncs[1].addNum(x2);
+            ncs[2].addNum(3 * x1 + .1 * rnd.nextGaussian());
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM, Vec.T_NUM, Vec.T_NUM}, base)
+       .outputFrame(Key.make(), new String[]{"x1", "x2", "y"}, null);
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._ntrees = 20;
+      parms._seed = 1234;
+      GBM job = new GBM(parms);
+      gbm = job.trainModel().get();
+      job.remove();
+
+      PermutationVarImpV99 args = new PermutationVarImpV99();
+      args.model = new KeyV3.ModelKeyV3(gbm._key);
+      args.frame = new KeyV3.FrameKeyV3(fr._key);
+      args = new PermutationVarImpHandler().compute(99, args);
+      Assert.assertArrayEquals(new String[]{"x1", "x2"}, args.names);
+      Assert.assertEquals(2, args.importances.length);
+      Assert.assertTrue(args.importances[0] > 10 * Math.abs(args.importances[1]));
+
+      // Same seed, same importances
+      PermutationVarImpV99 again = new PermutationVarImpV99();
+      again.model = args.model;
+      again.frame = args.frame;
+      again = new PermutationVarImpHandler().compute(99, again);
+      Assert.assertArrayEquals(args.importances, again.importances, 0);
+
+      // Needs a frame
+      PermutationVarImpV99 bad = new PermutationVarImpV99();
+      bad.model = new KeyV3.ModelKeyV3(gbm._key);
+      bad.frame = null;
+      try {
+        new PermutationVarImpHandler().compute(99, bad);
+        Assert.fail("Expected a missing frame to be rejected");
+      } catch (H2OIllegalArgumentException expected) { }
+    } finally {
+      if (gbm != null) gbm.delete();
+      if (fr != null) fr.delete();
+      if (base != null) base.remove();
+    }
+  }
+}
@@ -3,6 +3,7 @@ package hex.deeplearning;
 
 import hex.Distribution;
 import hex.ModelMetricsAutoEncoder;
+import hex.ModelMetricsBinomial;
 import hex.ModelMetricsRegression;
 import hex.ScoreKeeper;
 import org.junit.Assert;
@@ -23,6 +24,7 @@ import java.util.Arrays;
 
 import static hex.Distribution.Family.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class DeepLearningTest extends TestUtil {
@@ -1527,5 +1529,336 @@ public class DeepLearningTest extends TestUtil {
       if (dl2 != null) dl2.delete();
     }
   }
-}
 
+  @Test
+  public void testCategoricalEmbeddings() {
+    Frame tfr = null;
+    DeepLearningModel dl = null;
+    Frame pred = null;
+
+    try {
+      tfr = parse_test_file("./smalldata/logreg/prostate.csv");
+      for (String s : new String[]{
+              "RACE", "DPROS", "DCAPS", "CAPSULE"
+      }) {
+        Vec v = tfr.vec(s).toCategoricalVec();
+        tfr.remove(s).remove();
+        tfr.add(s, v);
+        DKV.put(tfr);
+      }
+      // One-hot baseline
+      dl = trainProstateModel(tfr, 0, Integer.MAX_VALUE, false);
+      final double oneHotAuc = ((ModelMetricsBinomial) dl._output._training_metrics)._auc._auc;
+      dl.delete();
+      dl = null;
+
+      for (int maxCats : new int[]{Integer.MAX_VALUE, 3}) {
+        for (boolean sparse : new boolean[]{false, true}) {
+          dl = trainProstateModel(tfr, 2, maxCats, sparse);
+          DeepLearningModelInfo minfo = dl.model_info();
+          int cats = minfo.data_info()._cats;
+          int nums = minfo.data_info()._nums;
+          Assert.assertEquals(3, cats);
+          Assert.assertEquals(cats * 2 + nums, minfo.units[0]);
+          Assert.assertEquals(Math.min(minfo.data_info().numStart(), maxCats), minfo.get_embeddings().rows());
+          Assert.assertEquals(cats + nums, minfo.variableImportanceNames().length);
+          Assert.assertEquals(cats + nums, minfo.computeVariableImportances().length);
+
+          // The embeddings were learned: most entries moved away from their initial values
+          DeepLearningModelInfo init = new DeepLearningModelInfo(minfo.get_params(), minfo.data_info(), dl._output.nclasses(), minfo.data_info()._adaptedFrame, null);
+          init.initializeMembers();
+          float[] e0 = init.get_embeddings().raw();
+          float[] e = minfo.get_embeddings().raw();
+          Assert.assertEquals(e0.length, e.length);
+          int moved = 0;
+          for (int i = 0; i < e.length; i++) if (e[i] != e0[i]) moved++;
+          Assert.assertTrue("Only " + moved + " of " + e.length + " embedding entries changed", moved > e.length / 2);
+          // The embeddings are part of the model state
+          DeepLearningModelInfo other = minfo.deep_clone();
+          other.get_embeddings().raw()[0] += 1;
+          Assert.assertNotEquals(minfo.checksum_impl(), other.checksum_impl());
+
+          // About as accurate as the one-hot encoding
+          double auc = ((ModelMetricsBinomial) dl._output._training_metrics)._auc._auc;
+          Assert.assertTrue("AUC " + auc + " vs. one-hot " + oneHotAuc, auc > oneHotAuc - 0.05);
+
+          pred = dl.score(tfr);
+          Assert.assertEquals(tfr.numRows(), pred.numRows());
+          pred.delete();
+          pred = null;
+          dl.delete();
+          dl = null;
+        }
+      }
+
+      // Sparse one-hot input: the first hidden layer only visits (and in fast mode only updates) the non-zero inputs
+      dl = trainProstateModel(tfr, 0, Integer.MAX_VALUE, true);
+      double auc = ((ModelMetricsBinomial) dl._output._training_metrics)._auc._auc;
+      Assert.assertTrue("AUC " + auc + " vs. dense " + oneHotAuc, auc > oneHotAuc - 0.05);
+    } finally {
+      if (tfr != null) tfr.delete();
+      if (dl != null) dl.delete();
+      if (pred != null) pred.delete();
+    }
+  }
+
+  // Small model on prostate, with or without categorical embeddings
+  private static DeepLearningModel trainProstateModel(Frame tfr, int embeddingDim, int maxCats, boolean sparse) {
+    DeepLearningParameters parms = new DeepLearningParameters();
+    parms._train = tfr._key;
+    parms._epochs = 5;
+    parms._response_column = "CAPSULE";
+    parms._ignored_columns = new String[]{"ID"};
+    parms._reproducible = true;
+    parms._hidden = new int[]{5};
+    parms._seed = 0xdecaf;
+    parms._embedding_dim = embeddingDim;
+    parms._max_categorical_features = maxCats;
+    parms._sparse = sparse;
+    parms._variable_importances = true;
+    parms._model_id = Key.make();
+
+    DeepLearning job = new DeepLearning(parms);
+    try {
+      return job.trainModel().get();
+    } finally {
+      job.remove();
+    }
+  }
+
+  // Small model on iris, for the tests of the multi-node model exchange
+  private static DeepLearningModel trainIrisModel(Frame tfr) {
+    DeepLearningParameters parms = new DeepLearningParameters();
+    parms._train = tfr._key;
+    parms._epochs = 1;
+    parms._response_column = tfr.lastVecName();
+    parms._hidden = new int[]{5};
+    parms._seed = 0xdecaf;
+    parms._model_id = Key.make();
+
+    DeepLearning job = new DeepLearning(parms);
+    try {
+      return job.trainModel().get();
+    } finally {
+      job.remove();
+    }
+  }
+
+  @Test
+  public void testParameterServerPushPull() {
+    Frame tfr = null;
+    DeepLearningModel dl = null;
+    ParameterServer ps = null;
+
+    try {
+      tfr = parse_test_file("./smalldata/iris/iris.csv");
+      dl = trainIrisModel(tfr);
+      DeepLearningModelInfo minfo = dl.model_info().deep_clone();
+      DeepLearningModelInfo before = minfo.deep_clone();
+      ps = new ParameterServer(null, minfo);
+      ParameterServer.Worker worker = ps.worker(minfo);
+
+      // sparse change: only two parameters differ from the last pull
+      minfo.get_weights(0).raw()[0] += 1;
+      minfo.get_biases(1).raw()[0] -= 2;
+      worker.trained(minfo.get_params()._parameter_server_sync_samples);
+      DeepLearningModelInfo pulled = before.deep_clone();
+      ps.pull(pulled);
+      assertEquals(minfo.get_weights(0).raw()[0], pulled.get_weights(0).raw()[0], 1e-6);
+      assertEquals(before.get_weights(0).raw()[1], pulled.get_weights(0).raw()[1], 0);
+      assertEquals(minfo.get_biases(1).raw()[0], pulled.get_biases(1).raw()[0], 1e-5);
+
+      // dense change of the whole first layer
+      for (int i = 0; i < minfo.get_weights(0).raw().length; ++i)
+        minfo.get_weights(0).raw()[i] *= 2;
+      worker.finish();
+      ps.pull(pulled);
+      Assert.assertArrayEquals(minfo.get_weights(0).raw(), pulled.get_weights(0).raw(), 0);
+      Assert.assertEquals(ParameterServer.numParameters(minfo), minfo.size());
+    } finally {
+      if (ps != null) ps.remove();
+      if (tfr != null) tfr.delete();
+      if (dl != null) dl.delete();
+    }
+  }
+
+  @Test
+  public void testParameterServerStaleness() {
+    ParameterServer.Shard sh = new ParameterServer.Shard(new float[3], 3);
+    assertEquals(0, sh.minClock());
+    sh._clocks[0] = 5;
+    sh._clocks[1] = 2;
+    sh._clocks[2] = 4;
+    assertEquals(2, sh.minClock());
+    assertTrue(sh.stalled(5, 2));
+    assertFalse(sh.stalled(4, 2));
+    // finished nodes don't hold back the others
+    sh._done[1] = true;
+    assertEquals(4, sh.minClock());
+    assertFalse(sh.stalled(5, 2));
+    sh._done[0] = sh._done[2] = true;
+    assertEquals(Long.MAX_VALUE, sh.minClock());
+
+    // pushes change a copy of the shard, never the value they were applied to
+    Key key = Key.make();
+    try {
+      ParameterServer.Shard old = new ParameterServer.Shard(new float[]{1, 2, 3}, 2);
+      DKV.put(key, old);
+      new ParameterServer.Push(1, null, new float[]{1, 1, 1}, false).invoke(key);
+      new ParameterServer.Push(0, new int[]{2}, new float[]{-3}, true).invoke(key);
+      ParameterServer.Shard cur = DKV.getGet(key);
+      Assert.assertArrayEquals(new float[]{2, 3, 1}, cur._vals, 0);
+      Assert.assertArrayEquals(new long[]{1, 1}, cur._clocks);
+      assertTrue(cur._done[0]);
+      assertFalse(cur._done[1]);
+      assertEquals(1, cur.minClock());
+      Assert.assertArrayEquals(new float[]{1, 2, 3}, old._vals, 0);
+      Assert.assertArrayEquals(new long[]{0, 0}, old._clocks);
+      assertFalse(old._done[0]);
+    } finally {
+      DKV.remove(key);
+    }
+  }
+
+  @Test
+  public void testParameterServerTraining() {
+    Frame tfr = null;
+    DeepLearningModel dl = null;
+
+    try {
+      tfr = parse_test_file("./smalldata/iris/iris.csv");
+      dl = trainIrisModel(tfr);
+      DeepLearningModelInfo minfo = dl.model_info().deep_clone();
+      // force the parameter server mode, which training turns off on a single node
+      minfo.get_params()._parameter_server = true;
+      minfo.get_params()._parameter_server_sync_samples = 16;
+      DeepLearningModelInfo before = minfo.deep_clone();
+      long processed = minfo.get_processed_total();
+
+      DeepLearningModelInfo trained = new DeepLearningTask2(null, minfo.data_info()._adaptedFrame, minfo, 1f, 2).doAllNodes().model_info();
+      // counters come from the reduce, the weights from the shards
+      assertEquals(0, trained.get_processed_local());
+      assertEquals(processed + tfr.numRows(), trained.get_processed_global(), tfr.numRows() / 2);
+      assertFalse(Arrays.equals(before.get_weights(0).raw(), trained.get_weights(0).raw()));
+      assertFalse(trained.isUnstable());
+      // the shards of the iteration are gone
+      ParameterServer ps = new ParameterServer(null, minfo);
+      for (int s = 0; s < H2O.CLOUD.size(); ++s)
+        Assert.assertNull(DKV.get(ps.shardKey(s)));
+    } finally {
+      if (tfr != null) tfr.delete();
+      if (dl != null) dl.delete();
+    }
+  }
+
+  private static final DeepLearningParameters.ModelAveragingCompression[] COMPRESSION_MODES = {
+          DeepLearningParameters.ModelAveragingCompression.FP16,
+          DeepLearningParameters.ModelAveragingCompression.Int8,
+          DeepLearningParameters.ModelAveragingCompression.TopK};
+
+  @Test
+  public void testCompressedModelAveraging() {
+    Frame tfr = null;
+    DeepLearningModel dl = null;
+
+    try {
+      tfr = parse_test_file("./smalldata/iris/iris.csv");
+      dl = trainIrisModel(tfr);
+      for (DeepLearningParameters.ModelAveragingCompression mode : COMPRESSION_MODES) {
+        DeepLearningModelInfo minfo = dl.model_info().deep_clone();
+        minfo.get_params()._model_averaging_compression = mode;
+        minfo.get_params()._model_averaging_topk_fraction = 0.1;
+        Key stateKey = minfo.compressionStateKey(H2O.SELF);
+        try {
+          CompressedModelDelta.startIteration(minfo);
+          float[] w = minfo.get_weights(0).raw();
+          for (int i = 0; i < w.length; ++i) w[i] += 1e-2f * (i % 7 - 3);
+          float[] trained = w.clone();
+          double bias = minfo.get_biases(1).raw()[0] += 0.5;
+
+          // sent to another node, which rebuilds the model from the same reference
+          minfo.compressForReduce(1);
+          DeepLearningModelInfo received = new AutoBuffer().put(minfo).flipForReading().get();
+          received.decompress();
+          float[] residual = ((CompressedModelDelta.State) DKV.getGet(stateKey))._residual;
+          float[] got = received.get_weights(0).raw();
+          for (int i = 0; i < w.length; ++i) {
+            if (mode != DeepLearningParameters.ModelAveragingCompression.TopK)
+              assertEquals(trained[i], got[i], 1e-2);
+            assertEquals(trained[i], got[i] + residual[i], 1e-5); //nothing is lost with error feedback
+          }
+          // the largest change is always sent
+          assertEquals(bias, received.get_biases(1).raw()[0], 1e-3);
+
+          // the sender gets its own model back unchanged
+          minfo.decompress();
+          Assert.assertArrayEquals(trained, minfo.get_weights(0).raw(), 0);
+        } finally {
+          DKV.remove(stateKey);
+        }
+      }
+    } finally {
+      if (tfr != null) tfr.delete();
+      if (dl != null) dl.delete();
+    }
+  }
+
+  @Test
+  public void testCompressedModelReduce() {
+    Frame tfr = null;
+    DeepLearningModel dl = null;
+
+    try {
+      tfr = parse_test_file("./smalldata/iris/iris.csv");
+      dl = trainIrisModel(tfr);
+      for (DeepLearningParameters.ModelAveragingCompression mode : COMPRESSION_MODES) {
+        DeepLearningModelInfo ref = dl.model_info().deep_clone();
+        ref.get_params()._model_averaging_compression = mode;
+        ref.get_params()._model_averaging_topk_fraction = 0.1;
+        Key stateKey = ref.compressionStateKey(H2O.SELF);
+        try {
+          CompressedModelDelta.startIteration(ref);
+          // two nodes train their own copy of the same reference
+          DeepLearningModelInfo first = ref.deep_clone(), second = ref.deep_clone();
+          float[] w1 = first.get_weights(0).raw(), w2 = second.get_weights(0).raw();
+          float[] sum = new float[w1.length];
+          for (int i = 0; i < w1.length; ++i) {
+            w1[i] += 1e-2f * (i % 5 - 2);
+            w2[i] -= 2e-2f * (i % 3 - 1);
+            sum[i] = w1[i] + w2[i];
+          }
+
+          // the first node sends its model to the second node, which adds it to its own
+          first.compressForReduce(1);
+          DeepLearningModelInfo received = new AutoBuffer().put(first).flipForReading().get();
+          received.decompress();
+          CompressedModelDelta.State st = DKV.getGet(stateKey);
+          float[] lostFirst = st._residual.clone();
+          st._residual = new float[st._residual.length]; //the second node has its own error feedback
+          DKV.put(stateKey, st);
+          second.add(received);
+
+          // the sum of both models is sent on, as difference to twice the reference
+          second.compressForReduce(2);
+          DeepLearningModelInfo reduced = new AutoBuffer().put(second).flipForReading().get();
+          reduced.decompress();
+          float[] lostSum = ((CompressedModelDelta.State) DKV.getGet(stateKey))._residual;
+          float[] got = reduced.get_weights(0).raw();
+          for (int i = 0; i < got.length; ++i) {
+            if (mode != DeepLearningParameters.ModelAveragingCompression.TopK)
+              assertEquals(sum[i], got[i], 2e-2);
+            assertEquals(sum[i], got[i] + lostFirst[i] + lostSum[i], 1e-5); //nothing is lost with error feedback
+          }
+          // the biases did not change, and come back as the average of two reference models
+          reduced.div(2);
+          Assert.assertArrayEquals(ref.get_biases(1).raw(), reduced.get_biases(1).raw(), 1e-3);
+        } finally {
+          DKV.remove(stateKey);
+        }
+      }
+    } finally {
+      if (tfr != null) tfr.delete();
+      if (dl != null) dl.delete();
+    }
+  }
+}
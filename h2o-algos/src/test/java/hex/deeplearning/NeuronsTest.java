@@ -157,4 +157,36 @@ public class NeuronsTest extends water.TestUtil {
     assert(srm.get(1,3)==-1.2f);
     assert(srm.get(0,0)==0f);
   }
+
+  // Visiting only the non-zero inputs gives exactly the dense result
+  @Test
+  public void sparseInputGemvTest() {
+    int rows = 64;
+    int cols = 300;
+    Random rng = new Random(0x5BA75E);
+    float[] a = new float[rows * cols];
+    for (int i = 0; i < a.length; ++i) a[i] = (float) rng.nextGaussian();
+    double[] x = new double[cols];
+    int[] nz = new int[cols];
+    int nnz = 0;
+    for (int col = 0; col < cols; ++col) {
+      if (rng.nextFloat() < 0.05f) {
+        x[col] = rng.nextGaussian();
+        nz[nnz++] = col;
+      }
+    }
+    double[] y = new double[rows];
+    for (int row = 0; row < rows; ++row) y[row] = rng.nextGaussian();
+    byte[] bits = new byte[rows / 8];
+    rng.nextBytes(bits);
+
+    double[] dense = new double[rows];
+    double[] sparse = new double[rows];
+    gemv_naive(dense, a, x, y, bits);
+    gemv_sparse(sparse, a, x, nz, nnz, y, bits);
+    Assert.assertArrayEquals(dense, sparse, 0);
+    gemv_naive(dense, a, x, y, null);
+    gemv_sparse(sparse, a, x, nz, nnz, y, null);
+    Assert.assertArrayEquals(dense, sparse, 0);
+  }
 }
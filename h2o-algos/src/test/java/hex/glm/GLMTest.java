@@ -11,6 +11,7 @@ import hex.glm.GLMTask.GLMIterationTask;
 import hex.glm.GLMTask.GLMGradientTask;
 import hex.glm.GLMTask.GLMLineSearchTask;
 import hex.glm.GLMTask.LBFGS_LogisticGradientTask;
+import hex.gram.TiledGram;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
@@ -31,6 +32,7 @@ import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class GLMTest  extends TestUtil {
@@ -568,6 +570,331 @@ public class GLMTest  extends TestUtil {
     }
   }
 
+  /**
+   * Incremental gaussian fit from sufficient statistics, compared against the
+   * R results used in testCars.  Refitting from a checkpoint on the same frame
+   * reuses the persisted statistics and has to give the same model.
+   */
+  @Test
+  public void testIncrementalGaussian() {
+    GLM job = null;
+    Key parsed = Key.make("cars_parsed");
+    Frame fr = null, more = null, all = null, changed = null, weighted = null;
+    GLMModel model = null, model2 = null, model3 = null, model4 = null, model5 = null;
+    try {
+      fr = parse_test_file(parsed, "smalldata/junit/cars.csv");
+      String[] cfs = new String[]{"Intercept", "economy (mpg)", "cylinders", "displacement (cc)", "weight (lb)", "0-60 mph (s)", "year"};
+      double[] vls = new double[]{166.95862, -0.00531, -2.46690, 0.12635, 0.02159, -4.66995, -0.85724};
+      GLMParameters params = new GLMParameters(Family.gaussian);
+      params._response_column = "power (hp)";
+      params._ignored_columns = new String[]{"name"};
+      params._train = parsed;
+      params._lambda = new double[]{0};
+      params._incremental = true;
+      job = new GLM(Key.make("cars_model"), "glm test incremental gaussian", params);
+      model = job.trainModel().get();
+      job.remove();
+      assertNotNull(model._output._sufficient_stats);
+      HashMap<String, Double> coefs = model.coefficients();
+      for (int i = 0; i < cfs.length; ++i)
+        assertEquals(vls[i], coefs.get(cfs[i]), 1e-4);
+
+      // Append the rows of a copy with another response, as new chunks
+      more = fr.deepCopy(Key.make().toString());
+      new MRTask() {
+        @Override public void map(Chunk y, Chunk x) {
+          for (int r = 0; r < y._len; ++r)
+            y.set(r, y.atd(r) + 3 * x.atd(r));
+        }
+      }.doAll(more.vec("power (hp)"), more.vec("economy (mpg)"));
+      DKV.put(more);
+      all = rbind(fr, more);
+      assertEquals(fr.anyVec().nChunks() + more.anyVec().nChunks(), all.anyVec().nChunks());
+
+      // From the checkpoint, only the appended chunks are read; the fit is the one on all the rows
+      params._train = all._key;
+      params._checkpoint = model._key;
+      job = new GLM(Key.make("cars_model_2"), "glm test incremental gaussian from checkpoint", params);
+      model2 = job.trainModel().get();
+      job.remove();
+      // The copy has missing values in the same rows, so as many complete rows
+      double n1 = model._output._sufficient_stats._nobs;
+      assertEquals(2 * n1, model2._output._sufficient_stats._nobs, 0);
+      GLMParameters full = new GLMParameters(Family.gaussian);
+      full._response_column = "power (hp)";
+      full._ignored_columns = new String[]{"name"};
+      full._train = all._key;
+      full._lambda = new double[]{0};
+      job = new GLM(Key.make("cars_model_3"), "glm test incremental gaussian full refit", full);
+      model3 = job.trainModel().get();
+      job.remove();
+      assertCoefsEqual(model3.coefficients(), model2.coefficients(), 1e-6);
+
+      // Forgetting: the statistics of the checkpoint weigh as much as its rows with weight f
+      params._forgetting_factor = .25;
+      job = new GLM(Key.make("cars_model_4"), "glm test incremental gaussian forgetting", params);
+      model4 = job.trainModel().get();
+      job.remove();
+      assertEquals(1.25 * n1, model4._output._sufficient_stats._nobs, 1e-10);
+      boolean differs = false;
+      for (String c : cfs)
+        differs |= Math.abs(model4.coefficients().get(c) - model2.coefficients().get(c)) > 1e-4 * Math.max(1, Math.abs(model2.coefficients().get(c)));
+      assertTrue("forgetting factor did not change the fit", differs);
+      weighted = new Frame(Key.make(), all.names(), all.vecs());
+      Vec w = all.anyVec().makeCon(1);
+      final long nrows1 = fr.numRows();
+      new MRTask() {
+        @Override public void map(Chunk c) {
+          for (int r = 0; r < c._len; ++r)
+            if (c.start() + r < nrows1) c.set(r, .25);
+        }
+      }.doAll(w);
+      weighted.add("w", w);
+      DKV.put(weighted);
+      full._train = weighted._key;
+      full._weights_column = "w";
+      job = new GLM(Key.make("cars_model_5"), "glm test incremental gaussian weighted refit", full);
+      model5 = job.trainModel().get();
+      job.remove();
+      assertCoefsEqual(model5.coefficients(), model4.coefficients(), 1e-6);
+
+      // Leading chunks which differ from the ones the checkpoint covers are rejected
+      changed = rbind(more, more);
+      params._train = changed._key;
+      params._forgetting_factor = 1;
+      job = new GLM(Key.make("cars_model_6"), "glm test incremental gaussian changed rows", params);
+      try {
+        job.trainModel().get();
+        assertFalse("should've thrown IAE", true);
+      } catch (H2OModelBuilderIllegalArgumentException e) {
+        assertTrue(e.getMessage().contains("rows appended"));
+      }
+      job.remove();
+      job = null;
+    } finally {
+      if (fr != null) fr.delete();
+      if (more != null) more.delete();
+      if (all != null) all.delete();
+      if (changed != null) changed.delete();
+      if (weighted != null) {
+        weighted.vec("w").remove();
+        DKV.remove(weighted._key);
+      }
+      for (GLMModel m : new GLMModel[]{model, model2, model3, model4, model5})
+        if (m != null) m.delete();
+      if (job != null) job.remove();
+    }
+  }
+
+  // Rows of b appended to the rows of a, chunks kept as they are
+  private static Frame rbind(Frame a, Frame b) {
+    Frame res = water.rapids.Exec.exec("(rbind " + a._key + " " + b._key + ")").getFrame();
+    Frame fr = new Frame(Key.make(), res.names(), res.vecs());
+    DKV.put(fr);
+    return fr;
+  }
+
+  private static void assertCoefsEqual(HashMap<String, Double> expected, HashMap<String, Double> actual, double tol) {
+    assertEquals(expected.keySet(), actual.keySet());
+    for (String c : expected.keySet())
+      assertEquals(c, expected.get(c), actual.get(c), tol * Math.max(1, Math.abs(expected.get(c))));
+  }
+
+  // Checking KKT conditions only every few lambdas ends the path on the same solution as checking at every lambda
+  @Test
+  public void testKKTCheckInterval() {
+    final int P = 40;
+    Vec base = null;
+    Frame fr = null;
+    GLM job = null;
+    GLMModel model1 = null, model5 = null;
+    try {
+      base = Vec.makeZero(5000);
+      byte[] types = new byte[P + 1];
+      String[] names = new String[P + 1];
+      for (int i = 0; i < P; ++i) {
+        types[i] = Vec.T_NUM;
+        names[i] = "x" + i;
+      }
+      types[P] = Vec.T_NUM;
+      names[P] = "y";
+      fr = new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xCAFE + cs[0].start());
+          double[] x = new double[P];
+          for (int r = 0; r < cs[0]._len; ++r) {
+            for (int i = 0; i < P; ++i)
+              ncs[i].addNum(x[i] = rnd.nextGaussian());
+            // a few strong predictors, a few weak ones entering late on the path, the rest noise
+            ncs[P].addNum(3 * x[0] - 2 * x[1] + x[2] + .3 * x[3] - .2 * x[4] + .1 * x[5] + rnd.nextGaussian());
+          }
+        }
+      }.doAll(types, base).outputFrame(Key.make(), names, null);
+      GLMParameters params = new GLMParameters(Family.gaussian);
+      params._response_column = "y";
+      params._train = fr._key;
+      params._alpha = new double[]{1};
+      params._lambda_search = true;
+      params._nlambdas = 20;
+      params._lambda_min_ratio = 1e-2;
+      params._max_iterations = 1000;
+      job = new GLM(Key.make("glm_kkt_1"), "glm test kkt check interval 1", params);
+      model1 = job.trainModel().get();
+      job.remove();
+      params._kkt_check_interval = 5;
+      job = new GLM(Key.make("glm_kkt_5"), "glm test kkt check interval 5", params);
+      model5 = job.trainModel().get();
+      job.remove();
+      job = null;
+
+      GLMModel.Submodel last1 = model1._output._submodels[model1._output._submodels.length - 1];
+      GLMModel.Submodel last5 = model5._output._submodels[model5._output._submodels.length - 1];
+      assertEquals(last1.lambda_value, last5.lambda_value, 0);
+      double[] beta1 = fullBeta(model1, last1), beta5 = fullBeta(model5, last5);
+      for (int i = 0; i < beta1.length; ++i)
+        assertEquals("coefficient " + i, beta1[i], beta5[i], 1e-4 * Math.max(1, Math.abs(beta1[i])));
+      assertTrue(beta1[0] != 0 && beta1[5] != 0);
+    } finally {
+      if (model1 != null) model1.delete();
+      if (model5 != null) model5.delete();
+      if (job != null) job.remove();
+      if (fr != null) fr.delete();
+      if (base != null) base.remove();
+    }
+  }
+
+  private static double[] fullBeta(GLMModel m, GLMModel.Submodel sm) {
+    if (sm.idxs == null) return sm.beta.clone();
+    double[] beta = MemoryManager.malloc8d(m.dinfo().fullN() + 1);
+    int k = 0;
+    for (int i : sm.idxs)
+      beta[i] = sm.beta[k++];
+    beta[beta.length - 1] = sm.beta[sm.beta.length - 1];
+    return beta;
+  }
+
+  // t(X) X accumulated into a TiledGram, with tiles added on their home nodes, matches a direct computation
+  @Test
+  public void testTiledGramTask() {
+    Frame fr = null;
+    DataInfo dinfo = null;
+    TiledGram g = null;
+    try {
+      Frame prostate = parse_test_file("smalldata/logreg/prostate.csv");
+      String[] cols = new String[]{"AGE", "PSA", "VOL", "GLEASON", "CAPSULE"};
+      fr = new Frame(Key.make(), cols, prostate.vecs(cols));
+      DKV.put(fr);
+      prostate.remove(cols);
+      prostate.delete();
+      dinfo = new DataInfo(Key.make(), fr, null, 1, true, TransformType.NONE, TransformType.NONE, false, false, false, /* weights */ false, /* offset */ false, /* fold */ false);
+      g = GLMTask.GLMTiledGramTask.compute(null, dinfo, new GLMParameters(Family.gaussian), null, true, 2);
+      assertEquals(5, g._n);
+      assertEquals(3, g._nt);
+      double[][] ref = new double[5][5];
+      double[] x = new double[5];
+      for (long r = 0; r < fr.numRows(); ++r) {
+        for (int i = 0; i < 4; ++i) x[i] = fr.vec(i).at(r);
+        x[4] = 1;
+        for (int i = 0; i < 5; ++i)
+          for (int j = 0; j <= i; ++j)
+            ref[i][j] += x[i] * x[j];
+      }
+      for (int I = 0; I < g._nt; ++I)
+        for (int J = 0; J <= I; ++J) {
+          double[] t = g.get(I, J);
+          int ni = g.tileRows(I), nj = g.tileRows(J);
+          for (int i = 0; i < ni; ++i)
+            for (int j = 0; j < (I == J ? i + 1 : nj); ++j) {
+              double e = ref[I * 2 + i][J * 2 + j];
+              assertEquals(e, t[i * nj + j], 1e-10 * Math.max(1, Math.abs(e)));
+            }
+        }
+    } finally {
+      if (g != null) g.remove();
+      if (dinfo != null) dinfo.remove();
+      if (fr != null) fr.delete();
+    }
+  }
+
+  // Scoring a chunk at a time gives the same predictions as scoring row by row, sparse chunks included
+  @Test
+  public void testChunkScoring() {
+    Vec base = null;
+    Frame fr = null;
+    try {
+      base = Vec.makeZero(20000);
+      fr = new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xC0FFEE + cs[0].start());
+          for (int r = 0; r < cs[0]._len; ++r) {
+            int cat = rnd.nextInt(3);
+            double x1 = rnd.nextGaussian();
+            double x2 = rnd.nextDouble() < .02 ? rnd.nextGaussian() : 0;
+            double y = 1 + 2 * x1 - 3 * x2 + cat + .1 * rnd.nextGaussian();
+            if (rnd.nextDouble() < .01) ncs[0].addNA();
+            else ncs[0].addNum(cat);
+            ncs[1].addNum(x1);
+            ncs[2].addNum(x2);
+            ncs[3].addNum(y);
+            ncs[4].addNum(y > 1.5 ? 1 : 0);
+            ncs[5].addNum(y < 0.5 ? 0 : y < 2.5 ? 1 : 2);
+          }
+        }
+      }.doAll(new byte[]{Vec.T_CAT, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_CAT}, base)
+       .outputFrame(Key.make(), new String[]{"cat", "x1", "x2", "y", "yb", "ym"},
+                    new String[][]{{"a", "b", "c"}, null, null, null, {"0", "1"}, {"lo", "mid", "hi"}});
+      assertTrue(fr.vec("x2").chunkForChunkIdx(0).isSparse());
+      checkChunkScoring(fr, Family.gaussian, "y");
+      checkChunkScoring(fr, Family.binomial, "yb");
+      checkChunkScoring(fr, Family.multinomial, "ym");
+    } finally {
+      if (fr != null) fr.delete();
+      if (base != null) base.remove();
+    }
+  }
+
+  private static void checkChunkScoring(Frame fr, Family family, String response) {
+    GLMParameters params = new GLMParameters(family);
+    params._response_column = response;
+    params._ignored_columns = ArrayUtils.remove(new String[]{"y", "yb", "ym"}, response);
+    params._train = fr._key;
+    params._lambda = new double[]{1e-3};
+    GLM job = null;
+    GLMModel model = null;
+    Frame preds = null, adapted = null;
+    try {
+      job = new GLM(Key.make(), "glm test chunk scoring", params);
+      model = job.trainModel().get();
+      preds = model.score(fr);
+      adapted = new Frame(fr);
+      model.adaptTestForTrain(adapted, true, false);
+      int nfeatures = model._output.nfeatures();
+      double[] tmp = new double[nfeatures];
+      double[] p = new double[model._output.nclasses() + 1];
+      Chunk[] chks = new Chunk[nfeatures];
+      for (int cidx = 0; cidx < adapted.anyVec().nChunks(); ++cidx) {
+        for (int i = 0; i < nfeatures; ++i)
+          chks[i] = adapted.vec(i).chunkForChunkIdx(cidx);
+        long start = chks[0].start();
+        for (int r = 0; r < chks[0]._len; ++r) {
+          model.score0(chks, 1, 0, r, tmp, p);
+          for (int c = 0; c < preds.numCols(); ++c)
+            assertEquals(family + " row " + (start + r) + " col " + c, p[c], preds.vec(c).at(start + r), 0);
+        }
+      }
+    } finally {
+      if (adapted != null) {
+        Futures fs = new Futures();
+        for (Vec v : adapted.vecs())
+          if (fr.find(v) == -1) v.remove(fs);
+        fs.blockForPending();
+      }
+      if (preds != null) preds.delete();
+      if (model != null) model.delete();
+      if (job != null) job.remove();
+    }
+  }
+
   // Leask xval keys
 //  @Test public void testXval() {
 //    GLM job = null;
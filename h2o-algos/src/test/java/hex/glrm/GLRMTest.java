@@ -17,6 +17,7 @@ import water.util.Log;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 
@@ -341,6 +342,52 @@ public class GLRMTest extends TestUtil {
     Log.info(sb.toString());
   }
 
+  // Mostly zero columns are stored as sparse chunks, whose zeros are accounted for in bulk
+  @Test public void testSparseMissing() throws InterruptedException, ExecutionException {
+    long seed = 1234;
+    Random rand = new Random(seed);
+    double[][] rows = new double[5000][20];
+    for (double[] row : rows) {
+      for (int j = 0; j < row.length; j++) {
+        double u = rand.nextDouble();
+        row[j] = u < 0.03 ? rand.nextGaussian() + 2 : (u < 0.04 ? Double.NaN : 0);
+      }
+    }
+    Frame train = null;
+    GLRMModel model = null;
+    try {
+      train = ArrayUtils.frame(Key.make("sparse.hex"), null, rows);
+      Assert.assertTrue(train.vec(0).chunkForChunkIdx(0).isSparse());
+
+      GLRMParameters parms = new GLRMParameters();
+      parms._train = train._key;
+      parms._k = 3;
+      parms._loss = GLRMParameters.Loss.Quadratic;
+      parms._regularization_x = GLRMParameters.Regularizer.None;
+      parms._regularization_y = GLRMParameters.Regularizer.None;
+      parms._transform = DataInfo.TransformType.STANDARDIZE;
+      parms._init = GLRM.Initialization.Random;
+      parms._max_iterations = 100;
+      parms._seed = seed;
+
+      GLRM job = new GLRM(parms);
+      try {
+        model = job.trainModel().get();
+        Log.info("Iteration " + model._output._iterations + ": Objective value = " + model._output._objective);
+        Assert.assertTrue(model._output._history_objective[0] >= model._output._objective);
+        model.score(train).delete();
+        ModelMetricsGLRM mm = (ModelMetricsGLRM)ModelMetrics.getFromDKV(model,train);
+        Log.info("Numeric Sum of Squared Error = " + mm._numerr);
+        Assert.assertEquals(model._output._objective, mm._numerr, TOLERANCE * Math.max(1, mm._numerr));
+      } finally {
+        job.remove();
+      }
+    } finally {
+      if (train != null) train.delete();
+      if (model != null) model.delete();
+    }
+  }
+
   @Test public void testSetColumnLoss() throws InterruptedException, ExecutionException {
     GLRM job = null;
     GLRMModel model = null;
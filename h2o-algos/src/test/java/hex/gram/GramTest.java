@@ -0,0 +1,108 @@
+package hex.gram;
+
+import hex.DataInfo;
+import hex.DataInfo.TransformType;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.DKV;
+import water.Key;
+import water.MRTask;
+import water.TestUtil;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import java.util.Random;
+
+public class GramTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  // ncats categorical columns of 5 levels, then nnums numeric columns with the given share of zeros
+  private static Frame frame(final int nrows, final int ncats, final int nnums, final double zeros) {
+    byte[] types = new byte[ncats + nnums];
+    String[] names = new String[types.length];
+    String[][] domains = new String[types.length][];
+    for (int i = 0; i < types.length; ++i) {
+      types[i] = i < ncats ? Vec.T_CAT : Vec.T_NUM;
+      names[i] = (i < ncats ? "c" : "x") + i;
+      if (i < ncats) domains[i] = new String[]{"a", "b", "c", "d", "e"};
+    }
+    Vec base = Vec.makeZero(nrows);
+    try {
+      return new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xBEEF + cs[0].start());
+          for (int r = 0; r < cs[0]._len; ++r)
+            for (int i = 0; i < ncs.length; ++i) {
+              if (i < ncats) ncs[i].addNum(rnd.nextInt(5));
+              else if (rnd.nextDouble() < zeros) ncs[i].addNum(0);
+              else ncs[i].addNum(rnd.nextGaussian());
+            }
+        }
+      }.doAll(types, base).outputFrame(Key.make(), names, domains);
+    } finally {
+      base.remove();
+    }
+  }
+
+  // The Gram of the first chunk built with addRowBlocked equals the one built with addRow
+  private static void assertBlockedEqualsAddRow(Frame fr, boolean sparse) {
+    DataInfo dinfo = null;
+    try {
+      dinfo = new DataInfo(Key.make(), fr, null, 0, true, TransformType.NONE, TransformType.NONE, true, false, false, false, false, false);
+      DKV.put(dinfo._key, dinfo);
+      Frame adapted = dinfo._adaptedFrame;
+      Chunk[] cs = new Chunk[adapted.numCols()];
+      for (int i = 0; i < cs.length; ++i)
+        cs[i] = adapted.vec(i).chunkForChunkIdx(0);
+      Gram g = new Gram(dinfo.fullN(), dinfo.largestCat(), dinfo._nums, dinfo._cats, true);
+      Gram gb = new Gram(dinfo.fullN(), dinfo.largestCat(), dinfo._nums, dinfo._cats, true);
+      DataInfo.Row[] rows = sparse ? dinfo.extractSparseRows(cs, 0) : null;
+      DataInfo.Row row = sparse ? null : dinfo.newDenseRow();
+      for (int r = 0; r < cs[0]._len; ++r) {
+        if (sparse) row = rows[r];
+        else dinfo.extractDenseRow(cs, r, row);
+        Assert.assertEquals(sparse, row.isSparse());
+        double w = 1 + r % 3;
+        g.addRow(row, w);
+        gb.addRowBlocked(row, w);
+      }
+      gb.flushRows();
+      for (int i = 0; i < g._xx.length; ++i)
+        for (int j = 0; j < g._xx[i].length; ++j)
+          Assert.assertEquals("xx[" + i + "][" + j + "]", g._xx[i][j], gb._xx[i][j], 1e-10 * Math.max(1, Math.abs(g._xx[i][j])));
+    } finally {
+      if (dinfo != null) dinfo.remove();
+    }
+  }
+
+  // More numeric columns than BLOCK_PANEL, and a last partial block of rows
+  @Test public void testAddRowBlockedDense() {
+    Frame fr = frame(3 * Gram.BLOCK_ROWS + 17, 0, Gram.BLOCK_PANEL + 9, 0);
+    try {
+      assertBlockedEqualsAddRow(fr, false);
+    } finally {
+      fr.delete();
+    }
+  }
+
+  @Test public void testAddRowBlockedSparse() {
+    Frame fr = frame(3 * Gram.BLOCK_ROWS + 17, 0, Gram.BLOCK_PANEL + 9, .95);
+    try {
+      assertBlockedEqualsAddRow(fr, true);
+    } finally {
+      fr.delete();
+    }
+  }
+
+  @Test public void testAddRowBlockedCategorical() {
+    Frame fr = frame(3 * Gram.BLOCK_ROWS + 17, 3, 12, .3);
+    try {
+      assertBlockedEqualsAddRow(fr, false);
+    } finally {
+      fr.delete();
+    }
+  }
+}
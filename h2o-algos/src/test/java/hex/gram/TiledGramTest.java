@@ -0,0 +1,89 @@
+package hex.gram;
+
+import hex.glm.GLM;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.TestUtil;
+
+import java.util.Random;
+
+public class TiledGramTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  // Random symmetric positive definite matrix t(X) X + I
+  private static double[][] spd(int n, long seed) {
+    Random rnd = new Random(seed);
+    double[][] x = new double[2 * n][n];
+    for(double[] r : x)
+      for(int j = 0; j < n; ++j)
+        r[j] = rnd.nextGaussian();
+    double[][] a = new double[n][n];
+    for(int i = 0; i < n; ++i)
+      for(int j = 0; j < n; ++j) {
+        for(double[] r : x) a[i][j] += r[i] * r[j];
+        if(i == j) a[i][j] += 1;
+      }
+    return a;
+  }
+
+  // Tiles of the lower triangle of a
+  private static TiledGram tiled(double[][] a, int tile) {
+    TiledGram g = new TiledGram(a.length, tile, false);
+    for(int I = 0; I < g._nt; ++I)
+      for(int J = 0; J <= I; ++J) {
+        int ni = g.tileRows(I), nj = g.tileRows(J);
+        double[] t = new double[ni * nj];
+        for(int i = 0; i < ni; ++i)
+          for(int j = 0; j < nj; ++j)
+            t[i * nj + j] = a[I * tile + i][J * tile + j];
+        g.put(I, J, t);
+      }
+    return g;
+  }
+
+  @Test public void testCholeskyAndSolve() {
+    final int n = 11, tile = 3; // 4 tile rows, the last one partial
+    double[][] a = spd(n, 0xC0FFEE);
+    TiledGram g = tiled(a, tile), l = null;
+    try {
+      Gram.Cholesky chol = new Gram(a).cholesky(null);
+      Assert.assertTrue(chol.isSPD());
+      double[][] lref = chol.getL();
+      l = g.cholesky();
+      Assert.assertNotNull(l);
+      for(int I = 0; I < l._nt; ++I)
+        for(int J = 0; J <= I; ++J) {
+          double[] t = l.get(I, J);
+          int ni = l.tileRows(I), nj = l.tileRows(J);
+          for(int i = 0; i < ni; ++i)
+            for(int j = 0; j < (I == J ? i + 1 : nj); ++j)
+              Assert.assertEquals(lref[I * tile + i][J * tile + j], t[i * nj + j], 1e-10);
+        }
+
+      double[] b = new double[n];
+      Random rnd = new Random(42);
+      for(int i = 0; i < n; ++i) b[i] = rnd.nextGaussian();
+      double[] x = b.clone(), xref = b.clone(), xsolver = new double[n];
+      l.solve(x);
+      chol.solve(xref);
+      Assert.assertArrayEquals(xref, x, 1e-10);
+      GLM.GramSolver.solveTiled(g, b, 1, xsolver);
+      Assert.assertArrayEquals(xref, xsolver, 1e-10);
+    } finally {
+      g.remove();
+      if(l != null) l.remove();
+    }
+  }
+
+  @Test public void testNonSPD() {
+    double[][] a = spd(7, 7);
+    a[5][5] = -1;
+    TiledGram g = tiled(a, 2);
+    try {
+      Assert.assertNull(g.cholesky());
+    } finally {
+      g.remove();
+    }
+  }
+}
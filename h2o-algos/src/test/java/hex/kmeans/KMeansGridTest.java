@@ -113,6 +113,101 @@ public class KMeansGridTest extends TestUtil {
     }
   }
 
+  @Test
+  public void testParallelIrisGrid() {
+    Grid<KMeansModel.KMeansParameters> grid = null;
+    Frame fr = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+
+      HashMap<String, Object[]> hyperParms = new HashMap<>();
+      hyperParms.put("_k", new Integer[]{0, 1, 2, 3, 4, 5});
+      hyperParms.put("_seed", new Long[]{1L, 123456789L, 123456789L});
+      int hyperSpaceSize = ArrayUtils.crossProductSize(hyperParms);
+
+      KMeansModel.KMeansParameters params = new KMeansModel.KMeansParameters();
+      params._train = fr._key;
+      // Build up to 4 models at once
+      GridSearch gs = GridSearch.startGridSearch(null, params, hyperParms, KMEANS_MODEL_FACTORY, 4);
+      grid = (Grid<KMeansModel.KMeansParameters>) gs.get();
+
+      // Duplicated seeds produce one model; k=0 fails
+      Assert.assertEquals("All distinct legal points should be built", 10, grid.getModelCount());
+      Assert.assertEquals("All illegal points should be reported", 3, grid.getFailureCount());
+      Assert.assertTrue(grid.getModelCount() + grid.getFailureCount() <= hyperSpaceSize);
+    } finally {
+      if (fr != null) {
+        fr.remove();
+      }
+      if (grid != null) {
+        grid.remove();
+      }
+    }
+  }
+
+  @Test
+  public void testParallelBuildsOverlap() {
+    Grid<KMeansModel.KMeansParameters> grid = null;
+    Frame fr = null;
+    try {
+      fr = frame(new Random(0xC0FFEE), 100000, 5);
+
+      HashMap<String, Object[]> hyperParms = new HashMap<>();
+      hyperParms.put("_seed", new Long[]{1L, 2L, 3L, 4L});
+      KMeansModel.KMeansParameters params = new KMeansModel.KMeansParameters();
+      params._train = fr._key;
+      params._k = 10;
+      params._max_iterations = 20;
+
+      // One after another: no two builds run at the same time
+      grid = (Grid<KMeansModel.KMeansParameters>)
+          GridSearch.startGridSearch(null, params, hyperParms, KMEANS_MODEL_FACTORY, 1).get();
+      Assert.assertEquals(4, grid.getModelCount());
+      Assert.assertEquals(1, maxConcurrent(grid.getModels()));
+      grid.remove();
+
+      // Side by side: the builds overlap
+      grid = (Grid<KMeansModel.KMeansParameters>)
+          GridSearch.startGridSearch(null, params, hyperParms, KMEANS_MODEL_FACTORY, 4).get();
+      Assert.assertEquals(4, grid.getModelCount());
+      int concurrent = maxConcurrent(grid.getModels());
+      Assert.assertTrue("Builds should overlap, max concurrent: " + concurrent, concurrent > 1);
+    } finally {
+      if (fr != null) {
+        fr.remove();
+      }
+      if (grid != null) {
+        grid.remove();
+      }
+    }
+  }
+
+  // Largest number of builds running at the same moment, from the models' start and end times
+  private static int maxConcurrent(Model[] ms) {
+    int max = 0;
+    for (Model m : ms) {
+      int running = 0;
+      for (Model o : ms) {
+        if (o._output._start_time <= m._output._start_time && m._output._start_time < o._output._end_time) {
+          running++;
+        }
+      }
+      max = Math.max(max, running);
+    }
+    return max;
+  }
+
+  // Uniform random numeric frame
+  private static Frame frame(Random rng, int rows, int cols) {
+    double[][] rs = new double[rows][cols];
+    for (double[] r : rs) {
+      for (int c = 0; c < cols; c++) {
+        r[c] = rng.nextDouble();
+      }
+    }
+    return ArrayUtils.frame(rs);
+  }
+
   //@Ignore("PUBDEV-1643")
   @Test
   public void testDuplicatesCarsGrid() {
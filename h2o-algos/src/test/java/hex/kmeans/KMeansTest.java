@@ -6,11 +6,15 @@ import hex.SplitFrame;
 import org.junit.*;
 import water.DKV;
 import water.Key;
+import water.MRTask;
 import water.Scope;
 import water.TestUtil;
 import water.exceptions.H2OModelBuilderIllegalArgumentException;
+import water.fvec.Chunk;
 import water.fvec.Frame;
 import water.fvec.NFSFileVec;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
 import water.parser.ParseDataset;
 import water.util.ArrayUtils;
 import water.util.FrameUtils;
@@ -20,6 +24,7 @@ import water.util.MathUtils;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -189,6 +194,118 @@ public class KMeansTest extends TestUtil {
     }
   }
 
+  // Well separated blobs: k-means|| finds them as well as the sequential initializations,
+  // from about 2k candidates per round over its 5 rounds
+  @Test public void testPlusPlusParallel() {
+    final int k = 5, dims = 4;
+    Vec base = null;
+    Frame fr = null;
+    try {
+      base = Vec.makeZero(20000);
+      fr = new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xB10B + cs[0].start());
+          for (int r = 0; r < cs[0]._len; r++) {
+            int blob = (int) ((cs[0].start() + r) % k);
+            for (int d = 0; d < dims; d++)
+              ncs[d].addNum(20 * ((blob >> d) & 1) + rnd.nextGaussian());
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM}, base).outputFrame(Key.make(), new String[]{"x0", "x1", "x2", "x3"}, null);
+
+      KMeansModel.KMeansParameters parms = new KMeansModel.KMeansParameters();
+      parms._train = fr._key;
+      parms._k = k;
+      parms._standardize = false;
+      parms._max_iterations = 10;
+      for( long seed : new long[]{0, 42, 1234} ) {
+        parms._seed = seed;
+        double best = Double.MAX_VALUE;
+        for( KMeans.Initialization init : new KMeans.Initialization[]{KMeans.Initialization.PlusPlus, KMeans.Initialization.Furthest} ) {
+          parms._init = init;
+          KMeansModel kmm = doSeed(parms, seed);
+          best = Math.min(best, kmm._output._tot_withinss);
+          kmm.delete();
+        }
+        parms._init = KMeans.Initialization.PlusPlusParallel;
+        KMeans job = new KMeans(parms);
+        KMeansModel kmm = job.trainModel().get();
+        job.remove();
+        try {
+          Assert.assertEquals(5, job._initRounds);
+          Assert.assertTrue("candidates: " + job._initCandidates, job._initCandidates > 5 * k && job._initCandidates < 1 + 5 * 4 * k);
+          // Within sum of squares of the blobs, about one per row and dimension
+          Assert.assertEquals(fr.numRows() * dims, kmm._output._tot_withinss, .05 * fr.numRows() * dims);
+          Assert.assertTrue("seed " + seed, kmm._output._tot_withinss <= 1.001 * best);
+          for( long size : kmm._output._size ) Assert.assertEquals(fr.numRows() / k, size);
+        } finally {
+          kmm.delete();
+        }
+      }
+    } finally {
+      if( fr  != null ) fr.delete();
+      if( base != null ) base.remove();
+    }
+  }
+
+  // Bounded Lloyd's passes skip rows which cannot change cluster, but must
+  // end up with the same clusters as plain passes
+  @Test public void testTriangleInequality() {
+    Frame fr = null;
+    KMeansModel plain = null, bounded = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+
+      KMeansModel.KMeansParameters parms = new KMeansModel.KMeansParameters();
+      parms._train = fr._key;
+      parms._k = 5;
+      parms._standardize = true;
+      parms._max_iterations = 20;
+      parms._init = KMeans.Initialization.Furthest;
+      plain = doSeed(parms,1234);
+      parms._triangle_inequality = true;
+      bounded = doSeed(parms,1234);
+
+      assertEquals(plain._output._iterations, bounded._output._iterations);
+      assertArrayEquals(plain._output._size, bounded._output._size);
+      assertEquals(plain._output._tot_withinss, bounded._output._tot_withinss, 1e-6);
+      for( int k=0; k<parms._k; k++ )
+        assertArrayEquals(plain._output._centers_raw[k], bounded._output._centers_raw[k], 1e-6);
+    } finally {
+      if( fr      != null ) fr.delete();
+      if( plain   != null ) plain.delete();
+      if( bounded != null ) bounded.delete();
+    }
+  }
+
+  @Test public void testMiniBatch() {
+    Frame fr = null;
+    KMeansModel kmm = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+
+      KMeansModel.KMeansParameters parms = new KMeansModel.KMeansParameters();
+      parms._train = fr._key;
+      parms._ignored_columns = new String[] {"class"};
+      parms._k = 3;
+      parms._standardize = true;
+      parms._max_iterations = 30;
+      parms._mini_batch_size = 50;
+      parms._init = KMeans.Initialization.PlusPlus;
+      kmm = doSeed(parms,42);
+
+      assertEquals(fr.numRows(), ArrayUtils.sum(kmm._output._size));
+      // Final statistics come from a full pass over the data
+      double withinss = 0;
+      for( double w : kmm._output._withinss ) withinss += w;
+      assertEquals(withinss, kmm._output._tot_withinss, 1e-6);
+      Assert.assertTrue(kmm._output._tot_withinss < kmm._output._totss);
+    } finally {
+      if( fr  != null ) fr.delete();
+      if( kmm != null ) kmm.delete();
+    }
+  }
+
   // "datasets directory not always available"
   @Test @Ignore public void testCovtype() {
     Frame fr = null;
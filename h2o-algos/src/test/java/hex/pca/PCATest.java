@@ -40,6 +40,9 @@ public class PCATest extends TestUtil {
     Frame train = null;
     try {
       train = parse_test_file(Key.make("arrests.hex"), "smalldata/pca_test/USArrests.csv");   // TODO: Move this outside loop
+      for (PCAParameters.Method method : new PCAParameters.Method[] {
+              PCAParameters.Method.Power,
+              PCAParameters.Method.Randomized })
       for (DataInfo.TransformType std : new DataInfo.TransformType[] {
               DataInfo.TransformType.DEMEAN,
               DataInfo.TransformType.STANDARDIZE }) {
@@ -50,7 +53,7 @@ public class PCATest extends TestUtil {
           parms._k = 4;
           parms._transform = std;
           parms._max_iterations = 1000;
-          parms._pca_method = PCAParameters.Method.Power;
+          parms._pca_method = method;
 
           PCA job = new PCA(parms);
           try {
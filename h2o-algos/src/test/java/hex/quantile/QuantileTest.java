@@ -6,6 +6,9 @@ import water.TestUtil;
 import water.fvec.Frame;
 import water.util.ArrayUtils;
 
+import java.util.Arrays;
+import java.util.Random;
+
 public class QuantileTest extends TestUtil {
   @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
 
@@ -73,4 +76,45 @@ public class QuantileTest extends TestUtil {
       if( kmm != null ) kmm.delete();
     }
   }
+
+  @Test public void testApproximate() {
+    QuantileModel exact = null, approx = null;
+    Frame fr = null;
+    try {
+      Random rng = new Random(0xDECAF);
+      double[][] d = new double[100000][1];
+      for( double[] row : d ) row[0] = Math.exp(rng.nextGaussian());
+      fr = ArrayUtils.frame(d);
+      double[] sorted = new double[d.length];
+      for( int i=0; i<d.length; i++ ) sorted[i] = d[i][0];
+      Arrays.sort(sorted);
+
+      QuantileModel.QuantileParameters parms = new QuantileModel.QuantileParameters();
+      parms._train = fr._key;
+      Job<QuantileModel> job = new Quantile(parms).trainModel();
+      exact = job.get();
+      job.remove();
+
+      parms._approximate = true;
+      job = new Quantile(parms).trainModel();
+      approx = job.get();
+      job.remove();
+
+      double eps = approx._output._rank_error[0];
+      Assert.assertTrue(eps > 0 && eps < 0.05);
+      for( int p=0; p<parms._probs.length; p++ ) {
+        // The approximate answer must lie between the exact quantiles at prob -/+ eps
+        double lo = sorted[(int)Math.max(0,Math.floor((parms._probs[p]-eps)*(d.length-1)))];
+        double hi = sorted[(int)Math.min(d.length-1,Math.ceil((parms._probs[p]+eps)*(d.length-1)))];
+        double q = approx._output._quantiles[0][p];
+        Assert.assertTrue("prob "+parms._probs[p]+": "+q+" not in ["+lo+","+hi+"]", lo <= q && q <= hi);
+        double x = exact._output._quantiles[0][p];
+        Assert.assertTrue(lo <= x && x <= hi);
+      }
+    } finally {
+      if( fr     != null ) fr    .remove();
+      if( exact  != null ) exact .delete();
+      if( approx != null ) approx.delete();
+    }
+  }
 }
@@ -9,13 +9,18 @@ import org.junit.Test;
 import org.junit.Ignore;
 import water.DKV;
 import water.Key;
+import water.MRTask;
 import water.Scope;
 import water.TestUtil;
+import water.fvec.Chunk;
 import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
 import water.util.FrameUtils;
 import water.util.Log;
 
 import java.util.Arrays;
+import java.util.Random;
 import java.util.concurrent.ExecutionException;
 
 public class SVDTest extends TestUtil {
@@ -244,6 +249,103 @@ public class SVDTest extends TestUtil {
     }
   }
 
+  @Test public void testArrestsProbLowRank() throws InterruptedException, ExecutionException {
+    // Expected top 2 right singular values and vectors
+    double[] d_expected = new double[] {11.024148, 6.964086};
+    double[][] v_expected = ard(ard(-0.5358995, 0.4181809),
+                                ard(-0.5831836, 0.1879856),
+                                ard(-0.2781909, -0.8728062),
+                                ard(-0.5434321, -0.1673186));
+    SVDModel model = null;
+    Frame train = null, score = null;
+    try {
+      train = parse_test_file(Key.make("arrests.hex"), "smalldata/pca_test/USArrests.csv");
+      SVDModel.SVDParameters parms = new SVDModel.SVDParameters();
+      parms._train = train._key;
+      parms._nv = 2;
+      parms._keep_u = true;
+      parms._transform = DataInfo.TransformType.STANDARDIZE;
+      parms._svd_method = SVDParameters.Method.Randomized;
+      parms._max_iterations = 100;
+      parms._seed = 1234;
+      parms._save_v_frame = false;
+
+      SVD job = new SVD(parms);
+      try {
+        model = job.trainModel().get();
+        Assert.assertArrayEquals(d_expected, model._output._d, 1e-3);
+        TestUtil.checkEigvec(v_expected, model._output._v, 1e-2);
+        Assert.assertEquals(train.numRows(), model._output._nobs);
+        score = model.score(train);
+      } finally {
+        job.remove();
+      }
+    } finally {
+      if (train != null) train.delete();
+      if (score != null) score.delete();
+      if (model != null) model.delete();
+    }
+  }
+
+  // Two columns are linear combinations of the others: the last singular values are 0, and so are their
+  // columns of U, while the other columns of U stay orthonormal
+  @Test public void testRandomizedRankDeficient() {
+    SVDModel model = null;
+    Frame train = null, u = null;
+    Vec base = null;
+    try {
+      base = Vec.makeZero(1000);
+      train = new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xD1CE + cs[0].start());
+          for (int r = 0; r < cs[0]._len; r++) {
+            double x0 = rnd.nextGaussian(), x1 = rnd.nextGaussian(), x2 = rnd.nextGaussian();
+            ncs[0].addNum(x0);
+            ncs[1].addNum(x1);
+            ncs[2].addNum(x2);
+            ncs[3].addNum(x0 + x1);
+            ncs[4].addNum(x2 - x0);
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM}, base)
+       .outputFrame(Key.make(), new String[]{"x0", "x1", "x2", "x3", "x4"}, null);
+      SVDModel.SVDParameters parms = new SVDModel.SVDParameters();
+      parms._train = train._key;
+      parms._nv = 5;
+      parms._keep_u = true;
+      parms._transform = DataInfo.TransformType.NONE;
+      parms._svd_method = SVDParameters.Method.Randomized;
+      parms._max_iterations = 20;
+      parms._seed = 1234;
+      parms._save_v_frame = false;
+
+      SVD job = new SVD(parms);
+      try {
+        model = job.trainModel().get();
+      } finally {
+        job.remove();
+      }
+      double[] d = model._output._d;
+      Assert.assertTrue(d[2] > 0);
+      Assert.assertEquals(0, d[3], 0);
+      Assert.assertEquals(0, d[4], 0);
+
+      u = DKV.getGet(model._output._u_key);
+      double[][] utu = new double[5][5];
+      for (long r = 0; r < u.numRows(); r++)
+        for (int i = 0; i < 5; i++)
+          for (int j = 0; j < 5; j++)
+            utu[i][j] += u.vec(i).at(r) * u.vec(j).at(r);
+      for (int i = 0; i < 5; i++)
+        for (int j = 0; j < 5; j++)
+          Assert.assertEquals("U'U[" + i + "][" + j + "]", i == j && i < 3 ? 1 : 0, utu[i][j], 1e-6);
+    } finally {
+      if (train != null) train.delete();
+      if (base != null) base.remove();
+      if (model != null) model.delete();
+    }
+  }
+
   @Test public void testIrisGram() throws InterruptedException, ExecutionException {
     // Expected right singular values and vectors
     double[] d_expected = new double[] {96.2090445, 19.0425654, 7.2250378, 3.1636131, 1.8816739, 1.1451307, 0.5820806};
@@ -0,0 +1,110 @@
+package hex.tree;
+
+import hex.ModelMetrics;
+import hex.ModelMetricsBinomial;
+import hex.ScoreKeeper;
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Key;
+import water.MRTask;
+import water.TestUtil;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SharedTreeTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  // Classes keep their share of the sample, but at least MIN_SAMPLES_PER_CLASS rows
+  @Test public void testValidationSampleProbs() {
+    assertArrayEquals(new double[]{.1}, SharedTree.sampleProbs(2000, 20000, null, 1), 0);
+    assertArrayEquals(new double[]{.1, .1}, SharedTree.sampleProbs(2000, 20000, new long[]{10000, 10000}, 2), 0);
+    assertArrayEquals(new double[]{.1, 1}, SharedTree.sampleProbs(2000, 20000, new long[]{19500, 500}, 2), 0);
+    assertArrayEquals(new double[]{.1, SharedTree.MIN_SAMPLES_PER_CLASS / 2000.}, SharedTree.sampleProbs(2000, 20000, new long[]{18000, 2000}, 2), 1e-15);
+  }
+
+  // The hashed row sample has the expected size in every class
+  @Test public void testValidationSampleSize() {
+    final long seed = 0xDECAF;
+    final int nrows = 200000;
+    double[] probs = SharedTree.sampleProbs(2000, nrows, new long[]{nrows - nrows / 100, nrows / 100}, 2);
+    long[] sampled = new long[2], counts = new long[2];
+    for (int r = 0; r < nrows; r++) {
+      int c = r % 100 == 0 ? 1 : 0;
+      counts[c]++;
+      if (Score.sampled(Score.hash(seed, r), probs[c])) sampled[c]++;
+    }
+    for (int c = 0; c < 2; c++) {
+      double mean = counts[c] * probs[c], sd = Math.sqrt(mean * (1 - probs[c]));
+      assertEquals("class " + c, mean, sampled[c], 5 * sd);
+    }
+    assertTrue(sampled[1] >= .9 * SharedTree.MIN_SAMPLES_PER_CLASS);
+  }
+
+  // Sampled validation scoring only decides to go on: the full validation frame is scored before stopping
+  @Test public void testFullValidationBeforeStopping() {
+    Vec base = null;
+    Frame fr = null;
+    GBMModel gbm = null;
+    GBM job = null;
+    try {
+      base = Vec.makeZero(20000);
+      fr = new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xFACE + cs[0].start());
+          for (int r = 0; r < cs[0]._len; r++) {
+            double x1 = rnd.nextGaussian(), x2 = rnd.nextGaussian();
+            ncs[0].addNum(x1);
+            ncs[1].addNum(x2);
+            ncs[2].addNum(x1 + .3 * x2 + .5 * rnd.nextGaussian() > 1.8 ? 1 : 0);
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM, Vec.T_NUM, Vec.T_CAT}, base)
+       .outputFrame(Key.make(), new String[]{"x1", "x2", "y"}, new String[][]{null, null, {"no", "yes"}});
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._valid = fr._key;
+      parms._response_column = "y";
+      parms._ntrees = 200;
+      parms._max_depth = 3;
+      parms._learn_rate = .1f;
+      parms._seed = 1234;
+      parms._score_each_iteration = true;
+      parms._score_validation_samples = 2000;
+      parms._stopping_rounds = 2;
+      parms._stopping_tolerance = 1e-2;
+      parms._stopping_metric = ScoreKeeper.StoppingMetric.logloss;
+      job = new GBM(parms);
+      gbm = job.trainModel().get();
+
+      assertTrue("no early stopping", gbm._output._ntrees < parms._ntrees);
+      SharedTree bldr = job;
+      double[] probs = bldr.validSampleProbs();
+      assertTrue(probs[0] < 1 && probs[1] > probs[0]);
+      // Sampled while going on, then in full to stop and for the final metrics
+      assertTrue(bldr._fullValidScorings >= 2);
+      assertTrue(bldr._fullValidScorings < gbm._output._ntrees);
+
+      gbm.score(fr).delete();
+      ModelMetricsBinomial mm = (ModelMetricsBinomial) ModelMetrics.getFromDKV(gbm, fr);
+      ScoreKeeper last = gbm._output._scored_valid[gbm._output._ntrees];
+      assertEquals(mm._logloss, last._logloss, 1e-6 * mm._logloss);
+      assertEquals(mm._logloss, ((ModelMetricsBinomial) gbm._output._validation_metrics)._logloss, 1e-6 * mm._logloss);
+    } finally {
+      if (job != null) job.remove();
+      if (gbm != null) gbm.delete();
+      if (fr != null) fr.delete();
+      if (base != null) base.remove();
+    }
+  }
+}
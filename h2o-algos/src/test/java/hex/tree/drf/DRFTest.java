@@ -8,7 +8,9 @@ import org.junit.*;
 import static org.junit.Assert.assertEquals;
 import water.*;
 import water.exceptions.H2OModelBuilderIllegalArgumentException;
+import water.fvec.Chunk;
 import water.fvec.Frame;
+import water.fvec.NewChunk;
 import water.fvec.RebalanceDataSet;
 import water.fvec.Vec;
 import water.util.Log;
@@ -1269,4 +1271,173 @@ public class DRFTest extends TestUtil {
       Scope.exit();
     }
   }
+
+  @Test
+  public void testTreesPerPass() {
+    Frame tfr = null;
+    DRFModel drf1 = null, drf2 = null;
+
+    Scope.enter();
+    try {
+      tfr = parse_test_file("./smalldata/junit/cars.csv");
+      tfr.remove("name").remove();
+      DKV.put(tfr);
+      DRFModel.DRFParameters parms = new DRFModel.DRFParameters();
+      parms._train = tfr._key;
+      parms._response_column = "cylinders"; //regression
+      parms._seed = 234;
+      parms._min_rows = 2;
+      parms._max_depth = 5;
+      parms._ntrees = 7;
+      parms._mtries = 3;
+      parms._sample_rate = 0.5f;
+
+      DRF job1 = new DRF(parms);
+      drf1 = job1.trainModel().get();
+      job1.remove();
+
+      // Same trees, grown 3 at a time (and a last single one)
+      DRFModel.DRFParameters parms2 = (DRFModel.DRFParameters) parms.clone();
+      parms2._trees_per_pass = 3;
+      DRF job2 = new DRF(parms2);
+      drf2 = job2.trainModel().get();
+      job2.remove();
+
+      assertEquals(7, drf2._output._ntrees);
+      ModelMetricsRegression mm1 = (ModelMetricsRegression)drf1._output._training_metrics;
+      ModelMetricsRegression mm2 = (ModelMetricsRegression)drf2._output._training_metrics;
+      assertEquals(mm1.mse(), mm2.mse(), 1e-6);
+    } finally {
+      if (tfr != null) tfr.remove();
+      if (drf1 != null) drf1.delete();
+      if (drf2 != null) drf2.delete();
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testPermutationVarImp() {
+    Frame tfr = null;
+    DRFModel drf = null;
+
+    Scope.enter();
+    try {
+      tfr = parse_test_file("./smalldata/junit/cars.csv");
+      tfr.remove("name").remove();
+      DKV.put(tfr);
+      DRFModel.DRFParameters parms = new DRFModel.DRFParameters();
+      parms._train = tfr._key;
+      parms._response_column = "cylinders"; //regression
+      parms._seed = 234;
+      parms._ntrees = 10;
+      parms._max_depth = 5;
+
+      DRF job = new DRF(parms);
+      drf = job.trainModel().get();
+      job.remove();
+
+      hex.VarImp vi1 = drf.permutationVarImp(tfr, 42);
+      hex.VarImp vi2 = drf.permutationVarImp(tfr, 42);
+      assertEquals(drf._output.nfeatures(), vi1._varimp.length);
+      Assert.assertArrayEquals(Arrays.copyOf(drf._output._names, drf._output.nfeatures()), vi1._names);
+      Assert.assertArrayEquals(vi1._varimp, vi2._varimp, 0);
+      float max = Float.NEGATIVE_INFINITY;
+      for (float v : vi1._varimp) max = Math.max(max, v);
+      Assert.assertTrue("Some predictor must matter", max > 0);
+    } finally {
+      if (tfr != null) tfr.remove();
+      if (drf != null) drf.delete();
+      Scope.exit();
+    }
+  }
+
+  // On data sorted by the important predictor the one-pass importance must agree with naively
+  // scoring a fully shuffled copy of each column: a shuffle within chunks would barely move it
+  @Test
+  public void testPermutationVarImpSortedData() {
+    final int n = 20000;
+    double[][] cols = new double[3][n];
+    Random rnd = new Random(0xBEEF);
+    for (int r = 0; r < n; r++) {
+      cols[0][r] = (double) r / n;              // x1: sorted, drives the response
+      cols[1][r] = rnd.nextDouble();            // x2: noise
+      cols[2][r] = 10 * cols[0][r] + .5 * rnd.nextGaussian();
+    }
+    String[] names = new String[]{"x1", "x2", "y"};
+    Frame fr = null;
+    DRFModel drf = null;
+    try {
+      fr = chunkedFrame(names, cols);
+      Assert.assertTrue(fr.anyVec().nChunks() > 10);
+      DRFModel.DRFParameters parms = new DRFModel.DRFParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._seed = 234;
+      parms._ntrees = 20;
+      parms._max_depth = 8;
+      DRF job = new DRF(parms);
+      drf = job.trainModel().get();
+      job.remove();
+
+      hex.VarImp vi = drf.permutationVarImp(fr, 42);
+      Assert.assertArrayEquals(new String[]{"x1", "x2"}, vi._names);
+      double base = mse(drf, names, cols);
+      double[] naive = new double[2];
+      for (int v = 0; v < 2; v++) {
+        double[][] shuffled = cols.clone();
+        shuffled[v] = cols[v].clone();
+        Random srnd = new Random(7 + v);
+        for (int i = n - 1; i > 0; i--) {
+          int j = srnd.nextInt(i + 1);
+          double d = shuffled[v][i]; shuffled[v][i] = shuffled[v][j]; shuffled[v][j] = d;
+        }
+        naive[v] = mse(drf, names, shuffled) - base;
+      }
+      Log.info("Permutation importance: " + Arrays.toString(vi._varimp) + ", naive: " + Arrays.toString(naive));
+      Assert.assertTrue(naive[0] > 10);
+      assertEquals(naive[0], vi._varimp[0], .1 * naive[0]);
+      Assert.assertTrue(Math.abs(vi._varimp[1]) < .05 * vi._varimp[0]);
+      Assert.assertTrue(Math.abs(naive[1]) < .05 * naive[0]);
+    } finally {
+      if (fr != null) fr.delete();
+      if (drf != null) drf.delete();
+    }
+  }
+
+  // Mean squared error of a regression model on the given columns, response last
+  private static double mse(Model m, String[] names, double[][] cols) {
+    Frame fr = chunkedFrame(names, cols);
+    Frame preds = null;
+    try {
+      preds = m.score(fr);
+      double sse = 0;
+      double[] y = cols[cols.length - 1];
+      for (int r = 0; r < y.length; r++) {
+        double d = y[r] - preds.vec(0).at(r);
+        sse += d * d;
+      }
+      return sse / y.length;
+    } finally {
+      if (preds != null) preds.delete();
+      fr.delete();
+    }
+  }
+
+  // Numeric frame of the given columns, in chunks of 1024 rows
+  private static Frame chunkedFrame(String[] names, final double[][] cols) {
+    Vec base = Vec.makeCon(0, cols[0].length, 10, false);
+    byte[] types = new byte[cols.length];
+    Arrays.fill(types, Vec.T_NUM);
+    try {
+      return new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          for (int c = 0; c < ncs.length; c++)
+            for (int r = 0; r < cs[0]._len; r++)
+              ncs[c].addNum(cols[c][(int) cs[0].start() + r]);
+        }
+      }.doAll(types, base).outputFrame(Key.make(), names, null);
+    } finally {
+      base.remove();
+    }
+  }
 }
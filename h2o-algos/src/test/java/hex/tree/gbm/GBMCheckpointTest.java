@@ -43,6 +43,17 @@ public class GBMCheckpointTest extends TestUtil {
     testCheckPointReconstruction("smalldata/logreg/prostate.csv", 8, false, 5, 3);
   }
 
+  /** Continue from a checkpoint which kept its tree state, instead of rescoring its trees. */
+  @Test
+  public void testCheckpointKeptTreeState4Regression() {
+    testCheckPointReconstruction("smalldata/logreg/prostate.csv", 8, false, 5, 3, 0.632f, 0.632f, true);
+  }
+
+  @Test
+  public void testCheckpointKeptTreeState4Multinomial() {
+    testCheckPointReconstruction("smalldata/iris/iris.csv", 4, true, 5, 3, 0.632f, 0.632f, true);
+  }
+
   private void testCheckPointReconstruction(String dataset,
                                             int responseIdx,
                                             boolean classification,
@@ -55,6 +66,15 @@ public class GBMCheckpointTest extends TestUtil {
                                             boolean classification,
                                             int ntreesInPriorModel, int ntreesInNewModel,
                                             float sampleRateInPriorModel, float sampleRateInNewModel) {
+    testCheckPointReconstruction(dataset, responseIdx, classification, ntreesInPriorModel, ntreesInNewModel, sampleRateInPriorModel, sampleRateInNewModel, false);
+  }
+
+  private void testCheckPointReconstruction(String dataset,
+                                            int responseIdx,
+                                            boolean classification,
+                                            int ntreesInPriorModel, int ntreesInNewModel,
+                                            float sampleRateInPriorModel, float sampleRateInNewModel,
+                                            boolean keepTreeState) {
     Frame f = parse_test_file(dataset);
     // If classification turn response into categorical
     if (classification) {
@@ -74,7 +94,9 @@ public class GBMCheckpointTest extends TestUtil {
       gbmParams._seed = 42;
       gbmParams._max_depth = 10;
       gbmParams._score_each_iteration = true;
+      gbmParams._keep_tree_state = keepTreeState;
       model = new GBM(gbmParams).trainModel().get();
+      Assert.assertEquals(keepTreeState, model._output._tree_state != null);
 
       GBMModel.GBMParameters gbmFromCheckpointParams = new GBMModel.GBMParameters();
       gbmFromCheckpointParams._model_id = Key.make("Model from checkpoint");
@@ -85,7 +107,9 @@ public class GBMCheckpointTest extends TestUtil {
       gbmFromCheckpointParams._checkpoint = model._key;
       gbmFromCheckpointParams._score_each_iteration = true;
       gbmFromCheckpointParams._max_depth = 10;
-      modelFromCheckpoint = new GBM(gbmFromCheckpointParams).trainModel().get();
+      GBM job = new GBM(gbmFromCheckpointParams);
+      modelFromCheckpoint = job.trainModel().get();
+      Assert.assertEquals(keepTreeState, job.treeStateRestored());
 
       // Compute a separated model containing the same numnber of trees as a model built from checkpoint
       GBMModel.GBMParameters gbmFinalParams = new GBMModel.GBMParameters();
@@ -121,6 +145,91 @@ public class GBMCheckpointTest extends TestUtil {
     }
   }
 
+  /** A tree state kept for other training data is not restored: the prior trees are rescored on the new frame. */
+  @Test
+  public void testCheckpointTreeStateOtherFrame() {
+    Frame f = parse_test_file("smalldata/logreg/prostate.csv");
+    Frame f2 = null;
+    GBMModel kept = null, notKept = null, fromKept = null, fromNotKept = null;
+    try {
+      // Same row layout, one predictor value changed
+      f2 = f.deepCopy(Key.make().toString());
+      f2.vec("AGE").set(0, f2.vec("AGE").at(0) + 10);
+      DKV.put(f2);
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = f._key;
+      parms._response_column = "GLEASON";
+      parms._ntrees = 5;
+      parms._seed = 42;
+      parms._max_depth = 10;
+      parms._keep_tree_state = true;
+      kept = new GBM(parms).trainModel().get();
+      Assert.assertNotNull(kept._output._tree_state);
+      parms._keep_tree_state = false;
+      notKept = new GBM(parms).trainModel().get();
+
+      parms._train = f2._key;
+      parms._ntrees = 8;
+      parms._checkpoint = kept._key;
+      GBM job = new GBM(parms);
+      fromKept = job.trainModel().get();
+      Assert.assertFalse(job.treeStateRestored());
+      parms._checkpoint = notKept._key;
+      job = new GBM(parms);
+      fromNotKept = job.trainModel().get();
+      Assert.assertFalse(job.treeStateRestored());
+
+      assertTreeEquals("Falling back to rescoring the prior trees should build the same trees as a checkpoint without tree state",
+              getTrees(fromNotKept), getTrees(fromKept), true);
+    } finally {
+      f.delete();
+      if (f2 != null) f2.delete();
+      for (GBMModel m : new GBMModel[]{kept, notKept, fromKept, fromNotKept})
+        if (m != null) m.delete();
+    }
+  }
+
+  /** Writes into the training frame since the checkpoint are seen, even though the Vecs are the same objects. */
+  @Test
+  public void testCheckpointTreeStateFrameChangedInPlace() {
+    Frame f = parse_test_file("smalldata/logreg/prostate.csv");
+    GBMModel kept = null, notKept = null, fromKept = null, fromNotKept = null;
+    try {
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = f._key;
+      parms._response_column = "GLEASON";
+      parms._ntrees = 5;
+      parms._seed = 42;
+      parms._max_depth = 10;
+      parms._keep_tree_state = true;
+      kept = new GBM(parms).trainModel().get();
+      Assert.assertNotNull(kept._output._tree_state);
+      parms._keep_tree_state = false;
+      notKept = new GBM(parms).trainModel().get();
+
+      // Same frame and Vecs, one predictor value changed in place
+      f.vec("AGE").set(0, f.vec("AGE").at(0) + 10);
+
+      parms._ntrees = 8;
+      parms._checkpoint = kept._key;
+      GBM job = new GBM(parms);
+      fromKept = job.trainModel().get();
+      Assert.assertFalse(job.treeStateRestored());
+      parms._checkpoint = notKept._key;
+      job = new GBM(parms);
+      fromNotKept = job.trainModel().get();
+      Assert.assertFalse(job.treeStateRestored());
+
+      assertTreeEquals("Falling back to rescoring the prior trees should build the same trees as a checkpoint without tree state",
+              getTrees(fromNotKept), getTrees(fromKept), true);
+    } finally {
+      f.delete();
+      for (GBMModel m : new GBMModel[]{kept, notKept, fromKept, fromNotKept})
+        if (m != null) m.delete();
+    }
+  }
+
   @Ignore("PUBDEV-1829")
   public void testCheckpointReconstruction4BinomialPUBDEV1829() {
     Frame tr = parse_test_file("smalldata/jira/gbm_checkpoint_train.csv");
@@ -14,8 +14,10 @@ import java.util.Set;
 
 import hex.Distribution;
 import hex.Model;
+import hex.ScoreKeeper;
 import hex.grid.Grid;
 import hex.grid.GridSearch;
+import hex.grid.HyperSpaceWalker;
 import water.DKV;
 import water.Key;
 import water.TestUtil;
@@ -296,4 +298,65 @@ public class GBMGridTest extends TestUtil {
       }
     }
   }
+
+  @Test
+  public void testSuccessiveHalvingCarsGrid() {
+    Grid grid = null;
+    Frame fr = null;
+    Vec old = null;
+    try {
+      fr = parse_test_file("smalldata/junit/cars.csv");
+      fr.remove("name").remove();
+      old = fr.remove("economy (mpg)");
+      fr.add("economy (mpg)", old); // response to last column
+      DKV.put(fr);
+
+      HashMap<String, Object[]> hyperParms = new HashMap<>();
+      hyperParms.put("_max_depth", new Integer[]{1, 2, 3, 5});
+      hyperParms.put("_learn_rate", new Float[]{0.01f, 0.1f, 0.3f});
+
+      GBMModel.GBMParameters params = new GBMModel.GBMParameters();
+      params._train = fr._key;
+      params._response_column = "economy (mpg)";
+      params._distribution = Distribution.Family.gaussian;
+
+      // 12 points with 2 trees, the best 4 continue to 6 trees, the best one to 18 trees
+      HyperSpaceWalker.SuccessiveHalvingWalker<GBMModel.GBMParameters> walker =
+          new HyperSpaceWalker.SuccessiveHalvingWalker<>(params, hyperParms,
+                                                         new GridSearch.SimpleParametersBuilderFactory<GBMModel.GBMParameters>(),
+                                                         "_ntrees", 2, 18, 3, true,
+                                                         ScoreKeeper.StoppingMetric.AUTO);
+      Assert.assertEquals(12 + 4 + 1, walker.getHyperSpaceSize());
+      GridSearch gs = GridSearch.startGridSearch(null, GBM_MODEL_FACTORY, walker);
+      grid = (Grid) gs.get();
+      Assert.assertEquals(0, grid.getFailureCount());
+      Assert.assertEquals(12 + 4 + 1, grid.getModelCount());
+
+      int[] counts = new int[19];
+      double best2 = Double.MAX_VALUE;
+      GBMModel finalist = null;
+      for (Model m : grid.getModels()) {
+        GBMModel gbm = (GBMModel) m;
+        counts[gbm._parms._ntrees]++;
+        if (gbm._parms._ntrees == 2) best2 = Math.min(best2, gbm._output._training_metrics._MSE);
+        if (gbm._parms._ntrees == 18) finalist = gbm;
+      }
+      Assert.assertEquals(12, counts[2]);
+      Assert.assertEquals(4, counts[6]);
+      Assert.assertEquals(1, counts[18]);
+      // The finalist continued from its earlier models, and beats the best of the first round
+      Assert.assertNotNull(finalist._parms._checkpoint);
+      assertTrue(finalist._output._training_metrics._MSE < best2);
+    } finally {
+      if (old != null) {
+        old.remove();
+      }
+      if (fr != null) {
+        fr.remove();
+      }
+      if (grid != null) {
+        grid.remove();
+      }
+    }
+  }
 }
@@ -1374,6 +1374,147 @@ public class GBMTest extends TestUtil {
     }
   }
 
+  // The fold models are built concurrently, and the holdout metrics of the single scoring
+  // pass equal those of scoring each fold model on its own holdout rows
+  @Test
+  public void testNfoldsConcurrentScoring() {
+    Vec base = null;
+    Frame fr = null, preds = null;
+    GBMModel gbm = null;
+
+    Scope.enter();
+    try {
+      base = Vec.makeZero(20000);
+      fr = new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xF01D + cs[0].start());
+          for (int r = 0; r < cs[0]._len; r++) {
+            double x1 = rnd.nextGaussian(), x2 = rnd.nextGaussian();
+            ncs[0].addNum(x1);
+            ncs[1].addNum(x2);
+            ncs[2].addNum(rnd.nextInt(3));
+            ncs[3].addNum(x1 - 2 * x2 * x2 + .5 * rnd.nextGaussian());
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM}, base)
+       .outputFrame(Key.make(), new String[]{"x1", "x2", "fold", "y"}, null);
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._fold_column = "fold";
+      parms._seed = 1234;
+      parms._max_depth = 4;
+      parms._ntrees = 20;
+
+      GBM job = new GBM(parms);
+      gbm = job.trainModel().get();
+      job.remove();
+
+      Key[] cvKeys = gbm._output._cross_validation_models;
+      assertEquals(3, cvKeys.length);
+      long firstEnd = Long.MAX_VALUE, lastStart = 0;
+      double sse = 0;
+      Vec fold = fr.vec("fold"), y = fr.vec("y");
+      for (int i = 0; i < cvKeys.length; i++) {
+        GBMModel cv = DKV.getGet(cvKeys[i]);
+        long[] times = cv._output._training_time_ms;
+        lastStart = Math.max(lastStart, cv._output._start_time);
+        firstEnd = Math.min(firstEnd, times[times.length - 1]);
+        preds = cv.score(fr);
+        for (long r = 0; r < fr.numRows(); r++)
+          if (fold.at8(r) == i) {
+            double d = preds.vec(0).at(r) - y.at(r);
+            sse += d * d;
+          }
+        preds.delete();
+        preds = null;
+      }
+      assertTrue("fold models ran one after the other", lastStart < firstEnd);
+
+      ModelMetricsRegression mm = (ModelMetricsRegression)gbm._output._cross_validation_metrics;
+      double mse = sse / fr.numRows();
+      assertEquals(mse, mm.mse(), 1e-8 * mse);
+    } finally {
+      if (preds != null) preds.delete();
+      if (fr != null) fr.delete();
+      if (base != null) base.remove();
+      if (gbm != null) {
+        gbm.deleteCrossValidationModels();
+        gbm.delete();
+      }
+      Scope.exit();
+    }
+  }
+
+  // Cancelling mid-CV stops the fold builders and the main model before the
+  // CV frames underneath them are removed
+  @Test
+  public void testNfoldsCancel() {
+    Vec base = null;
+    Frame fr = null;
+    GBM job = null;
+
+    Scope.enter();
+    try {
+      base = Vec.makeZero(20000);
+      fr = new MRTask() {
+        @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+          Random rnd = new Random(0xCA7C + cs[0].start());
+          for (int r = 0; r < cs[0]._len; r++) {
+            double x1 = rnd.nextGaussian(), x2 = rnd.nextGaussian();
+            ncs[0].addNum(x1);
+            ncs[1].addNum(x2);
+            ncs[2].addNum(rnd.nextInt(3));
+            ncs[3].addNum(x1 - 2 * x2 * x2 + .5 * rnd.nextGaussian());
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM}, base)
+       .outputFrame(Key.make(), new String[]{"x1", "x2", "fold", "y"}, null);
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._fold_column = "fold";
+      parms._seed = 1234;
+      parms._max_depth = 8;
+      parms._ntrees = 10000;
+
+      job = new GBM(parms);
+      job.trainModel();
+      Key<Job> cvKey = Key.make(job._key.toString() + "_cv0");
+      Key cvTrainKey = Key.make(job.dest().toString() + "_cv_1_" + fr._key.toString() + "_train");
+      Job cv = null;
+      long deadline = System.currentTimeMillis() + 60000;
+      while (cv == null || !cv.isRunning()) {
+        assertTrue("fold model never started", System.currentTimeMillis() < deadline);
+        cv = DKV.getGet(cvKey);
+        try { Thread.sleep(10); } catch (InterruptedException ignore) { }
+      }
+      job.cancel();
+
+      // The CV frames are removed only after every build has wound down
+      while (DKV.get(cvTrainKey) != null) {
+        assertTrue("CV frames never removed", System.currentTimeMillis() < deadline);
+        try { Thread.sleep(1); } catch (InterruptedException ignore) { }
+      }
+      assertTrue("fold model still running", cv.isFinished());
+      assertTrue("main model still running", job.isFinished());
+      assertTrue(job.isCancelledOrCrashed());
+    } finally {
+      if (job != null) {
+        for (int i = 0; i <= 3; i++) {
+          Model m = DKV.getGet(i == 0 ? job.dest() : Key.make(job.dest().toString() + "_cv_" + i));
+          if (m != null) m.delete();
+        }
+        job.remove();
+      }
+      if (fr != null) fr.delete();
+      if (base != null) base.remove();
+      Scope.exit();
+    }
+  }
+
   // just a simple sanity check - not a golden test
   @Test
   public void testDistributions() {
@@ -0,0 +1,60 @@
+package hex.word2vec;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.TestUtil;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+public class WordVectorIndexTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  // Words scattered around a few hundred topics; a word's synonyms are the
+  // other words of its topic
+  private static WordVectorIndex makeIndex(int nwords, int ntopics, int vecSize, long seed) {
+    Random rand = new Random(seed);
+    float[][] topics = new float[ntopics][vecSize];
+    for( float[] t : topics )
+      for( int j = 0; j < vecSize; j++ ) t[j] = (float)rand.nextGaussian();
+    String[] words = new String[nwords];
+    float[] vecs = new float[nwords * vecSize];
+    for( int i = 0; i < nwords; i++ ) {
+      words[i] = "w" + i;
+      float[] t = topics[i % ntopics];
+      for( int j = 0; j < vecSize; j++ ) vecs[i * vecSize + j] = t[j] + 0.1f * (float)rand.nextGaussian();
+    }
+    return new WordVectorIndex(words, vecs, vecSize);
+  }
+
+  @Test public void testExactLookup() {
+    WordVectorIndex idx = makeIndex(1000, 50, 8, 1234);
+    Assert.assertEquals(17, idx.row("w17"));
+    Assert.assertEquals(-1, idx.row("nope"));
+    Assert.assertNull(idx.vector("nope"));
+    WordVectorIndex.Synonyms syn = idx.synonyms(idx.vector("w17"), 5, true);
+    Assert.assertEquals(5, syn._words.length);
+    for( int i = 0; i < syn._words.length; i++ ) {
+      Assert.assertNotEquals("w17", syn._words[i]);   // The word itself is not its synonym
+      Assert.assertEquals(17 % 50, Integer.parseInt(syn._words[i].substring(1)) % 50);
+      if( i > 0 ) Assert.assertTrue(syn._similarities[i] <= syn._similarities[i-1]);
+    }
+  }
+
+  @Test public void testApproximateRecall() {
+    WordVectorIndex idx = makeIndex(WordVectorIndex.MIN_ANN_VOCAB + 10000, 600, 16, 42);
+    String[] targets = new String[50];
+    for( int i = 0; i < targets.length; i++ ) targets[i] = "w" + (i * 997);
+    WordVectorIndex.Synonyms[] approx = idx.synonyms(targets, 10);
+    int hits = 0, total = 0;
+    for( int i = 0; i < targets.length; i++ ) {
+      WordVectorIndex.Synonyms exact = idx.synonyms(idx.vector(targets[i]), 10, true);
+      HashSet<String> truth = new HashSet<>(Arrays.asList(exact._words));
+      for( String w : approx[i]._words ) if( truth.contains(w) ) hits++;
+      total += exact._words.length;
+    }
+    Assert.assertTrue("recall " + hits + "/" + total, hits >= 0.9 * total);
+  }
+}
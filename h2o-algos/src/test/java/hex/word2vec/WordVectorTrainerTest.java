@@ -0,0 +1,98 @@
+package hex.word2vec;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Key;
+import water.MRTask;
+import water.TestUtil;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.parser.BufferedString;
+
+public class WordVectorTrainerTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  // 20 frequent words, and a rare word every 1000 rows, in chunks of 512 rows
+  private static Frame corpus(Vec base) {
+    return new MRTask() {
+      @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+        for (int r = 0; r < cs[0]._len; r++) {
+          long row = cs[0].start() + r;
+          ncs[0].addStr(row % 1000 == 0 ? "rare" + row : "w" + (row * 7 % 20));
+        }
+      }
+    }.doAll(new byte[]{Vec.T_STR}, base).outputFrame(Key.make(), new String[]{"words"}, null);
+  }
+
+  @Test public void testWordIds() {
+    Vec base = Vec.makeCon(0, 4000, 9, false);
+    Frame fr = null, vocab = null, ids = null;
+    try {
+      fr = corpus(base);
+      Key<Frame> vocabKey = new WordCountTask(5).doAll(fr)._wordCountKey;
+      vocab = vocabKey.get();
+      Assert.assertEquals(20, vocab.numRows());
+      ids = WordIdTask.wordIds(fr, vocabKey);
+      Assert.assertEquals(1, ids.numCols());
+      Assert.assertArrayEquals(fr.anyVec().espc(), ids.anyVec().espc());
+      BufferedString word = new BufferedString(), vocabWord = new BufferedString();
+      for (long row = 0; row < fr.numRows(); row++) {
+        String w = fr.vec(0).atStr(word, row).toString();
+        int id = (int) ids.vec(0).at8(row);
+        if (w.startsWith("rare")) Assert.assertEquals(w, -1, id);
+        else Assert.assertEquals(w, vocab.vec(0).atStr(vocabWord, id).toString());
+      }
+    } finally {
+      if (ids != null) ids.delete();
+      if (vocab != null) vocab.delete();
+      if (fr != null) fr.delete();
+      base.remove();
+    }
+  }
+
+  // Every chunk is trained on exactly once per epoch, however many times the weights are averaged
+  @Test public void testSyncsPerEpoch() {
+    Vec base = Vec.makeCon(0, 4000, 9, false);
+    Frame fr = null, vocab = null, ids = null;
+    try {
+      fr = corpus(base);
+      Assert.assertEquals(8, fr.anyVec().nChunks());
+      Word2VecModel.Word2VecParameters parms = new Word2VecModel.Word2VecParameters();
+      parms._train = fr._key;
+      parms._minWordFreq = 5;
+      parms._vecSize = 10;
+      parms._windowSize = 2;
+      parms._sentSampleRate = 0;
+      parms._epochs = 1;
+      parms._seed = 42;
+      Word2VecModel.Word2VecModelInfo info = new Word2VecModel.Word2VecModelInfo(parms);
+      vocab = parms._vocabKey.get();
+      ids = WordIdTask.wordIds(fr, parms._vocabKey);
+
+      long before = info.getGloballyProcessed();
+      info = new WordVectorTrainer(info, 0, 0, 1).doAll(ids).getModelInfo();
+      long once = info.getGloballyProcessed() - before;
+      Assert.assertTrue(once > 0);
+
+      final int passes = 3;
+      long total = 0;
+      for (int pass = 0; pass < passes; pass++) {
+        before = info.getGloballyProcessed();
+        info = new WordVectorTrainer(info, 1, pass, passes).doAll(ids).getModelInfo();
+        long words = info.getGloballyProcessed() - before;
+        Assert.assertTrue("pass " + pass, words > 0 && words < once);
+        total += words;
+      }
+      Assert.assertEquals(once, total);
+      for (float f : info._syn0) Assert.assertFalse(Float.isNaN(f));
+    } finally {
+      if (ids != null) ids.delete();
+      if (vocab != null) vocab.delete();
+      if (fr != null) fr.delete();
+      base.remove();
+    }
+  }
+}
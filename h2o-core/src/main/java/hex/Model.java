@@ -21,6 +21,7 @@ import water.H2O;
 import water.Iced;
 import water.Job;
 import water.Key;
+import water.Keyed;
 import water.Lockable;
 import water.MRTask;
 import water.MemoryManager;
@@ -559,7 +560,16 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
    *  if any factor column has no levels in common.
    */
   public String[] adaptTestForTrain( Frame test, boolean expensive, boolean computeMetrics) {
-    return adaptTestForTrain(_output._names, _output.weightsName(), _output.offsetName(), _output.foldName(), _output.responseName(), _output._domains, test, _parms.missingColumnsType(), expensive, computeMetrics);
+    if( !expensive || test == null )
+      return adaptTestForTrain(_output._names, _output.weightsName(), _output.offsetName(), _output.foldName(), _output.responseName(), _output._domains, test, _parms.missingColumnsType(), expensive, computeMetrics);
+    // Frames with the same column layout adapt identically; replay a cached plan if there is one
+    String sig = ScoringCache.signature(test) + (computeMetrics ? "+m" : "-m");
+    ScoringCache.AdaptPlan plan = ScoringCache.getPlan(this, sig, test);
+    if( plan != null ) return plan.apply(_output._names, test);
+    plan = new ScoringCache.AdaptPlan(_output._names.length, test);
+    String[] msgs = adaptTestForTrain(_output._names, _output.weightsName(), _output.offsetName(), _output.foldName(), _output.responseName(), _output._domains, test, _parms.missingColumnsType(), expensive, computeMetrics, plan);
+    ScoringCache.putPlan(this, sig, plan);
+    return msgs;
   }
   /**
    * @param names Training column names
@@ -571,6 +581,12 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
    * @param missing Substitute for missing columns; usually NaN
    * */
   public static String[] adaptTestForTrain(String[] names, String weights, String offset, String fold, String response, String[][] domains, Frame test, double missing, boolean expensive, boolean computeMetrics) throws IllegalArgumentException {
+    return adaptTestForTrain(names, weights, offset, fold, response, domains, test, missing, expensive, computeMetrics, null);
+  }
+
+  /** As above, but also records the adaptation into {@code plan} (if not
+   *  null), so it can be replayed on frames with the same column layout. */
+  private static String[] adaptTestForTrain(String[] names, String weights, String offset, String fold, String response, String[][] domains, Frame test, double missing, boolean expensive, boolean computeMetrics, ScoringCache.AdaptPlan plan) throws IllegalArgumentException {
     if( test == null) return new String[0];
     // Fast path cutout: already compatible
     String[][] tdomains = test.domains();
@@ -579,6 +595,7 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     // Fast path cutout: already compatible but needs work to test
     if( Arrays.equals(names,test._names) && Arrays.deepEquals(domains,tdomains) )
       return new String[0];
+    if( plan != null ) Arrays.fill(plan._action, ScoringCache.AdaptPlan.KEEP);
 
     // Build the validation set to be compatible with the training set.
     // Toss out extra columns, complain about missing ones, remap categoricals
@@ -600,6 +617,7 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
         throw new IllegalArgumentException("Test/Validation dataset is missing offset vector '" + offset + "'");
       if(vec == null && isWeights && computeMetrics && expensive) {
         vec = test.anyVec().makeCon(1);
+        if( plan != null ) { plan._action[i] = ScoringCache.AdaptPlan.CONST; plan._con[i] = 1; }
         msgs.add(H2O.technote(1, "Test/Validation dataset is missing the weights column '" + names[i] + "' (needed because a response was found and metrics are to be computed): substituting in a column of 1s"));
         //throw new IllegalArgumentException(H2O.technote(1, "Test dataset is missing weights vector '" + weights + "' (needed because a response was found and metrics are to be computed)."));
       }
@@ -617,7 +635,12 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
             convNaN++;
           }
           vec.setDomain(domains[i]);
-        }
+          if( plan != null ) {
+            plan._action[i] = ScoringCache.AdaptPlan.CONST;
+            plan._con[i] = isFold ? 0 : missing;
+            plan._conDomain[i] = domains[i];
+          }
+        } else if( plan != null ) plan._action[i] = ScoringCache.AdaptPlan.NONE;
         msgs.add(str);
       }
       if( vec != null ) {          // I have a column with a matching name
@@ -637,6 +660,12 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
               msgs.add("Test/Validation dataset column '" + names[i] + "' has levels not trained on: " + Arrays.toString(Arrays.copyOfRange(ds, domains[i].length, ds.length)));
             if (expensive) { vec = evec;  good++; } // Keep it
             else { evec.remove(); vec = null; } // No leaking if not-expensive
+            if( plan != null ) {
+              plan._action[i] = ScoringCache.AdaptPlan.REMAP;
+              plan._remap[i] = evec;
+              // Mapping a numeric column depends on its values, not only on the layout
+              if( test.vec(names[i]).domain() == null ) plan._cacheable = false;
+            }
           } else {
             good++;
           }
@@ -650,8 +679,14 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     }
     if( good == convNaN )
       throw new IllegalArgumentException("Test/Validation dataset has no columns in common with the training set");
-    if( good == names.length || (response != null && test.find(response) == -1 && good == names.length - 1) )  // Only update if got something for all columns
+    boolean restructure = good == names.length || (response != null && test.find(response) == -1 && good == names.length - 1);
+    if( restructure )  // Only update if got something for all columns
       test.restructure(names,vvecs,good);
+    if( plan != null ) {
+      plan._msgs.addAll(msgs);
+      plan._good = good;
+      plan._restructure = restructure;
+    }
     return msgs.toArray(new String[msgs.size()]);
   }
 
@@ -685,6 +720,11 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
   public Frame score(Frame fr, String destination_key) throws IllegalArgumentException {
     Frame adaptFr = new Frame(fr);
     boolean computeMetrics = (!isSupervised() || adaptFr.find(_output.responseName()) != -1);
+    // Re-scoring an unchanged frame: hand back a copy of the earlier predictions
+    if( !computeMetrics || ModelMetrics.getFromDKV(this, fr) != null ) {
+      Frame cached = ScoringCache.getScored(this, fr, destination_key);
+      if( cached != null ) return cached;
+    }
     adaptTestForTrain(adaptFr,true, computeMetrics);   // Adapt
     Frame output = predictScoreImpl(fr, adaptFr, destination_key); // Predict & Score
     // Log modest confusion matrices
@@ -712,10 +752,92 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
       }
     }
 
+    cleanup_adapt(adaptFr, fr);
+    ScoringCache.putScored(this, fr, output);
+    return output;
+  }
+
+  /** Incrementally score a frame which has grown by appending rows since
+   *  {@code previous} predictions were made on it, without keeping the
+   *  metric state.
+   *  @see #score(Frame, String, Frame, boolean) */
+  public Frame score(Frame fr, String destination_key, Frame previous) throws IllegalArgumentException {
+    return score(fr, destination_key, previous, false);
+  }
+
+  /** Incrementally score a frame which has grown by appending rows since
+   *  {@code previous} predictions were made on it.  Leading chunks whose row
+   *  layout matches {@code previous} are copied over from it rather than
+   *  scored again; only the remaining (newly appended) chunks run through the
+   *  model.  The caller asserts that the previously scored rows are
+   *  unchanged.  If the frame has a response and the metric state kept by
+   *  the earlier scoring covers exactly the copied chunks, the metrics are
+   *  updated from the new chunks only; otherwise no metrics are computed,
+   *  since they would only cover the new rows.  The result is in the DKV;
+   *  caller is responsible for deleting.
+   *
+   * @param fr grown frame which should be scored
+   * @param previous predictions made earlier by this model on a prefix of
+   *        {@code fr}, or null to score all of {@code fr}
+   * @param keepMetricState put the metric builder state of a finished model
+   *        on a keyed frame in the DKV, for the next incremental scoring of
+   *        the frame to update the metrics from
+   * @return A new frame containing the predicted values for all rows of {@code fr}
+   * @throws IllegalArgumentException if {@code previous} does not look like this model's predictions
+   */
+  public Frame score(Frame fr, String destination_key, Frame previous, boolean keepMetricState) throws IllegalArgumentException {
+    if( previous == null && !keepMetricState ) return score(fr, destination_key);
+    final int nc = _output.nclasses();
+    final int ncols = nc==1?1:nc+1;
+    if( previous != null && (previous.numCols() != ncols || previous.numRows() > fr.numRows()) )
+      throw new IllegalArgumentException("Previous predictions frame "+previous._key+" does not match this model or is longer than frame "+fr._key);
+    Frame adaptFr = new Frame(fr);
+    boolean computeMetrics = (!isSupervised() || adaptFr.find(_output.responseName()) != -1);
+    adaptTestForTrain(adaptFr, true, computeMetrics);
+    String[] names = predictionNames();
+    String[][] domains = new String[ncols][];
+    domains[0] = nc==1 ? null : _output._domains[_output._domains.length-1];
+    if( previous != null && domains[0] != null && !Arrays.equals(domains[0], previous.vec(0).domain()) )
+      throw new IllegalArgumentException("Previous predictions frame "+previous._key+" has a different prediction domain than this model");
+    // Leading chunks with identical row boundaries can be copied
+    long[] espc = adaptFr.anyVec().espc(), pespc = previous == null ? new long[]{0} : previous.anyVec().espc();
+    int reuse = 0;
+    while( reuse+1 < pespc.length && reuse+1 < espc.length && espc[reuse+1] == pespc[reuse+1] ) reuse++;
+    // Metrics of the copied chunks must come from the persisted builder state
+    String[] mdomain = nc==1 ? null : !computeMetrics ? domains[0] : adaptFr.lastVec().domain();
+    ModelMetrics.MetricBuilderState state = computeMetrics && reuse > 0 ? ModelMetrics.MetricBuilderState.get(this, fr, reuse, mdomain) : null;
+    if( computeMetrics && reuse > 0 && state == null ) {
+      Log.info("No metric state for the first "+reuse+" chunks of "+fr._key+"; skipping metrics for incremental scoring");
+      computeMetrics = false;
+      mdomain = domains[0];
+    }
+    BigScore bs = new BigScore(mdomain,ncols,adaptFr.means(),_output.hasWeights() && adaptFr.find(_output.weightsName()) >= 0,computeMetrics,true);
+    bs._previous = previous == null ? null : previous.vecs();
+    bs._reuseChunks = reuse;
+    bs.doAll(ncols, Vec.T_NUM, adaptFr);
+    if( previous != null )
+      Log.info("Incremental scoring of "+fr._key+": reused "+reuse+" of "+(espc.length-1)+" chunks from "+previous._key);
+    if( computeMetrics ) {
+      ModelMetrics.MetricBuilder mb = bs._mb;
+      if( state != null ) {
+        if( mb == null ) mb = state._mb; // Nothing new was scored
+        else mb.reduce(state._mb);
+      }
+      mb.makeModelMetrics(this, fr);
+      if( keepMetricState ) saveMetricState(fr, mb, mdomain);
+    }
+    Frame output = bs.outputFrame((null == destination_key ? Key.make() : Key.make(destination_key)), names, domains);
     cleanup_adapt(adaptFr, fr);
     return output;
   }
 
+  /** Keep the metric state of scoring a finished model on a keyed frame,
+   *  so that metrics can later be updated incrementally when the frame grows. */
+  private void saveMetricState(Frame fr, ModelMetrics.MetricBuilder mb, String[] domain) {
+    if( fr._key != null && mb != null && _output._status == Job.JobState.DONE )
+      DKV.put(new ModelMetrics.MetricBuilderState(this, fr, mb, domain));
+  }
+
     // Remove temp keys.  TODO: Really should use Scope but Scope does not
     // currently allow nested-key-keepers.
   static protected void cleanup_adapt( Frame adaptFr, Frame fr ) {
@@ -726,6 +848,25 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     adaptFr.delete();
   }
 
+  /** Names of the prediction columns: "predict", followed by the class
+   *  distribution columns for classifiers. */
+  String[] predictionNames() {
+    final int nc = _output.nclasses();
+    String[] names = new String[nc==1?1:nc+1];
+    names[0] = "predict";
+    for(int i = 1; i < names.length; ++i) {
+      names[i] = _output.classNames()[i - 1];
+      // turn integer class labels such as 0, 1, etc. into p0, p1, etc.
+      try {
+        Integer.valueOf(names[i]);
+        names[i] = "p" + names[i];
+      } catch (Throwable t) {
+        // do nothing, non-integer names are fine already
+      }
+    }
+    return names;
+  }
+
   /** Score an already adapted frame.  Returns a new Frame with new result
    *  vectors, all in the DKV.  Caller responsible for deleting.  Input is
    *  already adapted to the Model's domain, so the output is also.  Also
@@ -739,24 +880,14 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     // Build up the names & domains.
     final int nc = _output.nclasses();
     final int ncols = nc==1?1:nc+1; // Regression has 1 predict col; classification also has class distribution
-    String[] names = new String[ncols];
+    String[] names = predictionNames();
     String[][] domains = new String[ncols][];
-    names[0] = "predict";
-    for(int i = 1; i < names.length; ++i) {
-      names[i] = _output.classNames()[i - 1];
-      // turn integer class labels such as 0, 1, etc. into p0, p1, etc.
-      try {
-        Integer.valueOf(names[i]);
-        names[i] = "p" + names[i];
-      } catch (Throwable t) {
-        // do nothing, non-integer names are fine already
-      }
-    }
     domains[0] = nc==1 ? null : !computeMetrics ? _output._domains[_output._domains.length-1] : adaptFrm.lastVec().domain();
     // Score the dataset, building the class distribution & predictions
     BigScore bs = new BigScore(domains[0],ncols,adaptFrm.means(),_output.hasWeights() && adaptFrm.find(_output.weightsName()) >= 0,computeMetrics, true /*make preds*/).doAll(ncols, Vec.T_NUM, adaptFrm);
-    if (computeMetrics)
+    if (computeMetrics) {
       bs._mb.makeModelMetrics(this, fr);
+    }
     return bs.outputFrame((null == destination_key ? Key.make() : Key.make(destination_key)), names, domains);
   }
 
@@ -769,19 +900,8 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     // Build up the names & domains.
     final int nc = _output.nclasses();
     final int ncols = nc==1?1:nc+1; // Regression has 1 predict col; classification also has class distribution
-    String[] names = new String[ncols];
+    String[] names = predictionNames();
     String[][] domains = new String[ncols][];
-    names[0] = "predict";
-    for(int i = 1; i < names.length; ++i) {
-      names[i] = _output.classNames()[i - 1];
-      // turn integer class labels such as 0, 1, etc. into p0, p1, etc.
-      try {
-        Integer.valueOf(names[i]);
-        names[i] = "p" + names[i];
-      } catch (Throwable t) {
-        // do nothing, non-integer names are fine already
-      }
-    }
     domains[0] = nc==1 ? null : !computeMetrics ? _output._domains[_output._domains.length-1] : adaptFrm.lastVec().domain();
     // Score the dataset, building the class distribution & predictions
     BigScore bs = new BigScore(domains[0],ncols,adaptFrm.means(),_output.hasWeights() && adaptFrm.find(_output.weightsName()) >= 0,computeMetrics, false /*no preds*/).doAll(adaptFrm);
@@ -796,6 +916,8 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     final boolean _computeMetrics;  // Column means of test frame
     final boolean _hasWeights;
     final boolean _makePreds;
+    Vec[] _previous;        // Earlier predictions on a prefix of the frame, for incremental scoring
+    int _reuseChunks;       // Leading chunks copied from _previous instead of scored
 
     BigScore( String[] domain, int ncols, double[] mean, boolean testHasWeights, boolean computeMetrics, boolean makePreds ) {
       _domain = domain; _npredcols = ncols; _mean = mean; _computeMetrics = computeMetrics; _makePreds = makePreds;
@@ -806,6 +928,14 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
 
     @Override public void map( Chunk chks[], NewChunk cpreds[] ) {
       if (isCancelled()) return;
+      if (chks[0].cidx() < _reuseChunks) {
+        for (int c = 0; c < _npredcols; c++) {
+          Chunk prev = _previous[c].chunkForChunkIdx(chks[0].cidx());
+          for (int row = 0; row < prev._len; row++)
+            cpreds[c].addNum(prev.atd(row));
+        }
+        return;
+      }
       Chunk weightsChunk = _hasWeights && _computeMetrics ? chks[_output.weightsIdx()] : new C0DChunk(1, chks[0]._len);
       Chunk offsetChunk = _output.hasOffset() ? chks[_output.offsetIdx()] : new C0DChunk(0, chks[0]._len);
       Chunk responseChunk = null;
@@ -821,6 +951,9 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
       }
       double[] preds = _mb._work;  // Sized for the union of test and train classes
       int len = chks[0]._len;
+      double[] bulk = score0(chks, offsetChunk, preds.length); // Whole-chunk predictions, if the model supports it
+      // Ties between classes are broken on the row data, which bulk scoring does not load
+      boolean loadRows = bulk != null && isSupervised() && _output.isClassifier() && preds.length > 3;
       for (int row = 0; row < len; row++) {
         double weight = weightsChunk.atd(row);
         if (weight == 0) {
@@ -831,7 +964,12 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
           continue;
         }
         double offset = offsetChunk.atd(row);
-        double [] p = score0(chks, weight, offset, row, tmp, preds);
+        double [] p;
+        if (bulk != null) {
+          System.arraycopy(bulk, row * preds.length, preds, 0, preds.length);
+          p = correctPredictions(preds, loadRows ? loadRow(chks, row, tmp) : null);
+        } else
+          p = score0(chks, weight, offset, row, tmp, preds);
         if (_computeMetrics) {
           if(isSupervised()) {
             actual[0] = (float)responseChunk.atd(row);
@@ -847,7 +985,10 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
         }
       }
     }
-    @Override public void reduce( BigScore bs ) { if(_mb != null)_mb.reduce(bs._mb); }
+    @Override public void reduce( BigScore bs ) {
+      if(_mb == null) _mb = bs._mb; // Reused chunks build no metrics
+      else if(bs._mb != null) _mb.reduce(bs._mb);
+    }
 
     @Override protected void postGlobal() { if(_mb != null)_mb.postGlobal(); }
   }
@@ -860,10 +1001,37 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
     return score0(chks, 1, 0, row_in_chunk, tmp, preds);
   }
   public double[] score0( Chunk chks[], double weight, double offset, int row_in_chunk, double[] tmp, double[] preds ) {
+    return scoreRow(loadRow(chks, row_in_chunk, tmp), preds, weight, offset);
+  }
+
+  private double[] loadRow( Chunk chks[], int row_in_chunk, double[] tmp ) {
     assert(_output.nfeatures() == tmp.length);
     for( int i=0; i< tmp.length; i++ )
       tmp[i] = chks[i].atd(row_in_chunk);
-    double [] scored = score0(tmp, preds, weight, offset);
+    return tmp;
+  }
+
+  /** Score one row already loaded into {@code data}, in the order the model
+   *  expects, and correct the class distribution and predicted label the
+   *  same way bulk scoring does. */
+  double[] scoreRow( double[] data, double[] preds, double weight, double offset ) {
+    return correctPredictions(score0(data, preds, weight, offset), data);
+  }
+
+  /** Bulk scoring API for all rows of a Chunk.  Models which can score the
+   *  rows of a Chunk faster together than one at a time (e.g. linear models,
+   *  one column at a time and skipping zeros of sparse Chunks) override this
+   *  to return the predictions of every row, laid out as
+   *  {@link #score0(double[], double[], double, double)} would produce them.
+   *  Probabilities are then corrected and labels assigned per row exactly as
+   *  for row scoring; the row data is loaded only for multinomial models,
+   *  to break ties between classes.  The default returns null, and rows are
+   *  scored one at a time.
+   *  @param npreds Length of each row of predictions
+   *  @return Predictions of row {@code r} at {@code [r*npreds, (r+1)*npreds)}, or null */
+  protected double[] score0( Chunk chks[], Chunk offsetChunk, int npreds ) { return null; }
+
+  private double[] correctPredictions( double[] scored, double[] data ) {
     if(isSupervised()) {
       // Correct probabilities obtained from training on oversampled data back to original distribution
       // C.f. http://gking.harvard.edu/files/0s.pdf Eq.(27)
@@ -871,7 +1039,7 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
         if (_parms._balance_classes)
           GenModel.correctProbabilities(scored, _output._priorClassDist, _output._modelClassDist);
         //assign label at the very end (after potentially correcting probabilities)
-        scored[0] = hex.genmodel.GenModel.getPrediction(scored, _output._priorClassDist, tmp, defaultThreshold());
+        scored[0] = hex.genmodel.GenModel.getPrediction(scored, _output._priorClassDist, data, defaultThreshold());
       }
     }
     return scored;
@@ -892,9 +1060,11 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
   public double score(double[] data){ return ArrayUtils.maxIndex(score0(data, new double[_output.nclasses()]));  }
 
   @Override protected Futures remove_impl( Futures fs ) {
+    ScoringCache.invalidate(_key);
+    RowScorer.invalidate(_key);
     if (_output._model_metrics != null)
       for( Key k : _output._model_metrics )
-        k.remove(fs);
+        Keyed.remove(k, fs);
     return fs;
   }
 
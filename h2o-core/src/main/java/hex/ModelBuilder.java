@@ -6,7 +6,9 @@ import water.*;
 import water.rapids.ASTKFold;
 import water.exceptions.H2OIllegalArgumentException;
 import water.exceptions.H2OModelBuilderIllegalArgumentException;
+import water.fvec.C0DChunk;
 import water.fvec.Chunk;
+import water.fvec.FoldWeightVec;
 import water.fvec.Frame;
 import water.fvec.Vec;
 import water.util.FrameUtils;
@@ -18,8 +20,10 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -327,42 +331,26 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     final Key[] modelKeys = new Key[N];
     final Key[] predictionKeys = new Key[N];
 
-    // Step 2: Make 2*N binary weight vectors and store the CV train/validation frames
+    // Step 2: Make 2*N weight views of the fold assignment and store the CV train/validation frames
     final String origWeightsName = _parms._weights_column;
     final Vec[] weights = new Vec[2*N];
-    final Vec origWeight  = origWeightsName != null ? origTrainFrame.vec(origWeightsName) : origTrainFrame.anyVec().makeCon(1.0);
+    final Vec origWeight  = origWeightsName != null ? origTrainFrame.vec(origWeightsName) : null;
     final Frame[] cvTrain = new Frame[N];
     final Frame[] cvValid = new Frame[N];
     final String[] identifier = new String[N];
     final String weightName = "weights";
 
     final Key<M> origDest = dest();
+    final Vec anyVec = origTrainFrame.anyVec();
     for (int i=0; i<N; ++i) {
-      // Make weights
-      weights[2*i]   = origTrainFrame.anyVec().makeZero();
-      weights[2*i+1] = origTrainFrame.anyVec().makeZero();
-
-      // Now update the weights in place
-      final int whichFold = i;
-      new MRTask() {
-        @Override
-        public void map(Chunk chks[]) {
-          Chunk fold = chks[0];
-          Chunk orig = chks[1];
-          Chunk train = chks[2];
-          Chunk valid = chks[3];
-          for (int i=0; i< orig._len; ++i) {
-            int foldAssignment = (int)fold.at8(i) % N;
-            assert(foldAssignment >= 0 && foldAssignment <N);
-            boolean holdout = foldAssignment == whichFold;
-            double w = orig.atd(i);
-            train.set(i, holdout ? 0 : w);
-            valid.set(i, holdout ? w : 0);
-          }
-        }
-      }.doAll(new Vec[]{foldAssignment, origWeight, weights[2*i], weights[2*i+1]});
+      // Views computed on the fly from the fold assignment - no weight columns are materialized
+      Key<Vec> origWeightKey = origWeight == null ? null : origWeight._key;
+      weights[2*i]   = new FoldWeightVec(anyVec.group().addVec(), anyVec._rowLayout, foldAssignment._key, origWeightKey, i, N, false);
+      weights[2*i+1] = new FoldWeightVec(anyVec.group().addVec(), anyVec._rowLayout, foldAssignment._key, origWeightKey, i, N, true);
       if (weights[2*i].isConst() || weights[2*i+1].isConst()) {
         String msg = "Not enough data to create " + N + " random cross-validation splits. Either reduce nfolds, specify a larger dataset (or specify another random number seed, if applicable).";
+        for (Vec w : weights) if (w != null) w.remove();
+        if (_parms._fold_column == null) foldAssignment.remove();
         throw new H2OIllegalArgumentException(msg);
       }
 
@@ -380,16 +368,11 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
       DKV.put(cvValid[i]);
     }
 
-    // clean up memory (mostly small helper vectors and Frame headers)
-    if (_parms._fold_column == null) foldAssignment.remove();
-    if (origWeightsName == null) origWeight.remove();
-
     // adapt main Job's progress bar to build N+1 models
     ModelMetrics.MetricBuilder[] mb = new ModelMetrics.MetricBuilder[N];
     _deleteProgressKey = false; // keep the same progress bar for all N+1 jobs
 
     long cs = _parms.checksum();
-    final boolean async = false;
     cvModelBuilderKeys = new Key[N];
     ModelBuilder<M, P, O>[] cvModelBuilders = new ModelBuilder[N];
     for (int i=0; i<N; ++i) {
@@ -419,48 +402,49 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
         throw H2OModelBuilderIllegalArgumentException.makeFromBuilder(cvModelBuilders[i]);
       }
     }
-    for (int i=0; i<N; ++i) {
-      if (isCancelledOrCrashed()) break;
-      Log.info("Building cross-validation model " + (i + 1) + " / " + N + ".");
-      cvModelBuilders[i]._start_time = System.currentTimeMillis();
-      cvModelBuilders[i].trainModelImpl(-1, true); //non-blocking
-      if (!async)
-        cvModelBuilders[i].block();
-    }
-    // check that this Job's original _params haven't changed
-    assert(cs == _parms.checksum());
 
+    // Step 3: Build the N fold models concurrently, admitting a build only while the estimated
+    // per-node footprints of the running ones fit in the memory of the smallest node (one build is
+    // always admitted).  The main model joins them right away unless it needs the finished fold
+    // models to set itself up.
+    final long maxMem = nodeMemory();
+    long usedMem = 0;
+    boolean mainStarted = false;
+    if (!crossValidationMainModelNeedsFolds() && !isCancelledOrCrashed()) {
+      startCrossValidationMainModel(N, null, cs);
+      mainStarted = true;
+      usedMem += memoryFootprint();
+    }
+    List<ModelBuilder> running = new ArrayList<>();
+    int next = 0;
+    while (!isCancelledOrCrashed() && (next < N || !running.isEmpty())) {
+      while (next < N && (running.isEmpty() || usedMem + cvModelBuilders[next].memoryFootprint() <= maxMem)) {
+        Log.info("Building cross-validation model " + (next + 1) + " / " + N + ".");
+        cvModelBuilders[next]._start_time = System.currentTimeMillis();
+        cvModelBuilders[next].trainModelImpl(-1, true); //non-blocking
+        usedMem += cvModelBuilders[next].memoryFootprint();
+        running.add(cvModelBuilders[next++]);
+      }
+      ModelBuilder done = Job.awaitAny(running);
+      running.remove(done);
+      usedMem -= done.memoryFootprint();
+    }
+    if (isCancelledOrCrashed()) //stop whatever still reads the CV frames and fold assignment before they are removed below
+      stopCrossValidationBuilds(running, mainStarted);
     if (!isCancelledOrCrashed()) {
-      Log.info("Building main model.");
-
-      //HACK:
-      // Can't use changeJobState (it assumes that state transitions are monotonic)
-      assert (DKV.get(_key).get() == this);
-      assert(_state == JobState.RUNNING);
-      assert (((Job)DKV.getGet(_key))._state == JobState.RUNNING);
-      _state = JobState.CREATED;
-      assert (((Job)DKV.getGet(_key))._state == JobState.CREATED);
-      assert(!_deleteProgressKey);
-      _deleteProgressKey = true; //delete progress after the main model is done
-
-      modifyParmsForCrossValidationMainModel(N, async ? null : cvModelBuilderKeys); //tell the main model that it shouldn't stop early either
-
-      trainModelImpl(-1, false); //non-blocking
-      if (!async)
-        block();
+      if (!mainStarted)
+        startCrossValidationMainModel(N, cvModelBuilderKeys, cs);
     }
-    else {
+    else if (!mainStarted) {
       DKV.remove(dest()); //remove prior main model (must have been built by a prior job)
     }
 
-    // in async case, the CV models can score while the main model is still building
+    // Step 4: Score all holdout rows in one pass, each row by the model of its fold
     Model[] m = new Model[N];
-    for (int i=0; i<N; ++i) {
-      Frame adaptFr = null;
-      try {
-        adaptFr = new Frame(cvValid[i]);
-        // score CV models
-        if (!isCancelledOrCrashed()) { //don't waste time scoring if the CV run is cancelled
+    Frame adaptFr = null;
+    try {
+      if (!isCancelledOrCrashed()) { //don't waste time scoring if the CV run is cancelled
+        for (int i = 0; i < N; ++i) {
           // Since canBeDone() is false for the CV model, we need to explicitly set the job state to DONE here:
           cvModelBuilders[i].block();
 
@@ -468,27 +452,52 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
           cvModelBuilders[i].done(true);               // mark the model as completed via force flag (otherwise it wouldn't mark it since canBeDone is false)
           cvModelBuilders[i].updateModelOutput();      // mirror the Job state in the model
           m[i] = DKV.getGet(cvModelBuilders[i].dest());   // now the model is ready for consumption
-          m[i].adaptTestForTrain(adaptFr, true, !isSupervised());
-          mb[i] = m[i].scoreMetrics(adaptFr);
-
-          if (_parms._keep_cross_validation_predictions) {
-            String predName = "prediction_" + modelKeys[i].toString();
-            predictionKeys[i] = Key.make(predName);
-            m[i].predictScoreImpl(cvValid[i], adaptFr, predName);
+        }
+        adaptFr = new Frame(cvValid[0]);
+        m[0].adaptTestForTrain(adaptFr, true, !isSupervised());
+        if (sameAdaptedLayout(m)) {
+          mb = new CVScore(m, adaptFr, origWeight != null).doAll(appendCVScoreCols(adaptFr, foldAssignment, origWeight))._mbs;
+        } else { // Fold models disagree on the columns used: score each fold on its own
+          for (int i = 0; i < N; ++i) {
+            Frame fr = new Frame(cvValid[i]);
+            try {
+              m[i].adaptTestForTrain(fr, true, !isSupervised());
+              mb[i] = m[i].scoreMetrics(fr);
+            } finally {
+              Model.cleanup_adapt(fr, cvValid[i]);
+              DKV.remove(fr._key);
+            }
           }
         }
-      } finally {
-        // free resources as early as possible
-        if (adaptFr != null) {
-          Model.cleanup_adapt(adaptFr, cvValid[i]);
-          DKV.remove(adaptFr._key);
+        if (_parms._keep_cross_validation_predictions) {
+          for (int i = 0; i < N; ++i) {
+            Frame fr = new Frame(cvValid[i]);
+            try {
+              m[i].adaptTestForTrain(fr, true, !isSupervised());
+              String predName = "prediction_" + modelKeys[i].toString();
+              predictionKeys[i] = Key.make(predName);
+              m[i].predictScoreImpl(cvValid[i], fr, predName);
+            } finally {
+              Model.cleanup_adapt(fr, cvValid[i]);
+              DKV.remove(fr._key);
+            }
+          }
         }
+      }
+    } finally {
+      // free resources as early as possible
+      if (adaptFr != null) {
+        Model.cleanup_adapt(adaptFr, cvValid[0]);
+        DKV.remove(adaptFr._key);
+      }
+      for (int i=0; i<N; ++i) {
         if (cvTrain[i] != null) DKV.remove(cvTrain[i]._key);
         if (cvValid[i] != null) DKV.remove(cvValid[i]._key);
         if (weights[2 * i] != null) weights[2 * i].remove();
         if (weights[2 * i + 1] != null) weights[2 * i + 1].remove();
         if (cvModelBuilders[i] != null) cvModelBuilders[i].remove();
       }
+      if (_parms._fold_column == null) foldAssignment.remove();
     }
 
     // wait for completion of the main model
@@ -522,6 +531,115 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     }
     return this;
   }
+  /** Cancel the fold builds still running and wait for them, and for the main
+   *  model if it was started alongside them, to wind down.  Failures of the
+   *  cancelled builds are only logged, this Job is already stopped. */
+  private void stopCrossValidationBuilds(List<ModelBuilder> running, boolean mainStarted) {
+    for (ModelBuilder b : running) b.cancel();
+    for (ModelBuilder b : running) {
+      try { b.block(); }
+      catch (Throwable t) { Log.warn("Cross-validation model " + b.dest() + " stopped with " + t); }
+    }
+    if (mainStarted) {
+      try { block(); }
+      catch (Throwable t) { Log.warn("Main model " + dest() + " stopped with " + t); }
+    }
+  }
+
+  /** Restart this Job for the main model of N-fold cross-validation (non-blocking).
+   * @param cvModelKeys Builders of the finished fold models, or null if they are still running */
+  private void startCrossValidationMainModel(int N, Key[] cvModelKeys, long cs) {
+    // check that this Job's original _params haven't changed
+    assert(cs == _parms.checksum());
+    Log.info("Building main model.");
+
+    //HACK:
+    // Can't use changeJobState (it assumes that state transitions are monotonic)
+    assert (DKV.get(_key).get() == this);
+    assert(_state == JobState.RUNNING);
+    assert (((Job)DKV.getGet(_key))._state == JobState.RUNNING);
+    _state = JobState.CREATED;
+    assert (((Job)DKV.getGet(_key))._state == JobState.CREATED);
+    assert(!_deleteProgressKey);
+    _deleteProgressKey = true; //delete progress after the main model is done
+
+    modifyParmsForCrossValidationMainModel(N, cvModelKeys); //tell the main model that it shouldn't stop early either
+
+    trainModelImpl(-1, false); //non-blocking
+  }
+
+  /** Whether all fold models adapt a frame to the same columns and domains, so
+   *  that one adapted frame can be scored by any of them. */
+  private static boolean sameAdaptedLayout(Model[] m) {
+    for (int i = 1; i < m.length; ++i)
+      if (!Arrays.equals(m[i]._output._names, m[0]._output._names) ||
+          !Arrays.deepEquals(m[i]._output._domains, m[0]._output._domains))
+        return false;
+    return true;
+  }
+
+  /** The adapted holdout frame, followed by the fold assignment and, if any, the observation weights. */
+  private static Frame appendCVScoreCols(Frame adaptFr, Vec foldAssignment, Vec origWeight) {
+    Frame fr = new Frame(adaptFr.names(), adaptFr.vecs());
+    fr.add("__fold__", foldAssignment);
+    if (origWeight != null) fr.add("__weights__", origWeight);
+    return fr;
+  }
+
+  /** Score every row of the training frame with the model of its own holdout
+   *  fold, building one metric per fold in a single pass over the data. */
+  private static class CVScore extends MRTask<CVScore> {
+    final Model[] _m;
+    final String[] _domain;
+    final int _ncols;       // Columns of the adapted frame, without the trailing fold and weights
+    final boolean _hasWeights;
+    ModelMetrics.MetricBuilder[] _mbs;
+
+    CVScore(Model[] m, Frame adaptFr, boolean hasWeights) {
+      _m = m;
+      _ncols = adaptFr.numCols();
+      _hasWeights = hasWeights;
+      _domain = m[0]._output.nclasses() == 1 ? null : adaptFr.lastVec().domain();
+    }
+
+    @Override public void map(Chunk chks[]) {
+      final int N = _m.length;
+      Chunk foldChunk = chks[_ncols];
+      Chunk weightsChunk = _hasWeights ? chks[_ncols+1] : new C0DChunk(1, chks[0]._len);
+      Model.Output out = _m[0]._output;
+      Chunk offsetChunk = out.hasOffset() ? chks[out.offsetIdx()] : new C0DChunk(0, chks[0]._len);
+      Chunk responseChunk = _m[0].isSupervised() ? chks[out.responseIdx()] : null;
+      double[] tmp = new double[out.nfeatures()];
+      float[] actual = new float[responseChunk != null ? 1 : _ncols];
+      _mbs = new ModelMetrics.MetricBuilder[N];
+      for (int f = 0; f < N; ++f) _mbs[f] = _m[f].makeMetricBuilder(_domain);
+      for (int row = 0; row < chks[0]._len; row++) {
+        double weight = weightsChunk.atd(row);
+        if (weight == 0) continue;
+        int f = (int)(foldChunk.at8(row) % N);
+        double offset = offsetChunk.atd(row);
+        double[] preds = _mbs[f]._work;
+        _m[f].score0(chks, weight, offset, row, tmp, preds);
+        if (responseChunk != null) actual[0] = (float)responseChunk.atd(row);
+        else for (int i = 0; i < actual.length; ++i) actual[i] = (float)chks[i].atd(row);
+        _mbs[f].perRow(preds, actual, weight, offset, _m[f]);
+      }
+    }
+    @Override public void reduce(CVScore cvs) {
+      for (int f = 0; f < _mbs.length; ++f) _mbs[f].reduce(cvs._mbs[f]);
+    }
+    @Override protected void postGlobal() {
+      for (ModelMetrics.MetricBuilder mb : _mbs) mb.postGlobal();
+    }
+  }
+
+  /**
+   * Whether the main model of N-fold cross-validation needs the finished fold models
+   * (passed to {@link #modifyParmsForCrossValidationMainModel}) before it can start.
+   * Otherwise, it is built concurrently with the fold models.
+   */
+  protected boolean crossValidationMainModelNeedsFolds() { return false; }
+
   /**
    * Override with model-specific checks / modifications to _parms for N-fold cross-validation splits.
    * For example, the models might need to be told to not do early stopping.
@@ -717,6 +835,24 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
    */
   protected void checkMemoryFootPrint() {}
 
+  /**
+   * Estimated memory, in bytes, this build needs on each node on top of its
+   * input frames (e.g. Gram matrices or centroids replicated per node, or a
+   * node's share of the working columns), or 0 if unknown.  Needs only the
+   * state set up by {@code init(false)}, so callers can ask before the build
+   * is started; used to admit concurrent builds within {@link #nodeMemory}.
+   */
+  public long memoryFootprint() { return 0; }
+
+  /** @return The smallest max memory of any node, which the per-node
+   *  footprints of concurrent builds have to fit in together */
+  public static long nodeMemory() {
+    long mem = Long.MAX_VALUE;
+    for( H2ONode node : H2O.CLOUD.members() )
+      mem = Math.min(mem, node.get_max_mem());
+    return mem;
+  }
+
 
   transient double [] _distribution;
   transient double [] _priorClassDist;
@@ -139,6 +139,45 @@ public class ModelMetrics extends Keyed<ModelMetrics> {
 
   @Override protected long checksum_impl() { return _frame_checksum * 13 + _model_checksum * 17; }
 
+  @Override protected Futures remove_impl( Futures fs ) {
+    if( _modelKey != null && _frameKey != null )
+      MetricBuilderState.buildKey(_modelKey, _frameKey).remove(fs);
+    return fs;
+  }
+
+  /** MetricBuilder state persisted after scoring a Model on a Frame, so that
+   *  the metrics of a Frame which grew by appending rows can be updated from
+   *  the appended chunks only.  MetricBuilders are mergeable (see {@link
+   *  MetricBuilder#reduce}), so the state of the earlier rows is simply
+   *  reduced with a builder made over the new chunks.  Keyed by Model and
+   *  Frame key (not checksum, which changes as the Frame grows).
+   */
+  public static class MetricBuilderState extends Keyed<MetricBuilderState> {
+    public final MetricBuilder _mb;
+    public final String[] _domain; // Domain the builder was made with (union of test and train classes)
+    public final long[] _espc;     // Row layout of the scored Frame
+    public MetricBuilderState(Model model, Frame frame, MetricBuilder mb, String[] domain) {
+      super(buildKey(model._key, frame._key));
+      _mb = mb;
+      _domain = domain;
+      _espc = frame.anyVec().espc();
+    }
+    @Override protected long checksum_impl() { return Arrays.hashCode(_espc) * 17 + _mb._count; }
+    public static Key<MetricBuilderState> buildKey(Key model_key, Key frame_key) {
+      return Key.make("metricbuilder_" + model_key + "_on_" + frame_key);
+    }
+    /** @return the persisted state made with {@code domain} and covering
+     *  exactly the first {@code nchunks} chunks of {@code frame}, or null if
+     *  there is none. */
+    public static MetricBuilderState get(Model model, Frame frame, int nchunks, String[] domain) {
+      if( frame._key == null ) return null;
+      MetricBuilderState st = DKV.getGet(buildKey(model._key, frame._key));
+      if( st == null || st._espc.length != nchunks+1 || !Arrays.equals(st._domain, domain) ) return null;
+      long[] espc = frame.anyVec().espc();
+      return espc.length > nchunks && Arrays.equals(st._espc, Arrays.copyOf(espc, nchunks+1)) ? st : null;
+    }
+  }
+
   /** Class used to compute AUCs, CMs & HRs "on the fly" during other passes
    *  over Big Data.  This class is intended to be embedded in other MRTask
    *  objects.  The {@code perRow} method is called once-per-scored-row, and
@@ -0,0 +1,300 @@
+package hex;
+
+import water.DKV;
+import water.H2O;
+import water.Key;
+import water.MRTask;
+import water.Value;
+import water.exceptions.H2OIllegalArgumentException;
+import water.exceptions.H2OKeyNotFoundArgumentException;
+import water.exceptions.H2OKeyWrongTypeArgumentException;
+import water.exceptions.H2OServiceUnavailableException;
+import water.fvec.CategoricalWrappedVec;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Low-latency scoring of a handful of rows on the receiving node.
+ *
+ *  <p>Scoring a few rows through the bulk path means uploading and parsing a
+ *  Frame and running a distributed {@code BigScore} pass.  Here rows are
+ *  passed inline, converted to the model's column order and domains, and
+ *  scored one at a time through {@code score0(double[],double[])} against a
+ *  node-local copy of the Model.  No Frame is built and no MRTask is run.
+ *
+ *  <p>Requests run on a small dedicated thread pool (sized by
+ *  {@code -scoring_threads}) with a bounded queue, so that a flood of
+ *  requests is rejected rather than queued without bound, and does not
+ *  compete with the F/J pools doing the cluster's batch work.  Latencies are
+ *  tracked per model, for failed, rejected and timed-out requests too.  At
+ *  most {@value #MAX_MODELS} models are kept per node; the least recently
+ *  used one is dropped, with its statistics, to make room for another.
+ *
+ *  <p>Rows are converted the way bulk scoring adapts a parsed test Frame:
+ *  prediction columns are named as by {@link Model#score(water.fvec.Frame)},
+ *  and categorical levels not trained on are mapped past the end of the
+ *  training domain, in sorted order, like {@link CategoricalWrappedVec} does
+ *  for the levels of a test column.
+ */
+public final class RowScorer {
+  private RowScorer() {}
+
+  /** Queued requests allowed per scoring thread before rejecting new ones. */
+  static final int QUEUE_PER_THREAD = 64;
+
+  /** Models kept per node. */
+  static final int MAX_MODELS = 32;
+
+  // Least recently used first; guarded by itself
+  private static final LinkedHashMap<Key,Entry> MODELS = new LinkedHashMap<Key,Entry>(16, .75f, true) {
+    @Override protected boolean removeEldestEntry(Map.Entry<Key,Entry> eldest) { return size() > MAX_MODELS; }
+  };
+  private static volatile ThreadPoolExecutor POOL;
+
+  /** Node-local copy of a Model, plus what is needed to convert rows for it. */
+  private static final class Entry {
+    final Value _val;           // DKV Value the model was read from; a different Value means the model changed
+    final Model _model;
+    final HashMap<String,Integer>[] _levels; // Per-feature categorical level lookup; null for numeric features
+    final HashMap<String,Integer> _colIdx = new HashMap<>();
+    final LatencyStats _stats;
+    @SuppressWarnings("unchecked")
+    Entry(Value val, Model model, LatencyStats stats) {
+      _val = val; _model = model; _stats = stats;
+      int nfeatures = model._output.nfeatures();
+      _levels = new HashMap[nfeatures];
+      for( int i = 0; i < nfeatures; i++ ) {
+        _colIdx.put(model._output._names[i], i);
+        String[] dom = model._output._domains[i];
+        if( dom == null ) continue;
+        _levels[i] = new HashMap<>();
+        for( int j = 0; j < dom.length; j++ ) _levels[i].put(dom[j], j);
+      }
+    }
+  }
+
+  /** Rolling window of request latencies for one model. */
+  public static final class LatencyStats {
+    static final int WINDOW = 1024;
+    private final long[] _nanos = new long[WINDOW];
+    private long _count;
+    private long _failed;
+    private long _rows;
+    synchronized void add(long nanos, int rows, boolean ok) {
+      _nanos[(int)(_count++ % WINDOW)] = nanos;
+      _rows += rows;
+      if( !ok ) _failed++;
+    }
+    /** Number of requests, failed ones included. */
+    public synchronized long count() { return _count; }
+    /** Number of requests that failed, were rejected or timed out. */
+    public synchronized long failed() { return _failed; }
+    /** Number of rows scored. */
+    public synchronized long rows() { return _rows; }
+    /** Latency percentile over the last {@value #WINDOW} requests, in milliseconds. */
+    public synchronized double percentileMillis(double q) {
+      int n = (int)Math.min(_count, WINDOW);
+      if( n == 0 ) return Double.NaN;
+      long[] ls = Arrays.copyOf(_nanos, n);
+      Arrays.sort(ls);
+      int i = Math.max(0, (int)Math.ceil(q * n) - 1);
+      return ls[Math.min(i, n - 1)] / 1e6;
+    }
+  }
+
+  /** Result of scoring a batch of rows. */
+  public static final class Result {
+    public final String[] _names;   // Prediction column names
+    public final String[] _labels;  // Predicted labels for classifiers, null otherwise
+    public final double[][] _preds; // One row of predictions per input row
+    public final LatencyStats _stats;
+    Result(String[] names, String[] labels, double[][] preds, LatencyStats stats) {
+      _names = names; _labels = labels; _preds = preds; _stats = stats;
+    }
+  }
+
+  private static ThreadPoolExecutor pool() {
+    if( POOL == null ) {
+      synchronized( RowScorer.class ) {
+        if( POOL == null ) {
+          final int nthreads = Math.max(1, H2O.ARGS.scoring_threads);
+          final AtomicInteger tid = new AtomicInteger();
+          POOL = new ThreadPoolExecutor(nthreads, nthreads, 60, TimeUnit.SECONDS,
+                  new ArrayBlockingQueue<Runnable>(nthreads * QUEUE_PER_THREAD),
+                  new ThreadFactory() {
+                    @Override public Thread newThread(Runnable r) {
+                      Thread t = new Thread(r, "H2O-row-scorer-" + tid.incrementAndGet());
+                      t.setDaemon(true);
+                      return t;
+                    }
+                  });
+          POOL.allowCoreThreadTimeOut(true);
+        }
+      }
+    }
+    return POOL;
+  }
+
+  /** Latency statistics for a model, or null if it was never row-scored on this node. */
+  public static LatencyStats stats(Key model) {
+    Entry e;
+    synchronized( MODELS ) { e = MODELS.get(model); }
+    return e == null ? null : e._stats;
+  }
+
+  // Local lookup of the model.  The DKV Value is normally cached on this node
+  // after the first request, so this does not go over the wire unless the
+  // model was changed or evicted.
+  private static Entry entry(Key key) {
+    Value val = DKV.get(key);
+    if( val == null ) throw new H2OKeyNotFoundArgumentException("model", key.toString());
+    Entry e;
+    synchronized( MODELS ) { e = MODELS.get(key); }
+    if( e != null && e._val == val ) return e;
+    if( !val.isModel() ) throw new H2OKeyWrongTypeArgumentException("model", key.toString(), Model.class, val.theFreezableClass());
+    Entry ne = new Entry(val, (Model)val.get(), e == null ? new LatencyStats() : e._stats);
+    synchronized( MODELS ) { MODELS.put(key, ne); }
+    return ne;
+  }
+
+  /** Score inline rows with the given model, on this node only.
+   *  @param key Model key
+   *  @param columns Column names of the given rows
+   *  @param rows Values, as strings; categorical levels are given by name, and
+   *  null, empty or "NA" values are treated as missing, and levels not trained
+   *  on are mapped as bulk scoring maps them
+   *  @param timeout_ms Give up on the request after this many milliseconds
+   *  @return Predictions for each row */
+  public static Result score(Key key, final String[] columns, final String[][] rows, long timeout_ms) {
+    final long start = System.nanoTime();
+    final Entry e = entry(key);
+    double[][] preds = null;
+    try {
+      Future<double[][]> f;
+      try {
+        f = pool().submit(new Callable<double[][]>() {
+          @Override public double[][] call() { return scoreRows(e, columns, rows); }
+        });
+      } catch( RejectedExecutionException ree ) {
+        throw new H2OServiceUnavailableException("Row scoring queue is full on this node; retry later or raise -scoring_threads");
+      }
+      try {
+        preds = f.get(timeout_ms, TimeUnit.MILLISECONDS);
+      } catch( TimeoutException te ) {
+        f.cancel(true);           // Interrupts the scoring thread, which stops at the next row
+        throw new H2OServiceUnavailableException("Row scoring with model " + key + " did not finish within " + timeout_ms + " ms");
+      } catch( InterruptedException ie ) {
+        f.cancel(true);
+        throw new RuntimeException(ie);
+      } catch( ExecutionException ee ) {
+        Throwable t = ee.getCause();
+        if( t instanceof RuntimeException ) throw (RuntimeException)t;
+        throw new RuntimeException(t);
+      }
+    } finally {                 // Slow failures count as much as slow answers
+      e._stats.add(System.nanoTime() - start, preds == null ? 0 : rows.length, preds != null);
+    }
+    Model m = e._model;
+    String[] names = m.predictionNames();
+    String[] labels = null;
+    if( m._output.isSupervised() && m._output.isClassifier() ) {
+      String[] classes = m._output.classNames();
+      labels = new String[preds.length];
+      for( int r = 0; r < preds.length; r++ ) labels[r] = classes[(int)preds[r][0]];
+    }
+    return new Result(names, labels, preds, e._stats);
+  }
+
+  private static double[][] scoreRows(Entry e, String[] columns, String[][] rows) {
+    Model m = e._model;
+    int nfeatures = m._output.nfeatures();
+    // Map the given columns to the model's features
+    int[] idx = new int[columns.length];
+    for( int c = 0; c < columns.length; c++ ) {
+      Integer i = e._colIdx.get(columns[c]);
+      idx[c] = i == null ? -1 : i;
+    }
+    HashMap<String,Integer>[] unseen = unseenLevels(e, idx, rows);
+    final int nc = m._output.isSupervised() ? m._output.nclasses() : 1;
+    final int ncols = nc == 1 ? 1 : nc + 1;
+    double[] data = new double[nfeatures];
+    // Sized like the bulk-scoring MetricBuilder work array: unsupervised models may use it up to the feature count
+    double[] preds = new double[m._output.isSupervised() ? nc + 1 : Math.max(2, nfeatures)];
+    double[][] res = new double[rows.length][];
+    for( int r = 0; r < rows.length; r++ ) {
+      if( Thread.currentThread().isInterrupted() ) return null; // Timed out; nobody waits for the result
+      if( rows[r].length != columns.length )
+        throw new H2OIllegalArgumentException("Row " + r + " has " + rows[r].length + " values, but " + columns.length + " columns were given");
+      Arrays.fill(data, Double.NaN);
+      for( int c = 0; c < columns.length; c++ ) {
+        int i = idx[c];
+        if( i < 0 ) continue;   // Not used by the model
+        String v = rows[r][c];
+        if( v == null || v.isEmpty() || v.equals("NA") ) continue;
+        if( e._levels[i] != null ) {
+          Integer lvl = e._levels[i].get(v);
+          data[i] = lvl != null ? lvl : unseen[c].get(v);
+        } else {
+          try {
+            data[i] = Double.parseDouble(v);
+          } catch( NumberFormatException nfe ) {
+            throw new H2OIllegalArgumentException("Column '" + columns[c] + "' is numeric in the model, but row " + r + " has value '" + v + "'");
+          }
+        }
+      }
+      Arrays.fill(preds, 0);
+      res[r] = Arrays.copyOf(m.scoreRow(data, preds, 1, 0), ncols);
+    }
+    return res;
+  }
+
+  // Index of the categorical levels the model was not trained on, per given
+  // column, or null if a column has none.  As with bulk scoring they go past
+  // the end of the training domain, in the order of the column's own (sorted)
+  // domain, here made of the levels in the request.
+  @SuppressWarnings("unchecked")
+  private static HashMap<String,Integer>[] unseenLevels(Entry e, int[] idx, String[][] rows) {
+    HashMap<String,Integer>[] unseen = new HashMap[idx.length];
+    for( int c = 0; c < idx.length; c++ ) {
+      int i = idx[c];
+      if( i < 0 || e._levels[i] == null ) continue;
+      TreeSet<String> levels = new TreeSet<>();
+      boolean any = false;
+      for( String[] row : rows ) {
+        if( c >= row.length ) continue; // Reported while scoring
+        String v = row[c];
+        if( v == null || v.isEmpty() || v.equals("NA") ) continue;
+        levels.add(v);
+        any |= !e._levels[i].containsKey(v);
+      }
+      if( !any ) continue;
+      String[] from = levels.toArray(new String[levels.size()]);
+      int[] map = CategoricalWrappedVec.levelMap(from, e._model._output._domains[i]);
+      unseen[c] = new HashMap<>();
+      for( int j = 0; j < from.length; j++ ) unseen[c].put(from[j], map[j]);
+    }
+    return unseen;
+  }
+
+  /** Drop the node-local copies of the given model, on every node. */
+  static void invalidate(Key model) { new Invalidate(model).doAllNodes(); }
+
+  private static class Invalidate extends MRTask<Invalidate> {
+    final Key _model;
+    Invalidate(Key model) { _model = model; }
+    @Override protected void setupLocal() { synchronized( MODELS ) { MODELS.remove(_model); } }
+  }
+}
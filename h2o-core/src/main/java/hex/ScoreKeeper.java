@@ -77,6 +77,26 @@ public class ScoreKeeper extends Iced {
 
   public enum StoppingMetric { AUTO, deviance, logloss, MSE, AUC, r2, misclassification}
 
+  /** @return Whether a larger value of the metric means a better model */
+  public static boolean moreIsBetter(StoppingMetric criterion) {
+    return criterion == StoppingMetric.AUC || criterion == StoppingMetric.r2;
+  }
+
+  /** @param criterion metric to read, AUTO must have been resolved already
+   *  @return The value of that metric, NaN if it was not scored */
+  public double value(StoppingMetric criterion) {
+    switch (criterion) {
+      case AUC:               return _AUC;
+      case MSE:               return _mse;
+      case deviance:          return _mean_residual_deviance;
+      case logloss:           return _logloss;
+      case r2:                return _r2;
+      case misclassification: return _classError;
+      default:
+        throw H2O.unimpl("Undefined stopping criterion.");
+    }
+  }
+
   public static boolean earlyStopping(ScoreKeeper[] sk, int k, boolean classification, StoppingMetric criterion, double rel_improvement) {
     if (k == 0) return false;
     int len = sk.length - 1; //how many "full"/"conservative" scoring events we have (skip the first)
@@ -86,7 +106,7 @@ public class ScoreKeeper extends Iced {
       criterion = classification ? StoppingMetric.logloss : StoppingMetric.deviance;
     }
 
-    boolean moreIsBetter = (criterion == StoppingMetric.AUC || criterion == StoppingMetric.r2);
+    boolean moreIsBetter = moreIsBetter(criterion);
     double movingAvg[] = new double[k+1]; //need one moving average value for the last k+1 scoring events
     double lastBeforeK = moreIsBetter ? -Double.MAX_VALUE : Double.MAX_VALUE;
     double bestInLastK = moreIsBetter ? -Double.MAX_VALUE : Double.MAX_VALUE;
@@ -111,29 +131,7 @@ public class ScoreKeeper extends Iced {
       int startIdx = sk.length-2*k+i;
       for (int j = 0; j < k; ++j) {
         ScoreKeeper skj = sk[startIdx+j];
-        double val;
-        switch (criterion) {
-          case AUC:
-            val = skj._AUC;
-            break;
-          case MSE:
-            val = skj._mse;
-            break;
-          case deviance:
-            val = skj._mean_residual_deviance;
-            break;
-          case logloss:
-            val = skj._logloss;
-            break;
-          case r2:
-            val = skj._r2;
-            break;
-          case misclassification:
-            val = skj._classError;
-            break;
-          default:
-            throw H2O.unimpl("Undefined stopping criterion.");
-        }
+        double val = skj.value(criterion);
         movingAvg[i] += val;
       }
       movingAvg[i]/=k;
@@ -0,0 +1,192 @@
+package hex;
+
+import water.DKV;
+import water.Job;
+import water.Key;
+import water.MRTask;
+import water.fvec.CategoricalWrappedVec;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.nbhm.NonBlockingHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/** Node-local caches used to make repeated scoring of a Model cheap.
+ *
+ *  <p>Dashboards and REST clients tend to re-score the same Model against
+ *  frames of the same layout over and over.  Two things are remembered here:
+ *  <ul>
+ *    <li>{@link AdaptPlan}: the outcome of {@link Model#adaptTestForTrain} -
+ *    which test column feeds which training column, the categorical domain
+ *    mappings and the warnings - keyed by the Model key and a signature of the
+ *    test Frame columns (names, types and domains).  Replaying a plan skips
+ *    the per-column domain remapping work.</li>
+ *    <li>{@link Scored}: the predictions Frame produced for a given finished
+ *    Model and Frame, together with the checksums of both.  Re-scoring an
+ *    unchanged Frame with an unchanged Model copies the earlier predictions
+ *    instead of running another full scoring pass.</li>
+ *  </ul>
+ *
+ *  <p>Nothing here is distributed; the caches live on the node driving the
+ *  scoring and are purely an optimization - every entry is validated before
+ *  being used, and a miss falls back to the normal path.  Any node may have
+ *  scored a Model, so the entries of a removed Model are dropped everywhere.
+ */
+public final class ScoringCache {
+  private ScoringCache() {}
+
+  /** Upper bound on entries per cache; on overflow the cache is simply cleared. */
+  static final int MAX_ENTRIES = 1000;
+
+  private static final NonBlockingHashMap<String,AdaptPlan> PLANS = new NonBlockingHashMap<>();
+  private static final NonBlockingHashMap<String,Scored> SCORED = new NonBlockingHashMap<>();
+
+  /** Recorded result of adapting a test Frame layout to a Model. */
+  static final class AdaptPlan {
+    static final byte KEEP = 0;   // Use the test column as-is
+    static final byte REMAP = 1;  // Wrap the test column with the recorded categorical mapping
+    static final byte CONST = 2;  // Test column is missing; fill with a constant
+    static final byte NONE = 3;   // Test column is missing and left out
+
+    final byte[] _action;
+    final CategoricalWrappedVec[] _remap; // Mapping templates for REMAP columns
+    final double[] _con;                  // Constants for CONST columns
+    final String[][] _conDomain;          // Domains for CONST columns
+    final String[][] _testDomains;        // Domains of the test columns the plan was made for
+    final ArrayList<String> _msgs = new ArrayList<>();
+    int _good;
+    boolean _restructure;
+    boolean _cacheable = true;  // Cleared if the adaptation depended on the data, not just the layout
+
+    AdaptPlan(int ncols, Frame test) {
+      _action = new byte[ncols];
+      _remap = new CategoricalWrappedVec[ncols];
+      _con = new double[ncols];
+      _conDomain = new String[ncols][];
+      _testDomains = test.domains();
+    }
+
+    /** The signature only hashes the domains; the recorded categorical
+     *  mappings are only valid for test columns with exactly these levels. */
+    boolean matches(Frame test) {
+      Vec[] vecs = test.vecs();
+      if( vecs.length != _testDomains.length ) return false;
+      for( int i = 0; i < vecs.length; i++ )
+        if( !Arrays.equals(vecs[i].domain(), _testDomains[i]) ) return false;
+      return true;
+    }
+
+    /** Replay this plan onto a test Frame with the recorded column signature. */
+    String[] apply(String[] names, Frame test) {
+      if( _restructure ) {
+        Vec vvecs[] = new Vec[names.length];
+        for( int i = 0; i < names.length; i++ ) {
+          switch( _action[i] ) {
+          case KEEP:  vvecs[i] = test.vec(names[i]); break;
+          case REMAP: vvecs[i] = test.vec(names[i]).adaptTo(_remap[i]); break;
+          case CONST: vvecs[i] = test.anyVec().makeCon(_con[i]); vvecs[i].setDomain(_conDomain[i]); break;
+          default:    vvecs[i] = null;
+          }
+        }
+        test.restructure(names, vvecs, _good);
+      }
+      return _msgs.toArray(new String[_msgs.size()]);
+    }
+  }
+
+  /** Predictions made earlier by a Model on a Frame. */
+  static final class Scored {
+    final Key<Frame> _preds;
+    final long _modelStamp, _frameChecksum, _predsChecksum;
+    Scored(Key<Frame> preds, long modelStamp, long frameChecksum, long predsChecksum) {
+      _preds = preds; _modelStamp = modelStamp; _frameChecksum = frameChecksum; _predsChecksum = predsChecksum;
+    }
+  }
+
+  /** Column signature of a test Frame: names, types and a hash of the
+   *  domains.  Frames with the same signature and the same domains (see
+   *  {@link AdaptPlan#matches}) adapt identically to a given Model. */
+  static String signature(Frame test) {
+    StringBuilder sb = new StringBuilder();
+    Vec[] vecs = test.vecs();
+    String[] names = test.names();
+    long dhash = 17;
+    for( int i = 0; i < vecs.length; i++ ) {
+      String[] dom = vecs[i].domain();
+      sb.append(names[i]).append('\u0001').append(vecs[i].get_type()).append('\u0001').append(dom == null ? -1 : dom.length).append('\u0002');
+      dhash = 31 * dhash + (dom == null ? 0 : Arrays.hashCode(dom));
+    }
+    return sb.append(dhash).toString();
+  }
+
+  private static String planKey(Model m, String sig) { return m._key + "\u0003" + m.checksum() + "\u0003" + sig; }
+
+  /** Return the plan recorded for a test Frame with signature {@code sig},
+   *  or null if there is none or it was made for different domains. */
+  static AdaptPlan getPlan(Model m, String sig, Frame test) {
+    AdaptPlan plan = PLANS.get(planKey(m, sig));
+    return plan != null && plan.matches(test) ? plan : null;
+  }
+
+  static void putPlan(Model m, String sig, AdaptPlan plan) {
+    if( !plan._cacheable ) return;
+    if( PLANS.size() >= MAX_ENTRIES ) PLANS.clear();
+    PLANS.put(planKey(m, sig), plan);
+  }
+
+  private static String scoredKey(Model m, Frame fr) { return m._key + "\u0003" + fr._key; }
+
+  /** Predictions are only reused for models which finished building; the
+   *  Model checksum covers parameters and layout, but not the learned state
+   *  which changes while a model is still being built. */
+  private static boolean isFinished(Model m) { return m._output._status == Job.JobState.DONE; }
+  private static long stamp(Model m) { return m.checksum() * 31 + m._output._end_time; }
+
+  /** Return a fresh copy of predictions made earlier by {@code m} on an
+   *  unchanged {@code fr}, or null if there are none (or they are stale). */
+  static Frame getScored(Model m, Frame fr, String destination_key) {
+    if( fr._key == null || !isFinished(m) ) return null;
+    Scored s = SCORED.get(scoredKey(m, fr));
+    if( s == null ) return null;
+    Frame preds = DKV.getGet(s._preds);
+    if( preds == null || s._modelStamp != stamp(m) || s._frameChecksum != contentChecksum(fr) || s._predsChecksum != contentChecksum(preds) ) {
+      SCORED.remove(scoredKey(m, fr));
+      return null;
+    }
+    Frame res = preds.deepCopy(destination_key == null ? Key.make().toString() : destination_key);
+    DKV.put(res);
+    return res;
+  }
+
+  static void putScored(Model m, Frame fr, Frame preds) {
+    if( fr._key == null || preds._key == null || !isFinished(m) ) return;
+    if( SCORED.size() >= MAX_ENTRIES ) SCORED.clear();
+    SCORED.put(scoredKey(m, fr), new Scored(preds._key, stamp(m), contentChecksum(fr), contentChecksum(preds)));
+  }
+
+  /** Checksum of the current columns and content of a Frame.  Unlike
+   *  {@link Frame#checksum}, which is computed once per Frame object, this
+   *  notices replaced columns and in-place writes. */
+  static long contentChecksum(Frame fr) {
+    long cs = Arrays.hashCode(fr.names());
+    for( Vec v : fr.vecs() )
+      cs = 31 * cs + (v._key.hashCode() ^ v.contentChecksum());
+    return cs;
+  }
+
+  /** Drop all cached state for the given Model, on every node. */
+  static void invalidate(Key model) { new Invalidate(model).doAllNodes(); }
+
+  private static class Invalidate extends MRTask<Invalidate> {
+    final Key _model;
+    Invalidate(Key model) { _model = model; }
+    @Override protected void setupLocal() { invalidateLocal(_model); }
+  }
+
+  private static void invalidateLocal(Key model) {
+    String prefix = model + "\u0003";
+    for( String k : PLANS.keySet() ) if( k.startsWith(prefix) ) PLANS.remove(k);
+    for( String k : SCORED.keySet() ) if( k.startsWith(prefix) ) SCORED.remove(k);
+  }
+}
@@ -1,5 +1,7 @@
 package hex.grid;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import hex.Model;
@@ -28,12 +30,17 @@ import water.util.PojoUtils;
  *
  * The job is started by the <code>startGridSearch</code> method which create a new grid search, put
  * representation of Grid into distributed KV store, and for each parameter in hyper space of
- * possible parameters, it launches a separated model building job. The launch of jobs is sequential
- * and blocking. So after finish the last model, whole grid search job is done as well.
+ * possible parameters, it launches a separated model building job. By default the launch of jobs
+ * is sequential and blocking, so after finish the last model, whole grid search job is done as
+ * well. With a parallelism above 1, up to that many builds run at once, as long as the sum of
+ * their estimated memory footprints ({@link ModelBuilder#memoryFootprint()}) fits in the driver
+ * node's memory.
  *
  * By default, the grid search invokes cartezian grid search, but it can be modified by passing
  * explicit hyper space walk strategy via the {@link #startGridSearch(Key, ModelFactory,
- * HyperSpaceWalker)} method.
+ * HyperSpaceWalker)} method, e.g. the adaptive {@link HyperSpaceWalker.SuccessiveHalvingWalker}.
+ * The walker is told the outcome of every build, so that it can pick the next points based on
+ * the models built so far.
  *
  * If any of forked jobs fails then the failure is ignored, and grid search normally continue in
  * traversing the hyper space.
@@ -79,17 +86,26 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
    * new model builders via ModelFactory.
    */
   private final transient HyperSpaceWalker<MP> _hyperSpaceWalker;
-
+  /**
+   * Maximum number of models built at the same time; 1 means one after another.
+   */
+  private final int _parallelism;
 
   private GridSearch(Key gkey,
                      ModelFactory<MP> modelFactory,
-                     HyperSpaceWalker<MP> hyperSpaceWalker) {
+                     HyperSpaceWalker<MP> hyperSpaceWalker,
+                     int parallelism) {
     super(gkey, modelFactory.getModelName() + " Grid Search");
     assert modelFactory != null : "Grid search needs to know how to build a new model!";
     assert hyperSpaceWalker != null : "Grid search needs to know to how walk around hyper space!";
+    if (parallelism < 1) {
+      throw new H2OIllegalArgumentException("parallelism", "grid",
+                                            "Parallelism must be at least 1, but got " + parallelism);
+    }
     //_paramsBuilderFactory = paramsBuilderFactory;
     _modelFactory = modelFactory;
     _hyperSpaceWalker = hyperSpaceWalker;
+    _parallelism = parallelism;
 
     // Note: do not validate parameters of created model builders here!
     // Leave it to launch time, and just mark the corresponding model builder job as failed.
@@ -150,6 +166,16 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
    *
    * It updates passed grid object in distributed store.
    *
+   * New builds are admitted while fewer than {@link #_parallelism} are running and their
+   * estimated memory fits next to the ones already running; a build is always admitted when
+   * nothing else runs, so an oversized model still gets its own (failing) attempt. Memory is
+   * counted per node: the builds' per-node footprints have to fit in the smallest node.
+   *
+   * All builds are top-level jobs whose drivers are submitted at the same (lowest) F/J priority, so
+   * their MRTasks share the worker queues on equal terms and no build outranks another. The driver
+   * of the grid waits for any finished build with a managed block ({@link Job#awaitAny}), so the
+   * F/J pool compensates for the blocked thread instead of losing a worker the builds need.
+   *
    * @param grid grid object to save results
    */
   private void gridSearch(Grid<MP> grid) {
@@ -158,40 +184,90 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
     String protoModelKey = _hyperSpaceWalker.getParams()._model_id == null
                            ? grid._key + "_model_"
                            : _hyperSpaceWalker.getParams()._model_id.toString() + H2O.calcNextUniqueModelId("") + "_";
+    // Builds currently running, and one prepared build waiting for memory
+    List<PendingModel<MP>> running = new ArrayList<>();
+    PendingModel<MP> waiting = null;
     try {
       // Get iterator to traverse hyper space
       HyperSpaceWalker.HyperSpaceIterator<MP> it = _hyperSpaceWalker.iterator();
       // Number of traversed model parameters
       int counter = 0;
-      while (it.hasNext(model)) {
+      // Per-node memory budget shared by all running builds
+      final long maxMem = ModelBuilder.nodeMemory();
+      long usedMem = 0;
+      while (waiting != null || !running.isEmpty() || it.hasNext(model)) {
         // Handle end-user cancel request
         if (!isRunning()) {
-          // FIXME: propagate cancellation event to sub jobs, block till they are cancelled
+          for (PendingModel<MP> pm : running) pm._builder.cancel();
           cancel();
           return;
         }
-        MP params = null;
-        try {
-          // Get parameters for next model
-          params = it.nextModelParameters(model);
-          // Sequential model building, should never propagate
-          // exception up, just mark combination of model parameters as wrong
+        // Launch as many builds as parallelism and memory allow
+        while (running.size() < _parallelism && (waiting != null || it.hasNext(model))) {
+          if (waiting == null) {
+            MP params = null;
+            try {
+              // Get parameters for next model
+              params = it.nextModelParameters(model);
+              try {
+                waiting = prepareModel(params, grid, running, counter++, protoModelKey);
+              } catch (RuntimeException e) { // Catch everything
+                Log.warn("Grid search: model builder for parameters " + params + " failed! Exception: ", e);
+                grid.appendFailedModelParameters(params, e);
+                it.modelFinished(params, null);
+                modelDone(grid);
+                continue;
+              }
+              if (waiting == null) { // Already built or running (duplicated hyper parameters)
+                model = grid.getModel(params);
+                it.modelFinished(params, model);
+                modelDone(grid);
+                continue;
+              }
+            } catch (IllegalArgumentException e) {
+              Log.warn("Grid search: construction of model parameters failed! Exception: ", e);
+              // Model parameters cannot be constructed for some reason
+              Object[] rawParams = it.getCurrentRawParameters();
+              grid.appendFailedModelParameters(rawParams, e);
+              modelDone(grid);
+              continue;
+            }
+          }
+          if (!running.isEmpty() && usedMem + waiting._footprint > maxMem) {
+            break; // Wait for running builds to release memory
+          }
+          PendingModel<MP> pm = waiting;
+          waiting = null;
           try {
-            model = buildModel(params, grid, counter++, protoModelKey);
-          } catch (RuntimeException e) { // Catch everything
-            Log.warn("Grid search: model builder for parameters " + params + " failed! Exception: ", e);
-            grid.appendFailedModelParameters(params, e);
+            pm._builder.trainModel();
+          } catch (RuntimeException e) { // Catch everything, e.g. validation errors
+            Log.warn("Grid search: model builder for parameters " + pm._params + " failed! Exception: ", e);
+            grid.appendFailedModelParameters(pm._params, e);
+            it.modelFinished(pm._params, null);
+            modelDone(grid);
+            continue;
           }
-        } catch (IllegalArgumentException e) {
-          Log.warn("Grid search: construction of model parameters failed! Exception: ", e);
-          // Model parameters cannot be constructed for some reason
-          Object[] rawParams = it.getCurrentRawParameters();
-          grid.appendFailedModelParameters(rawParams, e);
+          running.add(pm);
+          usedMem += pm._footprint;
+        }
+        if (running.isEmpty()) {
+          continue;
+        }
+        // Collect one finished build; it drives the next step of the walker
+        PendingModel<MP> pm = awaitAny(running);
+        running.remove(pm);
+        usedMem -= pm._footprint;
+        try {
+          Model built = (Model) pm._builder.get();
+          grid.putModel(pm._checksum, built._key);
+          model = built;
+          it.modelFinished(pm._params, built);
+        } catch (RuntimeException e) { // Catch everything
+          Log.warn("Grid search: model builder for parameters " + pm._params + " failed! Exception: ", e);
+          grid.appendFailedModelParameters(pm._params, e);
+          it.modelFinished(pm._params, null);
         } finally {
-          // Update progress by 1 increment
-          this.update(1L);
-          // Always update grid in DKV after model building attempt
-          grid.update(jobKey());
+          modelDone(grid);
         }
       }
       // Grid search is done
@@ -200,6 +276,7 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
       // Something wrong happened during hyper-space walking
       // So cancel this job
       // FIXME: should I delete grid here? it failed but user can be interested in partial result
+      for (PendingModel<MP> pm : running) pm._builder.cancel();
       Job thisJob = DKV.getGet(jobKey());
       if (thisJob._state == JobState.CANCELLED) {
         Log.info("Job " + jobKey() + " cancelled by user.");
@@ -215,60 +292,84 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
     }
   }
 
+  /** Update progress by 1 increment and always update grid in DKV after a model building attempt. */
+  private void modelDone(Grid<MP> grid) {
+    this.update(1L);
+    grid.update(jobKey());
+  }
+
   /**
-   * Build a model based on specified parameters and save it to resulting Grid object.
+   * Block till any of the running builds has finished.
    *
-   * Returns a model run with these parameters, typically built on demand and cached - expected to
-   * be an expensive operation.  If the model in question is "in progress", a 2nd build will NOT be
-   * kicked off. This is a blocking call.
+   * @param running non-empty list of running builds
+   * @return a finished build
+   */
+  private static <MP extends Model.Parameters> PendingModel<MP> awaitAny(List<PendingModel<MP>> running) {
+    List<ModelBuilder> builders = new ArrayList<>(running.size());
+    for (PendingModel<MP> pm : running) {
+      builders.add(pm._builder);
+    }
+    ModelBuilder done = Job.awaitAny(builders);
+    for (PendingModel<MP> pm : running) {
+      if (pm._builder == done) {
+        return pm;
+      }
+    }
+    throw H2O.fail();
+  }
+
+  /**
+   * Prepare a model builder for specified parameters, without starting it.
    *
-   * If a new model is created, then the Grid object is updated in distributed store. If a model for
-   * given parameters already exists, it is directly returned without updating the Grid object. If
-   * model building fails then the Grid object is not updated and the method returns
-   * <code>null</code>.
+   * Returns <code>null</code> if a model for given parameters was already built or is being built
+   * right now (can be case of duplicated hyper parameters). Otherwise the returned builder is ready to be launched, and its
+   * estimated memory footprint is known.
    *
    * @param params parameters for a new model
    * @param grid   grid object holding created models
+   * @param running  builds currently running
    * @param paramsIdx  index of generated model parameter
    * @param protoModelKey  prototype of model key
-   * @return return a new model if it does not exist
+   * @return a build ready to start, or null if the model already exists
    */
-  private Model buildModel(final MP params, Grid<MP> grid, int paramsIdx, String protoModelKey) {
+  private PendingModel<MP> prepareModel(final MP params, Grid<MP> grid, List<PendingModel<MP>> running,
+                                        int paramsIdx, String protoModelKey) {
     // Make sure that the model is not yet built (can be case of duplicated hyper parameters)
     // FIXME: get checksum here since model builder will modify instance of params!!!
     long checksum = params.checksum();
     Key<Model> key = grid.getModelKey(checksum);
     // It was already built
     if (key != null) {
-      return key.get();
+      return null;
+    }
+    // It is being built
+    for (PendingModel<MP> pm : running) {
+      if (pm._checksum == checksum) {
+        return null;
+      }
     }
     // Modify model key to have nice version with counter
     // Note: Cannot create it before checking the cache since checksum would differ for each model
     params._model_id = Key.make(protoModelKey + paramsIdx);
-    // Build a new model
-    // THIS IS BLOCKING call since we do not have enough information about free resources
-    // FIXME: we should allow here any launching strategy (not only sequential)
-    Model m = (Model) (startBuildModel(params, grid).get());
-    grid.putModel(checksum, m._key);
-    return m;
+    ModelBuilder mb = _modelFactory.buildModel(params);
+    return new PendingModel<>(params, checksum, mb, mb.memoryFootprint());
   }
 
   /**
-   * Triggers model building process but do not block on it.
-   *
-   * @param params parameters for a new model
-   * @param grid   resulting grid object
-   * @return A Future of a model run with these parameters, typically built on demand and not cached
-   * - expected to be an expensive operation.  If the model in question is "in progress", a 2nd
-   * build will NOT be kicked off. This is a non-blocking call.
+   * A model build prepared or launched by the grid search.
    */
-  private ModelBuilder startBuildModel(MP params, Grid<MP> grid) {
-    if (grid.getModel(params) != null) {
-      return null;
+  private static final class PendingModel<MP extends Model.Parameters> {
+    final MP _params;
+    final long _checksum;
+    final ModelBuilder _builder;
+    final long _footprint;
+
+    PendingModel(MP params, long checksum, ModelBuilder builder, long footprint) {
+      _params = params;
+      _checksum = checksum;
+      _builder = builder;
+      _footprint = footprint;
     }
-    ModelBuilder mb = _modelFactory.buildModel(params);
-    mb.trainModel();
-    return mb;
   }
 
   /**
@@ -309,12 +410,35 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
       final Map<String, Object[]> hyperParams,
       final ModelFactory<MP> modelFactory,
       final ModelParametersBuilderFactory<MP> paramsBuilderFactory) {
+    return startGridSearch(destKey, params, hyperParams, modelFactory, paramsBuilderFactory, 1);
+  }
+
+  /**
+   * Start a new grid search job building up to <code>parallelism</code> models at once.
+   *
+   * @param destKey              A key to store result of grid search under.
+   * @param params               Default parameters for model builder.
+   * @param hyperParams          A set of arrays of hyper parameter values.
+   * @param modelFactory         defines a strategy for creating new model builders
+   * @param paramsBuilderFactory defines a strategy for creating a new model parameters based on
+   *                             common parameters and list of hyper-parameters
+   * @param parallelism          maximum number of models built at the same time; 1 builds them
+   *                             sequentially
+   * @return GridSearch Job. This is a non-blocking call.
+   */
+  public static <MP extends Model.Parameters> GridSearch startGridSearch(
+      final Key<Grid> destKey,
+      final MP params,
+      final Map<String, Object[]> hyperParams,
+      final ModelFactory<MP> modelFactory,
+      final ModelParametersBuilderFactory<MP> paramsBuilderFactory,
+      final int parallelism) {
     // Create a walker to traverse hyper space of model parameters
     CartesianWalker<MP>
         hyperSpaceWalker =
         new CartesianWalker<>(params, hyperParams, paramsBuilderFactory);
 
-    return startGridSearch(destKey, modelFactory, hyperSpaceWalker);
+    return startGridSearch(destKey, modelFactory, hyperSpaceWalker, parallelism);
   }
 
 
@@ -342,6 +466,26 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
                            new SimpleParametersBuilderFactory<MP>());
   }
 
+  /**
+   * Start a new grid search job building up to <code>parallelism</code> models at once, using
+   * the default, reflection based, parameters builder.
+   *
+   * @param destKey      A key to store result of grid search under.
+   * @param params       Default parameters for model builder.
+   * @param hyperParams  A set of arrays of hyper parameter values.
+   * @param modelFactory defines a strategy for creating new model builders
+   * @param parallelism  maximum number of models built at the same time
+   * @return GridSearch Job. This is a non-blocking call.
+   */
+  public static <MP extends Model.Parameters> GridSearch startGridSearch(final Key<Grid> destKey,
+                                                                         final MP params,
+                                                                         final Map<String, Object[]> hyperParams,
+                                                                         final ModelFactory<MP> modelFactory,
+                                                                         final int parallelism) {
+    return startGridSearch(destKey, params, hyperParams, modelFactory,
+                           new SimpleParametersBuilderFactory<MP>(), parallelism);
+  }
+
   public static <MP extends Model.Parameters> GridSearch startGridSearch(final MP params,
                                                                          final Map<String, Object[]> hyperParams,
                                                                          final ModelFactory<MP> modelFactory) {
@@ -364,6 +508,25 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
       final Key<Grid> destKey,
       final ModelFactory<MP> modelFactory,
       final HyperSpaceWalker<MP> hyperSpaceWalker) {
+    return startGridSearch(destKey, modelFactory, hyperSpaceWalker, 1);
+  }
+
+  /**
+   * Start a new grid search job with any hyper space walk strategy, building up to
+   * <code>parallelism</code> models at once.
+   *
+   * @param destKey          A key to store result of grid search under.
+   * @param modelFactory     defines a strategy for creating new model builders
+   * @param hyperSpaceWalker defines a strategy for traversing a hyper space.
+   * @param parallelism      maximum number of models built at the same time; 1 builds them
+   *                         sequentially
+   * @return GridSearch Job. This is a non-blocking call.
+   */
+  public static <MP extends Model.Parameters> GridSearch startGridSearch(
+      final Key<Grid> destKey,
+      final ModelFactory<MP> modelFactory,
+      final HyperSpaceWalker<MP> hyperSpaceWalker,
+      final int parallelism) {
     // Compute key for destination object representing grid
     Key<Grid>
         gridKey =
@@ -371,7 +534,7 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
                                                 hyperSpaceWalker.getParams().train());
 
     // Start the search
-    return new GridSearch(gridKey, modelFactory, hyperSpaceWalker).start();
+    return new GridSearch(gridKey, modelFactory, hyperSpaceWalker, parallelism).start();
   }
 
   /**
@@ -379,7 +542,7 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
    *
    * @param <MP> type of model parameters object
    */
-  static class SimpleParametersBuilderFactory<MP extends Model.Parameters>
+  public static class SimpleParametersBuilderFactory<MP extends Model.Parameters>
       implements ModelParametersBuilderFactory<MP> {
 
     @Override
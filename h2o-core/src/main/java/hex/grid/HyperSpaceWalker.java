@@ -1,11 +1,20 @@
 package hex.grid;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
 import hex.Model;
+import hex.ModelMetrics;
 import hex.ModelParametersBuilderFactory;
+import hex.ScoreKeeper;
 import water.Key;
+import water.util.ArrayUtils;
+import water.util.Log;
 
 public interface HyperSpaceWalker<MP extends Model.Parameters> {
 
@@ -44,6 +53,18 @@ public interface HyperSpaceWalker<MP extends Model.Parameters> {
      * @return  array of "untyped" values representing configuration of grid parameters
      */
     Object[] getCurrentRawParameters();
+
+    /**
+     * Reports the outcome of a model build.
+     *
+     * <p>Called once for every model parameters returned by {@link #nextModelParameters(Model)},
+     * with the very same parameters object, after the build has finished (or was skipped as a
+     * duplicate of an already built model).</p>
+     *
+     * @param params  model parameters returned by this iterator
+     * @param model  the built model, or null if the build failed
+     */
+    void modelFinished(MP params, Model model);
   }
 
   /**
@@ -173,6 +194,11 @@ public interface HyperSpaceWalker<MP extends Model.Parameters> {
           Object[] hyperValues = new Object[_hyperParamNames.length];
           return hypers(_hidx, hyperValues);
         }
+
+        @Override
+        public void modelFinished(MP params, Model model) {
+          // Cartesian walk does not depend on results
+        }
       };
     }
 
@@ -246,6 +272,293 @@ public interface HyperSpaceWalker<MP extends Model.Parameters> {
     }
   }
 
+  /**
+   * Successive halving walk of a cartesian hyper space.
+   *
+   * <p>Every point of the space is first built with a small budget, e.g. a few trees or epochs,
+   * given by the model parameter <code>budgetParam</code>. Once all of them are finished, only the
+   * best <code>1/eta</code> of them, ranked by the validation metrics of the finished model (or its
+   * training metrics without validation data), are built again with <code>eta</code> times more budget, and so on until the
+   * maximum budget is reached. Most of the compute is thus spent on the promising points, and the
+   * same compute explores many more points than an exhaustive walk.</p>
+   *
+   * <p>With checkpoints enabled, a promoted point continues from the model of its previous round
+   * instead of starting over. Only use it for algorithms supporting checkpoint restarts with a
+   * larger budget, such as GBM, DRF ("_ntrees") and Deep Learning ("_epochs").</p>
+   *
+   * <p>The grid holds the models of all rounds; the budget parameter is reported as an extra hyper
+   * parameter.</p>
+   */
+  class SuccessiveHalvingWalker<MP extends Model.Parameters> implements HyperSpaceWalker<MP> {
+
+    final transient ModelParametersBuilderFactory<MP> _paramsBuilderFactory;
+
+    /**
+     * Prototype of model parameters of all the points.
+     */
+    final MP _params;
+
+    /**
+     * Names of the hyper parameters, followed by the budget parameter.
+     */
+    final private String[] _hyperParamNames;
+
+    /**
+     * Model parameters of each point of the cartesian space, and its raw hyper values.
+     */
+    final private List<MP> _points = new ArrayList<>();
+    final private List<Object[]> _rawPoints = new ArrayList<>();
+
+    /**
+     * Name and type of the model parameter setting the budget of a build.
+     */
+    final private String _budgetParam;
+    final private Class _budgetType;
+
+    /**
+     * Budget of each round, increasing by a factor of <code>eta</code> up to the maximum budget.
+     */
+    final private double[] _budgets;
+
+    /**
+     * Only the best <code>1/eta</code> of the points of a round make it to the next one.
+     */
+    final private int _eta;
+
+    final private boolean _useCheckpoints;
+
+    /**
+     * Metric used to rank the models of a round.
+     */
+    final private ScoreKeeper.StoppingMetric _metric;
+
+    /**
+     * Number of builds in all rounds.
+     */
+    final private int _hyperSpaceSize;
+
+    /**
+     * @param params  prototype of model parameters
+     * @param hyperParams  hyper space to explore, as for {@link CartesianWalker}
+     * @param paramsBuilderFactory  builder of model parameters
+     * @param budgetParam  name of the model parameter setting the budget of a build, e.g. "_ntrees"
+     * @param minBudget  budget of the first round
+     * @param maxBudget  budget of the last round
+     * @param eta  reduction factor between rounds, at least 2
+     * @param useCheckpoints  whether promoted points continue from their previous model
+     * @param metric  metric to rank models by; AUTO picks logloss for classifiers and deviance
+     *                otherwise
+     */
+    public SuccessiveHalvingWalker(MP params,
+                                   Map<String, Object[]> hyperParams,
+                                   ModelParametersBuilderFactory<MP> paramsBuilderFactory,
+                                   String budgetParam, double minBudget, double maxBudget, int eta,
+                                   boolean useCheckpoints, ScoreKeeper.StoppingMetric metric) {
+      if (eta < 2) {
+        throw new IllegalArgumentException("Reduction factor eta must be at least 2, but got " + eta);
+      }
+      if (!(minBudget > 0 && minBudget <= maxBudget)) {
+        throw new IllegalArgumentException("Budget must satisfy 0 < min_budget <= max_budget, but got "
+                                           + minBudget + " and " + maxBudget);
+      }
+      if (hyperParams.containsKey(budgetParam)) {
+        throw new IllegalArgumentException("Budget parameter " + budgetParam + " cannot be a hyper parameter");
+      }
+      try {
+        _budgetType = params.getClass().getField(budgetParam).getType();
+      } catch (NoSuchFieldException e) {
+        throw new IllegalArgumentException("Budget parameter " + budgetParam + " not found!", e);
+      }
+      _params = params;
+      _paramsBuilderFactory = paramsBuilderFactory;
+      _budgetParam = budgetParam;
+      _eta = eta;
+      _useCheckpoints = useCheckpoints;
+      _metric = metric;
+
+      // Enumerate the whole cartesian space up front: points are ranked against each other
+      CartesianWalker<MP> cartesian = new CartesianWalker<>(params, hyperParams, paramsBuilderFactory);
+      HyperSpaceIterator<MP> it = cartesian.iterator();
+      while (it.hasNext(null)) {
+        _points.add(it.nextModelParameters(null));
+        _rawPoints.add(it.getCurrentRawParameters());
+      }
+      String[] names = cartesian.getHyperParamNames();
+      _hyperParamNames = Arrays.copyOf(names, names.length + 1);
+      _hyperParamNames[names.length] = budgetParam;
+
+      int rounds = (int) Math.floor(Math.log(maxBudget / minBudget) / Math.log(eta) + 1e-9) + 1;
+      _budgets = new double[rounds];
+      for (int i = 0; i < rounds; i++) {
+        _budgets[i] = maxBudget / Math.pow(eta, rounds - 1 - i);
+      }
+      int size = 0;
+      for (int i = 0, n = _points.size(); i < rounds && n > 0; i++, n = Math.max(1, n / eta)) {
+        size += n;
+      }
+      _hyperSpaceSize = size;
+    }
+
+    @Override
+    public HyperSpaceIterator<MP> iterator() {
+
+      return new HyperSpaceIterator<MP>() {
+        /** Current round */
+        private int _round = 0;
+        /** Points built in the current round */
+        private int[] _rung = ArrayUtils.seq(0, _points.size());
+        /** Builds of the current round launched and finished so far */
+        private int _issued = 0, _finished = 0;
+        /** Score of each point in the current round, lower is better, NaN for failures */
+        private final double[] _scores = new double[_points.size()];
+        /** Latest model of each point */
+        private final Key<Model>[] _models = new Key[_points.size()];
+        /** Point of each launched build of the current round */
+        private final Map<MP, Integer> _launched = new IdentityHashMap<>();
+        /** Point of the latest launched build */
+        private int _current = -1;
+
+        @Override
+        public MP nextModelParameters(Model previousModel) {
+          if (!hasNext(previousModel)) {
+            throw new NoSuchElementException("No more elements to explore in hyper-space!");
+          }
+          int p = _rung[_issued];
+          MP params = (MP) _points.get(p).clone();
+          setBudget(params, _budgets[_round]);
+          if (_useCheckpoints && _models[p] != null) {
+            params._checkpoint = _models[p];
+          }
+          _issued++;
+          _current = p;
+          _launched.put(params, p);
+          return params;
+        }
+
+        @Override
+        public boolean hasNext(Model previousModel) {
+          if (_issued < _rung.length) {
+            return true;
+          }
+          // Wait till the round is complete, the ranking needs all its models
+          if (_finished < _rung.length || _round + 1 >= _budgets.length || _rung.length == 0) {
+            return false;
+          }
+          promote();
+          return true;
+        }
+
+        @Override
+        public Object[] getCurrentRawParameters() {
+          Object[] hyperValues = new Object[_hyperParamNames.length];
+          if (_current >= 0) {
+            Object[] raw = _rawPoints.get(_current);
+            System.arraycopy(raw, 0, hyperValues, 0, raw.length);
+            hyperValues[raw.length] = budgetValue(_budgets[_round]);
+          }
+          return hyperValues;
+        }
+
+        @Override
+        public void modelFinished(MP params, Model model) {
+          Integer p = _launched.remove(params);
+          if (p == null) {
+            return;
+          }
+          _finished++;
+          _scores[p] = model != null ? score(model) : Double.NaN;
+          if (model != null) {
+            _models[p] = model._key;
+          }
+        }
+
+        // Keep the best 1/eta of the points of the finished round, and move to the next one
+        private void promote() {
+          Integer[] order = new Integer[_rung.length];
+          for (int i = 0; i < order.length; i++) {
+            order[i] = _rung[i];
+          }
+          Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+              return Double.compare(rank(_scores[a]), rank(_scores[b]));
+            }
+          });
+          _rung = new int[Math.max(1, _rung.length / _eta)];
+          for (int i = 0; i < _rung.length; i++) {
+            _rung[i] = order[i];
+          }
+          _round++;
+          _issued = _finished = 0;
+          Log.info("Successive halving: promoting " + _rung.length + " of " + order.length
+                   + " models to " + _budgetParam + " = " + budgetValue(_budgets[_round]));
+        }
+      };
+    }
+
+    // Failed builds rank last
+    private static double rank(double score) {
+      return Double.isNaN(score) ? Double.POSITIVE_INFINITY : score;
+    }
+
+    /**
+     * Score of a model, lower is better: the metric from the validation metrics of the finished
+     * model, or from its training metrics without validation data.
+     */
+    private double score(Model model) {
+      ModelMetrics mm = model._output._validation_metrics != null
+                        ? model._output._validation_metrics : model._output._training_metrics;
+      if (mm == null) {
+        return Double.NaN;
+      }
+      ScoreKeeper.StoppingMetric criterion = _metric;
+      if (criterion == ScoreKeeper.StoppingMetric.AUTO) {
+        criterion = model._output.isClassifier() ? ScoreKeeper.StoppingMetric.logloss
+                                                 : ScoreKeeper.StoppingMetric.deviance;
+      }
+      double v = new ScoreKeeper(mm).value(criterion);
+      if (Double.isNaN(v) && _metric == ScoreKeeper.StoppingMetric.AUTO) {
+        v = mm._MSE; // e.g. unsupervised models
+      }
+      return ScoreKeeper.moreIsBetter(criterion) ? -v : v;
+    }
+
+    private Object budgetValue(double budget) {
+      if (_budgetType == int.class || _budgetType == Integer.class) {
+        return (int) Math.max(1, Math.round(budget));
+      } else if (_budgetType == long.class || _budgetType == Long.class) {
+        return Math.max(1, Math.round(budget));
+      } else if (_budgetType == float.class || _budgetType == Float.class) {
+        return (float) budget;
+      }
+      return budget;
+    }
+
+    private void setBudget(MP params, double budget) {
+      _paramsBuilderFactory.get(params).set(_budgetParam, budgetValue(budget)).build();
+    }
+
+    @Override
+    public String[] getHyperParamNames() {
+      return _hyperParamNames;
+    }
+
+    @Override
+    public int getHyperSpaceSize() {
+      return _hyperSpaceSize;
+    }
+
+    @Override
+    public MP getParams() {
+      return _params;
+    }
+
+    @Override
+    public ModelParametersBuilderFactory<MP> getParametersBuilderFactory() {
+      return _paramsBuilderFactory;
+    }
+  }
+
   /**
    * FIXME : finish random walk
    */
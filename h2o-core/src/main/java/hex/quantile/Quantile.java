@@ -14,6 +14,7 @@ import water.fvec.Frame;
 import water.fvec.Vec;
 import water.util.ArrayUtils;
 import water.util.Log;
+import water.util.QuantileSketch;
 
 import java.util.Arrays;
 
@@ -72,6 +73,7 @@ public class Quantile extends ModelBuilder<QuantileModel,QuantileModel.QuantileP
         model = new QuantileModel(dest(), _parms, new QuantileModel.QuantileOutput(Quantile.this));
         model._output._parameters = _parms;
         model._output._quantiles = new double[train().numCols()][_parms._probs.length];
+        model._output._rank_error = new double[train().numCols()];
         model.delete_and_lock(_key);
 
         // ---
@@ -86,6 +88,21 @@ public class Quantile extends ModelBuilder<QuantileModel,QuantileModel.QuantileP
             continue;
           }
 
+          // Approximate: read the quantiles off the sketch kept with the
+          // column's rollups; computed with the histogram at most once per Vec
+          if( _parms._approximate ) {
+            QuantileSketch qs = vec.quantileSketch();
+            if( qs == null ) Arrays.fill(model._output._quantiles[n], Double.NaN); // String & UUID
+            else {
+              for( int p = 0; p < _parms._probs.length; p++ )
+                model._output._quantiles[n][p] = sketchQuantile(qs,_parms._probs[p],_parms._combine_method);
+              model._output._rank_error[n] = qs.epsilon();
+            }
+            model.update(_key); // Update model in K/V store
+            update(_parms._probs.length);
+            continue;
+          }
+
           // Compute top-level histogram
           Histo h1 = new Histo(vec.min(),vec.max(),0,vec.length()-vec.naCnt(),vec.isInt()).doAll(vec);
 
@@ -276,6 +293,19 @@ public class Quantile extends ModelBuilder<QuantileModel,QuantileModel.QuantileP
     }
   }
 
+  /** Quantile for probability prob from a column sketch.  The lo and hi
+   *  elements bracketing the fractional row are each within
+   *  {@link QuantileSketch#rankError} rows of their exact rank, and are combined
+   *  just like the exact ones. */
+  static double sketchQuantile( QuantileSketch qs, double prob, QuantileModel.CombineMethod method ) {
+    long nrows = qs.count();
+    double p2 = prob*(nrows-1); // Desired fractional row number for this probability
+    long r2 = (long)p2;         // Lower integral row number
+    double lo = qs.valueAtRank(r2);
+    if( r2==p2 ) return lo;     // Exact row number
+    return computeQuantile(lo,qs.valueAtRank(r2+1),r2,nrows,prob,method);
+  }
+
   /** Compute the correct final quantile from these 4 values.  If the lo and hi
    *  elements are equal, use them.  However if they differ, then there is no
    *  single value which exactly matches the desired quantile.  There are
@@ -13,6 +13,8 @@ public class QuantileModel extends Model<QuantileModel,QuantileModel.QuantilePar
     // Set of probabilities to compute
     public double _probs[/*Q*/] = new double[]{0.001,0.01,0.1,0.25,0.333,0.50,0.667,0.75,0.9,0.99,0.999};
     public CombineMethod _combine_method = CombineMethod.INTERPOLATE;
+    // Answer from the quantile sketch kept with each column's rollups: bounded rank error
+    public boolean _approximate = false;
     protected boolean defaultDropConsCols() { return false; }
   }
 
@@ -20,6 +22,7 @@ public class QuantileModel extends Model<QuantileModel,QuantileModel.QuantilePar
     public QuantileParameters _parameters;   // Model parameters
     public int _iterations;        // Iterations executed
     public double _quantiles[/*N*/][/*Q*/]; // Our N columns, Q quantiles reported
+    public double _rank_error[/*N*/]; // Approximate mode: max rank error as a fraction of rows; 0 when exact
     public QuantileOutput( Quantile b ) { super(b); }
     @Override public ModelCategory getModelCategory() { return ModelCategory.Unknown; }
   }
@@ -131,6 +131,10 @@ final public class H2O {
             "          Maximum number of threads in the low priority batch-work queue.\n" +
             "          (The default is 99.)\n" +
             "\n" +
+            "    -scoring_threads <#threads>\n" +
+            "          Number of threads serving low-latency row scoring requests.\n" +
+            "          (The default is a quarter of the available cores.)\n" +
+            "\n" +
             "    -client\n" +
             "          Launch H2O node in client mode.\n" +
             "\n" +
@@ -216,6 +220,9 @@ final public class H2O {
     /** -nthreads=nthreads; Max number of F/J threads in the low-priority batch queue */
     public int nthreads=Runtime.getRuntime().availableProcessors();
 
+    /** -scoring_threads=scoring_threads; Number of threads serving low-latency single-row scoring requests */
+    public int scoring_threads=Math.max(1,Runtime.getRuntime().availableProcessors()/4);
+
     /** -log_dir=/path/to/dir; directory to save logs in */
     public String log_dir;
 
@@ -416,6 +423,10 @@ final public class H2O {
         i = s.incrementAndCheck(i, args);
         ARGS.nthreads = s.parseInt(args[i]);
       }
+      else if (s.matches("scoring_threads")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.scoring_threads = s.parseInt(args[i]);
+      }
       else if (s.matches("hdfs_config")) {
         i = s.incrementAndCheck(i, args);
         ARGS.hdfs_config = args[i];
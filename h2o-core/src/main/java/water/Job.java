@@ -1,8 +1,10 @@
 package water;
 
 import jsr166y.CountedCompleter;
+import jsr166y.ForkJoinPool;
 
 import java.util.Arrays;
+import java.util.Collection;
 
 import hex.ModelBuilder;
 import water.H2O.H2OCountedCompleter;
@@ -107,6 +109,9 @@ public class Job<T extends Keyed> extends Keyed {
 
   transient H2OCountedCompleter _fjtask; // Top-level task to do
   transient H2OCountedCompleter _barrier;// Top-level task you can block on
+  private transient volatile boolean _finished; // The barrier has run, see isFinished
+  // Monitor notified whenever the barrier of any local job runs, for awaitAny
+  private static final Object FINISHED = new Object();
 
   /** Jobs produce a single DKV result into Key _dest */
   public Key<T> _dest;   // Key for result
@@ -209,16 +214,19 @@ public class Job<T extends Keyed> extends Keyed {
     // runs the onCompletion or onExceptionCompletion code.
     _barrier = new H2OCountedCompleter() {
         @Override public void compute2() { }
+        @Override public void onCompletion(CountedCompleter caller) { finished(); }
         @Override public boolean onExceptionalCompletion(Throwable ex, CountedCompleter caller) {
           if( getCompleter() == null ) { // nobody else to handle this exception, so print it out
             System.err.println("barrier onExCompletion for "+fjtask);
             ex.printStackTrace();
             Job.this.failed(ex);
           }
+          finished();
           return true;
         }
       };
     fjtask.setCompleter(_barrier);
+    _finished = false;
     if (restartTimer) _start_time = System.currentTimeMillis();
     _state      = JobState.RUNNING;
     // Save the full state of the job
@@ -266,6 +274,49 @@ public class Job<T extends Keyed> extends Keyed {
     _barrier.join(); // Block on the *barrier* task, which blocks until the fjtask on*Completion code runs completely
   }
 
+  /** Non-blocking check that the F/J work of this job, including its
+   *  completion code, has run; {@link #block} returns at once, or as soon as
+   *  the barrier task is marked done.
+   *  @return true if this job was started and its work has completed */
+  public boolean isFinished() { return _finished; }
+
+  private void finished() {
+    _finished = true;
+    synchronized( FINISHED ) { FINISHED.notifyAll(); }
+  }
+
+  /** Block until any of the given started jobs {@link #isFinished}.  Waits on
+   *  the completion of the jobs' barrier tasks rather than polling; on an F/J
+   *  thread the wait is managed, so the pool may start another worker to keep
+   *  the jobs' own tasks going while this thread is blocked.
+   *  @param jobs Jobs started on this node
+   *  @return A finished job among {@code jobs}
+   *  @throws JobCancelledException if the waiting thread is interrupted; the
+   *  interrupt status is restored */
+  public static <J extends Job> J awaitAny(final Collection<J> jobs) {
+    final Object[] res = new Object[1];
+    try {
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+        @Override public boolean isReleasable() {
+          for( J j : jobs )
+            if( j.isFinished() ) { res[0] = j; return true; }
+          return false;
+        }
+        @Override public boolean block() throws InterruptedException {
+          synchronized( FINISHED ) {
+            while( !isReleasable() ) FINISHED.wait();
+          }
+          return true;
+        }
+      });
+    } catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new JobCancelledException();
+    }
+    @SuppressWarnings("unchecked") J j = (J)res[0];
+    return j;
+  }
+
   /** Marks job as finished and records job end time. */
   public void done() {
     done(false);
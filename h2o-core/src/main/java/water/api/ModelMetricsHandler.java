@@ -15,6 +15,8 @@ class ModelMetricsHandler extends Handler {
     public Frame _frame;
     public ModelMetrics[] _model_metrics;
     public String _predictions_name;
+    public Frame _previous_predictions;
+    public boolean _keep_metric_state;
     public boolean _reconstruction_error;
     public boolean _reconstruction_error_per_feature;
     public int _deep_features_hidden_layer = -1;
@@ -48,7 +50,7 @@ class ModelMetricsHandler extends Handler {
       ModelMetricsList matches = fetch();
 
       for (ModelMetrics mm : matches._model_metrics)
-        DKV.remove(mm._key);
+        mm.remove();
 
       return matches;
     }
@@ -82,6 +84,12 @@ class ModelMetricsHandler extends Handler {
     @API(help = "Key of predictions frame, if predictions are requested (optional)", json = true, required = false, direction = API.Direction.INOUT)
     public KeyV3.FrameKeyV3 predictions_frame;
 
+    @API(help = "Key of predictions made earlier by this model on a prefix of the frame; only the newly appended chunks are scored (optional)", json = false, required = false)
+    public KeyV3.FrameKeyV3 previous_predictions_frame;
+
+    @API(help = "Keep the metric state of this scoring, so that the next scoring of the frame grown by appending rows (with these predictions as previous_predictions_frame) updates the metrics from the new rows only (optional)", json = false, required = false)
+    public boolean keep_metric_state;
+
     @API(help = "Compute reconstruction error (optional, only for Deep Learning AutoEncoder models)", json = false, required = false)
     public boolean reconstruction_error;
 
@@ -100,6 +108,8 @@ class ModelMetricsHandler extends Handler {
       mml._model = (null == this.model || null == this.model.key() ? null : this.model.key().get());
       mml._frame = (null == this.frame || null == this.frame.key() ? null : this.frame.key().get());
       mml._predictions_name = (null == this.predictions_frame || null == this.predictions_frame.key() ? null : this.predictions_frame.key().toString());
+      mml._previous_predictions = (null == this.previous_predictions_frame || null == this.previous_predictions_frame.key() ? null : this.previous_predictions_frame.key().get());
+      mml._keep_metric_state = this.keep_metric_state;
       mml._reconstruction_error = this.reconstruction_error;
       mml._reconstruction_error_per_feature = this.reconstruction_error_per_feature;
       mml._deep_features_hidden_layer = this.deep_features_hidden_layer;
@@ -217,7 +227,7 @@ class ModelMetricsHandler extends Handler {
     if (!s.reconstruction_error && !s.reconstruction_error_per_feature && s.deep_features_hidden_layer < 0 ) {
       if (null == parms._predictions_name)
         parms._predictions_name = "predictions" + Key.make().toString().substring(0,5) + "_" + parms._model._key.toString() + "_on_" + parms._frame._key.toString();
-      predictions = parms._model.score(parms._frame, parms._predictions_name);
+      predictions = parms._model.score(parms._frame, parms._predictions_name, parms._previous_predictions, parms._keep_metric_state);
     } else {
       if (Model.DeepFeatures.class.isAssignableFrom(parms._model.getClass())) {
         if (s.reconstruction_error || s.reconstruction_error_per_feature) {
@@ -230,6 +230,11 @@ public class RequestServer extends NanoHTTPD {
     register("/3/Predictions/models/(?<model>.*)/frames/(?<frame>.*)"     ,"POST"  ,ModelMetricsHandler.class, "predict", null,
       "Score (generate predictions) for the specified Frame with the specified Model.  Both the Frame of predictions and the metrics will be returned.");
 
+    register("/3/ScoreRows/models/(?<model>.*)"                           ,"POST"  ,ScoreRowsHandler.class, "score", null,
+      "Score a few rows passed inline with the specified Model, locally on this node, without building a Frame.  Returns the predictions and the per-model latency statistics of this node.");
+    register("/3/ScoreRows/models/(?<model>.*)"                           ,"GET"   ,ScoreRowsHandler.class, "stats", null,
+      "Return the row scoring latency statistics of the specified Model on this node.");
+
     register("/3/WaterMeterCpuTicks/(?<nodeidx>.*)"                       ,"GET"   ,WaterMeterCpuTicksHandler.class, "fetch", null,
       "Return a CPU usage snapshot of all cores of all nodes in the H2O cluster.");
     register("/3/WaterMeterIo/(?<nodeidx>.*)"                             ,"GET"   ,WaterMeterIoHandler.class, "fetch", null,
@@ -0,0 +1,42 @@
+package water.api;
+
+import hex.RowScorer;
+import water.exceptions.H2OIllegalArgumentException;
+
+/** Scores rows passed inline with the request, locally on the receiving
+ *  node, without building a Frame or running a distributed pass. */
+public class ScoreRowsHandler extends Handler {
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public ScoreRowsV3 score(int version, ScoreRowsV3 s) {
+    if (null == s.model || null == s.model.key()) throw new H2OIllegalArgumentException("model", "score", String.valueOf(s.model));
+    if (null == s.columns) throw new H2OIllegalArgumentException("columns", "score", "null");
+    if (null == s.rows) throw new H2OIllegalArgumentException("rows", "score", "null");
+    if (s.timeout_ms <= 0) throw new H2OIllegalArgumentException("timeout_ms", "score", s.timeout_ms);
+
+    RowScorer.Result r = RowScorer.score(s.model.key(), s.columns, s.rows, s.timeout_ms);
+    s.prediction_names = r._names;
+    s.predictions = r._preds;
+    s.labels = r._labels;
+    fillStats(s, r._stats);
+    return s;
+  }
+
+  /** Return the row-scoring latency statistics of a model on this node. */
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public ScoreRowsV3 stats(int version, ScoreRowsV3 s) {
+    if (null == s.model || null == s.model.key()) throw new H2OIllegalArgumentException("model", "stats", String.valueOf(s.model));
+    fillStats(s, RowScorer.stats(s.model.key()));
+    return s;
+  }
+
+  private static void fillStats(ScoreRowsV3 s, RowScorer.LatencyStats stats) {
+    if (stats == null) {
+      s.latency_ms_p50 = s.latency_ms_p99 = Double.NaN;
+      return;
+    }
+    s.requests = stats.count();
+    s.failed_requests = stats.failed();
+    s.latency_ms_p50 = stats.percentileMillis(0.50);
+    s.latency_ms_p99 = stats.percentileMillis(0.99);
+  }
+}
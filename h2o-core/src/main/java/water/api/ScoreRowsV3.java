@@ -0,0 +1,40 @@
+package water.api;
+
+import water.Iced;
+
+public class ScoreRowsV3 extends RequestSchema<Iced, ScoreRowsV3> {
+  // Input fields
+  @API(help = "Key of Model to score with", required = true)
+  public KeyV3.ModelKeyV3 model;
+
+  @API(help = "Column names of the given rows", required = false)
+  public String[] columns;
+
+  @API(help = "Rows to score, one array of values per row, in the order of columns; categorical levels are given by name and missing values as \"NA\"", required = false)
+  public String[][] rows;
+
+  @API(help = "Give up on the request after this many milliseconds", required = false)
+  public int timeout_ms = 1000;
+
+  // Output fields
+  @API(help = "Prediction column names", direction = API.Direction.OUTPUT)
+  public String[] prediction_names;
+
+  @API(help = "Predictions, one array per row", direction = API.Direction.OUTPUT)
+  public double[][] predictions;
+
+  @API(help = "Predicted labels, for classification models", direction = API.Direction.OUTPUT)
+  public String[] labels;
+
+  @API(help = "Requests for this model on this node, failed ones included", direction = API.Direction.OUTPUT)
+  public long requests;
+
+  @API(help = "Requests for this model on this node that failed, were rejected or timed out", direction = API.Direction.OUTPUT)
+  public long failed_requests;
+
+  @API(help = "Median request latency for this model on this node, in milliseconds", direction = API.Direction.OUTPUT)
+  public double latency_ms_p50;
+
+  @API(help = "99th percentile request latency for this model on this node, in milliseconds", direction = API.Direction.OUTPUT)
+  public double latency_ms_p99;
+}
@@ -0,0 +1,19 @@
+package water.exceptions;
+
+import water.util.HttpResponseStatus;
+
+/**
+ * Exception signalling that the node is too busy to take the request right now, e.g. because
+ * a bounded work queue is full; the client may retry later.  Results in an http 503 error.
+ */
+public class H2OServiceUnavailableException extends H2OAbstractRuntimeException {
+  protected int HTTP_RESPONSE_CODE() { return HttpResponseStatus.SERVICE_UNAVAILABLE.getCode(); }
+
+  public H2OServiceUnavailableException(String msg, String dev_msg) {
+    super(msg, dev_msg);
+  }
+
+  public H2OServiceUnavailableException(String msg) {
+    super(msg, msg);
+  }
+}
@@ -35,6 +35,16 @@ public class CategoricalWrappedVec extends WrappedVec {
     DKV.put(this);
   }
 
+  /** Convert from one categorical to another, reusing the mapping already
+   *  computed by {@code like} for a master Vec with the same domain. */
+  public CategoricalWrappedVec(Key key, int rowLayout, CategoricalWrappedVec like, Key masterVecKey) {
+    super(key, rowLayout, masterVecKey);
+    _map = like._map;
+    _p = like._p;
+    setDomain(like.domain());
+    DKV.put(this);
+  }
+
   /** Constructor just to generate the map and domain; used in tests or when
    *  mixing categorical columns */
   private CategoricalWrappedVec(Key key) { super(key, ESPC.rowLayout(key, new long[]{0}), null, null); }
@@ -116,24 +126,30 @@ public class CategoricalWrappedVec extends WrappedVec {
       return;
     }
     // Full string-to-string mapping
+    _map = levelMap(from, to);
+    int len = to.length;
+    for( int x : _map ) len = Math.max(len, x+1);
+    String[] ss = Arrays.copyOf(to, len);
+    for( int j=0; j<from.length; j++ )
+      if( _map[j] >= to.length ) ss[_map[j]] = from[j];
+    setDomain(ss);
+  }
+
+  /** String-to-string part of {@link #computeMap}: each level of the 'from'
+   *  domain maps to its index in the 'to' domain, and levels missing from the
+   *  'to' domain map past its end, in-order in the 'from' domain.  Needs no
+   *  Vec, so single rows can be mapped exactly like a whole column.
+   *  @return mapping, the same length as the 'from' domain */
+  public static int[] levelMap( String[] from, String[] to ) {
     HashMap<String,Integer> h = new HashMap<>();
     for( int i=0; i<to.length; i++ ) h.put(to[i],i);
-    String[] ss = to;
+    int[] map = new int[from.length];
     int extra = to.length;
-    int actualLen = extra;
     for( int j=0; j<from.length; j++ ) {
       Integer x = h.get(from[j]);
-      if( x!=null ) _map[j] = x;
-      else {
-        _map[j] = extra++;
-        if (extra > ss.length) {
-          ss = Arrays.copyOf(ss, 2*ss.length);
-        }
-        ss[extra-1] = from[j];
-        actualLen = extra;
-      }
+      map[j] = x!=null ? x : extra++;
     }
-    setDomain(Arrays.copyOf(ss, actualLen));
+    return map;
   }
 
   @Override
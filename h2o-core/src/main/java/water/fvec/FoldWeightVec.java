@@ -0,0 +1,80 @@
+package water.fvec;
+
+import water.AutoBuffer;
+import water.DKV;
+import water.Key;
+
+/** A read-only view of the observation weights of one cross-validation fold,
+ *  computed on the fly from the fold assignment column.  The training view
+ *  keeps the weight of every row outside the fold and zeroes the fold's own
+ *  rows; the holdout view does the opposite.  All fold models can then share
+ *  the training frame's data with no per-fold weight columns materialized.
+ *
+ *  <p>Row {@code r} belongs to fold {@code fold.at8(r) % nfolds}, like the
+ *  materialized weights used to.  Missing observation weights stay missing.
+ */
+public class FoldWeightVec extends WrappedVec {
+  /** Optional observation weights; null means all 1s. */
+  final Key<Vec> _weightsKey;
+  final int _fold, _nfolds;
+  /** true selects the rows of the fold, false all the other rows. */
+  final boolean _holdout;
+  transient Vec _weights;
+
+  /** @param foldKey     fold assignment column
+   *  @param weightsKey  observation weights, or null for all 1s
+   *  @param fold        the fold, in [0,nfolds)
+   *  @param holdout     view the fold's rows (validation) or all other rows (training) */
+  public FoldWeightVec(Key<Vec> key, int rowLayout, Key<Vec> foldKey, Key<Vec> weightsKey, int fold, int nfolds, boolean holdout) {
+    super(key, rowLayout, foldKey);
+    _weightsKey = weightsKey;
+    _fold = fold;
+    _nfolds = nfolds;
+    _holdout = holdout;
+    DKV.put(this);
+  }
+
+  Vec weights() { return _weights != null ? _weights : (_weights = _weightsKey.get()); }
+
+  @Override public Chunk chunkForChunkIdx(int cidx) {
+    Chunk w = _weightsKey == null ? null : weights().chunkForChunkIdx(cidx);
+    return new FoldWeightChunk(masterVec().chunkForChunkIdx(cidx), w, this);
+  }
+
+  static class FoldWeightChunk extends Chunk {
+    final transient Chunk _foldc, _wc;
+    final transient int _fold, _nfolds;
+    final transient boolean _holdout;
+
+    FoldWeightChunk(Chunk foldc, Chunk wc, FoldWeightVec vec) {
+      _foldc = foldc; _wc = wc; set_len(foldc._len);
+      _start = foldc._start; _vec = vec; _cidx = foldc._cidx;
+      _fold = vec._fold; _nfolds = vec._nfolds; _holdout = vec._holdout;
+    }
+    private boolean selected(int idx) {
+      int f = (int)(_foldc.at8_impl(idx) % _nfolds);
+      assert f >= 0 && f < _nfolds;
+      return (f == _fold) == _holdout;
+    }
+    @Override protected double atd_impl(int idx) {
+      if( !selected(idx) ) return 0;
+      return _wc == null ? 1 : _wc.atd_impl(idx);
+    }
+    @Override protected long at8_impl(int idx) { return (long)atd_impl(idx); }
+    @Override protected boolean isNA_impl(int idx) { return _wc != null && selected(idx) && _wc.isNA_impl(idx); }
+    @Override boolean set_impl(int idx, long l)   { return false; }
+    @Override boolean set_impl(int idx, double d) { return false; }
+    @Override boolean set_impl(int idx, float f)  { return false; }
+    @Override boolean setNA_impl(int idx)         { return false; }
+    @Override public NewChunk inflate_impl(NewChunk nc) {
+      nc.set_sparseLen(nc.set_len(0));
+      for( int i=0; i< _len; i++ )
+        if( isNA(i) ) nc.addNA();
+        else nc.addNum(atd(i));
+      return nc;
+    }
+    @Override public AutoBuffer write_impl(AutoBuffer bb) { throw water.H2O.fail(); }
+    @Override public FoldWeightChunk read_impl(AutoBuffer bb) { throw water.H2O.fail(); }
+    @Override public boolean hasNA() { return _wc != null; }
+  }
+}
@@ -10,6 +10,7 @@ import water.H2O.H2OCountedCompleter;
 import water.parser.Categorical;
 import water.parser.BufferedString;
 import water.util.ArrayUtils;
+import water.util.QuantileSketch;
 
 import java.util.Arrays;
 
@@ -51,7 +52,10 @@ class RollupStats extends Iced {
   // precision numbers. It is still an estimate and makes no difference mathematically. It just gives tidier output in some
   // simple cases without penalty.
   volatile long[] _bins;
-  // Approximate data value closest to the Xth percentile
+  // Mergeable sketch of the non-NA values, built alongside the histogram;
+  // null for all-NA and UUID columns
+  QuantileSketch _sketch;
+  // Approximate data value closest to the Xth percentile, read off the sketch
   double[] _pctiles;
 
   public boolean hasHisto(){return _bins != null;}
@@ -329,20 +333,24 @@ class RollupStats extends Iced {
     final double _base, _stride; // Inputs
     final int _nbins;            // Inputs
     long[] _bins;                // Outputs
+    QuantileSketch _sketch;
     Histo( H2OCountedCompleter cmp, RollupStats rs, int nbins ) { super(cmp);_base = rs.h_base(); _stride = rs.h_stride(nbins); _nbins = nbins; }
     @Override public void map( Chunk c ) {
       _bins = new long[_nbins];
+      _sketch = new QuantileSketch();
       for( int i=c.nextNZ(-1); i< c._len; i=c.nextNZ(i) ) {
         double d = c.atd(i);
-        if( !Double.isNaN(d) ) _bins[idx(d)]++;
+        if( !Double.isNaN(d) ) { _bins[idx(d)]++; _sketch.add(d); }
       }
       // Sparse?  We skipped all the zeros; do them now
-      if( c.isSparse() )
+      if( c.isSparse() ) {
         _bins[idx(0.0)] += (c._len - c.sparseLen());
+        _sketch.add(0.0, c._len - c.sparseLen());
+      }
     }
     private int idx( double d ) { int idx = (int)((d-_base)/_stride); return Math.min(idx,_bins.length-1); }
 
-    @Override public void reduce( Histo h ) { ArrayUtils.add(_bins,h._bins); }
+    @Override public void reduce( Histo h ) { ArrayUtils.add(_bins,h._bins); _sketch.merge(h._sketch); }
     // Just toooo common to report always.  Drowning in multi-megabyte log file writes.
     @Override public boolean logVerbose() { return false; }
   }
@@ -454,6 +462,10 @@ class RollupStats extends Iced {
       assert rows > 0:"rows = " + rows + ", vec.len() = " + vec.length() + ", naCnt = " + rs._naCnt;
       if( span==0 ) {
         rs._bins = new long[]{rows};
+        rs._sketch = new QuantileSketch();
+        rs._sketch.add(rs._mins[0], rows);
+        rs._sketch.trim();
+        rs._pctiles = rs._sketch.quantiles(Vec.PERCENTILES);
         installResponse(nnn, rs);
         return;
       }
@@ -470,37 +482,12 @@ class RollupStats extends Iced {
         @Override public void callback(Histo histo) {
           assert ArrayUtils.sum(histo._bins) == rows;
           rs._bins = histo._bins;
-          // Compute percentiles from histogram
-          rs._pctiles = new double[Vec.PERCENTILES.length];
-          int j = 0;                 // Histogram bin number
-          int k = 0;                 // The next non-zero bin after j
-          long hsum = 0;             // Rolling histogram sum
-          double base = rs.h_base();
-          double stride = rs.h_stride();
-          double lastP = -1.0;       // any negative value to pass assert below first time
-          for (int i = 0; i < Vec.PERCENTILES.length; i++) {
-            final double P = Vec.PERCENTILES[i];
-            assert P>=0 && P<=1 && P>=lastP;   // rely on increasing percentiles here. If P has dup then strange but accept, hence >= not >
-            lastP = P;
-            double pdouble = 1.0 + P*(rows-1);   // following stats:::quantile.default type 7
-            long pint = (long) pdouble;          // 1-based into bin vector
-            double h = pdouble - pint;           // any fraction h to linearly interpolate between?
-            assert P!=1 || (h==0.0 && pint==rows);  // i.e. max
-            while (hsum < pint) hsum += rs._bins[j++];
-            // j overshot by 1 bin; we added _bins[j-1] and this goes from too low to either exactly right or too big
-            // pint now falls in bin j-1 (the ++ happened even when hsum==pint), so grab that bin value now
-            rs._pctiles[i] = base + stride * (j - 1);
-            if (h>0 && pint==hsum) {
-              // linearly interpolate between adjacent non-zero bins
-              //      i) pint is the last of (j-1)'s bin count (>1 when either duplicates exist in input, or stride makes dups at lower accuracy)
-              // AND ii) h>0 so we do need to find the next non-zero bin
-              if (k<j) k=j; // if j jumped over the k needed for the last P, catch k up to j
-                            // Saves potentially winding k forward over the same zero stretch many times
-              while (rs._bins[k]==0) k++;  // find the next non-zero bin
-              rs._pctiles[i] += h * stride * (k-j+1);
-            } // otherwise either h==0 and we know which bin, or fraction is between two positions that fall in the same bin
-            // this guarantees we are within one bin of the exact answer; i.e. within (max-min)/MAX_SIZE
-          }
+          assert histo._sketch.count() == rows;
+          // Percentiles from the sketch: exact while the column is small,
+          // within rank error sketch.rankError() otherwise
+          rs._sketch = histo._sketch;
+          rs._sketch.trim();
+          rs._pctiles = rs._sketch.quantiles(Vec.PERCENTILES);
           installResponse(nnn, rs);
         }
       },rs,nbins).dfork(vec); // intentionally using dfork here to increase priority level
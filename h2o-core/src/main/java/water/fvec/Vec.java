@@ -642,6 +642,13 @@ public class Vec extends Keyed<Vec> {
    *  @return A set of percentiles */
   public double[] pctiles() { return RollupStats.get(this, true)._pctiles;   }
 
+  /** A mergeable quantile sketch of the non-NA values, built in the same pass
+   *  as {@link #bins()} and answering any quantile within its
+   *  {@link QuantileSketch#rankError}.  The sketch is shared with the rollups
+   *  and must not be modified.
+   *  @return the sketch, or null for all-NA, String and UUID Vecs */
+  public QuantileSketch quantileSketch() { return RollupStats.get(this, true)._sketch; }
+
 
   /** Compute the roll-up stats as-needed */
   private RollupStats rollupStats() { return RollupStats.get(this); }
@@ -665,6 +672,11 @@ public class Vec extends Keyed<Vec> {
    *  @return Checksum of the Vec's content  */
   @Override protected long checksum_impl() { return rollupStats()._checksum;}
 
+  /** Checksum of the Vec's current content.  {@link #checksum} is computed
+   *  once per Vec object; this one follows later in-place writes.
+   *  @return Checksum of the Vec's content  */
+  public long contentChecksum() { return rollupStats()._checksum; }
+
 
   private static class SetMutating extends TAtomic<RollupStats> {
     @Override protected RollupStats atomic(RollupStats rs) {
@@ -1083,6 +1095,14 @@ public class Vec extends Keyed<Vec> {
     return new CategoricalWrappedVec(group().addVec(),_rowLayout,domain,this._key);
   }
 
+  /** Make a Vec adapting this categorical vector to the same domain as an
+   *  existing adaptation {@code like}, whose master Vec had the same domain
+   *  as this one.  Skips recomputing the domain mapping.
+   *  @return A Vec with the same mapping as {@code like} */
+  public CategoricalWrappedVec adaptTo( CategoricalWrappedVec like ) {
+    return new CategoricalWrappedVec(group().addVec(),_rowLayout,like,this._key);
+  }
+
   /** Class representing the group of vectors.
    *
    *  Vectors from the same group have same distribution of chunks among nodes.
@@ -0,0 +1,217 @@
+package water.util;
+
+import water.Iced;
+
+import java.util.Arrays;
+
+/** A one-pass, mergeable quantile sketch in the style of KLL (Karnin, Lang
+ *  and Liberty).  Values are kept in a stack of compactors; an item at level
+ *  {@code h} stands for {@code 2^h} original values.  When a level overflows
+ *  its capacity it is sorted and every other item is promoted to the next
+ *  level, so the sketch holds O(k) items no matter how many values were added.
+ *  Level capacities shrink geometrically towards the bottom, so most of the
+ *  space is spent on the heavy (high) levels.
+ *
+ *  Sketches built on different chunks are combined with {@link #merge}, which
+ *  makes it a natural fit for the reduce step of an MRTask.
+ *
+ *  Every compaction at level {@code h} shifts the rank of any query by 0 or
+ *  {@code +/-2^h}, with a random sign.  The sketch tracks the sum of squares of
+ *  these steps, and {@link #rankError} reports the Hoeffding bound that holds
+ *  with probability {@code 1-DELTA}.  It is capped by the sum of the steps
+ *  themselves, which is a hard bound.  Until the first compaction the sketch
+ *  is exact.  The coin flips come from a fixed seed, but sketches merged in
+ *  an MRTask reduce arrive in no fixed order, so answers can differ between
+ *  runs, always within the rank error.
+ */
+public class QuantileSketch extends Iced {
+  public static final int DEFAULT_K = 256;
+  private static final int MIN_CAPACITY = 8;
+  private static final double CAPACITY_DECAY = 2.0/3.0;
+  /** Failure probability of {@link #rankError} */
+  public static final double DELTA = 0.01;
+
+  private final int _k;         // Capacity of the top level
+  private double[][] _levels;   // _levels[h] holds items of weight 2^h
+  private int[] _sizes;         // Items in use per level
+  private long _n;              // Total weight (count of values added)
+  private long _err;            // Hard upper bound on the rank error: sum of 2^h over compactions
+  private double _var;          // Sum of 4^h over compactions, for the Hoeffding bound
+  private long _seed;           // State of the compaction coin flips
+
+  private transient int[] _caps;        // Level capacities for the current height
+  private transient double[] _sorted;   // Sorted view of all items, for queries
+  private transient long[] _cumw;       // Cumulative weight up to and including _sorted[i]
+
+  public QuantileSketch() { this(DEFAULT_K); }
+  public QuantileSketch(int k) {
+    assert k >= MIN_CAPACITY;
+    _k = k;
+    _levels = new double[1][MIN_CAPACITY];
+    _sizes = new int[1];
+  }
+
+  /** @return Count of values summarized by this sketch */
+  public long count() { return _n; }
+  /** @return Bound on the rank error of any query, holding with probability
+   *  {@code 1-DELTA}; 0 means exact */
+  public long rankError() {
+    long hoeffding = (long)Math.ceil(Math.sqrt(2*Math.log(2/DELTA)*_var));
+    return Math.min(_err, hoeffding);
+  }
+  /** @return Rank error bound as a fraction of {@link #count} */
+  public double epsilon() { return _n == 0 ? 0 : (double)rankError()/_n; }
+
+  /** Add one value. */
+  public void add(double x) {
+    append(0, x);
+    _n++;
+    if( _sizes[0] > capacity(0) ) compress();
+  }
+
+  /** Add {@code w} copies of one value; costs one item per set bit of {@code w}. */
+  public void add(double x, long w) {
+    assert w >= 0;
+    if( w == 0 ) return;
+    _n += w;
+    for( int h = 0; w != 0; h++, w >>>= 1 )
+      if( (w & 1) != 0 ) append(h, x);
+    compress();
+  }
+
+  /** Fold another sketch into this one. */
+  public void merge(QuantileSketch qs) {
+    if( qs == null || qs._n == 0 ) return;
+    for( int h = 0; h < qs._sizes.length; h++ )
+      for( int i = 0; i < qs._sizes[h]; i++ )
+        append(h, qs._levels[h][i]);
+    _n += qs._n;
+    _err += qs._err;
+    _var += qs._var;
+    _seed ^= qs._seed;
+    compress();
+  }
+
+  /** Drop the spare room in the level buffers, e.g. before the sketch is
+   *  stored in the K/V. */
+  public void trim() {
+    for( int h = 0; h < _levels.length; h++ )
+      if( _levels[h].length > _sizes[h] )
+        _levels[h] = Arrays.copyOf(_levels[h], Math.max(1,_sizes[h]));
+  }
+
+  /** @param r zero-based rank, clipped to [0,count-1]
+   *  @return The value whose rank is within {@link #rankError} of {@code r} */
+  public double valueAtRank(long r) {
+    if( _n == 0 ) return Double.NaN;
+    sortedView();
+    long rr = Math.max(0, Math.min(r, _n-1));
+    int lo = 0, hi = _cumw.length-1; // First item with cumulative weight > rr
+    while( lo < hi ) {
+      int mid = (lo+hi) >>> 1;
+      if( _cumw[mid] > rr ) hi = mid; else lo = mid+1;
+    }
+    return _sorted[lo];
+  }
+
+  /** Quantiles by linear interpolation between adjacent ranks (R's type 7).
+   *  @param probs probabilities in [0,1]
+   *  @return one value per probability */
+  public double[] quantiles(double[] probs) {
+    double[] res = new double[probs.length];
+    for( int i = 0; i < probs.length; i++ ) {
+      if( _n == 0 ) { res[i] = Double.NaN; continue; }
+      double pos = probs[i]*(_n-1);
+      long r = (long)pos;
+      double lo = valueAtRank(r);
+      double hi = r+1 < _n ? valueAtRank(r+1) : lo;
+      res[i] = lo == hi ? lo : lo + (pos-r)*(hi-lo);
+    }
+    return res;
+  }
+
+  // ----------------------
+  private void append(int h, double x) {
+    if( h >= _levels.length ) {
+      _levels = Arrays.copyOf(_levels, h+1);
+      _sizes = Arrays.copyOf(_sizes, h+1);
+      for( int l = 0; l <= h; l++ )
+        if( _levels[l] == null ) _levels[l] = new double[MIN_CAPACITY];
+      _caps = null;
+    }
+    if( _sizes[h] == _levels[h].length )
+      _levels[h] = Arrays.copyOf(_levels[h], _levels[h].length << 1);
+    _levels[h][_sizes[h]++] = x;
+    _sorted = null;
+  }
+
+  private int capacity(int h) {
+    if( _caps == null || _caps.length != _levels.length ) {
+      int height = _levels.length;
+      _caps = new int[height];
+      for( int l = 0; l < height; l++ )
+        _caps[l] = Math.max(MIN_CAPACITY, (int)Math.ceil(_k*Math.pow(CAPACITY_DECAY, height-1-l)));
+    }
+    return _caps[h];
+  }
+
+  // Compact overflowing levels, bottom-up, until every level fits
+  private void compress() {
+    for( int h = 0; h < _levels.length; h++ )
+      while( _sizes[h] > capacity(h) )
+        compact(h);
+  }
+
+  // Sort level h and promote every other item to h+1.  An odd leftover (the
+  // largest item) stays behind.  The offset is a fair coin flip, so the
+  // rounding errors of different compactions are independent and zero-mean.
+  private void compact(int h) {
+    assert h < 63;
+    double[] lvl = _levels[h];
+    int m = _sizes[h];
+    Arrays.sort(lvl, 0, m);
+    int even = m & ~1;
+    int off = coin();
+    for( int i = off; i < even; i += 2 )
+      append(h+1, lvl[i]);
+    lvl = _levels[h];           // append may have grown the level stack, not this level
+    if( (m & 1) != 0 ) lvl[0] = lvl[m-1];
+    _sizes[h] = m & 1;
+    _err += 1L << h;
+    _var += Math.scalb(1.0, 2*h);
+  }
+
+  // SplitMix64 step; any state (including 0) is fine
+  private int coin() {
+    long z = (_seed += 0x9E3779B97F4A7C15L);
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return (int)((z ^ (z >>> 31)) >>> 63);
+  }
+
+  private void sortedView() {
+    if( _sorted != null ) return;
+    int m = 0;
+    for( int s : _sizes ) m += s;
+    double[] vals = new double[m];
+    long[] wts = new long[m];
+    int len = 0;
+    for( int h = 0; h < _levels.length; h++ ) {
+      // Merge the sorted level h into the sorted prefix [0,len)
+      int sz = _sizes[h];
+      if( sz == 0 ) continue;
+      double[] lvl = Arrays.copyOf(_levels[h], sz);
+      Arrays.sort(lvl);
+      long w = 1L << h;
+      int i = len-1, j = sz-1, k = len+sz-1;
+      while( j >= 0 ) {
+        if( i >= 0 && vals[i] > lvl[j] ) { vals[k] = vals[i]; wts[k--] = wts[i--]; }
+        else                             { vals[k] = lvl[j];  wts[k--] = w; j--; }
+      }
+      len += sz;
+    }
+    for( int i = 1; i < m; i++ ) wts[i] += wts[i-1];
+    _cumw = wts;
+    _sorted = vals;
+  }
+}
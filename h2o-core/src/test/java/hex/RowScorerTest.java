@@ -0,0 +1,138 @@
+package hex;
+
+import org.junit.*;
+import water.*;
+import water.exceptions.H2OServiceUnavailableException;
+import water.fvec.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RowScorerTest extends TestUtil {
+
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  // Binomial classifier on a categorical "cat" and a numeric "x"; P(1) grows with the level index and x
+  public static class CatModel extends Model {
+    public CatModel( Key key ) { super(key,new CParms(),new COutput()); }
+    @Override protected double[] score0(double data[/*ncols*/], double preds[/*nclasses+1*/]) {
+      double p = (Double.isNaN(data[0]) ? 0 : data[0] + 1) * .1 + (Double.isNaN(data[1]) ? 0 : data[1]) * .01;
+      preds[2] = Math.min(p, 1);
+      preds[1] = 1 - preds[2];
+      return preds;
+    }
+    @Override public ModelMetrics.MetricBuilder makeMetricBuilder(String[] domain) { throw H2O.unimpl(); }
+    public static class CParms extends Model.Parameters { }
+    public static class COutput extends Model.Output {
+      COutput() {
+        _isSupervised = true;
+        _names = new String[]{"cat","x","y"};
+        _domains = new String[][]{{"a","b"}, null, {"0","1"}};
+        _status = Job.JobState.DONE;
+      }
+    }
+  }
+
+  // Sleeps on every row, counting the rows it scored
+  private static class SlowModel extends CatModel {
+    static final AtomicInteger SCORED = new AtomicInteger();
+    SlowModel( Key key ) { super(key); }
+    @Override protected double[] score0(double data[/*ncols*/], double preds[/*nclasses+1*/]) {
+      SCORED.incrementAndGet();
+      try { Thread.sleep(20); } catch( InterruptedException ie ) { Thread.currentThread().interrupt(); }
+      return super.score0(data, preds);
+    }
+  }
+
+  // Inline rows get the same names, levels and predictions as bulk scoring of the same rows
+  @Test public void testMatchesBulkScoring() {
+    Model m = new CatModel(Key.make());
+    Frame fr = null, preds = null;
+    try {
+      DKV.put(m);
+      // Columns in another order, one the model does not use, unseen levels "c" and "d", missing values
+      String[] columns = {"x", "cat", "extra"};
+      String[][] rows = {{"15","a","z"}, {"20","c","z"}, {"NA","d","z"}, {"3","b","z"}, {"7","NA","z"}};
+      RowScorer.Result res = RowScorer.score(m._key, columns, rows, 10000);
+
+      // The same rows as a parsed frame: levels of the column in sorted order
+      Vec cat = vec(new String[]{"a","b","c","d"}, 0, 2, 3, 1, 0);
+      cat.set(4, Double.NaN);
+      Vec x = cat.makeZero();
+      double[] xs = {15, 20, Double.NaN, 3, 7};
+      for( int r = 0; r < xs.length; r++ ) x.set(r, xs[r]);
+      fr = new Frame(Key.make(), new String[]{"cat","x"}, new Vec[]{cat, x});
+      DKV.put(fr);
+      preds = m.score(fr);
+
+      Assert.assertArrayEquals(new String[]{"predict","p0","p1"}, res._names);
+      Assert.assertArrayEquals(preds.names(), res._names);
+      Assert.assertEquals(rows.length, res._preds.length);
+      for( int r = 0; r < rows.length; r++ ) {
+        for( int c = 0; c < preds.numCols(); c++ )
+          Assert.assertEquals("row " + r + ", column " + c, preds.vec(c).at(r), res._preds[r][c], 0);
+        Assert.assertEquals(preds.vec(0).domain()[(int)preds.vec(0).at8(r)], res._labels[r]);
+      }
+      // Unseen levels go past the end of the training domain rather than becoming missing
+      Assert.assertEquals(.5, res._preds[1][2], 1e-12);
+      Assert.assertEquals(.4, res._preds[2][2], 1e-12);
+      Assert.assertEquals(1, res._stats.count());
+      Assert.assertEquals(rows.length, res._stats.rows());
+    } finally {
+      m.remove();
+      if( fr != null ) fr.delete();
+      if( preds != null ) preds.delete();
+    }
+  }
+
+  // A timed-out request is reported as busy, and its rows stop being scored
+  @Test public void testTimeout() throws InterruptedException {
+    Model m = new SlowModel(Key.make());
+    try {
+      DKV.put(m);
+      String[][] rows = new String[100][];
+      for( int r = 0; r < rows.length; r++ ) rows[r] = new String[]{"a", Integer.toString(r)};
+      SlowModel.SCORED.set(0);
+      try {
+        RowScorer.score(m._key, new String[]{"cat","x"}, rows, 50);
+        Assert.fail("Expected the request to time out");
+      } catch( H2OServiceUnavailableException expected ) {
+        Assert.assertTrue(expected.getMessage().contains("did not finish"));
+      }
+      Thread.sleep(200);
+      int scored = SlowModel.SCORED.get();
+      Thread.sleep(200);
+      Assert.assertEquals("Scoring went on after the timeout", scored, SlowModel.SCORED.get());
+      Assert.assertTrue(scored < rows.length);
+      // The timed-out request is in the latency statistics
+      RowScorer.LatencyStats stats = RowScorer.stats(m._key);
+      Assert.assertEquals(1, stats.count());
+      Assert.assertEquals(1, stats.failed());
+      Assert.assertEquals(0, stats.rows());
+      Assert.assertTrue(stats.percentileMillis(0.99) >= 50);
+    } finally {
+      m.remove();
+    }
+  }
+
+  // Only the most recently used models are kept, and a removed model is dropped
+  @Test public void testModelEviction() {
+    Model[] ms = new Model[2 * RowScorer.MAX_MODELS];
+    try {
+      // The first model is used again after every other one
+      for( int i = 0; i < ms.length; i++ ) {
+        ms[i] = new CatModel(Key.make());
+        DKV.put(ms[i]);
+        RowScorer.score(ms[i]._key, new String[]{"cat","x"}, new String[][]{{"a","1"}}, 10000);
+        if( i > 0 ) RowScorer.score(ms[0]._key, new String[]{"cat","x"}, new String[][]{{"b","2"}}, 10000);
+      }
+      Assert.assertEquals(ms.length, RowScorer.stats(ms[0]._key).count());
+      for( int i = 1; i < ms.length - RowScorer.MAX_MODELS + 1; i++ ) Assert.assertNull(RowScorer.stats(ms[i]._key));
+      for( int i = ms.length - RowScorer.MAX_MODELS + 1; i < ms.length; i++ ) Assert.assertNotNull(RowScorer.stats(ms[i]._key));
+      ms[0].remove();
+      Assert.assertNull(RowScorer.stats(ms[0]._key));
+      ms[0] = null;
+    } finally {
+      for( Model m : ms ) if( m != null ) m.remove();
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package hex;
+
+import org.junit.*;
+import water.*;
+import water.fvec.*;
+
+public class ScoringCacheTest extends TestUtil {
+
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  // Regression model predicting 2*x; trained on columns x and y (the response) unless told otherwise
+  public static class DoubleModel extends Model {
+    DoubleModel( Key key, Parameters p, Output o ) { super(key,p,o); }
+    @Override protected double[] score0(double data[/*ncols*/], double preds[/*nclasses+1*/]) {
+      preds[0] = 2 * data[0];
+      return preds;
+    }
+    @Override public ModelMetrics.MetricBuilder makeMetricBuilder(String[] domain) { return new ModelMetricsRegression.MetricBuilderRegression(); }
+    public static class DParms extends Model.Parameters { }
+    public static class DOutput extends Model.Output {
+      DOutput() { this(true, new String[]{"x","y"}, new String[2][]); }
+      DOutput(boolean supervised, String[] names, String[][] domains) {
+        _isSupervised = supervised;
+        _names = names;
+        _domains = domains;
+        _status = Job.JobState.DONE;
+      }
+    }
+  }
+
+  // Numeric Vec with one chunk per array of values
+  private static Vec chunked(double[]... chks) {
+    Key k = Vec.VectorGroup.VG_LEN1.addVec();
+    Futures fs = new Futures();
+    AppendableVec avec = new AppendableVec(k,Vec.T_NUM);
+    for( int c = 0; c < chks.length; c++ ) {
+      NewChunk nc = new NewChunk(avec, c);
+      for( double d : chks[c] ) nc.addNum(d);
+      nc.close(c, fs);
+    }
+    Vec vec = avec.layout_and_close(fs);
+    fs.blockForPending();
+    return vec;
+  }
+
+  private static Frame keyed(String name, Vec v) {
+    Frame fr = new Frame(Key.make(), new String[]{name}, new Vec[]{v});
+    DKV.put(fr);
+    return fr;
+  }
+
+  private static ModelMetrics.MetricBuilderState metricState(Model m, Frame fr) {
+    return DKV.getGet(ModelMetrics.MetricBuilderState.buildKey(m._key, fr._key));
+  }
+
+  // Domains with colliding hash codes must not share an adaptation plan
+  @Test public void testPlanDomains() {
+    Model am = new DoubleModel(Key.make(), new DoubleModel.DParms(),
+                               new DoubleModel.DOutput(false, new String[]{"cat"}, new String[][]{{"Aa","BB"}}));
+    Frame tst1 = new Frame(), tst2 = new Frame(), adapt1 = null, adapt2 = null;
+    try {
+      tst1.add("cat", vec(new String[]{"Aa"},0,0));
+      tst2.add("cat", vec(new String[]{"BB"},0,0));
+      String sig = ScoringCache.signature(tst1) + "-m";
+      Assert.assertEquals(sig, ScoringCache.signature(tst2) + "-m");
+
+      adapt1 = new Frame(tst1);
+      am.adaptTestForTrain(adapt1, true, false);
+      Assert.assertEquals(0, adapt1.vec("cat").at(0), 0);
+      Assert.assertNotNull(ScoringCache.getPlan(am, sig, tst1));  // Same frame layout: hit
+      Assert.assertNull(ScoringCache.getPlan(am, sig, tst2));     // Same signature, other levels: miss
+
+      adapt2 = new Frame(tst2);
+      am.adaptTestForTrain(adapt2, true, false);
+      Assert.assertEquals(1, adapt2.vec("cat").at(0), 0);
+    } finally {
+      ScoringCache.invalidate(am._key);
+      if( adapt1 != null ) Model.cleanup_adapt(adapt1, tst1);
+      if( adapt2 != null ) Model.cleanup_adapt(adapt2, tst2);
+      tst1.remove();
+      tst2.remove();
+    }
+  }
+
+  @Test public void testScoredPredictions() {
+    Model m = new DoubleModel(Key.make(), new DoubleModel.DParms(), new DoubleModel.DOutput());
+    Frame fr = null, preds = null, again = null;
+    try {
+      fr = keyed("x", chunked(new double[]{1,2,3}));
+      preds = m.score(fr);
+      Assert.assertEquals(6, preds.vec(0).at(2), 0);
+      // Unchanged model and frame: the earlier predictions are copied
+      again = ScoringCache.getScored(m, fr, null);
+      Assert.assertNotNull(again);
+      Assert.assertNotEquals(preds._key, again._key);
+      Assert.assertTrue(isBitIdentical(preds, again));
+      again.delete();
+      again = null;
+      // Changed frame: scored again
+      Vec x = fr.vec(0);
+      x.set(2, 4);
+      Assert.assertNull(ScoringCache.getScored(m, fr, null));
+      again = m.score(fr);
+      Assert.assertEquals(8, again.vec(0).at(2), 0);
+    } finally {
+      ScoringCache.invalidate(m._key);
+      if( fr != null ) fr.delete();
+      if( preds != null ) preds.delete();
+      if( again != null ) again.delete();
+    }
+  }
+
+  @Test public void testIncrementalMetrics() {
+    Model m = new DoubleModel(Key.make(), new DoubleModel.DParms(), new DoubleModel.DOutput());
+    Key<Frame> key = Key.make();
+    Frame fr = null, preds = null, grownPreds = null, full = null;
+    try {
+      fr = new Frame(key, new String[]{"x","y"}, new Vec[]{chunked(new double[]{1,2,3}), chunked(new double[]{2,4,7})});
+      DKV.put(fr);
+      // Plain scoring keeps no metric state
+      m.score(fr).delete();
+      Assert.assertNull(metricState(m, fr));
+      preds = m.score(fr, null, null, true);
+      Assert.assertEquals(3, metricState(m, fr)._mb._count);
+      Assert.assertEquals(1./3, ModelMetrics.getFromDKV(m, fr).mse(), 1e-12);
+
+      // Rows appended under the same key: the metrics of all rows come from the new chunk and the kept state
+      fr.vec(0).remove();
+      fr.vec(1).remove();
+      fr = new Frame(key, new String[]{"x","y"}, new Vec[]{chunked(new double[]{1,2,3}, new double[]{4,5}), chunked(new double[]{2,4,7}, new double[]{8,12})});
+      DKV.put(fr);
+      grownPreds = m.score(fr, null, preds, false);
+      Assert.assertEquals(1, ModelMetrics.getFromDKV(m, fr).mse(), 1e-12);
+      Assert.assertEquals(3, metricState(m, fr)._mb._count); // Not kept unless asked for
+      grownPreds.delete();
+      grownPreds = m.score(fr, null, preds, true);
+      Assert.assertEquals(5, metricState(m, fr)._mb._count);
+      ScoringCache.invalidate(m._key);
+      full = m.score(fr);
+      Assert.assertEquals(ModelMetrics.getFromDKV(m, fr).mse(), 1, 1e-12);
+      Assert.assertTrue(isBitIdentical(full, grownPreds));
+
+      // No state for the copied chunks: no metrics, rather than metrics of the new rows only
+      metricState(m, fr).remove();
+      for( Key k : m._output._model_metrics ) k.remove();
+      m._output.clearModelMetrics();
+      grownPreds.delete();
+      grownPreds = m.score(fr, null, preds, true);
+      Assert.assertNull(ModelMetrics.getFromDKV(m, fr));
+      Assert.assertNull(metricState(m, fr));
+    } finally {
+      ScoringCache.invalidate(m._key);
+      for( Key k : m._output._model_metrics ) k.remove();
+      DKV.remove(ModelMetrics.MetricBuilderState.buildKey(m._key, key));
+      if( fr != null ) fr.delete();
+      if( preds != null ) preds.delete();
+      if( grownPreds != null ) grownPreds.delete();
+      if( full != null ) full.delete();
+    }
+  }
+
+  @Test public void testIncrementalScore() {
+    Model m = new DoubleModel(Key.make(), new DoubleModel.DParms(), new DoubleModel.DOutput());
+    Frame fr = null, previous = null, preds = null;
+    try {
+      fr = keyed("x", chunked(new double[]{1,2,3}, new double[]{4,5}));
+      // The first chunk comes from the previous predictions, marked here by values the model never makes
+      previous = keyed("predict", chunked(new double[]{-1,-1,-1}));
+      preds = m.score(fr, null, previous);
+      Assert.assertEquals(5, preds.numRows());
+      for( int i = 0; i < 3; i++ )
+        Assert.assertEquals(-1, preds.vec(0).at(i), 0);
+      Assert.assertEquals(8, preds.vec(0).at(3), 0);
+      Assert.assertEquals(10, preds.vec(0).at(4), 0);
+
+      // Nothing in common with a different row layout: everything is scored
+      preds.delete();
+      previous.delete();
+      previous = keyed("predict", chunked(new double[]{-1,-1}));
+      preds = m.score(fr, null, previous);
+      for( int i = 0; i < 5; i++ )
+        Assert.assertEquals(2 * (i + 1), preds.vec(0).at(i), 0);
+    } finally {
+      ScoringCache.invalidate(m._key);
+      if( fr != null ) fr.delete();
+      if( previous != null ) previous.delete();
+      if( preds != null ) preds.delete();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package water.api;
+
+import hex.Model;
+import hex.RowScorerTest;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.DKV;
+import water.Key;
+import water.TestUtil;
+import water.exceptions.H2OIllegalArgumentException;
+
+public class ScoreRowsHandlerTest extends TestUtil {
+
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  private static ScoreRowsV3 request(Model m, String[] columns, String[][] rows) {
+    ScoreRowsV3 s = new ScoreRowsV3();
+    s.model = new KeyV3.ModelKeyV3(m._key);
+    s.columns = columns;
+    s.rows = rows;
+    return s;
+  }
+
+  @Test public void testScore() {
+    Model m = new RowScorerTest.CatModel(Key.make());
+    try {
+      DKV.put(m);
+      ScoreRowsHandler h = new ScoreRowsHandler();
+      ScoreRowsV3 s = h.score(3, request(m, new String[]{"cat","x"}, new String[][]{{"a","1"}, {"b","60"}}));
+      Assert.assertArrayEquals(new String[]{"predict","p0","p1"}, s.prediction_names);
+      Assert.assertArrayEquals(new String[]{"0","1"}, s.labels);
+      Assert.assertEquals(2, s.predictions.length);
+      Assert.assertEquals(.11, s.predictions[0][2], 1e-12);
+      Assert.assertEquals(.8, s.predictions[1][2], 1e-12);
+      Assert.assertEquals(1, s.requests);
+      Assert.assertFalse(Double.isNaN(s.latency_ms_p50));
+
+      // Latencies of the requests served so far
+      ScoreRowsV3 stats = new ScoreRowsV3();
+      stats.model = new KeyV3.ModelKeyV3(m._key);
+      stats = h.stats(3, stats);
+      Assert.assertEquals(1, stats.requests);
+      Assert.assertEquals(s.latency_ms_p99, stats.latency_ms_p99, 0);
+    } finally {
+      m.remove();
+    }
+  }
+
+  @Test public void testBadRequests() {
+    Model m = new RowScorerTest.CatModel(Key.make());
+    try {
+      DKV.put(m);
+      ScoreRowsHandler h = new ScoreRowsHandler();
+      try {
+        h.score(3, request(m, new String[]{"cat","x"}, null));
+        Assert.fail("Expected missing rows to be rejected");
+      } catch( H2OIllegalArgumentException expected ) { }
+      try {
+        ScoreRowsV3 s = request(m, new String[]{"cat","x"}, new String[][]{{"a","1"}});
+        s.timeout_ms = 0;
+        h.score(3, s);
+        Assert.fail("Expected a non-positive timeout to be rejected");
+      } catch( H2OIllegalArgumentException expected ) { }
+      try {
+        h.score(3, request(m, new String[]{"cat","x"}, new String[][]{{"a"}}));
+        Assert.fail("Expected a short row to be rejected");
+      } catch( H2OIllegalArgumentException expected ) { }
+      try {
+        h.score(3, request(m, new String[]{"cat","x"}, new String[][]{{"a","one"}}));
+        Assert.fail("Expected a non-numeric value to be rejected");
+      } catch( H2OIllegalArgumentException expected ) { }
+    } finally {
+      m.remove();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package water.fvec;
+
+import org.junit.*;
+
+import water.TestUtil;
+
+public class FoldWeightVecTest extends TestUtil {
+  @BeforeClass static public void setup() {  stall_till_cloudsize(1); }
+
+  @Test public void testFoldViews() {
+    Vec fold = null, w = null, train = null, valid = null, wtrain = null;
+    try {
+      fold = vec(0, 1, 2, 0, 1, 2, 3, 4);
+      w    = vec(5, 6, 7, 8, 9, 1, 2, 3);
+      // Fold ids wrap around modulo nfolds, like the materialized weights did
+      train = new FoldWeightVec(fold.group().addVec(), fold._rowLayout, fold._key, null, 0, 3, false);
+      valid = new FoldWeightVec(fold.group().addVec(), fold._rowLayout, fold._key, null, 0, 3, true);
+      wtrain = new FoldWeightVec(fold.group().addVec(), fold._rowLayout, fold._key, w._key, 1, 3, false);
+      double[] expTrain  = new double[]{0, 1, 1, 0, 1, 1, 0, 1};
+      double[] expWTrain = new double[]{5, 0, 7, 8, 0, 1, 2, 0};
+      for (int i = 0; i < fold.length(); ++i) {
+        Assert.assertEquals(expTrain[i], train.at(i), 0);
+        Assert.assertEquals(1 - expTrain[i], valid.at(i), 0);
+        Assert.assertEquals(expWTrain[i], wtrain.at(i), 0);
+      }
+      Assert.assertEquals(3, valid.mean() * valid.length(), 1e-10);
+      Assert.assertEquals(23, wtrain.mean() * wtrain.length(), 1e-10);
+    } finally {
+      if (train != null) train.remove();
+      if (valid != null) valid.remove();
+      if (wtrain != null) wtrain.remove();
+      if (fold != null) fold.remove();
+      if (w != null) w.remove();
+    }
+  }
+}
@@ -3,6 +3,7 @@ package water.fvec;
 import static org.junit.Assert.*;
 import org.junit.*;
 
+import java.util.Arrays;
 import java.util.Random;
 import water.Futures;
 import water.TestUtil;
@@ -71,4 +72,43 @@ public class VecStatsTest extends TestUtil {
     vec.remove();
 
   }
+
+  // Percentiles come from a sketch merged across chunks; mostly-zero chunks
+  // compress sparse, so the skipped zeros are counted too
+  @Test public void testPCTilesSketch() {
+    Vec v = null;
+    try {
+      Futures fs = new Futures();
+      AppendableVec vec = new AppendableVec(Vec.newKey(), Vec.T_NUM);
+      double[] vals = new double[4*50000];
+      int n = 0;
+      for( int i = 0; i < 4; i++ ) {
+        NewChunk chunk = new NewChunk(vec, i);
+        for( int r = 0; r < 50000; r++ ) {
+          if( r%100 == 1 ) { chunk.addNA(); continue; }
+          double d = r%10 == 0 ? i*50000+r : 0;
+          chunk.addNum(d);
+          vals[n++] = d;
+        }
+        chunk.close(i, fs);
+      }
+      v = vec.layout_and_close(fs);
+      fs.blockForPending();
+      assert v.nChunks() > 1;
+      vals = Arrays.copyOf(vals, n);
+      Arrays.sort(vals);
+
+      water.util.QuantileSketch qs = v.quantileSketch();
+      assertEquals(n, qs.count());
+      long err = qs.rankError()+1;
+      double[] pctiles = v.pctiles();
+      for( int i = 0; i < Vec.PERCENTILES.length; i++ ) {
+        long r = (long)(Vec.PERCENTILES[i]*(n-1));
+        double lo = vals[(int)Math.max(0, r-err)], hi = vals[(int)Math.min(n-1, r+1+err)];
+        assertTrue(Vec.PERCENTILES[i] + ": " + pctiles[i], lo <= pctiles[i] && pctiles[i] <= hi);
+      }
+    } finally {
+      if( v != null ) v.remove();
+    }
+  }
 }
@@ -5,7 +5,7 @@ class H2OKMeansEstimator(H2OEstimator):
   def __init__(self, model_id=None, k=None, max_iterations=None,standardize=None,init=None,seed=None,
                nfolds=None,fold_assignment=None, user_points=None,ignored_columns=None,
                score_each_iteration=None, keep_cross_validation_predictions=None,
-               ignore_const_cols=None,checkpoint=None):
+               ignore_const_cols=None,checkpoint=None,triangle_inequality=None,mini_batch_size=None):
     """
     Performs k-means clustering on an H2O dataset.
 
@@ -27,7 +27,8 @@ class H2OKMeansEstimator(H2OEstimator):
         A character string that selects the initial set of k cluster centers. Possible
         values are
             "Random": for random initialization,
-            "PlusPlus": for k-means plus initialization, or
+            "PlusPlus": for k-means plus initialization,
+            "PlusPlusParallel": for scalable k-means|| initialization, or
             "Furthest": for initialization at the furthest point from each successive
                         center.
 
@@ -43,6 +44,13 @@ class H2OKMeansEstimator(H2OEstimator):
       fold_assignment : str
         Cross-validation fold assignment scheme, if fold_column is not specified
         Must be "AUTO", "Random" or "Modulo"
+      triangle_inequality : bool, optional
+        Keep per-row distance bounds between iterations to skip the distance
+        computations of rows whose cluster cannot change. Uses two extra columns
+        of memory per row; ignored with mini-batches.
+      mini_batch_size : int, optional
+        Number of rows sampled per iteration for mini-batch k-means. The default 0
+        runs full passes over the data.
 
     :return: An instance of H2OClusteringModel.
     """
@@ -154,3 +162,18 @@ class H2OKMeansEstimator(H2OEstimator):
   def checkpoint(self, value):
     self._parms["checkpoint"] = value
 
+  @property
+  def triangle_inequality(self):
+    return self._parms["triangle_inequality"]
+
+  @triangle_inequality.setter
+  def triangle_inequality(self, value):
+    self._parms["triangle_inequality"] = value
+
+  @property
+  def mini_batch_size(self):
+    return self._parms["mini_batch_size"]
+
+  @mini_batch_size.setter
+  def mini_batch_size(self, value):
+    self._parms["mini_batch_size"] = value